@@ -95,16 +95,27 @@ public class BinaryBlob {
      * @return raw blob
      */
     public byte[] getRawBlob() {
+        return getRawBlob(null);
+    }
+
+    /**
+     * Returns a raw blob, compressed with the codec configured for the column it is stored in
+     *
+     * @param column the column, as <code>BeanClassName.fieldName</code>, or null for the default codec
+     * @return raw blob
+     */
+    public byte[] getRawBlob(String column) {
         if (rawBlob != null) {
             return rawBlob;
         }
         if (bytes == null) {
             return null;
         }
-        if (CodecFactory.isCompressionEnabled()) {
-            byte[] headerBytes = CodecFactory.getHeaderBytes();
+        CompressionCodec codec = CodecFactory.getCompressionCodec(column);
+        if (codec != null) {
+            byte[] headerBytes = CodecFactory.getHeaderBytes(column);
             try {
-                rawBlob = CodecFactory.getCompressionCodec().compressBytes(headerBytes, bytes);
+                rawBlob = codec.compressBytes(headerBytes, bytes);
             }
             catch (IOException ex) {
                 throw new RuntimeException(ex);
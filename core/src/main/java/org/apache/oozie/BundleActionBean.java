@@ -59,6 +59,9 @@ import org.json.simple.JSONObject;
 
         @NamedQuery(name = "GET_BUNDLE_WAITING_ACTIONS_OLDER_THAN", query = "select w.bundleActionId, w.bundleId, w.statusStr, w.coordId, w.coordName from BundleActionBean w where w.pending > 0 AND w.lastModifiedTimestamp <= :lastModifiedTime"),
 
+        @NamedQuery(name = "GET_BUNDLE_WAITING_ACTIONS_OLDER_THAN_PAGE", query = "select w.bundleActionId, w.bundleId, w.statusStr, w.coordId, w.coordName from BundleActionBean w where w.pending > 0 AND w.lastModifiedTimestamp <= :lastModifiedTime AND w.bundleActionId > :lastId order by w.bundleActionId"),
+        @NamedQuery(name = "GET_BUNDLE_WAITING_ACTIONS_OLDER_THAN_PAGE_IN_BUCKETS", query = "select w.bundleActionId, w.bundleId, w.statusStr, w.coordId, w.coordName from BundleActionBean w where w.pending > 0 AND w.lastModifiedTimestamp <= :lastModifiedTime AND w.bundleActionId > :lastId AND SUBSTRING(w.bundleActionId, 5, 3) IN (:buckets) order by w.bundleActionId"),
+
         @NamedQuery(name = "GET_BUNDLE_ACTION", query = "select OBJECT(w) from BundleActionBean w where w.bundleActionId = :bundleActionId"),
 
         @NamedQuery(name = "GET_BUNDLE_ACTIONS_COUNT", query = "select count(w) from BundleActionBean w"),
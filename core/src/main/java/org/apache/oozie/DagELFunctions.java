@@ -26,12 +26,10 @@ import org.apache.oozie.workflow.WorkflowInstance;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.util.ELEvaluator;
 import org.apache.oozie.util.PropertiesUtils;
-import org.apache.oozie.util.XConfiguration;
 import org.apache.oozie.util.ParamChecker;
 import org.apache.oozie.util.XmlUtils;
 import org.jdom.JDOMException;
 import java.io.IOException;
-import java.io.StringReader;
 import java.util.Properties;
 import java.util.Map;
 
@@ -74,8 +72,7 @@ public class DagELFunctions {
             }
         }
         try {
-            evaluator.setVariable(ACTION_PROTO_CONF,
-                                  new XConfiguration(new StringReader(workflow.getProtoActionConf())));
+            evaluator.setVariable(ACTION_PROTO_CONF, workflow.getProtoActionConfBlob().getConfiguration());
         }
         catch (IOException ex) {
             throw new RuntimeException("It should not happen", ex);
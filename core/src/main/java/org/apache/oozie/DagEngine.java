@@ -59,6 +59,7 @@ import org.apache.oozie.executor.jpa.JPAExecutorException;
 import org.apache.oozie.executor.jpa.WorkflowJobQueryExecutor;
 import org.apache.oozie.executor.jpa.WorkflowJobQueryExecutor.WorkflowJobQuery;
 import org.apache.oozie.service.CallableQueueService;
+import org.apache.oozie.service.CallbackService;
 import org.apache.oozie.service.DagXLogInfoService;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.service.XLogService;
@@ -328,6 +329,11 @@ public class DagEngine extends BaseEngine {
         XLog.Info.get().clearParameter(XLogService.USER);
         XCallable<Void> command = null;
 
+        CallbackService callbackService = Services.get().get(CallbackService.class);
+        if (callbackService.isBatchEnabled()) {
+            callbackService.addCompletion(actionId, externalStatus);
+            return;
+        }
 		command = new CompletedActionXCommand(actionId, externalStatus,
 				actionData, HIGH_PRIORITY);
         if (!Services.get().get(CallableQueueService.class).queue(command)) {
@@ -21,18 +21,30 @@ package org.apache.oozie;
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Map;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.oozie.compression.CodecFactory;
 import org.apache.oozie.compression.CompressionCodec;
+import org.apache.oozie.compression.ConfigurationCodec;
+import org.apache.oozie.util.XConfiguration;
 
 /**
  * StringBlob to maintain compress and uncompressed data
+ * <p>
+ * When a configuration codec is enabled, blobs holding a configuration in XML are stored with it instead, and can be
+ * read back with {@link #getConfiguration()} without parsing XML.
  */
 public class StringBlob {
 
+    private static final String CONFIGURATION_TAG = "<configuration";
+
     private byte[] rawBlob;
     private String string;
+    private ConfigurationCodec configurationCodec;
+    private byte[] configurationData;
 
     /**
      * Construct string blob from compressed byte array
@@ -61,6 +73,8 @@ public class StringBlob {
     public void setString(String str) {
         this.string = str;
         this.rawBlob = null;
+        this.configurationCodec = null;
+        this.configurationData = null;
     }
 
     /**
@@ -76,6 +90,10 @@ public class StringBlob {
             return null;
         }
         try {
+            if (readConfigurationData()) {
+                string = configurationCodec.decode(configurationData).toXmlString(false);
+                return string;
+            }
             DataInputStream dais = new DataInputStream(new ByteArrayInputStream(rawBlob));
             CompressionCodec codec = CodecFactory.getDeCompressionCodec(dais);
             if (codec != null) {
@@ -94,22 +112,115 @@ public class StringBlob {
         return string;
     }
 
+    /**
+     * Get the configuration held by the blob. If the blob was stored with a configuration codec it is decoded
+     * directly, otherwise the XML string is parsed.
+     *
+     * @return a new configuration instance, or null if the blob is empty
+     * @throws IOException thrown if the configuration could not be read
+     */
+    public XConfiguration getConfiguration() throws IOException {
+        if (readConfigurationData()) {
+            return configurationCodec.decode(configurationData);
+        }
+        String str = getString();
+        return str == null ? null : new XConfiguration(new StringReader(str));
+    }
+
+    /**
+     * Get the raw value of a single property of the configuration held by the blob. If the blob was stored with a
+     * configuration codec, the other properties are not decoded.
+     *
+     * @param name the property name
+     * @return the raw value of the property, or null if it is not set
+     * @throws IOException thrown if the configuration could not be read
+     */
+    public String getConfigurationProperty(String name) throws IOException {
+        if (readConfigurationData()) {
+            return configurationCodec.get(configurationData, name);
+        }
+        XConfiguration conf = getConfiguration();
+        return conf == null ? null : conf.getRaw(name);
+    }
+
+    /**
+     * Read the header of the raw blob and, if it holds an encoded configuration, keep its uncompressed data.
+     *
+     * @return true if the raw blob holds an encoded configuration
+     * @throws IOException thrown if the raw blob could not be read
+     */
+    private boolean readConfigurationData() throws IOException {
+        if (configurationData != null) {
+            return true;
+        }
+        if (rawBlob == null) {
+            return false;
+        }
+        DataInputStream dais = new DataInputStream(new ByteArrayInputStream(rawBlob));
+        try {
+            Map<String, String> header = CodecFactory.readHeader(dais);
+            if (header == null) {
+                return false;
+            }
+            ConfigurationCodec codec = CodecFactory.getConfigurationCodec(header);
+            if (codec == null) {
+                return false;
+            }
+            CompressionCodec compressionCodec = CodecFactory.getDeCompressionCodec(header);
+            configurationData = compressionCodec != null ? compressionCodec.decompressToBytes(dais)
+                    : IOUtils.toByteArray(dais);
+            configurationCodec = codec;
+            return true;
+        }
+        finally {
+            dais.close();
+        }
+    }
+
     /**
      * Get raw blob
      *
      * @return raw blob
      */
     public byte[] getRawBlob() {
+        return getRawBlob(null);
+    }
+
+    /**
+     * Get raw blob, compressed with the codec configured for the column it is stored in
+     *
+     * @param column the column, as <code>BeanClassName.fieldName</code>, or null for the default codec
+     * @return raw blob
+     */
+    public byte[] getRawBlob(String column) {
         if (rawBlob != null) {
             return rawBlob;
         }
         if (string == null) {
             return null;
         }
-        if (CodecFactory.isCompressionEnabled()) {
-            byte[] bytes = CodecFactory.getHeaderBytes();
+        CompressionCodec codec = CodecFactory.getCompressionCodec(column);
+        if (CodecFactory.isConfigurationCodecEnabled() && isConfiguration(string)) {
             try {
-                rawBlob = CodecFactory.getCompressionCodec().compressString(bytes, string);
+                byte[] data = CodecFactory.getConfigurationCodec().encode(new XConfiguration(new StringReader(string)));
+                byte[] header = CodecFactory.getConfigurationHeaderBytes(column);
+                if (codec != null) {
+                    rawBlob = codec.compressBytes(header, data);
+                }
+                else {
+                    rawBlob = Arrays.copyOf(header, header.length + data.length);
+                    System.arraycopy(data, 0, rawBlob, header.length, data.length);
+                }
+                return rawBlob;
+            }
+            catch (IOException ex) {
+                // not a valid configuration after all, stored as a string
+            }
+        }
+        if (codec != null) {
+            byte[] bytes = CodecFactory.getHeaderBytes(column);
+            try {
+                rawBlob = codec.compressString(bytes, string);
             }
             catch (IOException ex) {
                 throw new RuntimeException(ex);
@@ -121,4 +232,34 @@ public class StringBlob {
         return rawBlob;
     }
 
+    /**
+     * Check whether a string is a configuration in XML, looking only at its root element.
+     *
+     * @param str the string to check
+     * @return true if the root element of the string is a configuration
+     */
+    static boolean isConfiguration(String str) {
+        int pos = skipWhitespace(str, 0);
+        if (str.startsWith("<?xml", pos)) {
+            int end = str.indexOf("?>", pos);
+            if (end < 0) {
+                return false;
+            }
+            pos = skipWhitespace(str, end + 2);
+        }
+        if (!str.startsWith(CONFIGURATION_TAG, pos)) {
+            return false;
+        }
+        pos += CONFIGURATION_TAG.length();
+        return pos < str.length() && (str.charAt(pos) == '>' || str.charAt(pos) == '/'
+                || Character.isWhitespace(str.charAt(pos)));
+    }
+
+    private static int skipWhitespace(String str, int pos) {
+        while (pos < str.length() && Character.isWhitespace(str.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
 }
@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie;
+
+import org.apache.oozie.util.DateUtils;
+import org.apache.openjpa.persistence.jdbc.Index;
+import org.apache.openjpa.persistence.jdbc.Strategy;
+
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * Content addressed entry of the workflow definition store.
+ * <p>
+ * The id is the SHA-256 digest of the serialized data, a workflow definition or an immutable workflow job
+ * configuration, so identical workflows submitted many times share a single row.
+ */
+@Entity
+@NamedQueries({
+
+    @NamedQuery(name = "UPDATE_WORKFLOW_DEFINITION_LAST_USED", query = "update WorkflowDefinitionBean w set w.lastUsedTimestamp = :lastUsedTime where w.id = :id and w.lastUsedTimestamp < :lastUsedTime"),
+
+    @NamedQuery(name = "DELETE_WORKFLOW_DEFINITIONS_UNUSED", query = "delete from WorkflowDefinitionBean w where w.lastUsedTimestamp < :lastUsedTime"),
+
+    @NamedQuery(name = "GET_WORKFLOW_OLDEST_CREATED_TIME", query = "select min(w.createdTimestamp) from WorkflowJobBean w") })
+@Table(name = "WF_DEFINITIONS")
+public class WorkflowDefinitionBean {
+
+    @Id
+    private String id;
+
+    @Basic
+    @Column(name = "created_time")
+    private Timestamp createdTimestamp = null;
+
+    @Basic
+    @Index
+    @Column(name = "last_used_time")
+    private Timestamp lastUsedTimestamp = null;
+
+    @Basic
+    @Column(name = "data")
+    @Lob
+    @Strategy("org.apache.oozie.executor.jpa.BinaryBlobValueHandler")
+    private BinaryBlob data;
+
+    public WorkflowDefinitionBean() {
+    }
+
+    public WorkflowDefinitionBean(String id, byte[] data) {
+        this.id = id;
+        this.data = new BinaryBlob(data, true);
+        Date now = new Date();
+        this.createdTimestamp = DateUtils.convertDateToTimestamp(now);
+        this.lastUsedTimestamp = DateUtils.convertDateToTimestamp(now);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Date getCreatedTime() {
+        return DateUtils.toDate(createdTimestamp);
+    }
+
+    public void setCreatedTime(Date createdTime) {
+        this.createdTimestamp = DateUtils.convertDateToTimestamp(createdTime);
+    }
+
+    public Date getLastUsedTime() {
+        return DateUtils.toDate(lastUsedTimestamp);
+    }
+
+    public void setLastUsedTime(Date lastUsedTime) {
+        this.lastUsedTimestamp = DateUtils.convertDateToTimestamp(lastUsedTime);
+    }
+
+    public byte[] getData() {
+        return data == null ? null : data.getBytes();
+    }
+
+    public BinaryBlob getDataBlob() {
+        return data;
+    }
+
+    public void setDataBlob(BinaryBlob data) {
+        this.data = data;
+    }
+
+}
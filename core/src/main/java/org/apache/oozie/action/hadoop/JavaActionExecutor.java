@@ -1321,7 +1321,7 @@ public class JavaActionExecutor extends ActionExecutor {
         CredentialsProperties credProp = null;
         String workflowXml = ((WorkflowJobBean) context.getWorkflow()).getWorkflowInstance().getApp().getDefinition();
         XConfiguration wfjobConf = getWorkflowConf(context);
-        Element elementJob = XmlUtils.parseXml(workflowXml);
+        Element elementJob = XmlUtils.parseImmutableXml(workflowXml);
         Element credentials = elementJob.getChild("credentials", elementJob.getNamespace());
         if (credentials != null) {
             for (Element credential : (List<Element>) credentials.getChildren("credential", credentials.getNamespace())) {
@@ -1412,6 +1412,20 @@ public class JavaActionExecutor extends ActionExecutor {
         return Services.get().get(HadoopAccessorService.class).createJobClient(user, jobConf);
     }
 
+    /**
+     * Get a pooled job client object, to look up or kill jobs. The job client must be closed once it is not used
+     * anymore to release it to the pool.
+     *
+     * @param context
+     * @param jobConf
+     * @return JobClient
+     * @throws HadoopAccessorException
+     */
+    protected JobClient getJobClient(Context context, JobConf jobConf) throws HadoopAccessorException {
+        String user = context.getWorkflow().getUser();
+        return Services.get().get(HadoopAccessorService.class).getJobClient(user, jobConf);
+    }
+
     protected RunningJob getRunningJob(Context context, WorkflowAction action, JobClient jobClient) throws Exception{
         RunningJob runningJob = jobClient.getJob(JobID.forName(action.getExternalId()));
         return runningJob;
@@ -1432,10 +1446,10 @@ public class JavaActionExecutor extends ActionExecutor {
         boolean exception = false;
         LogUtils.setLogInfo(action);
         try {
-            Element actionXml = XmlUtils.parseXml(action.getConf());
+            Element actionXml = XmlUtils.parseImmutableXml(action.getConf());
             FileSystem actionFs = context.getAppFileSystem();
             JobConf jobConf = createBaseHadoopConf(context, actionXml);
-            jobClient = createJobClient(context, jobConf);
+            jobClient = getJobClient(context, jobConf);
             RunningJob runningJob = getRunningJob(context, action, jobClient);
             if (runningJob == null) {
                 context.setExecutionData(FAILED, null);
@@ -1581,10 +1595,7 @@ public class JavaActionExecutor extends ActionExecutor {
     }
 
     protected boolean getCaptureOutput(WorkflowAction action) throws JDOMException {
-        Element eConf = XmlUtils.parseXml(action.getConf());
-        Namespace ns = eConf.getNamespace();
-        Element captureOutput = eConf.getChild("capture-output", ns);
-        return captureOutput != null;
+        return XmlUtils.getRootChildrenText(action.getConf(), "capture-output").containsKey("capture-output");
     }
 
     @Override
@@ -1592,7 +1603,7 @@ public class JavaActionExecutor extends ActionExecutor {
         JobClient jobClient = null;
         boolean exception = false;
         try {
-            Element actionXml = XmlUtils.parseXml(action.getConf());
+            Element actionXml = XmlUtils.parseImmutableXml(action.getConf());
             final JobConf jobConf = createBaseHadoopConf(context, actionXml);
             WorkflowJob wfJob = context.getWorkflow();
             Configuration conf = null;
@@ -1611,7 +1622,7 @@ public class JavaActionExecutor extends ActionExecutor {
                     return null;
                 }
             });
-            jobClient = createJobClient(context, jobConf);
+            jobClient = getJobClient(context, jobConf);
             RunningJob runningJob = getRunningJob(context, action, jobClient);
             if (runningJob != null) {
                 runningJob.killJob();
@@ -0,0 +1,164 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.action.hadoop;
+
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.oozie.WorkflowActionBean;
+import org.apache.oozie.action.ActionExecutor;
+import org.apache.oozie.service.ActionService;
+import org.apache.oozie.service.HadoopAccessorService;
+import org.apache.oozie.service.InstrumentationService;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.service.UserGroupInformationService;
+import org.apache.oozie.util.XLog;
+
+/**
+ * Looks up the status of the launcher jobs of running actions in bulk, to only run the full
+ * {@link JavaActionExecutor#check} of the actions whose launcher job completed.
+ * <p>
+ * The actions are grouped by job tracker, and the jobs not complete yet on each job tracker are listed with a single
+ * call per run, filtered by state on the job tracker. The listing is done as the Oozie server user, or as the
+ * configured poll user, which must be able to see the jobs of all users. An action is returned for a full check if it
+ * is not a launcher based action, if its launcher job is not listed as running, if the listing of its job tracker
+ * failed, or if it was not fully checked for longer than the maximum skip time.
+ */
+public class LauncherStatusPoller {
+
+    public static final String INSTRUMENTATION_GROUP = "launcher.status.poller";
+    public static final String INSTR_POLLS_COUNTER = "polls";
+    public static final String INSTR_POLL_ERRORS_COUNTER = "poll.errors";
+    public static final String INSTR_SKIPPED_CHECKS_COUNTER = "skipped.checks";
+
+    private static final XLog LOG = XLog.getLog(LauncherStatusPoller.class);
+
+    private final int minBatchSize;
+    private final long maxSkipTime;
+    private final String user;
+    private final Map<String, Boolean> launcherTypes = new HashMap<String, Boolean>();
+
+    /**
+     * Create a launcher status poller.
+     *
+     * @param minBatchSize minimum number of actions on a job tracker to list its jobs, smaller groups are fully
+     *        checked.
+     * @param maxSkipTime time, in milliseconds, after which an action is fully checked even if its launcher job is
+     *        still running.
+     * @param user user the jobs are listed as, proxied by the Oozie server user, or <code>null</code> to list them as
+     *        the Oozie server user.
+     */
+    public LauncherStatusPoller(int minBatchSize, long maxSkipTime, String user) {
+        this.minBatchSize = Math.max(1, minBatchSize);
+        this.maxSkipTime = maxSkipTime;
+        this.user = user;
+    }
+
+    /**
+     * Return the ids of the actions that need a full check.
+     *
+     * @param actions running actions.
+     * @return the ids of the actions that need a full check.
+     */
+    public List<String> getActionsToCheck(List<WorkflowActionBean> actions) {
+        List<String> actionIds = new ArrayList<String>();
+        long now = System.currentTimeMillis();
+        Map<String, List<WorkflowActionBean>> actionsByTracker = new HashMap<String, List<WorkflowActionBean>>();
+        for (WorkflowActionBean action : actions) {
+            if (action.getExternalId() == null || action.getTrackerUri() == null || !isLauncherType(action)
+                    || action.getLastCheckTime() == null
+                    || now - action.getLastCheckTime().getTime() >= maxSkipTime) {
+                actionIds.add(action.getId());
+                continue;
+            }
+            List<WorkflowActionBean> trackerActions = actionsByTracker.get(action.getTrackerUri());
+            if (trackerActions == null) {
+                trackerActions = new ArrayList<WorkflowActionBean>();
+                actionsByTracker.put(action.getTrackerUri(), trackerActions);
+            }
+            trackerActions.add(action);
+        }
+        for (Map.Entry<String, List<WorkflowActionBean>> entry : actionsByTracker.entrySet()) {
+            List<WorkflowActionBean> trackerActions = entry.getValue();
+            Set<String> runningJobs = null;
+            if (trackerActions.size() >= minBatchSize) {
+                runningJobs = listRunningJobs(entry.getKey());
+            }
+            for (WorkflowActionBean action : trackerActions) {
+                if (runningJobs != null && runningJobs.contains(action.getExternalId())) {
+                    incrCounter(INSTR_SKIPPED_CHECKS_COUNTER);
+                }
+                else {
+                    actionIds.add(action.getId());
+                }
+            }
+        }
+        return actionIds;
+    }
+
+    /**
+     * Return the ids of the jobs not complete yet on a job tracker, or <code>null</code> if they could not be listed.
+     */
+    private Set<String> listRunningJobs(String jobTracker) {
+        try {
+            HadoopAccessorService has = Services.get().get(HadoopAccessorService.class);
+            final JobConf jobConf = has.createJobConf(jobTracker);
+            jobConf.set(JavaActionExecutor.HADOOP_JOB_TRACKER, jobTracker);
+            jobConf.set(JavaActionExecutor.HADOOP_JOB_TRACKER_2, jobTracker);
+            jobConf.set(JavaActionExecutor.HADOOP_YARN_RM, jobTracker);
+            UserGroupInformation ugi = (user == null) ? UserGroupInformation.getLoginUser()
+                    : Services.get().get(UserGroupInformationService.class).getProxyUser(user);
+            incrCounter(INSTR_POLLS_COUNTER);
+            return ugi.doAs(new PrivilegedExceptionAction<Set<String>>() {
+                @Override
+                public Set<String> run() throws Exception {
+                    return LauncherMainHadoopUtils.getRunningJobs(jobConf);
+                }
+            });
+        }
+        catch (Exception ex) {
+            incrCounter(INSTR_POLL_ERRORS_COUNTER);
+            LOG.warn("Could not list the running jobs on [{0}], the actions are fully checked, {1}", jobTracker,
+                    ex.getMessage(), ex);
+            return null;
+        }
+    }
+
+    private boolean isLauncherType(WorkflowActionBean action) {
+        Boolean launcherType = launcherTypes.get(action.getType());
+        if (launcherType == null) {
+            ActionExecutor executor = Services.get().get(ActionService.class).getExecutor(action.getType());
+            launcherType = executor instanceof JavaActionExecutor;
+            launcherTypes.put(action.getType(), launcherType);
+        }
+        return launcherType;
+    }
+
+    private void incrCounter(String name) {
+        InstrumentationService instrumentationService = Services.get().get(InstrumentationService.class);
+        if (instrumentationService != null) {
+            instrumentationService.get().incr(INSTRUMENTATION_GROUP, name, 1);
+        }
+    }
+}
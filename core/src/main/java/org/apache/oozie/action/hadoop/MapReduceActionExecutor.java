@@ -192,9 +192,9 @@ public class MapReduceActionExecutor extends JavaActionExecutor {
         boolean exception = false;
         try {
             if (action.getStatus() == WorkflowAction.Status.OK) {
-                Element actionXml = XmlUtils.parseXml(action.getConf());
+                Element actionXml = XmlUtils.parseImmutableXml(action.getConf());
                 JobConf jobConf = createBaseHadoopConf(context, actionXml);
-                jobClient = createJobClient(context, jobConf);
+                jobClient = getJobClient(context, jobConf);
                 RunningJob runningJob = jobClient.getJob(JobID.forName(action.getExternalChildIDs()));
                 if (runningJob == null) {
                     throw new ActionExecutorException(ActionExecutorException.ErrorType.FAILED, "MR002",
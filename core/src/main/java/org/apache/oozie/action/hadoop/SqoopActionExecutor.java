@@ -129,9 +129,9 @@ public class SqoopActionExecutor extends JavaActionExecutor {
         boolean exception = false;
         try {
             if (action.getStatus() == WorkflowAction.Status.OK) {
-                Element actionXml = XmlUtils.parseXml(action.getConf());
+                Element actionXml = XmlUtils.parseImmutableXml(action.getConf());
                 JobConf jobConf = createBaseHadoopConf(context, actionXml);
-                jobClient = createJobClient(context, jobConf);
+                jobClient = getJobClient(context, jobConf);
 
                 // Cumulative counters for all Sqoop mapreduce jobs
                 Counters counters = null;
@@ -38,6 +38,7 @@ import org.apache.oozie.executor.jpa.WorkflowJobsDeleteJPAExecutor;
 import org.apache.oozie.executor.jpa.WorkflowJobsGetForPurgeJPAExecutor;
 import org.apache.oozie.service.JPAService;
 import org.apache.oozie.service.Services;
+import org.apache.oozie.service.WorkflowDefinitionStoreService;
 import org.eclipse.jgit.util.StringUtils;
 
 import java.util.ArrayList;
@@ -65,6 +66,7 @@ public class PurgeXCommand extends XCommand<Void> {
     private int coordDel;
     private int coordActionDel;
     private int bundleDel;
+    private int definitionDel;
     private static final long DAY_IN_MS = 24 * 60 * 60 * 1000;
 
     public PurgeXCommand(int wfOlderThan, int coordOlderThan, int bundleOlderThan, int limit) {
@@ -183,8 +185,19 @@ public class PurgeXCommand extends XCommand<Void> {
             }
         }
 
-        LOG.info("ENDED Purge deleted [{0}] workflows, [{1}] coordinatorActions, [{2}] coordinators, [{3}] bundles",
-                wfDel, coordActionDel, coordDel, bundleDel);
+        // Purge workflow definitions no longer referenced by the remaining workflows
+        WorkflowDefinitionStoreService definitionStore = Services.get().get(WorkflowDefinitionStoreService.class);
+        if (definitionStore != null) {
+            try {
+                definitionDel = definitionStore.purgeUnused();
+            }
+            catch (JPAExecutorException je) {
+                throw new CommandException(je);
+            }
+        }
+
+        LOG.info("ENDED Purge deleted [{0}] workflows, [{1}] coordinatorActions, [{2}] coordinators, [{3}] bundles,"
+                + " [{4}] workflow definitions", wfDel, coordActionDel, coordDel, bundleDel, definitionDel);
         return null;
     }
 
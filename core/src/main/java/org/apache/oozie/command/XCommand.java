@@ -33,10 +33,10 @@ import org.apache.oozie.util.XCallable;
 import org.apache.oozie.util.XLog;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -346,7 +346,7 @@ public abstract class XCommand<T> implements XCallable<T> {
     protected void executeInterrupts() {
         CallableQueueService callableQueueService = Services.get().get(CallableQueueService.class);
         // getting all the list of interrupts to be executed
-        Set<XCallable<?>> callables = callableQueueService.checkInterrupts(this.getEntityKey());
+        Collection<XCallable<?>> callables = callableQueueService.checkInterrupts(this.getEntityKey());
 
         if (callables != null) {
             // executing the list of interrupts in the given order of insertion
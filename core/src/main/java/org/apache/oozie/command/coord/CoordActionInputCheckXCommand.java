@@ -19,7 +19,6 @@
 package org.apache.oozie.command.coord;
 
 import java.io.IOException;
-import java.io.StringReader;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -52,7 +51,6 @@ import org.apache.oozie.util.ELEvaluator;
 import org.apache.oozie.util.LogUtils;
 import org.apache.oozie.util.ParamChecker;
 import org.apache.oozie.util.StatusUtils;
-import org.apache.oozie.util.XConfiguration;
 import org.apache.oozie.util.XLog;
 import org.apache.oozie.util.XmlUtils;
 import org.jdom.Element;
@@ -110,7 +108,7 @@ public class CoordActionInputCheckXCommand extends CoordinatorXCommand<Void> {
         StringBuilder actionXml = new StringBuilder(coordAction.getActionXml());
         boolean isChangeInDependency = false;
         try {
-            Configuration actionConf = new XConfiguration(new StringReader(coordAction.getRunConf()));
+            Configuration actionConf = coordAction.getRunConfBlob().getConfiguration();
             Date now = new Date();
             if (coordJob.getExecutionOrder().equals(CoordinatorJobBean.Execution.LAST_ONLY)) {
                 Date nextNominalTime = CoordCommandUtils.computeNextNominalTime(coordJob, coordAction);
@@ -480,9 +480,33 @@ public class CoordCommandUtils {
      * @return one materialized action for specific nominal time
      * @throws Exception
      */
-    @SuppressWarnings("unchecked")
     public static String materializeOneInstance(String jobId, boolean dryrun, Element eAction, Date nominalTime,
             Date actualTime, int instanceCount, Configuration conf, CoordinatorActionBean actionBean) throws Exception {
+        return materializeOneInstance(jobId, dryrun, eAction, nominalTime, actualTime, instanceCount, conf,
+                XmlUtils.prettyPrint(conf).toString(), actionBean);
+    }
+
+    /**
+     * Materialize one instance like {@link #materializeOneInstance(String, boolean, Element, Date, Date, int,
+     * Configuration, CoordinatorActionBean)}, with the job configuration already serialized, see
+     * {@link CoordMaterializeTemplate}. The action element is materialized in place.
+     *
+     * @param jobId coordinator job id
+     * @param dryrun true if it is dryrun
+     * @param eAction frequency unexploded-job
+     * @param nominalTime materialization time
+     * @param actualTime action actual time
+     * @param instanceCount instance numbers
+     * @param conf job configuration
+     * @param confXml job configuration XML
+     * @param actionBean CoordinatorActionBean to materialize
+     * @return one materialized action for specific nominal time
+     * @throws Exception
+     */
+    @SuppressWarnings("unchecked")
+    public static String materializeOneInstance(String jobId, boolean dryrun, Element eAction, Date nominalTime,
+            Date actualTime, int instanceCount, Configuration conf, String confXml, CoordinatorActionBean actionBean)
+            throws Exception {
         String actionId = Services.get().get(UUIDService.class).generateChildId(jobId, instanceCount + "");
         SyncCoordAction appInst = new SyncCoordAction();
         appInst.setActionId(actionId);
@@ -522,8 +546,8 @@ public class CoordCommandUtils {
         eAction.setAttribute("action-actual-time", DateUtils.formatDateOozieTZ(actualTime));
 
         // Setting up action bean
-        actionBean.setCreatedConf(XmlUtils.prettyPrint(conf).toString());
-        actionBean.setRunConf(XmlUtils.prettyPrint(conf).toString());
+        actionBean.setCreatedConf(confXml);
+        actionBean.setRunConf(confXml);
         actionBean.setCreatedTime(actualTime);
         actionBean.setJobId(jobId);
         actionBean.setId(actionId);
@@ -873,8 +897,7 @@ public class CoordCommandUtils {
             URISyntaxException, URIHandlerException {
         URI uri = new URI(sPath);
         URIHandlerService service = Services.get().get(URIHandlerService.class);
-        URIHandler handler = service.getURIHandler(uri);
-        return handler.exists(uri, actionConf, user);
+        return service.exists(uri, actionConf, user);
     }
 
     public static boolean pathExists(String sPath, Configuration actionConf) throws IOException, URISyntaxException,
@@ -883,4 +906,26 @@ public class CoordCommandUtils {
         return pathExists(sPath, actionConf, user);
     }
 
+    /**
+     * Check if paths exist, see {@link URIHandlerService#exists(List, Configuration, String, boolean)}.
+     *
+     * @param paths paths to check.
+     * @param actionConf action configuration.
+     * @param user name of the user the paths should be accessed as.
+     * @param stopOnFirstMissing if true, the paths after the first missing one are reported missing without being
+     *        checked.
+     * @return for each path, true if it exists.
+     * @throws URISyntaxException thrown if a path is not a valid URI.
+     * @throws URIHandlerException thrown if a path could not be checked.
+     */
+    public static boolean[] pathsExist(List<String> paths, Configuration actionConf, String user,
+            boolean stopOnFirstMissing) throws URISyntaxException, URIHandlerException {
+        List<URI> uris = new ArrayList<URI>(paths.size());
+        for (String path : paths) {
+            uris.add(new URI(path));
+        }
+        URIHandlerService service = Services.get().get(URIHandlerService.class);
+        return service.exists(uris, actionConf, user, stopOnFirstMissing);
+    }
+
 }
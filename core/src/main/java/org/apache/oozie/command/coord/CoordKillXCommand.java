@@ -181,6 +181,7 @@ public class CoordKillXCommand extends KillTransitionXCommand {
     public void performWrites() throws CommandException {
         try {
             BatchQueryExecutor.getInstance().executeBatchInsertUpdateDelete(null, updateList, null);
+            CoordMaterializeTemplate.invalidate(jobId);
         }
         catch (JPAExecutorException e) {
             throw new CommandException(e);
@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.command.coord;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.CoordinatorJobBean;
+import org.apache.oozie.ErrorCode;
+import org.apache.oozie.command.CommandException;
+import org.apache.oozie.coord.TimeUnit;
+import org.apache.oozie.service.Service;
+import org.apache.oozie.util.XConfiguration;
+import org.apache.oozie.util.XmlUtils;
+import org.jdom.Element;
+import org.jdom.JDOMException;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Parsed form of a coordinator job, used to materialize its actions.
+ * <p>
+ * The job XML and configuration are parsed once per coordinator job and kept in a process wide bounded cache,
+ * materializing an action only clones the parsed job element. A template is used as long as the job XML and configuration
+ * it was built from are the ones of the job, so it is rebuilt once the job is updated. The cache is reset by
+ * {@link org.apache.oozie.service.CoordMaterializeTriggerService} and the templates of updated or killed jobs are
+ * invalidated. Templates must not be modified.
+ */
+public class CoordMaterializeTemplate {
+
+    /**
+     * Maximum number of coordinator job templates cached.
+     */
+    public static final String CONF_CACHE_SIZE = Service.CONF_PREFIX + "coord.materialize.template.cache.size";
+
+    /**
+     * Default maximum number of cached coordinator job templates.
+     */
+    public static final int DEFAULT_SIZE = 1000;
+
+    private static volatile Cache<String, CoordMaterializeTemplate> templates = newCache(DEFAULT_SIZE);
+
+    private final String jobXml;
+    private final String jobConf;
+    private final Element eJob;
+    private final Configuration conf;
+    private final String confXml;
+    private final TimeUnit endOfDuration;
+
+    private CoordMaterializeTemplate(String jobXml, String jobConf) throws CommandException, JDOMException {
+        this.jobXml = jobXml;
+        this.jobConf = jobConf;
+        try {
+            conf = new XConfiguration(new StringReader(jobConf));
+        }
+        catch (IOException ioe) {
+            throw new CommandException(ErrorCode.E1005, ioe.getMessage(), ioe);
+        }
+        eJob = XmlUtils.parseXml(jobXml);
+        confXml = XmlUtils.prettyPrint(conf).toString();
+        endOfDuration = TimeUnit.valueOf(eJob.getAttributeValue("end_of_duration"));
+    }
+
+    /**
+     * Return the template of a coordinator job, building it if it is not cached or if the job changed since it was built.
+     *
+     * @param job the coordinator job.
+     * @return the template of the job.
+     * @throws CommandException thrown if the job configuration could not be parsed.
+     * @throws JDOMException thrown if the job XML could not be parsed.
+     */
+    public static CoordMaterializeTemplate get(CoordinatorJobBean job) throws CommandException, JDOMException {
+        Cache<String, CoordMaterializeTemplate> cache = templates;
+        CoordMaterializeTemplate template = cache.getIfPresent(job.getId());
+        if (template == null || !template.jobXml.equals(job.getJobXml()) || !template.jobConf.equals(job.getConf())) {
+            template = new CoordMaterializeTemplate(job.getJobXml(), job.getConf());
+            cache.put(job.getId(), template);
+        }
+        return template;
+    }
+
+    /**
+     * Forget the template of a coordinator job, once the job is updated or killed.
+     *
+     * @param jobId the coordinator job id.
+     */
+    public static void invalidate(String jobId) {
+        templates.invalidate(jobId);
+    }
+
+    /**
+     * Replace the cache of templates with a new, empty, cache.
+     *
+     * @param size maximum number of cached templates.
+     */
+    public static void reset(int size) {
+        templates = newCache(Math.max(0, size));
+    }
+
+    private static Cache<String, CoordMaterializeTemplate> newCache(int size) {
+        return CacheBuilder.newBuilder().maximumSize(size).build();
+    }
+
+    @VisibleForTesting
+    static long size() {
+        return templates.size();
+    }
+
+    /**
+     * Return a new copy of the job element, to be materialized as an action.
+     *
+     * @return a copy of the job element.
+     */
+    public Element newActionElement() {
+        return (Element) eJob.clone();
+    }
+
+    /**
+     * Return the job configuration. It is shared by all the actions materialized from the template and must not be
+     * modified.
+     *
+     * @return the job configuration.
+     */
+    public Configuration getConf() {
+        return conf;
+    }
+
+    /**
+     * Return the job configuration as XML, the created and run configuration of the materialized actions.
+     *
+     * @return the job configuration XML.
+     */
+    public String getConfXml() {
+        return confXml;
+    }
+
+    public TimeUnit getEndOfDuration() {
+        return endOfDuration;
+    }
+}
@@ -54,14 +54,10 @@ import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.LogUtils;
 import org.apache.oozie.util.ParamChecker;
 import org.apache.oozie.util.StatusUtils;
-import org.apache.oozie.util.XConfiguration;
-import org.apache.oozie.util.XmlUtils;
 import org.apache.oozie.util.db.SLADbOperations;
 import org.jdom.Element;
 import org.jdom.JDOMException;
 
-import java.io.IOException;
-import java.io.StringReader;
 import java.sql.Timestamp;
 import java.util.Calendar;
 import java.util.Date;
@@ -391,22 +387,20 @@ public class CoordMaterializeTransitionXCommand extends MaterializeTransitionXCo
      */
     protected String materializeActions(boolean dryrun) throws Exception {
 
-        Configuration jobConf = null;
+        CoordMaterializeTemplate template;
         try {
-            jobConf = new XConfiguration(new StringReader(coordJob.getConf()));
+            template = CoordMaterializeTemplate.get(coordJob);
         }
-        catch (IOException ioe) {
-            LOG.warn("Configuration parse error. read from DB :" + coordJob.getConf(), ioe);
-            throw new CommandException(ErrorCode.E1005, ioe.getMessage(), ioe);
+        catch (CommandException ex) {
+            LOG.warn("Configuration parse error. read from DB :" + coordJob.getConf(), ex);
+            throw ex;
         }
-
-        String jobXml = coordJob.getJobXml();
-        Element eJob = XmlUtils.parseXml(jobXml);
+        Configuration jobConf = template.getConf();
         TimeZone appTz = DateUtils.getTimeZone(coordJob.getTimeZone());
 
         String frequency = coordJob.getFrequency();
         TimeUnit freqTU = TimeUnit.valueOf(coordJob.getTimeUnitStr());
-        TimeUnit endOfFlag = TimeUnit.valueOf(eJob.getAttributeValue("end_of_duration"));
+        TimeUnit endOfFlag = template.getEndOfDuration();
         Calendar start = Calendar.getInstance(appTz);
         start.setTime(startMatdTime);
         DateUtils.moveToEnd(start, endOfFlag);
@@ -484,11 +478,12 @@ public class CoordMaterializeTransitionXCommand extends MaterializeTransitionXCo
                 LOG.debug("Materializing action for time=" + DateUtils.formatDateOozieTZ(effStart.getTime())
                         + ", lastactionnumber=" + lastActionNumber + " timeout=" + timeout + " minutes");
                 Date actualTime = new Date();
-                action = CoordCommandUtils.materializeOneInstance(jobId, dryrun, (Element) eJob.clone(),
-                        nextTime, actualTime, lastActionNumber, jobConf, actionBean);
+                Element eAction = template.newActionElement();
+                action = CoordCommandUtils.materializeOneInstance(jobId, dryrun, eAction, nextTime, actualTime,
+                        lastActionNumber, jobConf, template.getConfXml(), actionBean);
                 actionBean.setTimeOut(timeout);
                 if (!dryrun) {
-                    storeToDB(actionBean, action, jobConf); // Storing to table
+                    storeToDB(actionBean, action, eAction, jobConf); // Storing to table
 
                 }
                 else {
@@ -526,17 +521,17 @@ public class CoordMaterializeTransitionXCommand extends MaterializeTransitionXCo
         }
     }
 
-    private void storeToDB(CoordinatorActionBean actionBean, String actionXml, Configuration jobConf) throws Exception {
+    private void storeToDB(CoordinatorActionBean actionBean, String actionXml, Element eAction, Configuration jobConf)
+            throws Exception {
         LOG.debug("In storeToDB() coord action id = " + actionBean.getId() + ", size of actionXml = "
                 + actionXml.length());
         actionBean.setActionXml(actionXml);
         insertList.add(actionBean);
-        writeActionSlaRegistration(actionXml, actionBean, jobConf);
+        writeActionSlaRegistration(eAction, actionBean, jobConf);
     }
 
-    private void writeActionSlaRegistration(String actionXml, CoordinatorActionBean actionBean, Configuration jobConf)
+    private void writeActionSlaRegistration(Element eAction, CoordinatorActionBean actionBean, Configuration jobConf)
             throws Exception {
-        Element eAction = XmlUtils.parseXml(actionXml);
         Element eSla = eAction.getChild("action", eAction.getNamespace()).getChild("info", eAction.getNamespace("sla"));
                 SLAEventBean slaEvent = SLADbOperations.createSlaRegistrationEvent(eSla, actionBean.getId(),
                                  SlaAppType.COORDINATOR_ACTION, coordJob.getUser(), coordJob.getGroup(), LOG);
@@ -255,7 +255,7 @@ public class CoordPushDependencyCheckXCommand extends CoordinatorXCommand<Void>
 
     private String resolveCoordConfiguration() throws CommandException {
         try {
-            Configuration actionConf = new XConfiguration(new StringReader(coordAction.getRunConf()));
+            Configuration actionConf = coordAction.getRunConfBlob().getConfiguration();
             StringBuilder actionXml = new StringBuilder(coordAction.getActionXml());
             String newActionXml = CoordActionInputCheckXCommand.resolveCoordConfiguration(actionXml, actionConf,
                     actionId, coordAction.getPullInputDependencies(), coordAction
@@ -33,6 +33,7 @@ import org.apache.oozie.command.CommandException;
 import org.apache.oozie.command.PreconditionException;
 import org.apache.oozie.command.StatusTransitXCommand;
 import org.apache.oozie.command.bundle.BundleStatusUpdateXCommand;
+import org.apache.oozie.coord.CoordActionStatusCounters;
 import org.apache.oozie.executor.jpa.CoordActionQueryExecutor;
 import org.apache.oozie.executor.jpa.CoordActionQueryExecutor.CoordActionQuery;
 import org.apache.oozie.executor.jpa.CoordJobQueryExecutor;
@@ -52,17 +53,31 @@ import org.apache.oozie.util.StatusUtils;
 public class CoordStatusTransitXCommand extends StatusTransitXCommand {
 
     private final String jobId;
+    private final boolean reloadActionStatus;
     private CoordinatorJobBean coordJob;
     int coordActionCount;
     private final Map<CoordinatorAction.Status, Integer> coordActionStatus = new HashMap<CoordinatorAction.Status, Integer>();
     boolean isPending = false;
+    private boolean actionStatusInMemory = false;
 
     final boolean backwardSupportForCoordStatus = Services.get().getConf()
             .getBoolean(StatusTransitService.CONF_BACKWARD_SUPPORT_FOR_COORD_STATUS, false);
 
     public CoordStatusTransitXCommand(String jobId) {
+        this(jobId, false);
+    }
+
+    /**
+     * Create the command.
+     *
+     * @param jobId coordinator job id
+     * @param reloadActionStatus if true and the coordinator action status counters are enabled, the counters of the
+     *        job are reloaded from the database
+     */
+    public CoordStatusTransitXCommand(String jobId, boolean reloadActionStatus) {
         super("coord_status_transit", "coord_status_transit", 0);
         this.jobId = jobId;
+        this.reloadActionStatus = reloadActionStatus;
     }
 
     @Override
@@ -74,26 +89,7 @@ public class CoordStatusTransitXCommand extends StatusTransitXCommand {
     protected void loadState() throws CommandException {
         try {
             coordJob = CoordJobQueryExecutor.getInstance().get(CoordJobQuery.GET_COORD_JOB, jobId);
-            List<CoordinatorActionBean> coordActionStatusList = CoordActionQueryExecutor.getInstance().getList(
-                    CoordActionQuery.GET_COORD_ACTIONS_STATUS_UNIGNORED, jobId);
-
-            long count = (Long) CoordActionQueryExecutor.getInstance().getSingleValue(
-                    CoordActionQuery.GET_COORD_ACTIONS_PENDING_COUNT, jobId);
-            if (count > 0) {
-                isPending = true;
-            }
-
-            for (CoordinatorAction coordAction : coordActionStatusList) {
-                int counter = 0;
-                if (coordActionStatus.containsKey(coordAction.getStatus())) {
-                    counter = getStatusCount(coordAction.getStatus()) + 1;
-                }
-                else {
-                    ++counter;
-                }
-                coordActionStatus.put(coordAction.getStatus(), counter);
-            }
-            coordActionCount = coordActionStatusList.size();
+            loadActionStatus(reloadActionStatus);
         }
         catch (JPAExecutorException jpae) {
             throw new CommandException(ErrorCode.E1025, jpae);
@@ -101,6 +97,45 @@ public class CoordStatusTransitXCommand extends StatusTransitXCommand {
         LogUtils.setLogInfo(this.coordJob);
     }
 
+    /**
+     * Load the status counts of the actions of the job, from the coordinator action status counters if they are
+     * enabled.
+     *
+     * @param reload if true, the counters of the job are reloaded from the database
+     * @throws JPAExecutorException thrown if the status of the actions could not be loaded
+     */
+    private void loadActionStatus(boolean reload) throws JPAExecutorException {
+        coordActionStatus.clear();
+        CoordActionStatusCounters counters = CoordActionStatusCounters.get();
+        if (counters != null) {
+            CoordActionStatusCounters.Counts counts = counters.getCounts(jobId, reload);
+            coordActionStatus.putAll(counts.getStatusCounts());
+            coordActionCount = counts.getActionCount();
+            isPending = counts.isPending();
+            actionStatusInMemory = !counts.isLoaded();
+            return;
+        }
+        List<CoordinatorActionBean> coordActionStatusList = CoordActionQueryExecutor.getInstance().getList(
+                CoordActionQuery.GET_COORD_ACTIONS_STATUS_UNIGNORED, jobId);
+
+        long count = (Long) CoordActionQueryExecutor.getInstance().getSingleValue(
+                CoordActionQuery.GET_COORD_ACTIONS_PENDING_COUNT, jobId);
+        isPending = count > 0;
+
+        for (CoordinatorAction coordAction : coordActionStatusList) {
+            int counter = 0;
+            if (coordActionStatus.containsKey(coordAction.getStatus())) {
+                counter = getStatusCount(coordAction.getStatus()) + 1;
+            }
+            else {
+                ++counter;
+            }
+            coordActionStatus.put(coordAction.getStatus(), counter);
+        }
+        coordActionCount = coordActionStatusList.size();
+        actionStatusInMemory = false;
+    }
+
     @Override
     protected void verifyPrecondition() throws CommandException, PreconditionException {
         // if namespace 0.1 is used and backward support is true, then ignore this coord job
@@ -114,6 +149,22 @@ public class CoordStatusTransitXCommand extends StatusTransitXCommand {
 
     @Override
     protected Job.Status getJobStatus() throws CommandException {
+        Job.Status jobStatus = getAggregatedStatus();
+        if (actionStatusInMemory && (StatusUtils.getStatusIfBackwardSupportTrue(jobStatus) != coordJob.getStatus()
+                || isPending != coordJob.isPending())) {
+            // the job changes, confirm it with the status of the actions in the database
+            try {
+                loadActionStatus(true);
+            }
+            catch (JPAExecutorException jpae) {
+                throw new CommandException(ErrorCode.E1025, jpae);
+            }
+            jobStatus = getAggregatedStatus();
+        }
+        return jobStatus;
+    }
+
+    private Job.Status getAggregatedStatus() throws CommandException {
         Job.Status jobStatus = super.getJobStatus();
         if (jobStatus == null) {
             jobStatus = coordJob.getStatus();
@@ -31,6 +31,7 @@ import org.apache.oozie.ErrorCode;
 import org.apache.oozie.client.CoordinatorJob;
 import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.command.CommandException;
+import org.apache.oozie.coord.DatasetAvailabilityIndex;
 import org.apache.oozie.executor.jpa.CoordJobQueryExecutor;
 import org.apache.oozie.executor.jpa.JPAExecutorException;
 import org.apache.oozie.executor.jpa.CoordJobQueryExecutor.CoordJobQuery;
@@ -97,6 +98,9 @@ public class CoordUpdateXCommand extends CoordSubmitXCommand {
             LOG.info("Coord update changes : " + diff.toString());
             try {
                 CoordJobQueryExecutor.getInstance().executeUpdate(CoordJobQuery.UPDATE_COORD_JOB, oldCoordJob);
+                // datasets may have changed, forget the instances found for the previous definition
+                DatasetAvailabilityIndex.get().invalidate(jobId);
+                CoordMaterializeTemplate.invalidate(jobId);
             }
             catch (JPAExecutorException jpaee) {
                 throw new CommandException(jpaee);
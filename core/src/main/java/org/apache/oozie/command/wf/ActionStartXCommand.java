@@ -318,7 +318,7 @@ public class ActionStartXCommand extends ActionXCommand<org.apache.oozie.command
         }
         finally {
             try {
-                BatchQueryExecutor.getInstance().executeBatchInsertUpdateDelete(insertList, updateList, null);
+                persistUpdates(insertList, updateList);
                 if (!(executor instanceof ControlNodeActionExecutor) && EventHandlerService.isEnabled()) {
                     generateEvent(wfAction, wfJob.getUser());
                 }
@@ -338,6 +338,18 @@ public class ActionStartXCommand extends ActionXCommand<org.apache.oozie.command
         return null;
     }
 
+    /**
+     * Persist the inserts and updates of the action start.
+     *
+     * @param insertList beans to insert.
+     * @param updateList updates to execute.
+     * @throws JPAExecutorException thrown if the inserts and updates could not be persisted.
+     */
+    protected void persistUpdates(List<JsonBean> insertList, List<UpdateEntry> updateList)
+            throws JPAExecutorException {
+        BatchQueryExecutor.getInstance().executeBatchInsertUpdateDelete(insertList, updateList, null);
+    }
+
     protected void callActionEnd() throws CommandException {
         new ActionEndXCommand(wfAction.getId(), wfAction.getType()).call();
     }
@@ -405,8 +417,15 @@ public class ActionStartXCommand extends ActionXCommand<org.apache.oozie.command
         // ActionStartXCommand is synchronously called from SignalXCommand passing wfJob so that it doesn't have to
         //reload wfJob again. We need set wfJob to null, so that it get reloaded when the requeued command executes.
         if (command instanceof ActionStartXCommand) {
-            ((ActionStartXCommand)command).wfJob = null;
+            ((ActionStartXCommand)command).clearWorkflowJob();
         }
         super.queue(command, msDelay);
     }
+
+    /**
+     * Drop the workflow job passed at construction, so that it is reloaded when the command executes.
+     */
+    void clearWorkflowJob() {
+        wfJob = null;
+    }
 }
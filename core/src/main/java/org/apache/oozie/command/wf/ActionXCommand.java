@@ -19,11 +19,13 @@
 package org.apache.oozie.command.wf;
 
 import java.io.IOException;
-import java.io.StringReader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -39,7 +41,10 @@ import org.apache.oozie.action.ActionExecutor;
 import org.apache.oozie.client.Job;
 import org.apache.oozie.client.WorkflowAction;
 import org.apache.oozie.client.WorkflowJob;
+import org.apache.oozie.client.rest.JsonBean;
 import org.apache.oozie.command.CommandException;
+import org.apache.oozie.command.XCommand;
+import org.apache.oozie.executor.jpa.BatchQueryExecutor.UpdateEntry;
 import org.apache.oozie.service.CallbackService;
 import org.apache.oozie.service.ConfigurationService;
 import org.apache.oozie.service.ELService;
@@ -51,7 +56,6 @@ import org.apache.oozie.service.Services;
 import org.apache.oozie.util.ELEvaluator;
 import org.apache.oozie.util.InstrumentUtils;
 import org.apache.oozie.util.Instrumentation;
-import org.apache.oozie.util.XConfiguration;
 import org.apache.oozie.workflow.WorkflowException;
 import org.apache.oozie.workflow.WorkflowInstance;
 import org.apache.oozie.workflow.lite.LiteWorkflowApp;
@@ -304,7 +308,7 @@ public abstract class ActionXCommand<T> extends WorkflowXCommand<T> {
             this.isRetry = isRetry;
             this.isUserRetry = isUserRetry;
             try {
-                protoConf = new XConfiguration(new StringReader(workflow.getProtoActionConf()));
+                protoConf = workflow.getProtoActionConfBlob().getConfiguration();
             }
             catch (IOException ex) {
                 throw new RuntimeException("It should not happen", ex);
@@ -539,6 +543,9 @@ public abstract class ActionXCommand<T> extends WorkflowXCommand<T> {
 
     public static class ForkedActionExecutorContext extends ActionExecutorContext {
         private Map<String, String> contextVariableMap = new HashMap<String, String>();
+        private List<JsonBean> insertList = new ArrayList<JsonBean>();
+        private List<UpdateEntry> updateList = new ArrayList<UpdateEntry>();
+        private Map<XCommand<?>, Long> deferredCommands = new LinkedHashMap<XCommand<?>, Long>();
 
         public ForkedActionExecutorContext(WorkflowJobBean workflow, WorkflowActionBean action, boolean isRetry,
                 boolean isUserRetry) {
@@ -561,6 +568,41 @@ public abstract class ActionXCommand<T> extends WorkflowXCommand<T> {
         public Map<String, String> getContextMap() {
             return contextVariableMap;
         }
+
+        /**
+         * Record the inserts and updates of the forked action start, they are persisted by the {@link SignalXCommand}
+         * with the ones of the other forked actions.
+         *
+         * @param inserts beans to insert.
+         * @param updates updates to execute.
+         */
+        public void addUpdates(List<JsonBean> inserts, List<UpdateEntry> updates) {
+            insertList.addAll(inserts);
+            updateList.addAll(updates);
+        }
+
+        public List<JsonBean> getInsertList() {
+            return insertList;
+        }
+
+        public List<UpdateEntry> getUpdateList() {
+            return updateList;
+        }
+
+        /**
+         * Record a command queued by the forked action start, it is queued by the {@link SignalXCommand} once the
+         * forked actions are persisted.
+         *
+         * @param command command to queue.
+         * @param msDelay delay in milliseconds.
+         */
+        public void addDeferredCommand(XCommand<?> command, long msDelay) {
+            deferredCommands.put(command, msDelay);
+        }
+
+        public Map<XCommand<?>, Long> getDeferredCommands() {
+            return deferredCommands;
+        }
     }
 
     /*
@@ -18,14 +18,19 @@
 
 package org.apache.oozie.command.wf;
 
+import java.util.List;
+
 import org.apache.oozie.WorkflowActionBean;
 import org.apache.oozie.WorkflowJobBean;
 import org.apache.oozie.action.ActionExecutor;
 import org.apache.oozie.client.Job;
 import org.apache.oozie.client.WorkflowAction;
+import org.apache.oozie.client.rest.JsonBean;
 import org.apache.oozie.command.CommandException;
 import org.apache.oozie.command.XCommand;
 import org.apache.oozie.command.wf.ActionXCommand.ActionExecutorContext;
+import org.apache.oozie.executor.jpa.BatchQueryExecutor.UpdateEntry;
+import org.apache.oozie.executor.jpa.JPAExecutorException;
 
 public class ForkedActionStartXCommand extends ActionStartXCommand {
 
@@ -48,19 +53,40 @@ public class ForkedActionStartXCommand extends ActionStartXCommand {
     }
 
     // In case of requeue follow the old approach.
+    // Once the action is started, commands are queued by SignalXCommand after the forked actions are persisted.
     @Override
     protected void queue(XCommand<?> command, long msDelay) {
 
         if (command instanceof ForkedActionStartXCommand) {
             LOG.debug("Queueing ActionStartXCommand command");
-            super.queue(new ActionStartXCommand(wfAction.getId(), wfAction.getType()), msDelay);
+            command = new ActionStartXCommand(wfAction.getId(), wfAction.getType());
         }
         else {
             LOG.debug("Queueing " + command);
+        }
+        if (context instanceof ActionXCommand.ForkedActionExecutorContext) {
+            if (command instanceof ActionStartXCommand) {
+                ((ActionStartXCommand) command).clearWorkflowJob();
+            }
+            ((ActionXCommand.ForkedActionExecutorContext) context).addDeferredCommand(command, msDelay);
+        }
+        else {
             super.queue(command, msDelay);
         }
     }
 
+    // Updates are persisted by SignalXCommand in one batch for all the forked actions.
+    @Override
+    protected void persistUpdates(List<JsonBean> insertList, List<UpdateEntry> updateList)
+            throws JPAExecutorException {
+        if (context instanceof ActionXCommand.ForkedActionExecutorContext) {
+            ((ActionXCommand.ForkedActionExecutorContext) context).addUpdates(insertList, updateList);
+        }
+        else {
+            super.persistUpdates(insertList, updateList);
+        }
+    }
+
     // Job will be failed by SignalXcommand, because ForkedActionStartXCommand doesn't have lock on jobId.
     @Override
     public void failJob(ActionExecutor.Context context, WorkflowActionBean action) throws CommandException {
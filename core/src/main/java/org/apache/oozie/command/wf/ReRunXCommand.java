@@ -51,6 +51,7 @@ import org.apache.oozie.executor.jpa.BatchQueryExecutor;
 import org.apache.oozie.executor.jpa.WorkflowJobQueryExecutor;
 import org.apache.oozie.executor.jpa.BatchQueryExecutor.UpdateEntry;
 import org.apache.oozie.executor.jpa.WorkflowJobQueryExecutor.WorkflowJobQuery;
+import org.apache.oozie.service.AuthorizationService;
 import org.apache.oozie.service.ConfigurationService;
 import org.apache.oozie.service.DagXLogInfoService;
 import org.apache.oozie.service.HadoopAccessorException;
@@ -247,6 +248,11 @@ public class ReRunXCommand extends WorkflowXCommand<Void> {
             updateList.add(new UpdateEntry<WorkflowJobQuery>(WorkflowJobQuery.UPDATE_WORKFLOW_RERUN, wfBean));
             // call JPAExecutor to do the bulk writes
             BatchQueryExecutor.getInstance().executeBatchInsertUpdateDelete(null, updateList, deleteList);
+            // the re-run configuration may change the job ACL
+            AuthorizationService authService = Services.get().get(AuthorizationService.class);
+            if (authService != null) {
+                authService.invalidateJob(jobId);
+            }
         }
         catch (JPAExecutorException je) {
             throw new CommandException(je);
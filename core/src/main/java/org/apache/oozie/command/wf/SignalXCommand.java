@@ -38,6 +38,7 @@ import org.apache.oozie.ErrorCode;
 import org.apache.oozie.XException;
 import org.apache.oozie.command.CommandException;
 import org.apache.oozie.command.PreconditionException;
+import org.apache.oozie.command.XCommand;
 import org.apache.oozie.command.wf.ActionXCommand.ActionExecutorContext;
 import org.apache.oozie.command.wf.ActionXCommand.ForkedActionExecutorContext;
 import org.apache.oozie.executor.jpa.BatchQueryExecutor.UpdateEntry;
@@ -53,6 +54,7 @@ import org.apache.oozie.service.CallableQueueService.CallableWrapper;
 import org.apache.oozie.service.ConfigurationService;
 import org.apache.oozie.service.ELService;
 import org.apache.oozie.service.EventHandlerService;
+import org.apache.oozie.service.ForkedActionStartService;
 import org.apache.oozie.service.JPAService;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.service.UUIDService;
@@ -73,8 +75,11 @@ import org.jdom.Element;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
 import org.apache.oozie.client.OozieClient;
@@ -467,28 +472,35 @@ public class SignalXCommand extends WorkflowXCommand<Void> {
 
     public void startForkedActions(List<WorkflowActionBean> workflowActionBeanListForForked) throws CommandException {
 
-        List<CallableWrapper<ActionExecutorContext>> tasks = new ArrayList<CallableWrapper<ActionExecutorContext>>();
         List<UpdateEntry> updateList = new ArrayList<UpdateEntry>();
         List<JsonBean> insertList = new ArrayList<JsonBean>();
+        Set<String> startedActionIds = new HashSet<String>();
 
         boolean endWorkflow = false;
         boolean submitJobByQueuing = false;
-        for (WorkflowActionBean workflowActionBean : workflowActionBeanListForForked) {
-            LOG.debug("Starting forked actions parallely : " + workflowActionBean.getId());
-            tasks.add(Services.get().get(CallableQueueService.class).new CallableWrapper<ActionExecutorContext>(
-                    new ForkedActionStartXCommand(wfJob, workflowActionBean.getId(), workflowActionBean.getType()), 0));
-        }
-
         try {
-            List<Future<ActionExecutorContext>> futures = Services.get().get(CallableQueueService.class)
-                    .invokeAll(tasks);
-            for (Future<ActionExecutorContext> result : futures) {
-                if (result == null) {
+            for (Future<ActionExecutorContext> result : invokeForkedActionStarts(workflowActionBeanListForForked)) {
+                ActionExecutorContext context;
+                try {
+                    context = result.get();
+                }
+                catch (ExecutionException e) {
+                    LOG.error("Error starting forked action", e.getCause());
+                    submitJobByQueuing = true;
+                    continue;
+                }
+                if (context == null) {
                     submitJobByQueuing = true;
                     continue;
                 }
-                ActionExecutorContext context = result.get();
-                Map<String, String> contextVariableMap = ((ForkedActionExecutorContext) context).getContextMap();
+                ForkedActionExecutorContext forkedContext = (ForkedActionExecutorContext) context;
+                startedActionIds.add(context.getAction().getId());
+                insertList.addAll(forkedContext.getInsertList());
+                updateList.addAll(forkedContext.getUpdateList());
+                for (Map.Entry<XCommand<?>, Long> entry : forkedContext.getDeferredCommands().entrySet()) {
+                    queue(entry.getKey(), entry.getValue());
+                }
+                Map<String, String> contextVariableMap = forkedContext.getContextMap();
                 LOG.debug("contextVariableMap size of action " + context.getAction().getId() + " is " + contextVariableMap.size());
                 for (String key : contextVariableMap.keySet()) {
                     context.setVarToWorkflow(key, contextVariableMap.get(key));
@@ -520,16 +532,22 @@ public class SignalXCommand extends WorkflowXCommand<Void> {
         }
         catch (Exception e) {
             LOG.error("Error running forked jobs parallely", e);
-            startForkedActionsByQueuing(workflowActionBeanListForForked);
-            submitJobByQueuing = false;
+            submitJobByQueuing = true;
         }
         if (submitJobByQueuing && !endWorkflow) {
             LOG.error("There is error in running forked jobs parallely");
-            startForkedActionsByQueuing(workflowActionBeanListForForked);
+            List<WorkflowActionBean> notStarted = new ArrayList<WorkflowActionBean>();
+            for (WorkflowActionBean workflowActionBean : workflowActionBeanListForForked) {
+                if (!startedActionIds.contains(workflowActionBean.getId())) {
+                    notStarted.add(workflowActionBean);
+                }
+            }
+            startForkedActionsByQueuing(notStarted);
         }
         wfJob.setLastModifiedTime(new Date());
         updateList.add(new UpdateEntry<WorkflowJobQuery>(WorkflowJobQuery.UPDATE_WORKFLOW_STATUS_INSTANCE_MODIFIED,
                 wfJob));
+        // the forked actions and the workflow job are persisted in a single batch
         try {
             BatchQueryExecutor.getInstance().executeBatchInsertUpdateDelete(insertList, updateList, null);
         }
@@ -540,6 +558,31 @@ public class SignalXCommand extends WorkflowXCommand<Void> {
         LOG.debug("forked actions submitted parallely");
     }
 
+    /**
+     * Run the start commands of the forked actions, through the {@link ForkedActionStartService} if it is enabled
+     * and through the {@link CallableQueueService} otherwise.
+     */
+    private List<Future<ActionExecutorContext>> invokeForkedActionStarts(
+            List<WorkflowActionBean> workflowActionBeanListForForked) throws InterruptedException {
+        ForkedActionStartService forkedActionStartService = Services.get().get(ForkedActionStartService.class);
+        if (forkedActionStartService != null) {
+            List<ForkedActionStartXCommand> commands = new ArrayList<ForkedActionStartXCommand>();
+            for (WorkflowActionBean workflowActionBean : workflowActionBeanListForForked) {
+                LOG.debug("Starting forked actions parallely : " + workflowActionBean.getId());
+                commands.add(new ForkedActionStartXCommand(wfJob, workflowActionBean.getId(),
+                        workflowActionBean.getType()));
+            }
+            return forkedActionStartService.invokeAll(commands);
+        }
+        List<CallableWrapper<ActionExecutorContext>> tasks = new ArrayList<CallableWrapper<ActionExecutorContext>>();
+        for (WorkflowActionBean workflowActionBean : workflowActionBeanListForForked) {
+            LOG.debug("Starting forked actions parallely : " + workflowActionBean.getId());
+            tasks.add(Services.get().get(CallableQueueService.class).new CallableWrapper<ActionExecutorContext>(
+                    new ForkedActionStartXCommand(wfJob, workflowActionBean.getId(), workflowActionBean.getType()), 0));
+        }
+        return Services.get().get(CallableQueueService.class).invokeAll(tasks);
+    }
+
     public void startForkedActionsByQueuing(List<WorkflowActionBean> workflowActionBeanListForForked) throws CommandException {
         //queuing all jobs, submitted job will fail in precondition
         for (WorkflowActionBean workflowActionBean : workflowActionBeanListForForked) {
@@ -570,7 +613,7 @@ public class SignalXCommand extends WorkflowXCommand<Void> {
     private String getActionSLAXml(String actionName, String wfXml, String wfConf) throws CommandException {
         String slaXml = null;
         try {
-            Element eWfJob = XmlUtils.parseXml(wfXml);
+            Element eWfJob = XmlUtils.parseImmutableXml(wfXml);
             for (Element action : (List<Element>) eWfJob.getChildren("action", eWfJob.getNamespace())) {
                 if (action.getAttributeValue("name").equals(actionName) == false) {
                     continue;
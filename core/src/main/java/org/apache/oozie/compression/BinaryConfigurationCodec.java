@@ -0,0 +1,232 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.util.XConfiguration;
+
+/**
+ * Compact binary format for configurations.
+ * <p>
+ * Property names are split on '.' and each distinct segment is stored once in a dictionary, names are then written as
+ * lists of dictionary indexes. All the numbers are written as variable length integers and all the strings are length
+ * prefixed, so that a single property can be looked up by skipping over the other values without decoding them.
+ * <p>
+ * Layout: version byte, segment count, segments, property count, then for each property the number of segments of its
+ * name, the segment indexes and its value.
+ */
+public class BinaryConfigurationCodec implements ConfigurationCodec {
+
+    public static final String CODEC_NAME = "bin";
+
+    private static final int VERSION = 1;
+
+    @Override
+    public byte[] encode(Configuration conf) throws IOException {
+        Map<String, Integer> dictionary = new LinkedHashMap<String, Integer>();
+        List<int[]> names = new ArrayList<int[]>();
+        List<String> values = new ArrayList<String>();
+        for (Map.Entry<String, String> entry : conf) {
+            List<String> segments = split(entry.getKey());
+            int[] name = new int[segments.size()];
+            for (int i = 0; i < name.length; i++) {
+                Integer index = dictionary.get(segments.get(i));
+                if (index == null) {
+                    index = dictionary.size();
+                    dictionary.put(segments.get(i), index);
+                }
+                name[i] = index;
+            }
+            names.add(name);
+            values.add(entry.getValue());
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        out.write(VERSION);
+        writeVInt(out, dictionary.size());
+        for (String segment : dictionary.keySet()) {
+            writeString(out, segment);
+        }
+        writeVInt(out, names.size());
+        for (int i = 0; i < names.size(); i++) {
+            int[] name = names.get(i);
+            writeVInt(out, name.length);
+            for (int index : name) {
+                writeVInt(out, index);
+            }
+            writeString(out, values.get(i));
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public XConfiguration decode(byte[] data) throws IOException {
+        Input in = new Input(data);
+        String[] dictionary = in.readDictionary();
+        XConfiguration conf = new XConfiguration();
+        int count = in.readVInt();
+        StringBuilder sb = new StringBuilder(64);
+        for (int i = 0; i < count; i++) {
+            sb.setLength(0);
+            int segments = in.readVInt();
+            for (int j = 0; j < segments; j++) {
+                if (j > 0) {
+                    sb.append('.');
+                }
+                sb.append(in.readSegment(dictionary));
+            }
+            conf.set(sb.toString(), in.readString());
+        }
+        return conf;
+    }
+
+    @Override
+    public String get(byte[] data, String name) throws IOException {
+        Input in = new Input(data);
+        String[] dictionary = in.readDictionary();
+        Map<String, Integer> indexes = new HashMap<String, Integer>(dictionary.length * 2);
+        for (int i = 0; i < dictionary.length; i++) {
+            indexes.put(dictionary[i], i);
+        }
+        List<String> segments = split(name);
+        int[] wanted = new int[segments.size()];
+        for (int i = 0; i < wanted.length; i++) {
+            Integer index = indexes.get(segments.get(i));
+            if (index == null) {
+                // a segment which is not in the dictionary cannot be part of any property name
+                return null;
+            }
+            wanted[i] = index;
+        }
+        int count = in.readVInt();
+        for (int i = 0; i < count; i++) {
+            int length = in.readVInt();
+            boolean match = length == wanted.length;
+            for (int j = 0; j < length; j++) {
+                int index = in.readVInt();
+                match = match && index == wanted[j];
+            }
+            if (match) {
+                return in.readString();
+            }
+            in.skipString();
+        }
+        return null;
+    }
+
+    private static List<String> split(String name) {
+        List<String> segments = new ArrayList<String>();
+        int start = 0;
+        int dot;
+        while ((dot = name.indexOf('.', start)) >= 0) {
+            segments.add(name.substring(start, dot));
+            start = dot + 1;
+        }
+        segments.add(name.substring(start));
+        return segments;
+    }
+
+    private static void writeVInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(CodecFactory.UTF_8_ENCODING);
+        writeVInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static class Input {
+        private final byte[] data;
+        private int pos;
+
+        private Input(byte[] data) throws IOException {
+            this.data = data;
+            if (data.length == 0 || data[0] != VERSION) {
+                throw new IOException("Unsupported binary configuration version");
+            }
+            pos = 1;
+        }
+
+        private int readVInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                if (pos >= data.length) {
+                    throw new IOException("Truncated binary configuration");
+                }
+                int b = data[pos++];
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed binary configuration");
+        }
+
+        private int readLength() throws IOException {
+            int length = readVInt();
+            if (length < 0 || length > data.length - pos) {
+                throw new IOException("Truncated binary configuration");
+            }
+            return length;
+        }
+
+        private String readString() throws IOException {
+            int length = readLength();
+            String value = new String(data, pos, length, CodecFactory.UTF_8_ENCODING);
+            pos += length;
+            return value;
+        }
+
+        private void skipString() throws IOException {
+            int length = readLength();
+            pos += length;
+        }
+
+        private String[] readDictionary() throws IOException {
+            int count = readVInt();
+            if (count < 0 || count > data.length) {
+                throw new IOException("Malformed binary configuration");
+            }
+            String[] dictionary = new String[count];
+            for (int i = 0; i < count; i++) {
+                dictionary[i] = readString();
+            }
+            return dictionary;
+        }
+
+        private String readSegment(String[] dictionary) throws IOException {
+            int index = readVInt();
+            if (index < 0 || index >= dictionary.length) {
+                throw new IOException("Malformed binary configuration");
+            }
+            return dictionary[index];
+        }
+    }
+}
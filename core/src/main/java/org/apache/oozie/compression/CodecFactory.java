@@ -18,14 +18,19 @@
 
 package org.apache.oozie.compression;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.hadoop.conf.Configurable;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.oozie.util.XLog;
 
@@ -36,15 +41,36 @@ import org.apache.oozie.util.XLog;
  */
 public class CodecFactory {
     private static final Map<String, CompressionCodec> REGISTERED = new HashMap<String, CompressionCodec>();
+    private static final Map<String, ConfigurationCodec> REGISTERED_CONF = new HashMap<String, ConfigurationCodec>();
     public static final String COMPRESSION_CODECS = "oozie.compression.codecs";
     public static final String COMPRESSION_OUTPUT_CODEC = "oozie.output.compression.codec";
+    public static final String CONFIGURATION_CODECS = "oozie.configuration.codecs";
+    public static final String CONFIGURATION_OUTPUT_CODEC = "oozie.output.configuration.codec";
+    public static final String COMPRESSION_COLUMN_CODECS = "oozie.output.compression.codec.columns";
     private static CompressionCodec outputCompressionCodec;
+    private static ConfigurationCodec outputConfigurationCodec;
     public static final String COMPRESSION_MAGIC_DATA = "OBJ";
     public static final String COMPRESSION_KEY_HEADER = "codec";
+    public static final String CONFIGURATION_KEY_HEADER = "conf";
     public static final String UTF_8_ENCODING = "UTF-8";
     private static boolean isEnabled;
     private static XLog LOG = XLog.getLog(CodecFactory.class);;
     private static byte[] headerBytes;
+    private static String outputCompressionName;
+    private static String outputConfigurationName;
+    private static Map<String, String> columnCodecs = new HashMap<String, String>();
+    private static final Map<String, byte[]> HEADERS = new ConcurrentHashMap<String, byte[]>();
+    private static final Map<String, byte[]> CONFIGURATION_HEADERS = new ConcurrentHashMap<String, byte[]>();
+
+    static {
+        // always registered, so that data written with any of them can be read whatever the output codec is
+        REGISTERED.put(GzipCompressionCodec.CODEC_NAME, new GzipCompressionCodec());
+        REGISTERED.put(DeflateCompressionCodec.CODEC_NAME, new DeflateCompressionCodec());
+        REGISTERED.put(Lz4CompressionCodec.CODEC_NAME, new Lz4CompressionCodec());
+        REGISTERED.put(SnappyCompressionCodec.CODEC_NAME, new SnappyCompressionCodec());
+        REGISTERED.put(ZstdCompressionCodec.CODEC_NAME, new ZstdCompressionCodec());
+        REGISTERED_CONF.put(BinaryConfigurationCodec.CODEC_NAME, new BinaryConfigurationCodec());
+    }
 
     /**
      * Initialize the codec factory to maintain list of codecs
@@ -62,21 +88,103 @@ public class CodecFactory {
             isEnabled = true;
         }
         String[] outputCompressionCodecs = conf.getStrings(COMPRESSION_CODECS);
-        for (String comp : outputCompressionCodecs) {
-            parseCompressionConfig(comp);
+        if (outputCompressionCodecs != null) {
+            for (String comp : outputCompressionCodecs) {
+                if (comp.trim().length() > 0) {
+                    parseCompressionConfig(comp);
+                }
+            }
         }
-        if (isEnabled) {
-            if (REGISTERED.get(GzipCompressionCodec.CODEC_NAME) == null) {
-                REGISTERED.put(GzipCompressionCodec.CODEC_NAME, new GzipCompressionCodec());
+        for (CompressionCodec codec : REGISTERED.values()) {
+            if (codec instanceof Configurable) {
+                ((Configurable) codec).setConf(conf);
             }
+        }
+        if (isEnabled) {
             outputCompressionCodec = REGISTERED.get(outputCompressionStr);
             if (outputCompressionCodec == null) {
                 throw new RuntimeException("No codec class found for codec " + outputCompressionStr);
             }
+            checkCodec(outputCompressionStr);
+            outputCompressionName = outputCompressionStr;
+        }
+        else {
+            outputCompressionName = null;
         }
         LOG.info("Using " + outputCompressionStr + " as output compression codec");
 
+        Map<String, String> columns = new HashMap<String, String>();
+        for (String column : conf.getTrimmedStrings(COMPRESSION_COLUMN_CODECS)) {
+            if (column.length() > 0) {
+                String[] pair = column.split("=", 2);
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException("Property " + column + " not in column=codec format"
+                            + "; column compression cannot be enabled");
+                }
+                String codecName = pair[1].trim();
+                if (!codecName.equalsIgnoreCase("NONE")) {
+                    if (REGISTERED.get(codecName) == null) {
+                        throw new RuntimeException("No codec class found for codec " + codecName);
+                    }
+                    checkCodec(codecName);
+                }
+                columns.put(pair[0].trim(), codecName);
+                LOG.info("Using [{0}] as output compression codec for [{1}]", codecName, pair[0].trim());
+            }
+        }
+        columnCodecs = columns;
+        HEADERS.clear();
+        CONFIGURATION_HEADERS.clear();
+
         // Initialize header bytes
+        Map<String, String> header = new LinkedHashMap<String, String>();
+        header.put(COMPRESSION_KEY_HEADER, outputCompressionStr);
+        headerBytes = createHeader(header);
+
+        String[] configurationCodecs = conf.getStrings(CONFIGURATION_CODECS);
+        if (configurationCodecs != null) {
+            for (String codec : configurationCodecs) {
+                if (codec.trim().length() > 0) {
+                    parseConfigurationCodecConfig(codec);
+                }
+            }
+        }
+        String outputConfigurationStr = conf.get(CONFIGURATION_OUTPUT_CODEC);
+        if (outputConfigurationStr == null || outputConfigurationStr.trim().equalsIgnoreCase("NONE") ||
+                outputConfigurationStr.trim().equalsIgnoreCase("")) {
+            outputConfigurationCodec = null;
+            outputConfigurationName = null;
+        }
+        else {
+            outputConfigurationStr = outputConfigurationStr.trim();
+            outputConfigurationCodec = REGISTERED_CONF.get(outputConfigurationStr);
+            if (outputConfigurationCodec == null) {
+                throw new RuntimeException("No configuration codec class found for codec " + outputConfigurationStr);
+            }
+            outputConfigurationName = outputConfigurationStr;
+            LOG.info("Using " + outputConfigurationStr + " as output configuration codec");
+        }
+    }
+
+    /**
+     * Check that a codec can compress and decompress data, codecs relying on native libraries may not be usable.
+     */
+    private static void checkCodec(String name) {
+        CompressionCodec codec = REGISTERED.get(name);
+        try {
+            byte[] data = COMPRESSION_MAGIC_DATA.getBytes(UTF_8_ENCODING);
+            byte[] compressed = codec.compressBytes(new byte[0], data);
+            DataInputStream dais = new DataInputStream(new ByteArrayInputStream(compressed));
+            if (!Arrays.equals(data, codec.decompressToBytes(dais))) {
+                throw new IOException("Decompressed data differs from the original data");
+            }
+        }
+        catch (IOException ex) {
+            throw new RuntimeException("Codec " + name + " cannot be used", ex);
+        }
+    }
+
+    private static byte[] createHeader(Map<String, String> props) throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         DataOutputStream daos = new DataOutputStream(baos);
         // magic data
@@ -84,12 +192,25 @@ public class CodecFactory {
         // version
         daos.writeInt(1);
         // no of key value pairs
-        daos.writeInt(1);
-        daos.writeUTF(COMPRESSION_KEY_HEADER);
-        daos.writeUTF(outputCompressionStr);
+        daos.writeInt(props.size());
+        for (Map.Entry<String, String> entry : props.entrySet()) {
+            daos.writeUTF(entry.getKey());
+            daos.writeUTF(entry.getValue());
+        }
         daos.close();
-        headerBytes = baos.toByteArray();
+        return baos.toByteArray();
+    }
 
+    private static void parseConfigurationCodecConfig(String codec) throws Exception {
+        String[] pair = codec.split("=", 2);
+        if (pair.length == 2) {
+            REGISTERED_CONF.put(pair[0].trim(), (ConfigurationCodec) Class.forName(pair[1].trim()).newInstance());
+            LOG.info("Adding [{0}] to list of configuration codecs", pair[0].trim());
+        }
+        else {
+            throw new IllegalArgumentException("Property " + codec + " not in key=value format"
+                    + "; configuration codec cannot be enabled");
+        }
     }
 
     private static void parseCompressionConfig(String comp) throws Exception {
@@ -131,17 +252,32 @@ public class CodecFactory {
      * @throws IOException
      */
     public static CompressionCodec getDeCompressionCodec(DataInputStream dais) throws IOException {
+        Map<String, String> compressionProps = readHeader(dais);
+        if (compressionProps == null || compressionProps.get(COMPRESSION_KEY_HEADER) == null) {
+            return null;
+        }
+        return getCodec(compressionProps.get(COMPRESSION_KEY_HEADER));
+    }
+
+    /**
+     * Read the header properties from stream
+     * @param dais the input stream
+     * @return the header properties, or null if the data has no header; the stream is then reset
+     * @throws IOException
+     */
+    public static Map<String, String> readHeader(DataInputStream dais) throws IOException {
         byte[] buffer = new byte[COMPRESSION_MAGIC_DATA.length()];
         dais.read(buffer, 0, buffer.length);
-        Map<String, String> compressionProps = new HashMap<String, String>();
+        Map<String, String> props = new HashMap<String, String>();
         try {
             if (new String(buffer, UTF_8_ENCODING).equals(COMPRESSION_MAGIC_DATA)) {
                 // read Version; need to handle if multiple versions are
                 // supported
                 dais.readInt();
-                // read no of key value pairs; need to handle if more than one
-                dais.readInt();
-                compressionProps.put(dais.readUTF(), dais.readUTF());
+                int count = dais.readInt();
+                for (int i = 0; i < count; i++) {
+                    props.put(dais.readUTF(), dais.readUTF());
+                }
             }
             else {
                 dais.reset();
@@ -151,7 +287,136 @@ public class CodecFactory {
         catch (UnsupportedEncodingException ex) {
             throw new RuntimeException(ex);
         }
-        return getCodec(compressionProps.get(COMPRESSION_KEY_HEADER));
+        return props;
+    }
+
+    /**
+     * Get the codec to use after reading the header of a stream
+     * @param props the header properties
+     * @return the compression codec, or null if the data is not compressed
+     */
+    public static CompressionCodec getDeCompressionCodec(Map<String, String> props) {
+        String key = props.get(COMPRESSION_KEY_HEADER);
+        return key == null ? null : getCodec(key);
+    }
+
+    /**
+     * Get the configuration codec to use after reading the header of a stream
+     * @param props the header properties
+     * @return the configuration codec, or null if the data is not an encoded configuration
+     */
+    public static ConfigurationCodec getConfigurationCodec(Map<String, String> props) {
+        String key = props.get(CONFIGURATION_KEY_HEADER);
+        if (key == null) {
+            return null;
+        }
+        ConfigurationCodec codec = REGISTERED_CONF.get(key);
+        if (codec == null) {
+            throw new RuntimeException("No configuration codec found corresponding to " + key);
+        }
+        return codec;
+    }
+
+    /**
+     * Check whether configurations are stored with a configuration codec instead of XML
+     * @return true if a configuration codec is enabled
+     */
+    public static boolean isConfigurationCodecEnabled() {
+        return outputConfigurationCodec != null;
+    }
+
+    /**
+     * Get output configuration codec
+     * @return the configuration codec
+     */
+    public static ConfigurationCodec getConfigurationCodec() {
+        return outputConfigurationCodec;
+    }
+
+    /**
+     * Get header bytes for encoded configurations
+     * @return the header bytes
+     */
+    public static byte[] getConfigurationHeaderBytes() {
+        return getConfigurationHeaderBytes(null);
+    }
+
+    /**
+     * Get header bytes for encoded configurations stored in a column
+     * @param column the column, as <code>BeanClassName.fieldName</code>, or null for the default codecs
+     * @return the header bytes, or null if no configuration codec is enabled
+     */
+    public static byte[] getConfigurationHeaderBytes(String column) {
+        if (outputConfigurationName == null) {
+            return null;
+        }
+        String codecName = getCompressionCodecName(column);
+        String key = codecName == null ? "" : codecName;
+        byte[] header = CONFIGURATION_HEADERS.get(key);
+        if (header == null) {
+            Map<String, String> props = new LinkedHashMap<String, String>();
+            props.put(CONFIGURATION_KEY_HEADER, outputConfigurationName);
+            if (codecName != null) {
+                props.put(COMPRESSION_KEY_HEADER, codecName);
+            }
+            header = createHeaderUnchecked(props);
+            CONFIGURATION_HEADERS.put(key, header);
+        }
+        return header;
+    }
+
+    /**
+     * Get the name of the output compression codec for a column
+     * @param column the column, as <code>BeanClassName.fieldName</code>, or null for the default codec
+     * @return the codec name, or null if data of the column is not compressed
+     */
+    public static String getCompressionCodecName(String column) {
+        if (column != null) {
+            String codecName = columnCodecs.get(column);
+            if (codecName != null) {
+                return codecName.equalsIgnoreCase("NONE") ? null : codecName;
+            }
+        }
+        return outputCompressionName;
+    }
+
+    /**
+     * Get output compression codec for a column
+     * @param column the column, as <code>BeanClassName.fieldName</code>, or null for the default codec
+     * @return the compression codec, or null if data of the column is not compressed
+     */
+    public static CompressionCodec getCompressionCodec(String column) {
+        String codecName = getCompressionCodecName(column);
+        return codecName == null ? null : getCodec(codecName);
+    }
+
+    /**
+     * Get header bytes for a column
+     * @param column the column, as <code>BeanClassName.fieldName</code>, or null for the default codec
+     * @return the header bytes, or null if data of the column is not compressed
+     */
+    public static byte[] getHeaderBytes(String column) {
+        String codecName = getCompressionCodecName(column);
+        if (codecName == null) {
+            return null;
+        }
+        byte[] header = HEADERS.get(codecName);
+        if (header == null) {
+            Map<String, String> props = new LinkedHashMap<String, String>();
+            props.put(COMPRESSION_KEY_HEADER, codecName);
+            header = createHeaderUnchecked(props);
+            HEADERS.put(codecName, header);
+        }
+        return header;
+    }
+
+    private static byte[] createHeaderUnchecked(Map<String, String> props) {
+        try {
+            return createHeader(props);
+        }
+        catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
     }
 
     /**
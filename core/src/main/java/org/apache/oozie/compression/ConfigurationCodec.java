@@ -0,0 +1,57 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.compression;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.util.XConfiguration;
+
+/**
+ * Interface for the formats used to store configurations in the database instead of XML.
+ */
+public interface ConfigurationCodec {
+
+    /**
+     * Encode a configuration. Only the raw values are encoded, variables are not expanded.
+     *
+     * @param conf the configuration to encode
+     * @return the encoded configuration
+     * @throws IOException thrown if the configuration could not be encoded
+     */
+    byte[] encode(Configuration conf) throws IOException;
+
+    /**
+     * Decode a configuration.
+     *
+     * @param data the encoded configuration
+     * @return the decoded configuration
+     * @throws IOException thrown if the data is not a valid encoded configuration
+     */
+    XConfiguration decode(byte[] data) throws IOException;
+
+    /**
+     * Return the raw value of a single property, without decoding the whole configuration.
+     *
+     * @param data the encoded configuration
+     * @param name the property name
+     * @return the raw value of the property, or <code>null</code> if it is not set
+     * @throws IOException thrown if the data is not a valid encoded configuration
+     */
+    String get(byte[] data, String name) throws IOException;
+}
@@ -0,0 +1,180 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.oozie.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * Class to compress and decompress data using the deflate algorithm, at a configurable level and optionally with a
+ * preset dictionary.
+ * <p>
+ * The dictionary is a file holding strings frequent in the compressed data, for instance trained from the workflow
+ * definitions and configurations of the installation. Several dictionaries can be configured, the first one is used
+ * to compress and all of them to decompress, so that the dictionary can be replaced without making existing data
+ * unreadable.
+ */
+public class DeflateCompressionCodec implements CompressionCodec, Configurable {
+
+    public static final String CODEC_NAME = "deflate";
+
+    /**
+     * Compression level, from 1 (fastest) to 9 (smallest).
+     */
+    public static final String CONF_LEVEL = "oozie.compression.deflate.level";
+
+    /**
+     * Comma separated list of dictionary files.
+     */
+    public static final String CONF_DICTIONARIES = "oozie.compression.deflate.dictionaries";
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private Configuration conf;
+    private int level = Deflater.BEST_SPEED;
+    private byte[] dictionary;
+    private Map<Integer, byte[]> dictionaries = new HashMap<Integer, byte[]>();
+
+    @Override
+    public void setConf(Configuration conf) {
+        this.conf = conf;
+        level = conf.getInt(CONF_LEVEL, Deflater.BEST_SPEED);
+        dictionary = null;
+        Map<Integer, byte[]> loaded = new HashMap<Integer, byte[]>();
+        String[] files = conf.getTrimmedStrings(CONF_DICTIONARIES);
+        for (String file : files) {
+            if (file.length() > 0) {
+                byte[] bytes;
+                try {
+                    bytes = FileUtils.readFileToByteArray(new File(file));
+                }
+                catch (IOException ex) {
+                    throw new IllegalArgumentException("Could not read compression dictionary " + file, ex);
+                }
+                if (dictionary == null) {
+                    dictionary = bytes;
+                }
+                loaded.put(getDictionaryId(bytes), bytes);
+            }
+        }
+        dictionaries = loaded;
+    }
+
+    @Override
+    public Configuration getConf() {
+        return conf;
+    }
+
+    /**
+     * Set the dictionary used to compress, it is also used to decompress.
+     *
+     * @param dictionary the dictionary, or null to compress without dictionary
+     */
+    public void setDictionary(byte[] dictionary) {
+        this.dictionary = dictionary;
+        if (dictionary != null) {
+            Map<Integer, byte[]> map = new HashMap<Integer, byte[]>(dictionaries);
+            map.put(getDictionaryId(dictionary), dictionary);
+            dictionaries = map;
+        }
+    }
+
+    public byte[] compressBytes(byte[] header, byte[] data) throws IOException {
+        ByteArrayOutputStream byteOutput = new ByteArrayOutputStream(header.length + data.length / 2 + 64);
+        byteOutput.write(header);
+        Deflater deflater = new Deflater(level);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(data);
+            deflater.finish();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                byteOutput.write(buffer, 0, count);
+            }
+        }
+        finally {
+            deflater.end();
+        }
+        return byteOutput.toByteArray();
+    }
+
+    public byte[] compressString(byte[] header, String data) throws IOException {
+        return compressBytes(header, data.getBytes(CodecFactory.UTF_8_ENCODING));
+    }
+
+    public String decompressToString(DataInputStream dais) throws IOException {
+        return new String(decompressToBytes(dais), CodecFactory.UTF_8_ENCODING);
+    }
+
+    public byte[] decompressToBytes(DataInputStream dais) throws IOException {
+        byte[] compressed = IOUtils.toByteArray(dais);
+        ByteArrayOutputStream byteOutput = new ByteArrayOutputStream(compressed.length * 4);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0) {
+                    if (inflater.needsDictionary()) {
+                        byte[] dict = dictionaries.get(inflater.getAdler());
+                        if (dict == null) {
+                            throw new IOException("Data was compressed with an unknown dictionary, id "
+                                    + inflater.getAdler());
+                        }
+                        inflater.setDictionary(dict);
+                    }
+                    else if (inflater.needsInput()) {
+                        throw new IOException("Truncated compressed data");
+                    }
+                }
+                byteOutput.write(buffer, 0, count);
+            }
+        }
+        catch (DataFormatException ex) {
+            throw new IOException(ex);
+        }
+        finally {
+            inflater.end();
+        }
+        return byteOutput.toByteArray();
+    }
+
+    private static int getDictionaryId(byte[] dictionary) {
+        Adler32 adler = new Adler32();
+        adler.update(dictionary);
+        return (int) adler.getValue();
+    }
+}
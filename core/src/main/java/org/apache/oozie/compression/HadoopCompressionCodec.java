@@ -0,0 +1,139 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.oozie.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionInputStream;
+import org.apache.hadoop.io.compress.CompressionOutputStream;
+import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.apache.hadoop.util.ReflectionUtils;
+
+/**
+ * Base class for the codecs backed by a Hadoop compression codec. The Hadoop codec is loaded on first use, so that
+ * data compressed with it can be detected even when the codec or its native library is not available. The compressors
+ * and decompressors, which hold native buffers, are borrowed from the Hadoop {@link CodecPool} for each blob.
+ */
+public abstract class HadoopCompressionCodec implements CompressionCodec, Configurable {
+
+    private final String codecClassName;
+    private Configuration conf;
+    private volatile org.apache.hadoop.io.compress.CompressionCodec codec;
+
+    protected HadoopCompressionCodec(String codecClassName) {
+        this.codecClassName = codecClassName;
+    }
+
+    @Override
+    public void setConf(Configuration conf) {
+        this.conf = conf;
+        this.codec = null;
+    }
+
+    @Override
+    public Configuration getConf() {
+        return conf;
+    }
+
+    private org.apache.hadoop.io.compress.CompressionCodec getCodec() throws IOException {
+        org.apache.hadoop.io.compress.CompressionCodec result = codec;
+        if (result == null) {
+            Class<?> klass;
+            try {
+                klass = Class.forName(codecClassName);
+            }
+            catch (ClassNotFoundException ex) {
+                throw new IOException("Compression codec " + codecClassName + " is not available", ex);
+            }
+            result = (org.apache.hadoop.io.compress.CompressionCodec) ReflectionUtils.newInstance(klass,
+                    conf != null ? conf : new Configuration(false));
+            codec = result;
+        }
+        return result;
+    }
+
+    public byte[] compressBytes(byte[] header, byte[] data) throws IOException {
+        ByteArrayOutputStream byteOutput = new ByteArrayOutputStream(header.length + data.length / 2 + 64);
+        byteOutput.write(header);
+        Compressor compressor = null;
+        try {
+            org.apache.hadoop.io.compress.CompressionCodec hadoopCodec = getCodec();
+            compressor = CodecPool.getCompressor(hadoopCodec);
+            CompressionOutputStream out = (compressor != null)
+                    ? hadoopCodec.createOutputStream(byteOutput, compressor)
+                    : hadoopCodec.createOutputStream(byteOutput);
+            out.write(data);
+            out.close();
+        }
+        catch (RuntimeException ex) {
+            // Hadoop codecs throw RuntimeException when their native library is not loaded
+            throw new IOException(ex);
+        }
+        catch (UnsatisfiedLinkError ex) {
+            // or UnsatisfiedLinkError when the Hadoop native library is loaded without their native support
+            throw new IOException(ex);
+        }
+        finally {
+            if (compressor != null) {
+                CodecPool.returnCompressor(compressor);
+            }
+        }
+        return byteOutput.toByteArray();
+    }
+
+    public byte[] compressString(byte[] header, String data) throws IOException {
+        return compressBytes(header, data.getBytes(CodecFactory.UTF_8_ENCODING));
+    }
+
+    public String decompressToString(DataInputStream dais) throws IOException {
+        return new String(decompressToBytes(dais), CodecFactory.UTF_8_ENCODING);
+    }
+
+    public byte[] decompressToBytes(DataInputStream dais) throws IOException {
+        Decompressor decompressor = null;
+        try {
+            org.apache.hadoop.io.compress.CompressionCodec hadoopCodec = getCodec();
+            decompressor = CodecPool.getDecompressor(hadoopCodec);
+            CompressionInputStream in = (decompressor != null)
+                    ? hadoopCodec.createInputStream(dais, decompressor)
+                    : hadoopCodec.createInputStream(dais);
+            byte[] decompress = IOUtils.toByteArray(in);
+            in.close();
+            return decompress;
+        }
+        catch (RuntimeException ex) {
+            throw new IOException(ex);
+        }
+        catch (UnsatisfiedLinkError ex) {
+            throw new IOException(ex);
+        }
+        finally {
+            if (decompressor != null) {
+                CodecPool.returnDecompressor(decompressor);
+            }
+        }
+    }
+}
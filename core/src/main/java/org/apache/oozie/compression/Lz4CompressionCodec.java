@@ -0,0 +1,31 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.oozie.compression;
+
+/**
+ * Class to compress and decompress data using the Hadoop LZ4 codec, which requires the Hadoop native library.
+ */
+public class Lz4CompressionCodec extends HadoopCompressionCodec {
+
+    public static final String CODEC_NAME = "lz4";
+
+    public Lz4CompressionCodec() {
+        super("org.apache.hadoop.io.compress.Lz4Codec");
+    }
+}
@@ -0,0 +1,382 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.coord;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.oozie.CoordinatorActionBean;
+import org.apache.oozie.client.CoordinatorAction;
+import org.apache.oozie.executor.jpa.CoordActionQueryExecutor;
+import org.apache.oozie.executor.jpa.CoordActionQueryExecutor.CoordActionQuery;
+import org.apache.oozie.executor.jpa.JPAExecutorException;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.service.StatusTransitService;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * In memory status counters of the actions of coordinator jobs, used to aggregate the status of coordinator jobs
+ * without querying the status of all their actions.
+ * <p>
+ * The counters of a job are loaded from the database when they are first needed and then updated incrementally as the
+ * actions of the job are inserted, updated and deleted by this server. They are reloaded from the database when they
+ * are older than the reconciliation interval, as updates made by other servers or by bulk queries are not seen.
+ * <p>
+ * Jobs whose actions changed are recorded as dirty, see {@link #drainDirtyJobIds()}. Jobs whose status was aggregated
+ * from counters in memory are reconciled once their counters are older than the reconciliation interval, see
+ * {@link #getJobIdsToReconcile()}.
+ */
+public class CoordActionStatusCounters {
+
+    private final long reconcileInterval;
+    private final Cache<String, JobEntry> jobs;
+    private final Set<String> dirtyJobIds = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * Status counts of the actions of a coordinator job.
+     */
+    public static class Counts {
+        private final Map<CoordinatorAction.Status, Integer> statusCounts;
+        private final int actionCount;
+        private final boolean pending;
+        private final boolean loaded;
+
+        private Counts(Map<CoordinatorAction.Status, Integer> statusCounts, int actionCount, boolean pending,
+                boolean loaded) {
+            this.statusCounts = statusCounts;
+            this.actionCount = actionCount;
+            this.pending = pending;
+            this.loaded = loaded;
+        }
+
+        /**
+         * Return the number of actions per status, IGNORED actions excluded. Statuses without actions are absent.
+         *
+         * @return the number of actions per status.
+         */
+        public Map<CoordinatorAction.Status, Integer> getStatusCounts() {
+            return statusCounts;
+        }
+
+        /**
+         * Return the number of actions, IGNORED actions excluded.
+         *
+         * @return the number of actions.
+         */
+        public int getActionCount() {
+            return actionCount;
+        }
+
+        /**
+         * Return if an action of the job is pending.
+         *
+         * @return <code>true</code> if an action of the job is pending.
+         */
+        public boolean isPending() {
+            return pending;
+        }
+
+        /**
+         * Return if the counts were just loaded from the database, rather than maintained in memory.
+         *
+         * @return <code>true</code> if the counts were loaded from the database.
+         */
+        public boolean isLoaded() {
+            return loaded;
+        }
+    }
+
+    private static class ActionState {
+        private final CoordinatorAction.Status status;
+        private final boolean pending;
+
+        private ActionState(CoordinatorAction.Status status, boolean pending) {
+            this.status = status;
+            this.pending = pending;
+        }
+    }
+
+    private static class Update {
+        private final String actionId;
+        private final CoordinatorAction.Status status;
+        private final Boolean pending;
+
+        private Update(String actionId, CoordinatorAction.Status status, Boolean pending) {
+            this.actionId = actionId;
+            this.status = status;
+            this.pending = pending;
+        }
+    }
+
+    private static class JobEntry {
+        private final Map<String, ActionState> actions = new HashMap<String, ActionState>();
+        private final Map<CoordinatorAction.Status, Integer> statusCounts =
+                new EnumMap<CoordinatorAction.Status, Integer>(CoordinatorAction.Status.class);
+        private int pendingCount;
+        private long loadedTime;
+        private boolean servedFromMemory;
+        // updates received while the entry is loaded from the database, applied once it is loaded
+        private List<Update> replay = new ArrayList<Update>();
+
+        private void apply(Update update) {
+            if (replay != null) {
+                replay.add(update);
+                return;
+            }
+            ActionState previous = actions.remove(update.actionId);
+            if (previous != null) {
+                count(previous, -1);
+            }
+            if (update.status != null) {
+                boolean pending = (update.pending != null) ? update.pending : previous != null && previous.pending;
+                ActionState state = new ActionState(update.status, pending);
+                actions.put(update.actionId, state);
+                count(state, 1);
+            }
+        }
+
+        private void count(ActionState state, int delta) {
+            if (state.status != CoordinatorAction.Status.IGNORED) {
+                Integer count = statusCounts.get(state.status);
+                int newCount = ((count == null) ? 0 : count) + delta;
+                if (newCount == 0) {
+                    statusCounts.remove(state.status);
+                }
+                else {
+                    statusCounts.put(state.status, newCount);
+                }
+            }
+            if (state.pending) {
+                pendingCount += delta;
+            }
+        }
+
+        private Counts getCounts(boolean loaded) {
+            int actionCount = 0;
+            for (int count : statusCounts.values()) {
+                actionCount += count;
+            }
+            return new Counts(new EnumMap<CoordinatorAction.Status, Integer>(statusCounts), actionCount,
+                    pendingCount > 0, loaded);
+        }
+    }
+
+    /**
+     * Create the coordinator action status counters.
+     *
+     * @param maxJobs maximum number of coordinator jobs whose counters are kept in memory.
+     * @param reconcileInterval interval, in milliseconds, after which the counters of a job are reloaded from the
+     *        database.
+     */
+    public CoordActionStatusCounters(int maxJobs, long reconcileInterval) {
+        this.reconcileInterval = reconcileInterval;
+        jobs = CacheBuilder.newBuilder().maximumSize(maxJobs).expireAfterAccess(2 * reconcileInterval,
+                TimeUnit.MILLISECONDS).build();
+    }
+
+    /**
+     * Return the coordinator action status counters of the {@link StatusTransitService}.
+     *
+     * @return the counters, or <code>null</code> if they are not enabled.
+     */
+    public static CoordActionStatusCounters get() {
+        Services services = Services.get();
+        StatusTransitService service = (services == null) ? null : services.get(StatusTransitService.class);
+        return (service == null) ? null : service.getCoordActionStatusCounters();
+    }
+
+    /**
+     * Return the status counts of the actions of a coordinator job, loading them from the database if they are not in
+     * memory, if they are older than the reconciliation interval or if requested.
+     *
+     * @param jobId coordinator job id.
+     * @param reload if <code>true</code>, the counts are loaded from the database.
+     * @return the status counts of the actions of the job.
+     * @throws JPAExecutorException thrown if the counts could not be loaded.
+     */
+    public Counts getCounts(String jobId, boolean reload) throws JPAExecutorException {
+        JobEntry entry = jobs.getIfPresent(jobId);
+        if (entry != null && !reload) {
+            synchronized (entry) {
+                if (entry.replay == null && System.currentTimeMillis() - entry.loadedTime < reconcileInterval) {
+                    entry.servedFromMemory = true;
+                    return entry.getCounts(false);
+                }
+            }
+        }
+        entry = new JobEntry();
+        jobs.put(jobId, entry);
+        long loadedTime = System.currentTimeMillis();
+        List<CoordinatorActionBean> actions;
+        try {
+            actions = CoordActionQueryExecutor.getInstance().getList(
+                    CoordActionQuery.GET_COORD_ACTIONS_ID_STATUS_PENDING, jobId);
+        }
+        catch (JPAExecutorException ex) {
+            jobs.asMap().remove(jobId, entry);
+            throw ex;
+        }
+        synchronized (entry) {
+            List<Update> replay = entry.replay;
+            entry.replay = null;
+            for (CoordinatorActionBean action : actions) {
+                entry.apply(new Update(action.getId(), action.getStatus(), action.isPending()));
+            }
+            for (Update update : replay) {
+                entry.apply(update);
+            }
+            entry.loadedTime = loadedTime;
+            return entry.getCounts(true);
+        }
+    }
+
+    /**
+     * Record that coordinator actions were inserted.
+     *
+     * @param actions inserted actions.
+     */
+    public void inserted(Collection<CoordinatorActionBean> actions) {
+        for (CoordinatorActionBean action : actions) {
+            apply(action, action.isPending());
+        }
+    }
+
+    /**
+     * Record that a coordinator action was updated by a named query.
+     *
+     * @param query update query.
+     * @param action updated action.
+     */
+    public void updated(CoordActionQuery query, CoordinatorActionBean action) {
+        switch (query) {
+            case UPDATE_COORD_ACTION_STATUS_PENDING_TIME:
+            case UPDATE_COORD_ACTION_FOR_START:
+                apply(action, action.isPending());
+                break;
+            case UPDATE_COORD_ACTION:
+            case UPDATE_COORD_ACTION_FOR_INPUTCHECK:
+            case UPDATE_COORD_ACTION_FOR_PUSH_INPUTCHECK:
+            case UPDATE_COORD_ACTION_RERUN:
+                apply(action, null);
+                break;
+            default:
+                // the query does not change the status nor the pending flag
+                break;
+        }
+    }
+
+    /**
+     * Record that coordinator actions were deleted.
+     *
+     * @param actionIds ids of the deleted actions.
+     */
+    public void deleted(Collection<String> actionIds) {
+        for (String actionId : actionIds) {
+            apply(actionId, null, null);
+        }
+    }
+
+    /**
+     * Return the ids of the coordinator jobs whose actions changed since the last call and clear them.
+     *
+     * @return the ids of the coordinator jobs whose actions changed.
+     */
+    public Set<String> drainDirtyJobIds() {
+        Set<String> jobIds = new HashSet<String>();
+        for (String jobId : dirtyJobIds) {
+            if (dirtyJobIds.remove(jobId)) {
+                jobIds.add(jobId);
+            }
+        }
+        return jobIds;
+    }
+
+    /**
+     * Return the ids of the coordinator jobs whose status was aggregated from counters that were not reconciled with
+     * the database for longer than the reconciliation interval.
+     *
+     * @return the ids of the coordinator jobs to reconcile.
+     */
+    public Set<String> getJobIdsToReconcile() {
+        Set<String> jobIds = new HashSet<String>();
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, JobEntry> entry : jobs.asMap().entrySet()) {
+            JobEntry jobEntry = entry.getValue();
+            synchronized (jobEntry) {
+                if (jobEntry.servedFromMemory && jobEntry.replay == null
+                        && now - jobEntry.loadedTime >= reconcileInterval) {
+                    jobIds.add(entry.getKey());
+                }
+            }
+        }
+        return jobIds;
+    }
+
+    /**
+     * Return the number of coordinator jobs whose counters are in memory.
+     *
+     * @return the number of coordinator jobs whose counters are in memory.
+     */
+    public long size() {
+        return jobs.size();
+    }
+
+    private void apply(CoordinatorActionBean action, Boolean pending) {
+        if (action.getStatusStr() == null) {
+            // unknown status, the counters of the job are reloaded when needed
+            String jobId = getJobId(action.getId());
+            if (jobId != null) {
+                dirtyJobIds.add(jobId);
+                jobs.invalidate(jobId);
+            }
+        }
+        else {
+            apply(action.getId(), action.getStatus(), pending);
+        }
+    }
+
+    private void apply(String actionId, CoordinatorAction.Status status, Boolean pending) {
+        String jobId = getJobId(actionId);
+        if (jobId == null) {
+            return;
+        }
+        dirtyJobIds.add(jobId);
+        JobEntry entry = jobs.getIfPresent(jobId);
+        if (entry != null) {
+            synchronized (entry) {
+                entry.apply(new Update(actionId, status, pending));
+            }
+        }
+    }
+
+    private static String getJobId(String actionId) {
+        int index = (actionId == null) ? -1 : actionId.lastIndexOf('@');
+        return (index < 0) ? null : actionId.substring(0, index);
+    }
+}
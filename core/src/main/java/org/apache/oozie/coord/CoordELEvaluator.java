@@ -104,12 +104,30 @@ public class CoordELEvaluator {
      */
     public static ELEvaluator createLazyEvaluator(Date actualTime, Date nominalTime, Element dEvent, Configuration conf)
             throws Exception {
+        return createLazyEvaluator(actualTime, nominalTime, dEvent, conf, null);
+    }
+
+    /**
+     * Create an Evaluator to resolve dataset instances of a coordinator action, the action id allowing the
+     * <code>latest</code> and <code>future</code> functions to use the {@link DatasetAvailabilityIndex} of its job.
+     *
+     * @param actualTime :Action start time
+     * @param nominalTime :Action creation time
+     * @param dEvent :XML element for data-in element usually enclosed by &lt;data-in(out)&gt; tag
+     * @param conf :Configuration to substitute any variables
+     * @param actionId :coordinator action id, may be <code>null</code>
+     * @return configured ELEvaluator
+     * @throws Exception : If there is any date-time string in wrong format, the exception is thrown
+     */
+    public static ELEvaluator createLazyEvaluator(Date actualTime, Date nominalTime, Element dEvent, Configuration conf,
+            String actionId) throws Exception {
         ELEvaluator eval = Services.get().get(ELService.class).createEvaluator("coord-action-start");
         setConfigToEval(eval, conf);
         SyncCoordDataset ds = getDSObject(dEvent);
         SyncCoordAction appInst = new SyncCoordAction();
         appInst.setNominalTime(nominalTime);
         appInst.setActualTime(actualTime);
+        appInst.setActionId(actionId);
         CoordELFunctions.configureEvaluator(eval, ds, appInst);
         eval.setVariable(CoordELFunctions.CONFIGURATION, conf);
         return eval;
@@ -331,19 +331,36 @@ public class CoordELFunctions {
             URIHandlerService uriService = Services.get().get(URIHandlerService.class);
             URIHandler uriHandler = null;
             Context uriContext = null;
+            DatasetAvailabilityIndex index = DatasetAvailabilityIndex.get();
+            DatasetAvailabilityIndex.Availability availability = index.getAvailability(getCoordJobId(), user,
+                    uriTemplate, doneFlag);
+            int probed = 0, known = 0;
             try {
                 while (instance >= checkedInstance && !currentThread.isInterrupted()) {
                     ELEvaluator uriEval = getUriEvaluator(nominalInstanceCal);
                     String uriPath = uriEval.evaluate(uriTemplate, String.class);
-                    if (uriHandler == null) {
-                        URI uri = new URI(uriPath);
-                        uriHandler = uriService.getURIHandler(uri);
-                        uriContext = uriHandler.getContext(uri, conf, user, true);
+                    long instanceTime = nominalInstanceCal.getTimeInMillis();
+                    boolean exists;
+                    if (availability != null && availability.exists(instanceTime)) {
+                        exists = true;
+                        known++;
                     }
-                    String uriWithDoneFlag = uriHandler.getURIWithDoneFlag(uriPath, doneFlag);
-                    if (uriHandler.exists(new URI(uriWithDoneFlag), uriContext)) {
+                    else {
+                        if (uriHandler == null) {
+                            URI uri = new URI(uriPath);
+                            uriHandler = uriService.getURIHandler(uri);
+                            uriContext = uriHandler.getContext(uri, conf, user, true);
+                        }
+                        String uriWithDoneFlag = uriHandler.getURIWithDoneFlag(uriPath, doneFlag);
+                        exists = uriHandler.exists(new URI(uriWithDoneFlag), uriContext);
+                        probed++;
+                        if (exists && availability != null) {
+                            availability.setExists(instanceTime);
+                        }
+                    }
+                    if (exists) {
                         if (available == endOffset) {
-                            LOG.debug("Matched future(" + available + "): " + uriWithDoneFlag);
+                            LOG.debug("Matched future(" + available + "): " + uriPath);
                             resolved = true;
                             resolvedInstances.append(DateUtils.formatDateOozieTZ(nominalInstanceCal));
                             resolvedURIPaths.append(uriPath);
@@ -352,7 +369,7 @@ public class CoordELFunctions {
                             break;
                         }
                         else if (available >= startOffset) {
-                            LOG.debug("Matched future(" + available + "): " + uriWithDoneFlag);
+                            LOG.debug("Matched future(" + available + "): " + uriPath);
                             resolvedInstances.append(DateUtils.formatDateOozieTZ(nominalInstanceCal)).append(
                                     INSTANCE_SEPARATOR);
                             resolvedURIPaths.append(uriPath).append(INSTANCE_SEPARATOR);
@@ -376,6 +393,8 @@ public class CoordELFunctions {
                 if (uriContext != null) {
                     uriContext.destroy();
                 }
+                index.recordResolution(probed, known);
+                LOG.debug("future() probed [{0}] URIs, [{1}] instances known to exist", probed, known);
             }
             if (!resolved) {
                 // return unchanged future function with variable 'is_resolved'
@@ -1139,21 +1158,38 @@ public class CoordELFunctions {
             URIHandlerService uriService = Services.get().get(URIHandlerService.class);
             URIHandler uriHandler = null;
             Context uriContext = null;
+            DatasetAvailabilityIndex index = DatasetAvailabilityIndex.get();
+            DatasetAvailabilityIndex.Availability availability = index.getAvailability(getCoordJobId(), user,
+                    uriTemplate, doneFlag);
+            int probed = 0, known = 0;
             try {
                 while (nominalInstanceCal.compareTo(initInstance) >= 0 && !currentThread.isInterrupted()) {
                     ELEvaluator uriEval = getUriEvaluator(nominalInstanceCal);
                     String uriPath = uriEval.evaluate(uriTemplate, String.class);
-                    if (uriHandler == null) {
-                        URI uri = new URI(uriPath);
-                        uriHandler = uriService.getURIHandler(uri);
-                        uriContext = uriHandler.getContext(uri, conf, user, true);
+                    long instanceTime = nominalInstanceCal.getTimeInMillis();
+                    boolean exists;
+                    if (availability != null && availability.exists(instanceTime)) {
+                        exists = true;
+                        known++;
+                    }
+                    else {
+                        if (uriHandler == null) {
+                            URI uri = new URI(uriPath);
+                            uriHandler = uriService.getURIHandler(uri);
+                            uriContext = uriHandler.getContext(uri, conf, user, true);
+                        }
+                        String uriWithDoneFlag = uriHandler.getURIWithDoneFlag(uriPath, doneFlag);
+                        exists = uriHandler.exists(new URI(uriWithDoneFlag), uriContext);
+                        probed++;
+                        if (exists && availability != null) {
+                            availability.setExists(instanceTime);
+                        }
                     }
-                    String uriWithDoneFlag = uriHandler.getURIWithDoneFlag(uriPath, doneFlag);
-                    if (uriHandler.exists(new URI(uriWithDoneFlag), uriContext)) {
+                    if (exists) {
                         XLog.getLog(CoordELFunctions.class)
-                        .debug("Found latest(" + available + "): " + uriWithDoneFlag);
+                        .debug("Found latest(" + available + "): " + uriPath);
                         if (available == startOffset) {
-                            LOG.debug("Matched latest(" + available + "): " + uriWithDoneFlag);
+                            LOG.debug("Matched latest(" + available + "): " + uriPath);
                             resolved = true;
                             resolvedInstances.append(DateUtils.formatDateOozieTZ(nominalInstanceCal));
                             resolvedURIPaths.append(uriPath);
@@ -1163,7 +1199,7 @@ public class CoordELFunctions {
                             break;
                         }
                         else if (available <= endOffset) {
-                            LOG.debug("Matched latest(" + available + "): " + uriWithDoneFlag);
+                            LOG.debug("Matched latest(" + available + "): " + uriPath);
                             resolvedInstances.append(DateUtils.formatDateOozieTZ(nominalInstanceCal)).append(
                                     INSTANCE_SEPARATOR);
                             resolvedURIPaths.append(uriPath).append(INSTANCE_SEPARATOR);
@@ -1185,6 +1221,8 @@ public class CoordELFunctions {
                 if (uriContext != null) {
                     uriContext.destroy();
                 }
+                index.recordResolution(probed, known);
+                LOG.debug("latest() probed [{0}] URIs, [{1}] instances known to exist", probed, known);
             }
             if (!resolved) {
                 // return unchanged latest function with variable 'is_resolved'
@@ -1207,6 +1245,19 @@ public class CoordELFunctions {
         return retVal;
     }
 
+    /**
+     * @return the id of the coordinator job of the current action, <code>null</code> if it is not known
+     */
+    private static String getCoordJobId() {
+        SyncCoordAction action = (SyncCoordAction) ELEvaluator.getCurrent().getVariable(COORD_ACTION);
+        String actionId = (action != null) ? action.getActionId() : null;
+        if (actionId == null) {
+            return null;
+        }
+        int index = actionId.lastIndexOf('@');
+        return (index > 0) ? actionId.substring(0, index) : actionId;
+    }
+
     /**
      * @param tm
      * @return a new Evaluator to be used for URI-template evaluation
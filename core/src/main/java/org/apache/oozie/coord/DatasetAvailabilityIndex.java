@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.coord;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Process wide index of the dataset instances found to exist when resolving <code>coord:latest()</code> and
+ * <code>coord:future()</code> instances, per coordinator job and dataset.
+ * <p>
+ * Instances found to exist are not probed again by later resolutions of the same coordinator, either retries of the
+ * same action or other actions, only the instances not known to exist yet are. The index of a dataset is dropped
+ * after a time to live, so that deleted instances are eventually noticed, and when its coordinator job is updated.
+ */
+public class DatasetAvailabilityIndex {
+
+    /**
+     * Default maximum number of indexed datasets.
+     */
+    public static final int DEFAULT_SIZE = 1000;
+
+    /**
+     * Default time to live of the index of a dataset, in milliseconds.
+     */
+    public static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(10);
+
+    private static final char SEPARATOR = '\n';
+
+    private static volatile DatasetAvailabilityIndex instance = new DatasetAvailabilityIndex(DEFAULT_SIZE, DEFAULT_TTL);
+
+    private final Cache<String, Availability> cache;
+    private final boolean enabled;
+    private final AtomicLong resolutions = new AtomicLong();
+    private final AtomicLong probedURIs = new AtomicLong();
+    private final AtomicLong knownInstances = new AtomicLong();
+
+    /**
+     * Instances of a dataset known to exist, by nominal time.
+     */
+    public static class Availability {
+        private final Set<Long> existing = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+
+        public boolean exists(long instanceTime) {
+            return existing.contains(instanceTime);
+        }
+
+        public void setExists(long instanceTime) {
+            existing.add(instanceTime);
+        }
+    }
+
+    private DatasetAvailabilityIndex(int size, long ttl) {
+        enabled = size > 0 && ttl > 0;
+        cache = CacheBuilder.newBuilder().maximumSize(size).expireAfterWrite(ttl, TimeUnit.MILLISECONDS).build();
+    }
+
+    /**
+     * Return the process wide dataset availability index.
+     *
+     * @return the dataset availability index.
+     */
+    public static DatasetAvailabilityIndex get() {
+        return instance;
+    }
+
+    /**
+     * Replace the process wide dataset availability index with a new, empty, index.
+     *
+     * @param size maximum number of indexed datasets, 0 disables the index.
+     * @param ttl time to live of the index of a dataset, in milliseconds.
+     */
+    public static void reset(int size, long ttl) {
+        instance = new DatasetAvailabilityIndex(Math.max(0, size), Math.max(0, ttl));
+    }
+
+    /**
+     * Return the index of a dataset of a coordinator job, creating it if needed.
+     *
+     * @param jobId coordinator job id.
+     * @param user user the dataset instances are checked as.
+     * @param uriTemplate URI template of the dataset.
+     * @param doneFlag done flag of the dataset.
+     * @return the index of the dataset, <code>null</code> if the index is disabled or the job is not known.
+     */
+    public Availability getAvailability(String jobId, String user, String uriTemplate, String doneFlag) {
+        if (!enabled || jobId == null) {
+            return null;
+        }
+        String key = jobId + SEPARATOR + user + SEPARATOR + uriTemplate + SEPARATOR + doneFlag;
+        try {
+            return cache.get(key, new Callable<Availability>() {
+                @Override
+                public Availability call() {
+                    return new Availability();
+                }
+            });
+        }
+        catch (ExecutionException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Drop the index of all the datasets of a coordinator job.
+     *
+     * @param jobId coordinator job id.
+     */
+    public void invalidate(String jobId) {
+        String prefix = jobId + SEPARATOR;
+        for (String key : cache.asMap().keySet()) {
+            if (key.startsWith(prefix)) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * Record the outcome of a resolution.
+     *
+     * @param probed number of URIs probed.
+     * @param known number of instances found in the index instead of being probed.
+     */
+    public void recordResolution(int probed, int known) {
+        resolutions.incrementAndGet();
+        probedURIs.addAndGet(probed);
+        knownInstances.addAndGet(known);
+    }
+
+    public long getResolutions() {
+        return resolutions.get();
+    }
+
+    public long getProbedURIs() {
+        return probedURIs.get();
+    }
+
+    public long getKnownInstances() {
+        return knownInstances.get();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+}
@@ -24,6 +24,7 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -195,9 +196,10 @@ public class CoordOldInputDependency implements CoordInputDependency {
         boolean allExists = true;
         String existSeparator = "", nonExistSeparator = "";
         String user = ParamChecker.notEmpty(conf.get(OozieClient.USER_NAME), OozieClient.USER_NAME);
+        boolean[] exists = pathsExist(coordAction, Arrays.asList(uriList), conf, user);
         for (int i = 0; i < uriList.length; i++) {
             if (allExists) {
-                allExists = pathExists(coordAction, uriList[i], conf, user);
+                allExists = exists[i];
                 log.info("[" + coordAction.getId() + "]::ActionInputCheck:: File:" + uriList[i] + ", Exists? :"
                         + allExists);
             }
@@ -216,8 +218,24 @@ public class CoordOldInputDependency implements CoordInputDependency {
     public boolean pathExists(CoordinatorActionBean coordAction, String sPath, Configuration actionConf, String user)
             throws IOException {
         log.debug("checking for the file " + sPath);
+        return pathsExist(coordAction, Collections.singletonList(sPath), actionConf, user)[0];
+    }
+
+    /**
+     * Check if paths exist, in order. The paths after the first missing one are reported missing without being
+     * checked.
+     *
+     * @param coordAction coordinator action, its error is set if a path could not be checked.
+     * @param paths paths to check.
+     * @param actionConf action configuration.
+     * @param user name of the user the paths should be accessed as.
+     * @return for each path, true if it exists.
+     * @throws IOException thrown if a path could not be checked.
+     */
+    public boolean[] pathsExist(CoordinatorActionBean coordAction, List<String> paths, Configuration actionConf,
+            String user) throws IOException {
         try {
-            return CoordCommandUtils.pathExists(sPath, actionConf, user);
+            return CoordCommandUtils.pathsExist(paths, actionConf, user, true);
         }
         catch (URIHandlerException e) {
             if (coordAction != null) {
@@ -278,7 +296,8 @@ public class CoordOldInputDependency implements CoordInputDependency {
                 if (dEvent.getChild(CoordCommandUtils.UNRESOLVED_INSTANCES_TAG, dEvent.getNamespace()) == null) {
                     continue;
                 }
-                ELEvaluator eval = CoordELEvaluator.createLazyEvaluator(actualTime, nominalTime, dEvent, actionConf);
+                ELEvaluator eval = CoordELEvaluator.createLazyEvaluator(actualTime, nominalTime, dEvent, actionConf,
+                        coordAction.getId());
                 String unResolvedInstance = dEvent.getChild(CoordCommandUtils.UNRESOLVED_INSTANCES_TAG,
                         dEvent.getNamespace()).getTextTrim();
                 String unresolvedList[] = unResolvedInstance.split(CoordELFunctions.INSTANCE_SEPARATOR);
@@ -31,6 +31,7 @@ import java.util.Map;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.oozie.CoordinatorActionBean;
 import org.apache.oozie.ErrorCode;
+import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.command.coord.CoordCommandUtils;
 import org.apache.oozie.coord.input.dependency.AbstractCoordInputDependency;
 import org.apache.oozie.coord.input.dependency.CoordInputDependency;
@@ -39,6 +40,7 @@ import org.apache.oozie.coord.input.dependency.CoordPullInputDependency;
 import org.apache.oozie.coord.input.logic.CoordInputLogicEvaluatorResult.STATUS;
 import org.apache.oozie.dependency.URIHandlerException;
 import org.apache.oozie.util.LogUtils;
+import org.apache.oozie.util.ParamChecker;
 import org.apache.oozie.util.XConfiguration;
 import org.apache.oozie.util.XLog;
 
@@ -98,10 +100,19 @@ public class CoordInputLogicEvaluatorPhaseOne implements CoordInputLogicEvaluato
         try {
             Configuration actionConf = new XConfiguration(new StringReader(coordAction.getRunConf()));
             List<CoordInputInstance> firstInputSetList = coordInputDependency.getDependencyMap().get(dataSet);
+            List<String> missingList = new ArrayList<String>();
+            for (CoordInputInstance coordInputInstance : firstInputSetList) {
+                if (!coordInputInstance.isAvailable()) {
+                    missingList.add(coordInputInstance.getInputDataInstance());
+                }
+            }
+            // stop looking for dependencies after the first missing one, if min is not specified
+            boolean[] exists = pathsExist(missingList, actionConf, min < 0);
+            int missingIndex = 0;
             for (int i = 0; i < firstInputSetList.size(); i++) {
                 CoordInputInstance coordInputInstance = firstInputSetList.get(i);
                 if (!coordInputInstance.isAvailable()) {
-                    if (pathExists(coordInputInstance.getInputDataInstance(), actionConf)) {
+                    if (exists[missingIndex++]) {
                         availableList.add(coordInputInstance.getInputDataInstance());
                         coordInputDependency.addToAvailableDependencies(dataSet, coordInputInstance);
                     }
@@ -263,6 +274,12 @@ public class CoordInputLogicEvaluatorPhaseOne implements CoordInputLogicEvaluato
 
     }
 
+    protected boolean[] pathsExist(List<String> paths, Configuration jobConf, boolean stopOnFirstMissing)
+            throws URISyntaxException, URIHandlerException {
+        String user = ParamChecker.notEmpty(jobConf.get(OozieClient.USER_NAME), OozieClient.USER_NAME);
+        return CoordCommandUtils.pathsExist(paths, jobConf, user, stopOnFirstMissing);
+    }
+
     public CoordInputLogicEvaluatorResult getResultFromPullPush(CoordinatorActionBean coordAction, String dataSet, int min) {
         CoordInputLogicEvaluatorResult result = new CoordInputLogicEvaluatorResult();
         CoordInputLogicEvaluatorResult pullResult = getEvalResult(
@@ -94,6 +94,11 @@ public class CoordInputLogicEvaluatorPhaseThree extends CoordInputLogicEvaluator
         return false;
     }
 
+    protected boolean[] pathsExist(List<String> paths, Configuration jobConf, boolean stopOnFirstMissing)
+            throws URISyntaxException, URIHandlerException {
+        return new boolean[paths.size()];
+    }
+
     public boolean isInputWaitElapsed(int timeInMin) {
         return true;
     }
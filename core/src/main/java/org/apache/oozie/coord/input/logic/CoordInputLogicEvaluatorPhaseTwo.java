@@ -57,7 +57,7 @@ public class CoordInputLogicEvaluatorPhaseTwo extends CoordInputLogicEvaluatorPh
         try {
             CoordPullInputDependency coordPullInputDependency = (CoordPullInputDependency) coordInputDependency;
             ELEvaluator eval = CoordELEvaluator.createLazyEvaluator(actualTime, coordAction.getNominalTime(),
-                    getInputSetEvent(dataSet), getConf());
+                    getInputSetEvent(dataSet), getConf(), coordAction.getId());
             if (coordPullInputDependency.getUnResolvedDependency(dataSet) == null) {
                 return super.evalInput(dataSet, min, wait);
 
@@ -95,30 +95,21 @@ public class DependencyChecker {
         List<String> missingDeps = new ArrayList<String>();
         List<String> availableDeps = new ArrayList<String>();
         URIHandlerService uriService = Services.get().get(URIHandlerService.class);
-        boolean continueChecking = true;
         try {
-            for (int index = 0; index < missingDependencies.size(); index++) {
-                if (continueChecking) {
-                    String dependency = missingDependencies.get(index);
-
-                    URI uri = new URI(dependency);
-                    URIHandler uriHandler = uriService.getURIHandler(uri);
-                    LOG.debug("Checking for the availability of dependency [{0}] ", dependency);
-                    if (uriHandler.exists(uri, actionConf, user)) {
-                        LOG.debug("Dependency [{0}] is available", dependency);
-                        availableDeps.add(dependency);
-                    }
-                    else {
-                        LOG.debug("Dependency [{0}] is missing", dependency);
-                        missingDeps.add(dependency);
-                        if (stopOnFirstMissing) {
-                            continueChecking = false;
-                        }
-                    }
-
+            List<URI> uris = new ArrayList<URI>(missingDependencies.size());
+            for (String dependency : missingDependencies) {
+                uris.add(new URI(dependency));
+            }
+            boolean[] exists = uriService.exists(uris, actionConf, user, stopOnFirstMissing);
+            for (int index = 0; index < exists.length; index++) {
+                String dependency = missingDependencies.get(index);
+                if (exists[index]) {
+                    LOG.debug("Dependency [{0}] is available", dependency);
+                    availableDeps.add(dependency);
                 }
                 else {
-                    missingDeps.add(missingDependencies.get(index));
+                    LOG.debug("Dependency [{0}] is missing", dependency);
+                    missingDeps.add(dependency);
                 }
             }
         }
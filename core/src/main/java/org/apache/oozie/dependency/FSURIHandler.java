@@ -18,12 +18,18 @@
 
 package org.apache.oozie.dependency;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.oozie.ErrorCode;
@@ -32,9 +38,12 @@ import org.apache.oozie.action.hadoop.LauncherURIHandler;
 import org.apache.oozie.service.HadoopAccessorException;
 import org.apache.oozie.service.HadoopAccessorService;
 import org.apache.oozie.service.Services;
+import org.apache.oozie.util.XLog;
 
 public class FSURIHandler implements URIHandler {
 
+    private static final XLog LOG = XLog.getLog(FSURIHandler.class);
+
     private HadoopAccessorService service;
     private Set<String> supportedSchemes;
     private List<Class<?>> classesToShip;
@@ -114,6 +123,77 @@ public class FSURIHandler implements URIHandler {
         }
     }
 
+    /**
+     * Check if URIs exist. The URIs are grouped by parent directory, and the directories containing several of the URIs
+     * are listed once instead of checking each URI. If a directory cannot be listed, its URIs are checked one by one.
+     *
+     * @param uris URIs to check.
+     * @param conf configuration to access the URIs.
+     * @param user name of the user the URIs should be accessed as.
+     * @return for each URI, <code>true</code> if it exists.
+     * @throws URIHandlerException thrown if an URI could not be checked.
+     */
+    public boolean[] exists(List<URI> uris, Configuration conf, String user) throws URIHandlerException {
+        boolean[] exists = new boolean[uris.size()];
+        Map<Path, List<Integer>> directories = new LinkedHashMap<Path, List<Integer>>();
+        for (int i = 0; i < uris.size(); i++) {
+            Path directory = getDirectory(uris.get(i));
+            if (directory == null) {
+                exists[i] = exists(uris.get(i), conf, user);
+                continue;
+            }
+            List<Integer> indexes = directories.get(directory);
+            if (indexes == null) {
+                indexes = new ArrayList<Integer>();
+                directories.put(directory, indexes);
+            }
+            indexes.add(i);
+        }
+        for (Map.Entry<Path, List<Integer>> entry : directories.entrySet()) {
+            List<Integer> indexes = entry.getValue();
+            Set<String> names = (indexes.size() > 1) ? list(uris.get(indexes.get(0)), entry.getKey(), conf, user) : null;
+            for (int i : indexes) {
+                URI uri = uris.get(i);
+                exists[i] = (names != null) ? names.contains(getNormalizedPath(uri).getName()) : exists(uri, conf, user);
+            }
+        }
+        return exists;
+    }
+
+    /**
+     * Return the directory to list to check the existence of a URI with {@link #exists(List, Configuration, String)}.
+     *
+     * @param uri URI to check.
+     * @return the parent directory of the URI, or <code>null</code> if the URI must be checked on its own.
+     */
+    public Path getDirectory(URI uri) {
+        if ("har".equals(uri.getScheme())) {
+            return null;
+        }
+        return getNormalizedPath(uri).getParent();
+    }
+
+    private Set<String> list(URI uri, Path directory, Configuration conf, String user) throws URIHandlerException {
+        FileSystem fs = getFileSystem(uri, conf, user);
+        Set<String> names = new HashSet<String>();
+        try {
+            FileStatus[] statuses = fs.listStatus(directory);
+            if (statuses != null) {
+                for (FileStatus status : statuses) {
+                    names.add(status.getPath().getName());
+                }
+            }
+        }
+        catch (FileNotFoundException e) {
+            // none of the URIs exist
+        }
+        catch (IOException e) {
+            LOG.debug("Could not list [{0}], checking its URIs one by one: {1}", directory, e.getMessage());
+            return null;
+        }
+        return names;
+    }
+
     @Override
     public String getURIWithDoneFlag(String uri, String doneFlag) throws URIHandlerException {
         if (doneFlag.length() > 0) {
@@ -32,6 +32,7 @@ import org.apache.oozie.ErrorCode;
 import org.apache.oozie.WorkflowActionBean;
 import org.apache.oozie.WorkflowJobBean;
 import org.apache.oozie.client.rest.JsonBean;
+import org.apache.oozie.coord.CoordActionStatusCounters;
 import org.apache.oozie.executor.jpa.BundleActionQueryExecutor.BundleActionQuery;
 import org.apache.oozie.executor.jpa.BundleJobQueryExecutor.BundleJobQuery;
 import org.apache.oozie.executor.jpa.CoordActionQueryExecutor.CoordActionQuery;
@@ -130,6 +131,41 @@ public class BatchQueryExecutor {
             }
         }
         jpaService.executeBatchInsertUpdateDelete(insertList, queryList, deleteList, em);
+        updateCoordActionStatusCounters(insertList, updateList, deleteList);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private void updateCoordActionStatusCounters(Collection<JsonBean> insertList, Collection<UpdateEntry> updateList,
+            Collection<JsonBean> deleteList) {
+        CoordActionStatusCounters counters = CoordActionStatusCounters.get();
+        if (counters == null) {
+            return;
+        }
+        if (insertList != null) {
+            List<CoordinatorActionBean> inserted = new ArrayList<CoordinatorActionBean>();
+            for (JsonBean bean : insertList) {
+                if (bean instanceof CoordinatorActionBean) {
+                    inserted.add((CoordinatorActionBean) bean);
+                }
+            }
+            counters.inserted(inserted);
+        }
+        if (updateList != null) {
+            for (UpdateEntry entry : updateList) {
+                if (entry.getBean() instanceof CoordinatorActionBean) {
+                    counters.updated((CoordActionQuery) entry.getQueryName(), (CoordinatorActionBean) entry.getBean());
+                }
+            }
+        }
+        if (deleteList != null) {
+            List<String> deleted = new ArrayList<String>();
+            for (JsonBean bean : deleteList) {
+                if (bean instanceof CoordinatorActionBean) {
+                    deleted.add(((CoordinatorActionBean) bean).getId());
+                }
+            }
+            counters.deleted(deleted);
+        }
     }
 
 }
@@ -38,7 +38,7 @@ public class BinaryBlobValueHandler extends org.apache.openjpa.jdbc.meta.strats.
         if (val == null) {
             return null;
         }
-        return ((BinaryBlob) val).getRawBlob();
+        return ((BinaryBlob) val).getRawBlob(StringBlobValueHandler.getColumn(vm));
     }
 
     public Object toObjectValue(ValueMapping vm, Object val) {
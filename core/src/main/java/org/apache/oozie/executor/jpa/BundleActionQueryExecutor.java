@@ -43,6 +43,8 @@ public class BundleActionQueryExecutor extends
         GET_BUNDLE_ACTION,
         GET_BUNDLE_ACTIONS_STATUS_UNIGNORED_FOR_BUNDLE,
         GET_BUNDLE_WAITING_ACTIONS_OLDER_THAN,
+        GET_BUNDLE_WAITING_ACTIONS_OLDER_THAN_PAGE,
+        GET_BUNDLE_WAITING_ACTIONS_OLDER_THAN_PAGE_IN_BUCKETS,
         GET_BUNDLE_UNIGNORED_ACTION_STATUS_PENDING_FOR_BUNDLE
     };
 
@@ -101,6 +103,19 @@ public class BundleActionQueryExecutor extends
                 Timestamp ts = new Timestamp(System.currentTimeMillis() - (Long)parameters[0] * 1000);
                 query.setParameter("lastModifiedTime", ts);
                 break;
+            case GET_BUNDLE_WAITING_ACTIONS_OLDER_THAN_PAGE:
+                query.setParameter("lastModifiedTime",
+                        new Timestamp(System.currentTimeMillis() - (Long) parameters[0] * 1000));
+                query.setParameter("lastId", parameters[1]);
+                query.setMaxResults((Integer) parameters[2]);
+                break;
+            case GET_BUNDLE_WAITING_ACTIONS_OLDER_THAN_PAGE_IN_BUCKETS:
+                query.setParameter("lastModifiedTime",
+                        new Timestamp(System.currentTimeMillis() - (Long) parameters[0] * 1000));
+                query.setParameter("lastId", parameters[1]);
+                query.setMaxResults((Integer) parameters[2]);
+                query.setParameter("buckets", parameters[3]);
+                break;
             case GET_BUNDLE_UNIGNORED_ACTION_STATUS_PENDING_FOR_BUNDLE:
                 query.setParameter("bundleId", parameters[0]);
                 break;
@@ -139,6 +154,8 @@ public class BundleActionQueryExecutor extends
                 bean = (BundleActionBean) ret;
                 break;
             case GET_BUNDLE_WAITING_ACTIONS_OLDER_THAN:
+            case GET_BUNDLE_WAITING_ACTIONS_OLDER_THAN_PAGE:
+            case GET_BUNDLE_WAITING_ACTIONS_OLDER_THAN_PAGE_IN_BUCKETS:
                 bean = new BundleActionBean();
                 arr = (Object[]) ret;
                 bean.setBundleActionId((String) arr[0]);
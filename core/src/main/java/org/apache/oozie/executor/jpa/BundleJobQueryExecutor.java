@@ -48,6 +48,7 @@ public class BundleJobQueryExecutor extends QueryExecutor<BundleJobBean, BundleJ
         UPDATE_BUNDLE_JOB_PAUSE_KICKOFF,
         GET_BUNDLE_JOB,
         GET_BUNDLE_JOB_STATUS,
+        GET_BUNDLE_JOB_USER_GROUP,
         GET_BUNDLE_JOB_ID_STATUS_PENDING_MOD_PAUSE_SUSPEND_TIME,
         GET_BUNDLE_JOB_ID_JOBXML_CONF,
         GET_BUNDLE_IDS_FOR_STATUS_TRANSIT
@@ -134,6 +135,7 @@ public class BundleJobQueryExecutor extends QueryExecutor<BundleJobBean, BundleJ
             case GET_BUNDLE_JOB_ID_STATUS_PENDING_MOD_PAUSE_SUSPEND_TIME:
             case GET_BUNDLE_JOB_ID_JOBXML_CONF:
             case GET_BUNDLE_JOB_STATUS:
+            case GET_BUNDLE_JOB_USER_GROUP:
                 query.setParameter("id", parameters[0]);
                 break;
             case GET_BUNDLE_IDS_FOR_STATUS_TRANSIT:
@@ -206,6 +208,13 @@ public class BundleJobQueryExecutor extends QueryExecutor<BundleJobBean, BundleJ
                 bean.setId((String) parameters[0]);
                 bean.setStatus((String) ret);
                 break;
+            case GET_BUNDLE_JOB_USER_GROUP:
+                bean = new BundleJobBean();
+                arr = (Object[]) ret;
+                bean.setId((String) parameters[0]);
+                bean.setUser((String) arr[0]);
+                bean.setGroup((String) arr[1]);
+                break;
             case GET_BUNDLE_JOB_ID_STATUS_PENDING_MOD_PAUSE_SUSPEND_TIME:
                 bean = new BundleJobBean();
                 arr = (Object[]) ret;
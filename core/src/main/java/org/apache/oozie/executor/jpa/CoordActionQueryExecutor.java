@@ -29,6 +29,7 @@ import javax.persistence.Query;
 import org.apache.oozie.CoordinatorActionBean;
 import org.apache.oozie.ErrorCode;
 import org.apache.oozie.StringBlob;
+import org.apache.oozie.coord.CoordActionStatusCounters;
 import org.apache.oozie.service.JPAService;
 import org.apache.oozie.service.Services;
 
@@ -52,6 +53,7 @@ public class CoordActionQueryExecutor extends
         GET_COORD_ACTIVE_ACTIONS_COUNT_BY_JOBID,
         GET_COORD_ACTIONS_BY_LAST_MODIFIED_TIME,
         GET_COORD_ACTIONS_STATUS_UNIGNORED,
+        GET_COORD_ACTIONS_ID_STATUS_PENDING,
         GET_COORD_ACTIONS_PENDING_COUNT,
         GET_ACTIVE_ACTIONS_IDS_FOR_SLA_CHANGE,
         GET_ACTIVE_ACTIONS_JOBID_FOR_SLA_CHANGE,
@@ -60,6 +62,10 @@ public class CoordActionQueryExecutor extends
         GET_ACTIVE_ACTIONS_FOR_DATES,
         GET_COORD_ACTIONS_WAITING_READY_SUBMITTED_OLDER_THAN,
         GET_COORD_ACTIONS_FOR_RECOVERY_OLDER_THAN,
+        GET_COORD_ACTIONS_WAITING_READY_SUBMITTED_OLDER_THAN_PAGE,
+        GET_COORD_ACTIONS_WAITING_READY_SUBMITTED_OLDER_THAN_PAGE_IN_BUCKETS,
+        GET_COORD_ACTIONS_FOR_RECOVERY_OLDER_THAN_PAGE,
+        GET_COORD_ACTIONS_FOR_RECOVERY_OLDER_THAN_PAGE_IN_BUCKETS,
         GET_COORD_ACTION_FOR_SLA
     };
 
@@ -185,6 +191,7 @@ public class CoordActionQueryExecutor extends
                 query.setParameter("lastModifiedTime", new Timestamp(((Date) parameters[0]).getTime()));
                 break;
             case GET_COORD_ACTIONS_STATUS_UNIGNORED:
+            case GET_COORD_ACTIONS_ID_STATUS_PENDING:
                 query.setParameter("jobId", parameters[0]);
                 break;
             case GET_COORD_ACTIONS_PENDING_COUNT:
@@ -210,6 +217,30 @@ public class CoordActionQueryExecutor extends
                 query.setParameter("lastModifiedTime", new Timestamp(((Date) parameters[0]).getTime()));
                 query.setParameter("currentTime", new Timestamp(new Date().getTime()));
                 break;
+            case GET_COORD_ACTIONS_FOR_RECOVERY_OLDER_THAN_PAGE:
+                query.setParameter("lastModifiedTime", new Timestamp(((Date) parameters[0]).getTime()));
+                query.setParameter("lastId", parameters[1]);
+                query.setMaxResults((Integer) parameters[2]);
+                break;
+            case GET_COORD_ACTIONS_FOR_RECOVERY_OLDER_THAN_PAGE_IN_BUCKETS:
+                query.setParameter("lastModifiedTime", new Timestamp(((Date) parameters[0]).getTime()));
+                query.setParameter("lastId", parameters[1]);
+                query.setMaxResults((Integer) parameters[2]);
+                query.setParameter("buckets", parameters[3]);
+                break;
+            case GET_COORD_ACTIONS_WAITING_READY_SUBMITTED_OLDER_THAN_PAGE:
+                query.setParameter("lastModifiedTime", new Timestamp(((Date) parameters[0]).getTime()));
+                query.setParameter("currentTime", new Timestamp(new Date().getTime()));
+                query.setParameter("lastId", parameters[1]);
+                query.setMaxResults((Integer) parameters[2]);
+                break;
+            case GET_COORD_ACTIONS_WAITING_READY_SUBMITTED_OLDER_THAN_PAGE_IN_BUCKETS:
+                query.setParameter("lastModifiedTime", new Timestamp(((Date) parameters[0]).getTime()));
+                query.setParameter("currentTime", new Timestamp(new Date().getTime()));
+                query.setParameter("lastId", parameters[1]);
+                query.setMaxResults((Integer) parameters[2]);
+                query.setParameter("buckets", parameters[3]);
+                break;
 
             default:
                 throw new JPAExecutorException(ErrorCode.E0603, "QueryExecutor cannot set parameters for "
@@ -224,6 +255,10 @@ public class CoordActionQueryExecutor extends
         EntityManager em = jpaService.getEntityManager();
         Query query = getUpdateQuery(namedQuery, jobBean, em);
         int ret = jpaService.executeUpdate(namedQuery.name(), query, em);
+        CoordActionStatusCounters counters = CoordActionStatusCounters.get();
+        if (counters != null) {
+            counters.updated(namedQuery, jobBean);
+        }
         return ret;
     }
 
@@ -287,6 +322,13 @@ public class CoordActionQueryExecutor extends
                 bean.setStatusStr((String)arr[0]);
                 bean.setPending((Integer)arr[1]);
                 break;
+            case GET_COORD_ACTIONS_ID_STATUS_PENDING:
+                arr = (Object[]) ret;
+                bean = new CoordinatorActionBean();
+                bean.setId((String) arr[0]);
+                bean.setStatusStr((String) arr[1]);
+                bean.setPending((Integer) arr[2]);
+                break;
             case GET_ACTIVE_ACTIONS_IDS_FOR_SLA_CHANGE:
             case GET_ACTIVE_ACTIONS_JOBID_FOR_SLA_CHANGE:
                 arr = (Object[]) ret;
@@ -315,6 +357,8 @@ public class CoordActionQueryExecutor extends
                 bean.setCreatedTime((Timestamp) arr[6]);
                 break;
             case  GET_COORD_ACTIONS_FOR_RECOVERY_OLDER_THAN:
+            case GET_COORD_ACTIONS_FOR_RECOVERY_OLDER_THAN_PAGE:
+            case GET_COORD_ACTIONS_FOR_RECOVERY_OLDER_THAN_PAGE_IN_BUCKETS:
                 arr = (Object[]) ret;
                 bean = new CoordinatorActionBean();
                 bean.setId((String)arr[0]);
@@ -324,6 +368,8 @@ public class CoordActionQueryExecutor extends
                 bean.setPending((Integer) arr[4]);
                 break;
             case    GET_COORD_ACTIONS_WAITING_READY_SUBMITTED_OLDER_THAN:
+            case GET_COORD_ACTIONS_WAITING_READY_SUBMITTED_OLDER_THAN_PAGE:
+            case GET_COORD_ACTIONS_WAITING_READY_SUBMITTED_OLDER_THAN_PAGE_IN_BUCKETS:
                 arr = (Object[]) ret;
                 bean = new CoordinatorActionBean();
                 bean.setId((String)arr[0]);
@@ -56,6 +56,7 @@ public class CoordJobQueryExecutor extends QueryExecutor<CoordinatorJobBean, Coo
         UPDATE_COORD_JOB_XML,
         GET_COORD_JOB,
         GET_COORD_JOB_USER_APPNAME,
+        GET_COORD_JOB_USER_GROUP,
         GET_COORD_JOB_INPUT_CHECK,
         GET_COORD_JOB_ACTION_READY,
         GET_COORD_JOB_ACTION_KILL,
@@ -205,6 +206,7 @@ public class CoordJobQueryExecutor extends QueryExecutor<CoordinatorJobBean, Coo
         switch (namedQuery) {
             case GET_COORD_JOB:
             case GET_COORD_JOB_USER_APPNAME:
+            case GET_COORD_JOB_USER_GROUP:
             case GET_COORD_JOB_INPUT_CHECK:
             case GET_COORD_JOB_ACTION_READY:
             case GET_COORD_JOB_ACTION_KILL:
@@ -271,6 +273,13 @@ public class CoordJobQueryExecutor extends QueryExecutor<CoordinatorJobBean, Coo
                 bean.setUser((String) arr[0]);
                 bean.setAppName((String) arr[1]);
                 break;
+            case GET_COORD_JOB_USER_GROUP:
+                bean = new CoordinatorJobBean();
+                arr = (Object[]) ret;
+                bean.setId((String) parameters[0]);
+                bean.setUser((String) arr[0]);
+                bean.setGroup((String) arr[1]);
+                break;
             case GET_COORD_JOB_INPUT_CHECK:
                 bean = new CoordinatorJobBean();
                 arr = (Object[]) ret;
@@ -19,6 +19,8 @@
 package org.apache.oozie.executor.jpa;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 import javax.persistence.EntityManager;
@@ -43,7 +45,8 @@ public class SLASummaryQueryExecutor extends QueryExecutor<SLASummaryBean, SLASu
         UPDATE_SLA_SUMMARY_LAST_MODIFIED_TIME,
         GET_SLA_SUMMARY,
         GET_SLA_SUMMARY_EVENTPROCESSED,
-        GET_SLA_SUMMARY_EVENTPROCESSED_LAST_MODIFIED
+        GET_SLA_SUMMARY_EVENTPROCESSED_LAST_MODIFIED,
+        GET_SLA_SUMMARY_MODIFIED_AFTER
     };
 
     private static SLASummaryQueryExecutor instance = new SLASummaryQueryExecutor();
@@ -125,6 +128,9 @@ public class SLASummaryQueryExecutor extends QueryExecutor<SLASummaryBean, SLASu
             case GET_SLA_SUMMARY_EVENTPROCESSED_LAST_MODIFIED:
                 query.setParameter("id", parameters[0]);
                 break;
+            case GET_SLA_SUMMARY_MODIFIED_AFTER:
+                query.setParameter("lastModifiedTime", new Timestamp(((Date) parameters[0]).getTime()));
+                break;
         }
         return query;
     }
@@ -169,8 +175,13 @@ public class SLASummaryQueryExecutor extends QueryExecutor<SLASummaryBean, SLASu
         JPAService jpaService = Services.get().get(JPAService.class);
         EntityManager em = jpaService.getEntityManager();
         Query query = getSelectQuery(namedQuery, em, parameters);
-        @SuppressWarnings("unchecked")
-        List<SLASummaryBean> beanList = (List<SLASummaryBean>) jpaService.executeGetList(namedQuery.name(), query, em);
+        List<?> retList = (List<?>) jpaService.executeGetList(namedQuery.name(), query, em);
+        List<SLASummaryBean> beanList = new ArrayList<SLASummaryBean>();
+        if (retList != null) {
+            for (Object ret : retList) {
+                beanList.add(constructBean(namedQuery, ret));
+            }
+        }
         return beanList;
     }
 
@@ -189,6 +200,7 @@ public class SLASummaryQueryExecutor extends QueryExecutor<SLASummaryBean, SLASu
     private SLASummaryBean constructBean(SLASummaryQuery namedQuery, Object ret, Object... parameters)
             throws JPAExecutorException {
         SLASummaryBean bean;
+        Object[] arr;
         switch (namedQuery) {
             case GET_SLA_SUMMARY:
                 bean = (SLASummaryBean) ret;
@@ -198,12 +210,18 @@ public class SLASummaryQueryExecutor extends QueryExecutor<SLASummaryBean, SLASu
                 bean.setEventProcessed(((Byte)ret).intValue());
                 break;
             case GET_SLA_SUMMARY_EVENTPROCESSED_LAST_MODIFIED:
-                Object[] arr = (Object[]) ret;
+                arr = (Object[]) ret;
                 bean = new SLASummaryBean();
                 bean.setEventProcessed((Byte)arr[0]);
                 bean.setLastModifiedTime((Timestamp)arr[1]);
 
                 break;
+            case GET_SLA_SUMMARY_MODIFIED_AFTER:
+                arr = (Object[]) ret;
+                bean = new SLASummaryBean();
+                bean.setId((String) arr[0]);
+                bean.setEventProcessed((Byte) arr[1]);
+                break;
 
             default:
                 throw new JPAExecutorException(ErrorCode.E0603, "QueryExecutor cannot construct job bean for "
@@ -21,6 +21,7 @@ package org.apache.oozie.executor.jpa;
 import org.apache.oozie.StringBlob;
 import org.apache.openjpa.jdbc.kernel.JDBCStore;
 import org.apache.openjpa.jdbc.meta.ValueMapping;
+import org.apache.openjpa.meta.FieldMetaData;
 
 @SuppressWarnings("serial")
 public class StringBlobValueHandler extends org.apache.openjpa.jdbc.meta.strats.ByteArrayValueHandler {
@@ -38,7 +39,21 @@ public class StringBlobValueHandler extends org.apache.openjpa.jdbc.meta.strats.
         if (val == null) {
             return null;
         }
-        return ((StringBlob) val).getRawBlob();
+        return ((StringBlob) val).getRawBlob(getColumn(vm));
+    }
+
+    /**
+     * Return the column a value is stored in, as <code>BeanClassName.fieldName</code>.
+     *
+     * @param vm the value mapping
+     * @return the column, or null if it is not known
+     */
+    static String getColumn(ValueMapping vm) {
+        if (vm == null || vm.getFieldMetaData() == null) {
+            return null;
+        }
+        FieldMetaData field = vm.getFieldMetaData();
+        return field.getDeclaringType().getSimpleName() + "." + field.getName();
     }
 
     public Object toObjectValue(ValueMapping vm, Object val) {
@@ -55,8 +55,11 @@ public class WorkflowActionQueryExecutor extends
         GET_ACTION_CHECK,
         GET_ACTION_END,
         GET_ACTION_COMPLETED,
+        GET_ACTIONS_COMPLETED,
         GET_RUNNING_ACTIONS,
         GET_PENDING_ACTIONS,
+        GET_PENDING_ACTIONS_PAGE,
+        GET_PENDING_ACTIONS_PAGE_IN_BUCKETS,
         GET_ACTIONS_FOR_WORKFLOW_RERUN,
         GET_ACTION_FOR_SLA
     };
@@ -206,16 +209,28 @@ public class WorkflowActionQueryExecutor extends
             case GET_ACTION_FOR_SLA:
                 query.setParameter("id", parameters[0]);
                 break;
+            case GET_ACTIONS_COMPLETED:
+                query.setParameter("ids", parameters[0]);
+                break;
             case GET_RUNNING_ACTIONS:
                 Timestamp ts = new Timestamp(System.currentTimeMillis() - (Integer) parameters[0] * 1000);
                 query.setParameter("lastCheckTime", ts);
                 break;
             case GET_PENDING_ACTIONS:
+            case GET_PENDING_ACTIONS_PAGE:
+            case GET_PENDING_ACTIONS_PAGE_IN_BUCKETS:
                 Long minimumPendingAgeSecs = (Long) parameters[0];
                 Timestamp pts = new Timestamp(System.currentTimeMillis() - minimumPendingAgeSecs * 1000);
                 Timestamp createdTimeInterval = new Timestamp((Long) parameters[1]);
                 query.setParameter("pendingAge", pts);
                 query.setParameter("createdTime", createdTimeInterval);
+                if (namedQuery != WorkflowActionQuery.GET_PENDING_ACTIONS) {
+                    query.setParameter("lastId", parameters[2]);
+                    query.setMaxResults((Integer) parameters[3]);
+                }
+                if (namedQuery == WorkflowActionQuery.GET_PENDING_ACTIONS_PAGE_IN_BUCKETS) {
+                    query.setParameter("buckets", parameters[4]);
+                }
                 break;
             case GET_ACTIONS_FOR_WORKFLOW_RERUN:
                 query.setParameter("wfId", parameters[0]);
@@ -335,6 +350,7 @@ public class WorkflowActionQueryExecutor extends
                 bean.setStatsBlob((StringBlob) arr[23]);
                 break;
             case GET_ACTION_COMPLETED:
+            case GET_ACTIONS_COMPLETED:
                 bean = new WorkflowActionBean();
                 arr = (Object[]) ret;
                 bean.setId((String) arr[0]);
@@ -348,6 +364,8 @@ public class WorkflowActionQueryExecutor extends
                 bean.setId((String)ret);
                 break;
             case GET_PENDING_ACTIONS:
+            case GET_PENDING_ACTIONS_PAGE:
+            case GET_PENDING_ACTIONS_PAGE_IN_BUCKETS:
                 bean = new WorkflowActionBean();
                 arr = (Object[]) ret;
                 bean.setId((String) arr[0]);
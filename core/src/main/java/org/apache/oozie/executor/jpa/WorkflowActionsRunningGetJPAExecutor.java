@@ -0,0 +1,72 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.executor.jpa;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.apache.oozie.ErrorCode;
+import org.apache.oozie.WorkflowActionBean;
+import org.apache.oozie.util.DateUtils;
+
+/**
+ * Load the running workflow actions due for a check, with the information needed to look up their launcher jobs.
+ */
+public class WorkflowActionsRunningGetJPAExecutor implements JPAExecutor<List<WorkflowActionBean>> {
+
+    private final long checkAgeSecs;
+
+    public WorkflowActionsRunningGetJPAExecutor(long checkAgeSecs) {
+        this.checkAgeSecs = checkAgeSecs;
+    }
+
+    @Override
+    public String getName() {
+        return "WorkflowActionsRunningGetJPAExecutor";
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<WorkflowActionBean> execute(EntityManager em) throws JPAExecutorException {
+        try {
+            Timestamp ts = new Timestamp(System.currentTimeMillis() - checkAgeSecs * 1000);
+            Query q = em.createNamedQuery("GET_RUNNING_ACTIONS_FOR_STATUS_POLL");
+            q.setParameter("lastCheckTime", ts);
+            List<Object[]> rows = q.getResultList();
+            List<WorkflowActionBean> actions = new ArrayList<WorkflowActionBean>(rows.size());
+            for (Object[] row : rows) {
+                WorkflowActionBean bean = new WorkflowActionBean();
+                bean.setId((String) row[0]);
+                bean.setType((String) row[1]);
+                bean.setExternalId((String) row[2]);
+                bean.setTrackerUri((String) row[3]);
+                bean.setLastCheckTime(DateUtils.toDate((Timestamp) row[4]));
+                actions.add(bean);
+            }
+            return actions;
+        }
+        catch (Exception e) {
+            throw new JPAExecutorException(ErrorCode.E0603, e.getMessage(), e);
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.executor.jpa;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.apache.oozie.ErrorCode;
+import org.apache.oozie.WorkflowDefinitionBean;
+import org.apache.oozie.util.DateUtils;
+import org.apache.oozie.util.ParamChecker;
+
+/**
+ * Persist a workflow definition store entry if it does not exist yet, otherwise refresh its last used time.
+ * <p>
+ * Returns <code>true</code> if the entry was inserted.
+ */
+public class WorkflowDefinitionInsertJPAExecutor implements JPAExecutor<Boolean> {
+
+    private WorkflowDefinitionBean definition = null;
+
+    public WorkflowDefinitionInsertJPAExecutor(WorkflowDefinitionBean definition) {
+        ParamChecker.notNull(definition, "definition");
+        this.definition = definition;
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.oozie.executor.jpa.JPAExecutor#getName()
+     */
+    @Override
+    public String getName() {
+        return "WorkflowDefinitionInsertJPAExecutor";
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.oozie.executor.jpa.JPAExecutor#execute(javax.persistence.EntityManager)
+     */
+    @Override
+    public Boolean execute(EntityManager em) throws JPAExecutorException {
+        try {
+            if (em.find(WorkflowDefinitionBean.class, definition.getId()) == null) {
+                em.persist(definition);
+                return true;
+            }
+            Query q = em.createNamedQuery("UPDATE_WORKFLOW_DEFINITION_LAST_USED");
+            q.setParameter("id", definition.getId());
+            q.setParameter("lastUsedTime", DateUtils.convertDateToTimestamp(definition.getLastUsedTime()));
+            q.executeUpdate();
+            return false;
+        }
+        catch (Exception e) {
+            throw new JPAExecutorException(ErrorCode.E0603, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.executor.jpa;
+
+import java.sql.Timestamp;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.apache.oozie.ErrorCode;
+
+/**
+ * Delete the workflow definition store entries that cannot be referenced by any workflow job left in the database
+ * and return the number of entries that were deleted.
+ * <p>
+ * An entry is deleted only if it was last used before the oldest workflow job was created, minus the given slack. The
+ * slack must be larger than the interval at which servers refresh the last used time of the entries they hand out.
+ */
+public class WorkflowDefinitionsDeleteUnusedJPAExecutor implements JPAExecutor<Integer> {
+
+    private long slack;
+
+    /**
+     * @param slack slack in milliseconds.
+     */
+    public WorkflowDefinitionsDeleteUnusedJPAExecutor(long slack) {
+        this.slack = slack;
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.oozie.executor.jpa.JPAExecutor#getName()
+     */
+    @Override
+    public String getName() {
+        return "WorkflowDefinitionsDeleteUnusedJPAExecutor";
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.oozie.executor.jpa.JPAExecutor#execute(javax.persistence.EntityManager)
+     */
+    @Override
+    public Integer execute(EntityManager em) throws JPAExecutorException {
+        try {
+            Query q = em.createNamedQuery("GET_WORKFLOW_OLDEST_CREATED_TIME");
+            Timestamp oldest = (Timestamp) q.getSingleResult();
+            long threshold = (oldest != null) ? oldest.getTime() : System.currentTimeMillis();
+            Query d = em.createNamedQuery("DELETE_WORKFLOW_DEFINITIONS_UNUSED");
+            d.setParameter("lastUsedTime", new Timestamp(threshold - slack));
+            return d.executeUpdate();
+        }
+        catch (Exception e) {
+            throw new JPAExecutorException(ErrorCode.E0603, e.getMessage(), e);
+        }
+    }
+}
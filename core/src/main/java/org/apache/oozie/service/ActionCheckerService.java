@@ -19,10 +19,15 @@
 package org.apache.oozie.service;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.oozie.ErrorCode;
 import org.apache.oozie.WorkflowActionBean;
+import org.apache.oozie.action.hadoop.LauncherStatusPoller;
 import org.apache.oozie.command.CommandException;
 import org.apache.oozie.command.coord.CoordActionCheckXCommand;
 import org.apache.oozie.command.wf.ActionCheckXCommand;
@@ -30,6 +35,7 @@ import org.apache.oozie.executor.jpa.CoordActionsRunningGetJPAExecutor;
 import org.apache.oozie.executor.jpa.JPAExecutorException;
 import org.apache.oozie.executor.jpa.WorkflowActionQueryExecutor;
 import org.apache.oozie.executor.jpa.WorkflowActionQueryExecutor.WorkflowActionQuery;
+import org.apache.oozie.executor.jpa.WorkflowActionsRunningGetJPAExecutor;
 import org.apache.oozie.util.XCallable;
 import org.apache.oozie.util.XLog;
 
@@ -50,12 +56,40 @@ public class ActionCheckerService implements Service {
      * The time, in seconds, between an ActionCheck for the same action.
      */
     public static final String CONF_ACTION_CHECK_DELAY = CONF_PREFIX + "action.check.delay";
+    /**
+     * The time, in seconds, between an ActionCheck for the same action when callbacks are batched by the
+     * {@link CallbackService}. Checks are then only a safety net for actions that never call back.
+     */
+    public static final String CONF_ACTION_CHECK_CALLBACK_DELAY = CONF_PREFIX + "action.check.callback.delay";
 
     /**
      * The number of callables to be queued in a batch.
      */
     public static final String CONF_CALLABLE_BATCH_SIZE = CONF_PREFIX + "callable.batch.size";
 
+    /**
+     * If the status of the launcher jobs of running workflow actions is looked up in bulk, to only check the actions
+     * whose launcher job completed.
+     */
+    public static final String CONF_LAUNCHER_STATUS_POLL_ENABLED = CONF_PREFIX + "launcher.status.poll.enabled";
+
+    /**
+     * The minimum number of running actions on a job tracker to look up their launcher jobs in bulk.
+     */
+    public static final String CONF_LAUNCHER_STATUS_POLL_MIN_BATCH_SIZE = CONF_PREFIX
+            + "launcher.status.poll.min.batch.size";
+
+    /**
+     * The time, in seconds, after which an action is checked even if its launcher job is still running.
+     */
+    public static final String CONF_LAUNCHER_STATUS_POLL_MAX_SKIP = CONF_PREFIX + "launcher.status.poll.max.skip";
+
+    /**
+     * The user the launcher jobs are looked up as, proxied by the Oozie server user. If empty, they are looked up as
+     * the Oozie server user.
+     */
+    public static final String CONF_LAUNCHER_STATUS_POLL_USER = CONF_PREFIX + "launcher.status.poll.user";
+
     protected static final String INSTRUMENTATION_GROUP = "actionchecker";
     protected static final String INSTR_CHECK_ACTIONS_COUNTER = "checks_wf_actions";
     protected static final String INSTR_CHECK_COORD_ACTIONS_COUNTER = "checks_coord_actions";
@@ -67,11 +101,17 @@ public class ActionCheckerService implements Service {
      */
     static class ActionCheckRunnable implements Runnable {
         private int actionCheckDelay;
+        private LauncherStatusPoller launcherStatusPoller;
         private List<XCallable<Void>> callables;
         private StringBuilder msg = null;
 
         public ActionCheckRunnable(int actionCheckDelay) {
+            this(actionCheckDelay, null);
+        }
+
+        public ActionCheckRunnable(int actionCheckDelay, LauncherStatusPoller launcherStatusPoller) {
             this.actionCheckDelay = actionCheckDelay;
+            this.launcherStatusPoller = launcherStatusPoller;
         }
 
         public void run() {
@@ -111,8 +151,13 @@ public class ActionCheckerService implements Service {
 
             List<WorkflowActionBean> actions;
             try {
-                actions = WorkflowActionQueryExecutor.getInstance().getList(WorkflowActionQuery.GET_RUNNING_ACTIONS,
-                        actionCheckDelay);
+                if (launcherStatusPoller != null) {
+                    actions = jpaService.execute(new WorkflowActionsRunningGetJPAExecutor(actionCheckDelay));
+                }
+                else {
+                    actions = WorkflowActionQueryExecutor.getInstance().getList(
+                            WorkflowActionQuery.GET_RUNNING_ACTIONS, actionCheckDelay);
+                }
             }
             catch (JPAExecutorException je) {
                 throw new CommandException(je);
@@ -130,6 +175,12 @@ public class ActionCheckerService implements Service {
                 throw new CommandException(ErrorCode.E1700, ex.getMessage(), ex);
             }
 
+            if (launcherStatusPoller != null) {
+                // only the launcher jobs of the actions of this server are looked up, and only the actions whose
+                // launcher job completed are fully checked
+                actionIds = launcherStatusPoller.getActionsToCheck(getActions(actions, actionIds));
+            }
+
             msg.append(" WF_ACTIONS : ").append(actionIds.size());
 
             for (String actionId : actionIds) {
@@ -212,6 +263,17 @@ public class ActionCheckerService implements Service {
             }
             return ids;
         }
+
+        private List<WorkflowActionBean> getActions(List<WorkflowActionBean> actions, List<String> ids) {
+            Set<String> idSet = new HashSet<String>(ids);
+            List<WorkflowActionBean> selected = new ArrayList<WorkflowActionBean>(ids.size());
+            for (WorkflowActionBean action : actions) {
+                if (idSet.contains(action.getId())) {
+                    selected.add(action);
+                }
+            }
+            return selected;
+        }
     }
 
     /**
@@ -221,8 +283,20 @@ public class ActionCheckerService implements Service {
      */
     @Override
     public void init(Services services) {
+        CallbackService callbackService = services.get(CallbackService.class);
+        String delayConf = (callbackService != null && callbackService.isBatchEnabled())
+                ? CONF_ACTION_CHECK_CALLBACK_DELAY : CONF_ACTION_CHECK_DELAY;
+        LauncherStatusPoller launcherStatusPoller = null;
+        if (ConfigurationService.getBoolean(services.getConf(), CONF_LAUNCHER_STATUS_POLL_ENABLED)) {
+            launcherStatusPoller = new LauncherStatusPoller(
+                    ConfigurationService.getInt(services.getConf(), CONF_LAUNCHER_STATUS_POLL_MIN_BATCH_SIZE),
+                    TimeUnit.SECONDS.toMillis(ConfigurationService.getLong(services.getConf(),
+                            CONF_LAUNCHER_STATUS_POLL_MAX_SKIP)),
+                    StringUtils.trimToNull(ConfigurationService.get(services.getConf(),
+                            CONF_LAUNCHER_STATUS_POLL_USER)));
+        }
         Runnable actionCheckRunnable = new ActionCheckRunnable(ConfigurationService.getInt
-                (services.getConf(), CONF_ACTION_CHECK_DELAY));
+                (services.getConf(), delayConf), launcherStatusPoller);
         services.get(SchedulerService.class).schedule(actionCheckRunnable, 10,
                 ConfigurationService.getInt(services.getConf(), CONF_ACTION_CHECK_INTERVAL),
                 SchedulerService.Unit.SEC);
@@ -28,8 +28,9 @@ import java.net.URI;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.ArrayList;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
@@ -39,22 +40,31 @@ import org.apache.oozie.CoordinatorJobBean;
 import org.apache.oozie.ErrorCode;
 import org.apache.oozie.WorkflowJobBean;
 import org.apache.oozie.client.XOozieClient;
-import org.apache.oozie.executor.jpa.BundleJobGetJPAExecutor;
+import org.apache.oozie.executor.jpa.BundleJobQueryExecutor;
+import org.apache.oozie.executor.jpa.BundleJobQueryExecutor.BundleJobQuery;
 import org.apache.oozie.executor.jpa.CoordJobInfoGetJPAExecutor;
 import org.apache.oozie.executor.jpa.BundleJobInfoGetJPAExecutor;
+import org.apache.oozie.executor.jpa.CoordJobQueryExecutor;
+import org.apache.oozie.executor.jpa.CoordJobQueryExecutor.CoordJobQuery;
 import org.apache.oozie.executor.jpa.WorkflowsJobGetJPAExecutor;
-import org.apache.oozie.executor.jpa.CoordJobGetJPAExecutor;
 import org.apache.oozie.executor.jpa.JPAExecutorException;
 import org.apache.oozie.executor.jpa.WorkflowJobQueryExecutor;
 import org.apache.oozie.executor.jpa.WorkflowJobQueryExecutor.WorkflowJobQuery;
 import org.apache.oozie.util.ConfigUtils;
+import org.apache.oozie.util.Instrumentable;
 import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.XLog;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * The authorization service provides all authorization checks.
+ * <p>
+ * The owner and ACL of the jobs and the groups of the users are kept in size and time bounded caches, so that
+ * repeated checks on the same jobs do not hit the database and the groups backend every time.
  */
-public class AuthorizationService implements Service {
+public class AuthorizationService implements Service, Instrumentable {
 
     public static final String CONF_PREFIX = Service.CONF_PREFIX + "AuthorizationService.";
 
@@ -78,6 +88,26 @@ public class AuthorizationService implements Service {
      */
     public static final String CONF_ADMIN_GROUPS = CONF_PREFIX + "admin.groups";
 
+    /**
+     * Configuration parameter to define the maximum number of jobs whose owner and ACL are cached.
+     */
+    public static final String CONF_JOB_CACHE_SIZE = CONF_PREFIX + "job.cache.size";
+
+    /**
+     * Configuration parameter to define how long, in seconds, the owner and ACL of a job are cached.
+     */
+    public static final String CONF_JOB_CACHE_TTL = CONF_PREFIX + "job.cache.ttl";
+
+    /**
+     * Configuration parameter to define the maximum number of users whose groups are cached.
+     */
+    public static final String CONF_GROUPS_CACHE_SIZE = CONF_PREFIX + "groups.cache.size";
+
+    /**
+     * Configuration parameter to define how long, in seconds, the groups of a user are cached.
+     */
+    public static final String CONF_GROUPS_CACHE_TTL = CONF_PREFIX + "groups.cache.ttl";
+
     /**
      * File that contains list of admin users for Oozie.
      */
@@ -85,11 +115,34 @@ public class AuthorizationService implements Service {
 
     protected static final String INSTRUMENTATION_GROUP = "authorization";
     protected static final String INSTR_FAILED_AUTH_COUNTER = "authorization.failed";
+    protected static final String INSTR_JOB_CACHE_HITS_COUNTER = "job.cache.hits";
+    protected static final String INSTR_JOB_CACHE_MISSES_COUNTER = "job.cache.misses";
+    protected static final String INSTR_GROUPS_CACHE_HITS_COUNTER = "groups.cache.hits";
+    protected static final String INSTR_GROUPS_CACHE_MISSES_COUNTER = "groups.cache.misses";
+
+    /**
+     * Owner and ACL of a job, these are set at submission and only change on workflow re-runs.
+     */
+    private static class JobOwner {
+        private final String user;
+        private final String acl;
+
+        private JobOwner(String user, String acl) {
+            this.user = user;
+            this.acl = acl;
+        }
+    }
 
     private Set<String> adminGroups;
     private Set<String> adminUsers;
     private boolean authorizationEnabled;
     private boolean useDefaultGroupAsAcl;
+    private Cache<String, JobOwner> jobCache;
+    private Cache<String, Set<String>> groupsCache;
+    private final AtomicLong jobCacheHits = new AtomicLong();
+    private final AtomicLong jobCacheMisses = new AtomicLong();
+    private final AtomicLong groupsCacheHits = new AtomicLong();
+    private final AtomicLong groupsCacheMisses = new AtomicLong();
 
     private final XLog log = XLog.getLog(getClass());
     private Instrumentation instrumentation;
@@ -132,9 +185,46 @@ public class AuthorizationService implements Service {
         else {
             log.warn("Oozie running with authorization disabled");
         }
+        jobCache = CacheBuilder.newBuilder()
+                .maximumSize(ConfigurationService.getInt(services.getConf(), CONF_JOB_CACHE_SIZE))
+                .expireAfterWrite(ConfigurationService.getLong(services.getConf(), CONF_JOB_CACHE_TTL),
+                        TimeUnit.SECONDS).build();
+        groupsCache = CacheBuilder.newBuilder()
+                .maximumSize(ConfigurationService.getInt(services.getConf(), CONF_GROUPS_CACHE_SIZE))
+                .expireAfterWrite(ConfigurationService.getLong(services.getConf(), CONF_GROUPS_CACHE_TTL),
+                        TimeUnit.SECONDS).build();
         instrumentation = Services.get().get(InstrumentationService.class).get();
     }
 
+    /**
+     * Instruments the authorization service.
+     *
+     * @param instr instance to instrument the authorization service to.
+     */
+    @Override
+    public void instrument(Instrumentation instr) {
+        instr.addVariable(INSTRUMENTATION_GROUP, "job.cache.size", new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return jobCache.size();
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "job.cache.hit.ratio", new Instrumentation.Variable<Double>() {
+            public Double getValue() {
+                return getHitRatio(jobCacheHits, jobCacheMisses);
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "groups.cache.size", new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return groupsCache.size();
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "groups.cache.hit.ratio", new Instrumentation.Variable<Double>() {
+            public Double getValue() {
+                return getHitRatio(groupsCacheHits, groupsCacheMisses);
+            }
+        });
+    }
+
     /**
      * Return if security is enabled or not.
      *
@@ -198,9 +288,15 @@ public class AuthorizationService implements Service {
     }
 
     /**
-     * Destroy the service. <p> This implementation does a NOP.
+     * Destroy the service. <p> This implementation clears the caches.
      */
     public void destroy() {
+        if (jobCache != null) {
+            jobCache.invalidateAll();
+        }
+        if (groupsCache != null) {
+            groupsCache.invalidateAll();
+        }
     }
 
     /**
@@ -221,9 +317,8 @@ public class AuthorizationService implements Service {
      * @throws AuthorizationException thrown if the authorization query can not be performed.
      */
     protected boolean isUserInGroup(String user, String group) throws AuthorizationException {
-        GroupsService groupsService = Services.get().get(GroupsService.class);
         try {
-            return groupsService.getGroups(user).contains(group);
+            return getGroups(user).contains(group);
         }
         catch (IOException ex) {
             throw new AuthorizationException(ErrorCode.E0501, ex.getMessage(), ex);
@@ -410,96 +505,115 @@ public class AuthorizationService implements Service {
         }
     }
 
+    /**
+     * Return the groups of a user, from the cache if they were retrieved from the {@link GroupsService} recently.
+     *
+     * @param user user name.
+     * @return the groups the user belongs to.
+     * @throws IOException thrown if the groups of the user could not be retrieved.
+     */
+    private Set<String> getGroups(String user) throws IOException {
+        Set<String> groups = groupsCache.getIfPresent(user);
+        if (groups != null) {
+            groupsCacheHits.incrementAndGet();
+            incrCounter(INSTR_GROUPS_CACHE_HITS_COUNTER, 1);
+            return groups;
+        }
+        groupsCacheMisses.incrementAndGet();
+        incrCounter(INSTR_GROUPS_CACHE_MISSES_COUNTER, 1);
+        groups = new HashSet<String>(Services.get().get(GroupsService.class).getGroups(user));
+        groupsCache.put(user, groups);
+        return groups;
+    }
+
     private boolean isUserInAcl(String user, String aclStr) throws IOException {
         boolean userInAcl = false;
         if (aclStr != null && aclStr.trim().length() > 0) {
-            GroupsService groupsService = Services.get().get(GroupsService.class);
             String[] acl = aclStr.split(",");
             for (int i = 0; !userInAcl && i < acl.length; i++) {
                 String aclItem = acl[i].trim();
-                userInAcl = aclItem.equals(user) || groupsService.getGroups(user).contains(aclItem);
+                userInAcl = aclItem.equals(user) || getGroups(user).contains(aclItem);
             }
         }
         return userInAcl;
     }
 
     /**
-     * Check if the user+group is authorized to operate on the specified job. <p> Checks if the user is a super-user or
-     * the one who started the job. <p> Read operations are allowed to all users.
+     * Return the owner and ACL of a job, from the cache if they were loaded recently.
+     *
+     * @param jobId job id.
+     * @return the owner and ACL of the job.
+     * @throws AuthorizationException thrown if the job does not exist or if it could not be loaded.
+     */
+    private JobOwner getJobOwner(String jobId) throws AuthorizationException {
+        JobOwner owner = jobCache.getIfPresent(jobId);
+        if (owner != null) {
+            jobCacheHits.incrementAndGet();
+            incrCounter(INSTR_JOB_CACHE_HITS_COUNTER, 1);
+            return owner;
+        }
+        jobCacheMisses.incrementAndGet();
+        incrCounter(INSTR_JOB_CACHE_MISSES_COUNTER, 1);
+        if (Services.get().get(JPAService.class) == null) {
+            throw new AuthorizationException(ErrorCode.E0610);
+        }
+        try {
+            String user;
+            String acl;
+            // handle workflow jobs
+            if (jobId.endsWith("-W")) {
+                WorkflowJobBean jobBean = WorkflowJobQueryExecutor.getInstance().getIfExist(
+                        WorkflowJobQuery.GET_WORKFLOW_USER_GROUP, jobId);
+                if (jobBean == null) {
+                    throw new JPAExecutorException(ErrorCode.E0604, jobId);
+                }
+                user = jobBean.getUser();
+                acl = jobBean.getGroup();
+            }
+            // handle bundle jobs
+            else if (jobId.endsWith("-B")) {
+                BundleJobBean jobBean = BundleJobQueryExecutor.getInstance().getIfExist(
+                        BundleJobQuery.GET_BUNDLE_JOB_USER_GROUP, jobId);
+                if (jobBean == null) {
+                    throw new JPAExecutorException(ErrorCode.E0604, jobId);
+                }
+                user = jobBean.getUser();
+                acl = jobBean.getGroup();
+            }
+            // handle coordinator jobs
+            else {
+                CoordinatorJobBean jobBean = CoordJobQueryExecutor.getInstance().getIfExist(
+                        CoordJobQuery.GET_COORD_JOB_USER_GROUP, jobId);
+                if (jobBean == null) {
+                    throw new JPAExecutorException(ErrorCode.E0604, jobId);
+                }
+                user = jobBean.getUser();
+                acl = jobBean.getGroup();
+            }
+            owner = new JobOwner(user, acl);
+        }
+        catch (JPAExecutorException je) {
+            throw new AuthorizationException(je);
+        }
+        jobCache.put(jobId, owner);
+        return owner;
+    }
+
+    /**
+     * Check if the user is the owner of a job or is in its ACL.
      *
      * @param user user name.
      * @param jobId job id.
-     * @param write indicates if the check is for read or write job tasks.
+     * @param owner owner and ACL of the job.
      * @throws AuthorizationException thrown if the user is not authorized for the job.
      */
-    public void authorizeForJob(String user, String jobId, boolean write) throws AuthorizationException {
-        if (authorizationEnabled && write && !isAdmin(user)) {
+    private void checkJobOwner(String user, String jobId, JobOwner owner) throws AuthorizationException {
+        if (!owner.user.equals(user)) {
             try {
-                // handle workflow jobs
-                if (jobId.endsWith("-W")) {
-                    WorkflowJobBean jobBean = null;
-                    JPAService jpaService = Services.get().get(JPAService.class);
-                    if (jpaService != null) {
-                        try {
-                            jobBean = WorkflowJobQueryExecutor.getInstance().get(WorkflowJobQuery.GET_WORKFLOW_USER_GROUP, jobId);
-                        }
-                        catch (JPAExecutorException je) {
-                            throw new AuthorizationException(je);
-                        }
-                    }
-                    else {
-                        throw new AuthorizationException(ErrorCode.E0610);
-                    }
-                    if (jobBean != null && !jobBean.getUser().equals(user)) {
-                        if (!isUserInAcl(user, jobBean.getGroup())) {
-                            incrCounter(INSTR_FAILED_AUTH_COUNTER, 1);
-                            throw new AuthorizationException(ErrorCode.E0508, user, jobId);
-                        }
-                    }
-                }
-                // handle bundle jobs
-                else if (jobId.endsWith("-B")){
-                    BundleJobBean jobBean = null;
-                    JPAService jpaService = Services.get().get(JPAService.class);
-                    if (jpaService != null) {
-                        try {
-                            jobBean = jpaService.execute(new BundleJobGetJPAExecutor(jobId));
-                        }
-                        catch (JPAExecutorException je) {
-                            throw new AuthorizationException(je);
-                        }
-                    }
-                    else {
-                        throw new AuthorizationException(ErrorCode.E0610);
-                    }
-                    if (jobBean != null && !jobBean.getUser().equals(user)) {
-                        if (!isUserInAcl(user, jobBean.getGroup())) {
-                            incrCounter(INSTR_FAILED_AUTH_COUNTER, 1);
-                            throw new AuthorizationException(ErrorCode.E0509, user, jobId);
-                        }
-                    }
-                }
-                // handle coordinator jobs
-                else {
-                    CoordinatorJobBean jobBean = null;
-                    JPAService jpaService = Services.get().get(JPAService.class);
-                    if (jpaService != null) {
-                        try {
-                            jobBean = jpaService.execute(new CoordJobGetJPAExecutor(jobId));
-                        }
-                        catch (JPAExecutorException je) {
-                            throw new AuthorizationException(je);
-                        }
-                    }
-                    else {
-                        throw new AuthorizationException(ErrorCode.E0610);
-                    }
-                    if (jobBean != null && !jobBean.getUser().equals(user)) {
-                        if (!isUserInAcl(user, jobBean.getGroup())) {
-                            incrCounter(INSTR_FAILED_AUTH_COUNTER, 1);
-                            throw new AuthorizationException(ErrorCode.E0509, user, jobId);
-                        }
-                    }
+                if (!isUserInAcl(user, owner.acl)) {
+                    incrCounter(INSTR_FAILED_AUTH_COUNTER, 1);
+                    throw new AuthorizationException(jobId.endsWith("-W") ? ErrorCode.E0508 : ErrorCode.E0509, user,
+                            jobId);
                 }
             }
             catch (IOException ex) {
@@ -508,6 +622,32 @@ public class AuthorizationService implements Service {
         }
     }
 
+    /**
+     * Drop the cached owner and ACL of a job, it must be called when they are changed.
+     *
+     * @param jobId job id.
+     */
+    public void invalidateJob(String jobId) {
+        if (jobCache != null) {
+            jobCache.invalidate(jobId);
+        }
+    }
+
+    /**
+     * Check if the user+group is authorized to operate on the specified job. <p> Checks if the user is a super-user or
+     * the one who started the job. <p> Read operations are allowed to all users.
+     *
+     * @param user user name.
+     * @param jobId job id.
+     * @param write indicates if the check is for read or write job tasks.
+     * @throws AuthorizationException thrown if the user is not authorized for the job.
+     */
+    public void authorizeForJob(String user, String jobId, boolean write) throws AuthorizationException {
+        if (authorizationEnabled && write && !isAdmin(user)) {
+            checkJobOwner(user, jobId, getJobOwner(jobId));
+        }
+    }
+
     /**
      * Check if the user+group is authorized to operate on the specified jobs. <p> Checks if the user is a super-user or
      * the one who started the jobs. <p> Read operations are allowed to all users.
@@ -522,88 +662,71 @@ public class AuthorizationService implements Service {
     public void authorizeForJobs(String user, Map<String, List<String>> filter, String jobType,
                                  int start, int len, boolean write) throws AuthorizationException {
         if (authorizationEnabled && write && !isAdmin(user)) {
+            JPAService jpaService = Services.get().get(JPAService.class);
+            if (jpaService == null) {
+                throw new AuthorizationException(ErrorCode.E0610);
+            }
             try {
                 // handle workflow jobs
                 if (jobType.equals("wf")) {
-                    List<WorkflowJobBean> jobBeans = new ArrayList<WorkflowJobBean>();
-                    JPAService jpaService = Services.get().get(JPAService.class);
-                    if (jpaService != null) {
-                        try {
-                            jobBeans = jpaService.execute(new WorkflowsJobGetJPAExecutor(
-                                    filter, start, len)).getWorkflows();
-                        }
-                        catch (JPAExecutorException je) {
-                            throw new AuthorizationException(je);
-                        }
-                    }
-                    else {
-                        throw new AuthorizationException(ErrorCode.E0610);
-                    }
+                    List<WorkflowJobBean> jobBeans = jpaService.execute(new WorkflowsJobGetJPAExecutor(
+                            filter, start, len)).getWorkflows();
                     for (WorkflowJobBean jobBean : jobBeans) {
-                        if (jobBean != null && !jobBean.getUser().equals(user)) {
-                            if (!isUserInAcl(user, jobBean.getGroup())) {
-                                    incrCounter(INSTR_FAILED_AUTH_COUNTER, 1);
-                                throw new AuthorizationException(ErrorCode.E0508, user, jobBean.getId());
-                            }
+                        if (jobBean != null) {
+                            checkJobOwner(user, jobBean.getId(),
+                                    cacheJobOwner(jobBean.getId(), jobBean.getUser(), jobBean.getGroup()));
                         }
                     }
                 }
                 // handle bundle jobs
                 else if (jobType.equals("bundle")) {
-                    List<BundleJobBean> jobBeans = new ArrayList<BundleJobBean>();
-                    JPAService jpaService = Services.get().get(JPAService.class);
-                    if (jpaService != null) {
-                        try {
-                            jobBeans = jpaService.execute(new BundleJobInfoGetJPAExecutor(
-                                    filter, start, len)).getBundleJobs();
-                        }
-                        catch (JPAExecutorException je) {
-                            throw new AuthorizationException(je);
-                        }
-                    }
-                    else {
-                        throw new AuthorizationException(ErrorCode.E0610);
-                    }
-                    for (BundleJobBean jobBean : jobBeans){
-                        if (jobBean != null && !jobBean.getUser().equals(user)) {
-                            if (!isUserInAcl(user, jobBean.getGroup())) {
-                                incrCounter(INSTR_FAILED_AUTH_COUNTER, 1);
-                                throw new AuthorizationException(ErrorCode.E0509, user, jobBean.getId());
-                            }
+                    List<BundleJobBean> jobBeans = jpaService.execute(new BundleJobInfoGetJPAExecutor(
+                            filter, start, len)).getBundleJobs();
+                    for (BundleJobBean jobBean : jobBeans) {
+                        if (jobBean != null) {
+                            checkJobOwner(user, jobBean.getId(),
+                                    cacheJobOwner(jobBean.getId(), jobBean.getUser(), jobBean.getGroup()));
                         }
                     }
                 }
                 // handle coordinator jobs
                 else {
-                    List<CoordinatorJobBean> jobBeans = new ArrayList<CoordinatorJobBean>();
-                    JPAService jpaService = Services.get().get(JPAService.class);
-                    if (jpaService != null) {
-                        try {
-                            jobBeans = jpaService.execute(new CoordJobInfoGetJPAExecutor(
-                                    filter, start, len)).getCoordJobs();
-                        }
-                        catch (JPAExecutorException je) {
-                            throw new AuthorizationException(je);
-                        }
-                    }
-                    else {
-                        throw new AuthorizationException(ErrorCode.E0610);
-                    }
+                    List<CoordinatorJobBean> jobBeans = jpaService.execute(new CoordJobInfoGetJPAExecutor(
+                            filter, start, len)).getCoordJobs();
                     for (CoordinatorJobBean jobBean : jobBeans) {
-                        if (jobBean != null && !jobBean.getUser().equals(user)) {
-                            if (!isUserInAcl(user, jobBean.getGroup())) {
-                                incrCounter(INSTR_FAILED_AUTH_COUNTER, 1);
-                                throw new AuthorizationException(ErrorCode.E0509, user, jobBean.getId());
-                            }
+                        if (jobBean != null) {
+                            checkJobOwner(user, jobBean.getId(),
+                                    cacheJobOwner(jobBean.getId(), jobBean.getUser(), jobBean.getGroup()));
                         }
                     }
                 }
             }
-            catch (IOException ex) {
-                throw new AuthorizationException(ErrorCode.E0501, ex.getMessage(), ex);
+            catch (JPAExecutorException je) {
+                throw new AuthorizationException(je);
             }
         }
     }
+
+    /**
+     * Cache the owner and ACL of a job loaded by a job list query, so that the per job checks following a bulk
+     * operation do not load it again.
+     */
+    private JobOwner cacheJobOwner(String jobId, String user, String acl) {
+        JobOwner owner = new JobOwner(user, acl);
+        jobCache.put(jobId, owner);
+        return owner;
+    }
+
+    /**
+     * Return the ratio of the cache lookups that were hits, 0 if there were no lookups yet. The caches do not keep
+     * statistics themselves, the hits and misses are counted when looking them up.
+     */
+    private static double getHitRatio(AtomicLong hits, AtomicLong misses) {
+        long hitCount = hits.get();
+        long lookupCount = hitCount + misses.get();
+        return (lookupCount == 0) ? 0 : (double) hitCount / lookupCount;
+    }
+
     /**
      * Convenience method for instrumentation counters.
      *
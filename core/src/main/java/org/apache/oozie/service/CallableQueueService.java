@@ -19,18 +19,16 @@
 package org.apache.oozie.service;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
+import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
 import java.util.concurrent.RunnableFuture;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -45,6 +43,7 @@ import org.apache.oozie.util.NamedThreadFactory;
 import org.apache.oozie.util.PollablePriorityDelayQueue;
 import org.apache.oozie.util.PriorityDelayQueue;
 import org.apache.oozie.util.PriorityDelayQueue.QueueElement;
+import org.apache.oozie.util.ShardedPriorityDelayQueue;
 import org.apache.oozie.util.XCallable;
 import org.apache.oozie.util.XLog;
 
@@ -68,6 +67,9 @@ import org.apache.oozie.util.XLog;
  * of threads is reached, commands remain the queue until threads become available. Sets up a priority queue for the
  * execution of Commands via a ThreadPool. Sets up a Delayed Queue to handle actions which will be ready for execution
  * sometime in the future.
+ * <p>
+ * {@link #CONF_QUEUE_SHARDS} number of shards of the queue. Callables are assigned to a shard by their entity key, each
+ * shard has its own lock and threads steal from other shards when their own shard is empty. Default value is 1.
  */
 public class CallableQueueService implements Service, Instrumentable {
     private static final String INSTRUMENTATION_GROUP = "callablequeue";
@@ -77,10 +79,15 @@ public class CallableQueueService implements Service, Instrumentable {
     private static final String INSTR_QUEUED_COUNTER = "queued";
     private static final String INSTR_QUEUE_SIZE_SAMPLER = "queue.size";
     private static final String INSTR_THREADS_ACTIVE_SAMPLER = "threads.active";
+    private static final String INSTR_QUEUE_STEALS = "queue.steals";
+    private static final String INSTR_EXCEEDED_CONCURRENCY_SUFFIX = "#exceeded.concurrency";
+    private static final String INSTR_REQUEUED_SUFFIX = "#requeued";
+    private static final String INSTR_QUEUE_FULL_SUFFIX = "#rejected.queue.full";
 
     public static final String CONF_PREFIX = Service.CONF_PREFIX + "CallableQueueService.";
 
     public static final String CONF_QUEUE_SIZE = CONF_PREFIX + "queue.size";
+    public static final String CONF_QUEUE_SHARDS = CONF_PREFIX + "queue.shards";
     public static final String CONF_THREADS = CONF_PREFIX + "threads";
     public static final String CONF_CALLABLE_CONCURRENCY = CONF_PREFIX + "callable.concurrency";
     public static final String CONF_CALLABLE_NEXT_ELIGIBLE = CONF_PREFIX + "callable.next.eligible";
@@ -91,11 +98,13 @@ public class CallableQueueService implements Service, Instrumentable {
 
     public static final int SAFE_MODE_DELAY = 60000;
 
-    private final Map<String, AtomicInteger> activeCallables = new HashMap<String, AtomicInteger>();
+    // per type concurrency counters, installed on first use and updated with CAS only
+    private final ConcurrentHashMap<String, AtomicInteger> activeCallables = new ConcurrentHashMap<String, AtomicInteger>();
 
-    private final Map<String, Date> uniqueCallables = new ConcurrentHashMap<String, Date>();
+    private final ConcurrentHashMap<String, Date> uniqueCallables = new ConcurrentHashMap<String, Date>();
 
-    private final ConcurrentHashMap<String, Set<XCallable<?>>> interruptCommandsMap = new ConcurrentHashMap<String, Set<XCallable<?>>>();
+    private final ConcurrentHashMap<String, Queue<XCallable<?>>> interruptCommandsMap =
+            new ConcurrentHashMap<String, Queue<XCallable<?>>>();
 
     public static final HashSet<String> INTERRUPT_TYPES = new HashSet<String>();
 
@@ -103,46 +112,52 @@ public class CallableQueueService implements Service, Instrumentable {
 
     private int maxCallableConcurrency;
 
-    private boolean callableBegin(XCallable<?> callable) {
-        synchronized (activeCallables) {
-            AtomicInteger counter = activeCallables.get(callable.getType());
+    private AtomicInteger getConcurrencyCounter(XCallable<?> callable) {
+        String type = (callable.getType() == null) ? "" : callable.getType();
+        AtomicInteger counter = activeCallables.get(type);
+        if (counter == null) {
+            AtomicInteger newCounter = new AtomicInteger();
+            counter = activeCallables.putIfAbsent(type, newCounter);
             if (counter == null) {
-                counter = new AtomicInteger(1);
-                activeCallables.put(callable.getType(), counter);
-                return true;
-            }
-            else {
-                int i = counter.incrementAndGet();
-                return i <= maxCallableConcurrency;
+                counter = newCounter;
             }
         }
+        return counter;
     }
 
-    private void callableEnd(XCallable<?> callable) {
-        synchronized (activeCallables) {
-            AtomicInteger counter = activeCallables.get(callable.getType());
-            if (counter == null) {
-                throw new IllegalStateException("It should not happen");
+    /**
+     * Admit a callable for execution if its type has not reached the maximum concurrency.
+     * <p>
+     * The counter is only incremented when the callable is admitted, {@link #callableEnd(XCallable)} must be called
+     * only for admitted callables.
+     *
+     * @param callable callable to admit.
+     * @return true if the callable was admitted.
+     */
+    private boolean callableBegin(XCallable<?> callable) {
+        AtomicInteger counter = getConcurrencyCounter(callable);
+        while (true) {
+            int active = counter.get();
+            if (active >= maxCallableConcurrency) {
+                return false;
             }
-            else {
-                counter.decrementAndGet();
+            if (counter.compareAndSet(active, active + 1)) {
+                return true;
             }
         }
     }
 
-    private boolean callableReachMaxConcurrency(XCallable<?> callable) {
-        synchronized (activeCallables) {
-            AtomicInteger counter = activeCallables.get(callable.getType());
-            if (counter == null) {
-                return true;
-            }
-            else {
-                int i = counter.get();
-                return i < maxCallableConcurrency;
-            }
+    private void callableEnd(XCallable<?> callable) {
+        if (getConcurrencyCounter(callable).decrementAndGet() < 0) {
+            throw new IllegalStateException("It should not happen");
         }
     }
 
+    private boolean callableReachMaxConcurrency(XCallable<?> callable) {
+        AtomicInteger counter = activeCallables.get((callable.getType() == null) ? "" : callable.getType());
+        return counter == null || counter.get() < maxCallableConcurrency;
+    }
+
     // Callables are wrapped with the this wrapper for execution, for logging
     // and instrumentation.
     // The wrapper implements Runnable and Comparable to be able to work with an
@@ -158,6 +173,7 @@ public class CallableQueueService implements Service, Instrumentable {
 
         public void run() {
             XCallable<?> callable = null;
+            boolean admitted = false;
             try {
                 removeFromUniqueCallables();
                 if (Services.get().getSystemMode() == SYSTEM_MODE.SAFEMODE) {
@@ -165,10 +181,12 @@ public class CallableQueueService implements Service, Instrumentable {
                             SAFE_MODE_DELAY);
                     setDelay(SAFE_MODE_DELAY, TimeUnit.MILLISECONDS);
                     queue(this, true);
+                    incrCounter(getElement().getType() + INSTR_REQUEUED_SUFFIX, 1);
                     return;
                 }
                 callable = getElement();
-                if (callableBegin(callable)) {
+                admitted = callableBegin(callable);
+                if (admitted) {
                     cron.stop();
                     addInQueueCron(cron);
                     XLog log = XLog.getLog(getClass());
@@ -190,7 +208,8 @@ public class CallableQueueService implements Service, Instrumentable {
                             .getType(), CONCURRENCY_DELAY);
                     setDelay(CONCURRENCY_DELAY, TimeUnit.MILLISECONDS);
                     queue(this, true);
-                    incrCounter(callable.getType() + "#exceeded.concurrency", 1);
+                    incrCounter(callable.getType() + INSTR_EXCEEDED_CONCURRENCY_SUFFIX, 1);
+                    incrCounter(callable.getType() + INSTR_REQUEUED_SUFFIX, 1);
                 }
             }
             catch (Throwable t) {
@@ -199,41 +218,30 @@ public class CallableQueueService implements Service, Instrumentable {
                         t.getMessage(), t);
             }
             finally {
-                if (callable != null) {
+                if (admitted) {
                     callableEnd(callable);
                 }
             }
         }
 
         /**
-         * Filter the duplicate callables from the list before queue this.
+         * Claim the keys of the callable in the unique map before queue this.
          * <p>
-         * If it is single callable, checking if key is in unique map or not.
+         * If it is single callable, the key is claimed only if it is not in the unique map.
          * <p>
-         * If it is composite callable, remove duplicates callables from the composite.
+         * If it is composite callable, the callables whose key is already claimed are removed from the composite.
+         * <p>
+         * Keys are claimed atomically, concurrent producers cannot queue callables with the same key.
          *
          * @return true if this callable should be queued
          */
-        public boolean filterDuplicates() {
-            XCallable<?> callable = getElement();
-            if (callable instanceof CompositeCallable) {
-                return ((CompositeCallable) callable).removeDuplicates();
-            }
-            else {
-                return uniqueCallables.containsKey(callable.getKey()) == false;
-            }
-        }
-
-        /**
-         * Add the keys to the set
-         */
-        public void addToUniqueCallables() {
+        public boolean claimUniqueCallables() {
             XCallable<?> callable = getElement();
             if (callable instanceof CompositeCallable) {
-                ((CompositeCallable) callable).addToUniqueCallables();
+                return ((CompositeCallable) callable).claimUniqueCallables();
             }
             else {
-                ((ConcurrentHashMap<String, Date>) uniqueCallables).putIfAbsent(callable.getKey(), new Date());
+                return uniqueCallables.putIfAbsent(callable.getKey(), new Date()) == null;
             }
         }
 
@@ -371,36 +379,20 @@ public class CallableQueueService implements Service, Instrumentable {
         }
 
         /**
-         * Remove the duplicate callables from the list before queue them
+         * Claim the keys of the callables in the unique map, removing from the list the callables whose key is
+         * already claimed (by another callable or by a previous callable of the list).
          *
          * @return true if callables should be queued
          */
-        public boolean removeDuplicates() {
-            Set<String> set = new HashSet<String>();
-            List<XCallable<?>> filteredCallables = new ArrayList<XCallable<?>>();
-            if (callables.size() == 0) {
-                return false;
-            }
+        public boolean claimUniqueCallables() {
+            List<XCallable<?>> claimedCallables = new ArrayList<XCallable<?>>();
             for (XCallable<?> callable : callables) {
-                if (!uniqueCallables.containsKey(callable.getKey()) && !set.contains(callable.getKey())) {
-                    filteredCallables.add(callable);
-                    set.add(callable.getKey());
+                if (uniqueCallables.putIfAbsent(callable.getKey(), new Date()) == null) {
+                    claimedCallables.add(callable);
                 }
             }
-            callables = filteredCallables;
-            if (callables.size() == 0) {
-                return false;
-            }
-            return true;
-        }
-
-        /**
-         * Add the keys to the set
-         */
-        public void addToUniqueCallables() {
-            for (XCallable<?> callable : callables) {
-                ((ConcurrentHashMap<String, Date>) uniqueCallables).putIfAbsent(callable.getKey(), new Date());
-            }
+            callables = claimedCallables;
+            return callables.size() > 0;
         }
 
         /**
@@ -416,7 +408,7 @@ public class CallableQueueService implements Service, Instrumentable {
     private XLog log = XLog.getLog(getClass());
 
     private int queueSize;
-    private PriorityDelayQueue<CallableWrapper> queue;
+    private BlockingQueue<QueueElement<CallableWrapper>> queue;
     private ThreadPoolExecutor executor;
     private Instrumentation instrumentation;
 
@@ -450,6 +442,7 @@ public class CallableQueueService implements Service, Instrumentable {
 
         queueSize = ConfigurationService.getInt(conf, CONF_QUEUE_SIZE);
         int threads = ConfigurationService.getInt(conf, CONF_THREADS);
+        int shards = Math.max(1, ConfigurationService.getInt(conf, CONF_QUEUE_SHARDS));
         boolean callableNextEligible = ConfigurationService.getBoolean(conf, CONF_CALLABLE_NEXT_ELIGIBLE);
 
         for (String type : ConfigurationService.getStrings(conf, CONF_CALLABLE_INTERRUPT_TYPES)) {
@@ -457,38 +450,17 @@ public class CallableQueueService implements Service, Instrumentable {
             INTERRUPT_TYPES.add(type);
         }
 
-        if (!callableNextEligible) {
-            queue = new PriorityDelayQueue<CallableWrapper>(3, 1000 * 30, TimeUnit.MILLISECONDS, queueSize) {
-                @Override
-                protected void debug(String msgTemplate, Object... msgArgs) {
-                    log.trace(msgTemplate, msgArgs);
-                }
-            };
+        if (shards == 1) {
+            queue = createShard(callableNextEligible, queueSize);
         }
         else {
-            // If the head of this queue has already reached max concurrency,
-            // continuously find next one
-            // which has not yet reach max concurrency.Overrided method
-            // 'eligibleToPoll' to check if the
-            // element of this queue has reached the maximum concurrency.
-            queue = new PollablePriorityDelayQueue<CallableWrapper>(3, 1000 * 30, TimeUnit.MILLISECONDS, queueSize) {
-                @Override
-                protected void debug(String msgTemplate, Object... msgArgs) {
-                    log.trace(msgTemplate, msgArgs);
-                }
-
-                @Override
-                protected boolean eligibleToPoll(QueueElement<?> element) {
-                    if (element != null) {
-                        CallableWrapper wrapper = (CallableWrapper) element;
-                        if (element.getElement() != null) {
-                            return callableReachMaxConcurrency(wrapper.getElement());
-                        }
-                    }
-                    return false;
-                }
-
-            };
+            // the queue size is enforced by queue(), the shards are unbounded so requeues are never rejected
+            List<PriorityDelayQueue<CallableWrapper>> queues = new ArrayList<PriorityDelayQueue<CallableWrapper>>();
+            for (int i = 0; i < shards; i++) {
+                queues.add(createShard(callableNextEligible, -1));
+            }
+            queue = new ShardedPriorityDelayQueue<CallableWrapper>(queues);
+            log.info("Callable queue split in [{0}] shards", shards);
         }
 
         interruptMapMaxSize = ConfigurationService.getInt(conf, CONF_CALLABLE_INTERRUPT_MAP_MAX_SIZE);
@@ -531,6 +503,42 @@ public class CallableQueueService implements Service, Instrumentable {
         maxCallableConcurrency = ConfigurationService.getInt(conf, CONF_CALLABLE_CONCURRENCY);
     }
 
+    private PriorityDelayQueue<CallableWrapper> createShard(boolean callableNextEligible, int maxSize) {
+        if (!callableNextEligible) {
+            return new PriorityDelayQueue<CallableWrapper>(3, 1000 * 30, TimeUnit.MILLISECONDS, maxSize) {
+                @Override
+                protected void debug(String msgTemplate, Object... msgArgs) {
+                    log.trace(msgTemplate, msgArgs);
+                }
+            };
+        }
+        else {
+            // If the head of this queue has already reached max concurrency,
+            // continuously find next one
+            // which has not yet reach max concurrency.Overrided method
+            // 'eligibleToPoll' to check if the
+            // element of this queue has reached the maximum concurrency.
+            return new PollablePriorityDelayQueue<CallableWrapper>(3, 1000 * 30, TimeUnit.MILLISECONDS, maxSize) {
+                @Override
+                protected void debug(String msgTemplate, Object... msgArgs) {
+                    log.trace(msgTemplate, msgArgs);
+                }
+
+                @Override
+                protected boolean eligibleToPoll(QueueElement<?> element) {
+                    if (element != null) {
+                        CallableWrapper wrapper = (CallableWrapper) element;
+                        if (element.getElement() != null) {
+                            return callableReachMaxConcurrency(wrapper.getElement());
+                        }
+                    }
+                    return false;
+                }
+
+            };
+        }
+    }
+
     /**
      * Destroy the command queue service.
      */
@@ -566,18 +574,19 @@ public class CallableQueueService implements Service, Instrumentable {
     /**
      * @return int size of queue
      */
-    public synchronized int queueSize() {
+    public int queueSize() {
         return queue.size();
     }
 
-    private synchronized boolean queue(CallableWrapper wrapper, boolean ignoreQueueSize) {
+    // not synchronized, the queue size check is best effort and the uniqueness keys are claimed atomically
+    private boolean queue(CallableWrapper wrapper, boolean ignoreQueueSize) {
         if (!ignoreQueueSize && queue.size() >= queueSize) {
             log.warn("queue full, ignoring queuing for [{0}]", wrapper.getElement().getKey());
+            incrCounter(wrapper.getElement().getType() + INSTR_QUEUE_FULL_SUFFIX, 1);
             return false;
         }
         if (!executor.isShutdown()) {
-            if (wrapper.filterDuplicates()) {
-                wrapper.addToUniqueCallables();
+            if (wrapper.claimUniqueCallables()) {
                 try {
                     executor.execute(wrapper);
                 }
@@ -627,7 +636,7 @@ public class CallableQueueService implements Service, Instrumentable {
      * @return <code>true</code> if the callable was queued, <code>false</code>
      *         if the queue is full and the callable was not queued.
      */
-    public synchronized boolean queue(XCallable<?> callable, long delay) {
+    public boolean queue(XCallable<?> callable, long delay) {
         if (callable == null) {
             return true;
         }
@@ -660,7 +669,7 @@ public class CallableQueueService implements Service, Instrumentable {
      * @return <code>true</code> if the callables were queued, <code>false</code> if the queue is full and the callables
      *         were not queued.
      */
-    public synchronized boolean queueSerial(List<? extends XCallable<?>> callables, long delay) {
+    public boolean queueSerial(List<? extends XCallable<?>> callables, long delay) {
         boolean queued;
         if (callables == null || callables.size() == 0) {
             queued = true;
@@ -696,6 +705,13 @@ public class CallableQueueService implements Service, Instrumentable {
                         return (long) executor.getActiveCount();
                     }
                 });
+        if (queue instanceof ShardedPriorityDelayQueue) {
+            instr.addVariable(INSTRUMENTATION_GROUP, INSTR_QUEUE_STEALS, new Instrumentation.Variable<Long>() {
+                public Long getValue() {
+                    return ((ShardedPriorityDelayQueue<?>) queue).getSteals();
+                }
+            });
+        }
     }
 
     /**
@@ -703,7 +719,7 @@ public class CallableQueueService implements Service, Instrumentable {
      * exist a List of Interrupt Callable for the same lock key will bereturned,
      * otherwise it will return null
      */
-    public Set<XCallable<?>> checkInterrupts(String lockKey) {
+    public Collection<XCallable<?>> checkInterrupts(String lockKey) {
 
         if (lockKey != null) {
             return interruptCommandsMap.remove(lockKey);
@@ -733,21 +749,32 @@ public class CallableQueueService implements Service, Instrumentable {
     /**
      * insert a new callable in the Interrupt Command Map add a new element to
      * the list or create a new list accordingly
+     * <p>
+     * No lock is taken, if the list is removed by {@link #checkInterrupts(String)} while the callable is being added,
+     * the callable is added again to a new list. Interrupt commands run only once, running them twice is harmless.
      *
      * @param callable
      */
     public void insertCallableIntoInterruptMap(XCallable<?> callable) {
         if (interruptCommandsMap.size() < interruptMapMaxSize) {
-            Set<XCallable<?>> newSet = Collections.synchronizedSet(new LinkedHashSet<XCallable<?>>());
-            Set<XCallable<?>> interruptSet = interruptCommandsMap.putIfAbsent(callable.getEntityKey(), newSet);
-            if (interruptSet == null) {
-                interruptSet = newSet;
-            }
-            if (interruptSet.add(callable)) {
-                log.trace("Inserting an interrupt element [{0}] to the interrupt map", callable.toString());
-            } else {
-                log.trace("Interrupt element [{0}] already present", callable.toString());
-            }
+            String entityKey = callable.getEntityKey();
+            Queue<XCallable<?>> interruptQueue;
+            do {
+                interruptQueue = interruptCommandsMap.get(entityKey);
+                if (interruptQueue == null) {
+                    Queue<XCallable<?>> newQueue = new ConcurrentLinkedQueue<XCallable<?>>();
+                    interruptQueue = interruptCommandsMap.putIfAbsent(entityKey, newQueue);
+                    if (interruptQueue == null) {
+                        interruptQueue = newQueue;
+                    }
+                }
+                if (!interruptQueue.contains(callable)) {
+                    interruptQueue.add(callable);
+                    log.trace("Inserting an interrupt element [{0}] to the interrupt map", callable.toString());
+                } else {
+                    log.trace("Interrupt element [{0}] already present", callable.toString());
+                }
+            } while (interruptCommandsMap.get(entityKey) != interruptQueue);
         }
         else {
             log.warn(
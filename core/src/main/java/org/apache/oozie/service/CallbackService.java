@@ -18,19 +18,41 @@
 
 package org.apache.oozie.service;
 
+import org.apache.oozie.WorkflowActionBean;
+import org.apache.oozie.action.ActionExecutor;
+import org.apache.oozie.command.wf.ActionCheckXCommand;
+import org.apache.oozie.command.wf.CompletedActionXCommand;
+import org.apache.oozie.executor.jpa.JPAExecutorException;
+import org.apache.oozie.executor.jpa.WorkflowActionQueryExecutor;
+import org.apache.oozie.executor.jpa.WorkflowActionQueryExecutor.WorkflowActionQuery;
 import org.apache.oozie.service.Service;
 import org.apache.oozie.service.Services;
+import org.apache.oozie.util.Instrumentable;
+import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.ParamChecker;
+import org.apache.oozie.util.XLog;
 import org.apache.hadoop.conf.Configuration;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.annotations.VisibleForTesting;
 
 /**
  * Service that generates and parses callback URLs.
+ * <p>
+ * When callback batching is enabled, callbacks are not processed one by one: they are coalesced per action in an
+ * in-memory completion set that is drained in batches, loading all the actions of a batch with a single query and
+ * queuing an {@link ActionCheckXCommand} only for the actions that actually completed.
  */
-public class CallbackService implements Service {
+public class CallbackService implements Service, Instrumentable {
 
     public static final String CONF_PREFIX = Service.CONF_PREFIX + "CallbackService.";
 
@@ -38,8 +60,50 @@ public class CallbackService implements Service {
 
     public static final String CONF_EARLY_REQUEUE_MAX_RETRIES = CONF_PREFIX + "early.requeue.max.retries";
 
+    /**
+     * Whether callbacks are coalesced and processed in batches.
+     */
+    public static final String CONF_BATCH_ENABLED = CONF_PREFIX + "batch.enabled";
+
+    /**
+     * The interval, in milliseconds, at which the coalesced callbacks are drained.
+     */
+    public static final String CONF_BATCH_INTERVAL = CONF_PREFIX + "batch.interval";
+
+    /**
+     * The maximum number of actions loaded per batch.
+     */
+    public static final String CONF_BATCH_SIZE = CONF_PREFIX + "batch.size";
+
+    protected static final String INSTRUMENTATION_GROUP = "callback";
+    protected static final String INSTR_BATCHED_COUNTER = "batched";
+    protected static final String INSTR_COALESCED_COUNTER = "coalesced";
+    protected static final String INSTR_DRAINED_COUNTER = "drained";
+    protected static final String INSTR_COMPLETED_COUNTER = "completed";
+
+    private static final int HIGH_PRIORITY = 2;
+
     private Configuration oozieConf;
     private int earlyRequeueMaxRetries;
+    private boolean batchEnabled;
+    private int batchSize;
+    private final ConcurrentMap<String, String> completions = new ConcurrentHashMap<String, String>();
+    private Instrumentation instrumentation;
+
+    /**
+     * {@link CompletionsRunnable} is the runnable which is scheduled to drain the coalesced callbacks.
+     */
+    class CompletionsRunnable implements Runnable {
+        public void run() {
+            XLog.Info.get().clear();
+            try {
+                drainCompletions();
+            }
+            catch (Exception ex) {
+                XLog.getLog(getClass()).error("Unable to process batched callbacks, ", ex);
+            }
+        }
+    }
 
     /**
      * Initialize the service.
@@ -49,6 +113,28 @@ public class CallbackService implements Service {
     public void init(Services services) {
         oozieConf = services.getConf();
         earlyRequeueMaxRetries = ConfigurationService.getInt(CONF_EARLY_REQUEUE_MAX_RETRIES);
+        batchEnabled = ConfigurationService.getBoolean(oozieConf, CONF_BATCH_ENABLED);
+        batchSize = ConfigurationService.getInt(oozieConf, CONF_BATCH_SIZE);
+        if (batchEnabled) {
+            int interval = ConfigurationService.getInt(oozieConf, CONF_BATCH_INTERVAL);
+            services.get(SchedulerService.class).schedule(new CompletionsRunnable(), interval, interval,
+                    SchedulerService.Unit.MILLISEC);
+        }
+    }
+
+    /**
+     * Instruments the callback service.
+     *
+     * @param instr instance to instrument the callback service to.
+     */
+    @Override
+    public void instrument(Instrumentation instr) {
+        instrumentation = instr;
+        instr.addVariable(INSTRUMENTATION_GROUP, "pending", new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return (long) completions.size();
+            }
+        });
     }
 
     /**
@@ -139,4 +225,141 @@ public class CallbackService implements Service {
     public int getEarlyRequeueMaxRetries() {
         return earlyRequeueMaxRetries;
     }
+
+    /**
+     * Return if callbacks are coalesced and processed in batches.
+     *
+     * @return <code>true</code> if callback batching is enabled.
+     */
+    public boolean isBatchEnabled() {
+        return batchEnabled;
+    }
+
+    /**
+     * Add a callback to the completion set. Callbacks for an action already in the set are coalesced, the last
+     * external status wins.
+     *
+     * @param actionId action ID of the callback.
+     * @param externalStatus external status of the callback.
+     */
+    public void addCompletion(String actionId, String externalStatus) {
+        ParamChecker.notEmpty(actionId, "actionId");
+        ParamChecker.notEmpty(externalStatus, "externalStatus");
+        if (completions.put(actionId, externalStatus) == null) {
+            incrCounter(INSTR_BATCHED_COUNTER, 1);
+        }
+        else {
+            incrCounter(INSTR_COALESCED_COUNTER, 1);
+        }
+    }
+
+    /**
+     * Drain the completion set in batches. If a batch fails, its callbacks not dispatched yet are put back in the set
+     * for the next run.
+     *
+     * @return the number of callbacks drained.
+     * @throws JPAExecutorException thrown if the actions of a batch could not be loaded.
+     */
+    @VisibleForTesting
+    int drainCompletions() throws JPAExecutorException {
+        int drained = 0;
+        Map<String, String> batch = nextBatch();
+        while (!batch.isEmpty()) {
+            int size = batch.size();
+            try {
+                processBatch(batch);
+            }
+            catch (JPAExecutorException ex) {
+                restoreCompletions(batch);
+                throw ex;
+            }
+            catch (RuntimeException ex) {
+                restoreCompletions(batch);
+                throw ex;
+            }
+            drained += size;
+            batch = nextBatch();
+        }
+        return drained;
+    }
+
+    private void restoreCompletions(Map<String, String> batch) {
+        for (Map.Entry<String, String> entry : batch.entrySet()) {
+            // a callback received meanwhile for the same action is more recent
+            completions.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        XLog.getLog(getClass()).warn("Batched callbacks failed, [{0}] callbacks will be retried", batch.size());
+    }
+
+    /**
+     * Load the actions of a batch of callbacks.
+     *
+     * @param actionIds action IDs of the callbacks.
+     * @return the actions that exist.
+     * @throws JPAExecutorException thrown if the actions could not be loaded.
+     */
+    @VisibleForTesting
+    List<WorkflowActionBean> getCompletedActions(List<String> actionIds) throws JPAExecutorException {
+        return WorkflowActionQueryExecutor.getInstance().getList(WorkflowActionQuery.GET_ACTIONS_COMPLETED, actionIds);
+    }
+
+    private Map<String, String> nextBatch() {
+        Map<String, String> batch = new HashMap<String, String>();
+        for (Map.Entry<String, String> entry : completions.entrySet()) {
+            if (batch.size() >= batchSize) {
+                break;
+            }
+            // a callback received meanwhile for the same action stays in the set for the next batch
+            if (completions.remove(entry.getKey(), entry.getValue())) {
+                batch.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Dispatch a batch of callbacks. The callbacks are removed from the batch as they are dispatched.
+     */
+    private void processBatch(Map<String, String> batch) throws JPAExecutorException {
+        XLog log = XLog.getLog(getClass());
+        int size = batch.size();
+        List<WorkflowActionBean> actions = getCompletedActions(new ArrayList<String>(batch.keySet()));
+        incrCounter(INSTR_DRAINED_COUNTER, size);
+        CallableQueueService callableQueueService = Services.get().get(CallableQueueService.class);
+        ActionService actionService = Services.get().get(ActionService.class);
+        int completed = 0;
+        for (WorkflowActionBean action : actions) {
+            String externalStatus = batch.get(action.getId());
+            boolean queued = true;
+            if (action.getStatus() == WorkflowActionBean.Status.RUNNING) {
+                ActionExecutor executor = actionService.getExecutor(action.getType());
+                // oozie notifications of sub-workflows are sent on every status change, not only on completion
+                if (executor != null && executor.isCompleted(externalStatus)) {
+                    queued = callableQueueService.queue(new ActionCheckXCommand(action.getId(), HIGH_PRIORITY, -1));
+                    completed++;
+                }
+            }
+            else if (action.getStatus() == WorkflowActionBean.Status.PREP) {
+                // early callback, CompletedActionXCommand requeues it until the action is RUNNING
+                queued = callableQueueService.queue(new CompletedActionXCommand(action.getId(), externalStatus, null,
+                        HIGH_PRIORITY));
+            }
+            else {
+                log.debug("Ignoring callback for action [{0}] with status [{1}]", action.getId(), action.getStatus());
+            }
+            if (!queued) {
+                log.warn(XLog.OPS, "queue is full or system is in SAFEMODE, ignoring callback for action [{0}]",
+                        action.getId());
+            }
+            batch.remove(action.getId());
+        }
+        incrCounter(INSTR_COMPLETED_COUNTER, completed);
+        log.debug("Processed [{0}] batched callbacks, [{1}] actions completed", size, completed);
+    }
+
+    private void incrCounter(String name, int count) {
+        if (instrumentation != null) {
+            instrumentation.incr(INSTRUMENTATION_GROUP, name, count);
+        }
+    }
 }
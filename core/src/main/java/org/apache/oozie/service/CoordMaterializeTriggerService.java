@@ -23,6 +23,7 @@ import java.util.Date;
 import java.util.List;
 
 import org.apache.oozie.CoordinatorJobBean;
+import org.apache.oozie.command.coord.CoordMaterializeTemplate;
 import org.apache.oozie.command.coord.CoordMaterializeTransitionXCommand;
 import org.apache.oozie.executor.jpa.BatchQueryExecutor;
 import org.apache.oozie.executor.jpa.CoordJobQueryExecutor;
@@ -211,6 +212,8 @@ public class CoordMaterializeTriggerService implements Service {
         int lookupInterval = ConfigurationService.getInt(services.getConf(), CONF_LOOKUP_INTERVAL);
         // default is 300sec (5min)
         int schedulingInterval = Services.get().getConf().getInt(CONF_SCHEDULING_INTERVAL, lookupInterval);
+        CoordMaterializeTemplate.reset(ConfigurationService.getInt(services.getConf(),
+                CoordMaterializeTemplate.CONF_CACHE_SIZE));
 
         Runnable lookupTriggerJobsRunnable = new CoordMaterializeTriggerRunnable(materializationWindow, lookupInterval);
 
@@ -220,6 +223,7 @@ public class CoordMaterializeTriggerService implements Service {
 
     @Override
     public void destroy() {
+        CoordMaterializeTemplate.reset(CoordMaterializeTemplate.DEFAULT_SIZE);
     }
 
     @Override
@@ -20,6 +20,9 @@ package org.apache.oozie.service;
 
 import org.apache.oozie.util.XLog;
 import org.apache.oozie.util.ELEvaluator;
+import org.apache.oozie.util.ELExpressionCache;
+import org.apache.oozie.util.Instrumentable;
+import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.ErrorCode;
 import org.apache.hadoop.conf.Configuration;
 
@@ -38,7 +41,7 @@ import java.util.List;
  * syntax for a constant definition is <code>PREFIX:NAME=CLASS_NAME#CONSTANT_NAME</code>. <p> The syntax for a constant
  * definition is <code>PREFIX:NAME=CLASS_NAME#METHOD_NAME</code>.
  */
-public class ELService implements Service {
+public class ELService implements Service, Instrumentable {
 
     public static final String CONF_PREFIX = Service.CONF_PREFIX + "ELService.";
 
@@ -52,6 +55,13 @@ public class ELService implements Service {
 
     public static final String CONF_GROUPS = CONF_PREFIX + "groups";
 
+    /**
+     * Maximum number of parsed EL expressions kept in the {@link ELExpressionCache}.
+     */
+    public static final String CONF_EXPRESSION_CACHE_SIZE = CONF_PREFIX + "expression.cache.size";
+
+    private static final String INSTRUMENTATION_GROUP = "el";
+
     private final XLog log = XLog.getLog(getClass());
 
     //<Group Name>, <List of constants>
@@ -135,6 +145,40 @@ public class ELService implements Service {
             tmpFunctions.addAll(extractFunctions(services.getConf(), CONF_EXT_FUNCTIONS + group));
             functions.put(group, tmpFunctions);
         }
+        ELExpressionCache.reset(ConfigurationService.getInt(services.getConf(), CONF_EXPRESSION_CACHE_SIZE));
+    }
+
+    /**
+     * Instruments the EL service.
+     *
+     * @param instr instance to instrument the EL service to.
+     */
+    @Override
+    public void instrument(Instrumentation instr) {
+        instr.addVariable(INSTRUMENTATION_GROUP, "expression.cache.hits", new Instrumentation.Variable<Long>() {
+            @Override
+            public Long getValue() {
+                return ELExpressionCache.get().getHits();
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "expression.cache.misses", new Instrumentation.Variable<Long>() {
+            @Override
+            public Long getValue() {
+                return ELExpressionCache.get().getMisses();
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "expression.cache.evictions", new Instrumentation.Variable<Long>() {
+            @Override
+            public Long getValue() {
+                return ELExpressionCache.get().getEvictions();
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "expression.cache.size", new Instrumentation.Variable<Long>() {
+            @Override
+            public Long getValue() {
+                return ELExpressionCache.get().size();
+            }
+        });
     }
 
     /**
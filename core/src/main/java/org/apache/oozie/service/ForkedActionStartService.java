@@ -0,0 +1,162 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.oozie.util.Instrumentable;
+import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.util.NamedThreadFactory;
+
+/**
+ * Service starting the actions of a fork in parallel.
+ * <p>
+ * The actions of all the workflows share a dedicated thread pool, while the number of actions of a single fork started
+ * at the same time is capped, so that a fork into hundreds of paths does not hold all the threads.
+ */
+public class ForkedActionStartService implements Service, Instrumentable {
+
+    public static final String CONF_PREFIX = Service.CONF_PREFIX + "ForkedActionStartService.";
+
+    /**
+     * Number of threads starting forked actions.
+     */
+    public static final String CONF_THREADS = CONF_PREFIX + "threads";
+
+    /**
+     * Maximum number of actions of a single fork started at the same time, 0 for no limit.
+     */
+    public static final String CONF_MAX_PARALLELISM = CONF_PREFIX + "max.parallelism.per.workflow";
+
+    protected static final String INSTRUMENTATION_GROUP = "forked.action.start";
+    public static final String INSTR_FANOUT_TIMER = "fanout";
+    public static final String INSTR_ACTIONS_COUNTER = "actions";
+
+    private ThreadPoolExecutor executor;
+    private int maxParallelism;
+    private Instrumentation instrumentation;
+
+    /**
+     * Initialize the forked action start service.
+     *
+     * @param services services instance.
+     * @throws ServiceException thrown if the service could not be initialized.
+     */
+    @Override
+    public void init(Services services) throws ServiceException {
+        int threads = Math.max(1, ConfigurationService.getInt(services.getConf(), CONF_THREADS));
+        maxParallelism = ConfigurationService.getInt(services.getConf(), CONF_MAX_PARALLELISM);
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new NamedThreadFactory("ForkedActionStart"));
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Destroy the forked action start service.
+     */
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Return the public interface for the forked action start service.
+     *
+     * @return {@link ForkedActionStartService}.
+     */
+    @Override
+    public Class<? extends Service> getInterface() {
+        return ForkedActionStartService.class;
+    }
+
+    /**
+     * Instruments the forked action start service.
+     *
+     * @param instr instance to instrument the forked action start service to.
+     */
+    @Override
+    public void instrument(Instrumentation instr) {
+        instrumentation = instr;
+        instr.addVariable(INSTRUMENTATION_GROUP, "active", new Instrumentation.Variable<Integer>() {
+            public Integer getValue() {
+                ThreadPoolExecutor pool = executor;
+                return (pool != null) ? pool.getActiveCount() : 0;
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "queued", new Instrumentation.Variable<Integer>() {
+            public Integer getValue() {
+                ThreadPoolExecutor pool = executor;
+                return (pool != null) ? pool.getQueue().size() : 0;
+            }
+        });
+    }
+
+    /**
+     * Run the start commands of the actions of a fork and wait for all of them to complete. At most
+     * {@link #CONF_MAX_PARALLELISM} commands run at the same time, the next one being submitted as soon as one
+     * completes.
+     *
+     * @param tasks start commands of the forked actions.
+     * @return the futures of the commands, all done, in the order the commands completed.
+     * @throws InterruptedException thrown if interrupted while waiting, the commands not completed yet are cancelled.
+     */
+    public <T> List<Future<T>> invokeAll(List<? extends Callable<T>> tasks) throws InterruptedException {
+        int parallelism = (maxParallelism > 0) ? Math.min(maxParallelism, tasks.size()) : tasks.size();
+        CompletionService<T> completionService = new ExecutorCompletionService<T>(executor);
+        List<Future<T>> submitted = new ArrayList<Future<T>>(tasks.size());
+        List<Future<T>> completed = new ArrayList<Future<T>>(tasks.size());
+        Instrumentation.Cron cron = new Instrumentation.Cron();
+        cron.start();
+        try {
+            while (submitted.size() < parallelism) {
+                submitted.add(completionService.submit(tasks.get(submitted.size())));
+            }
+            while (completed.size() < tasks.size()) {
+                completed.add(completionService.take());
+                if (submitted.size() < tasks.size()) {
+                    submitted.add(completionService.submit(tasks.get(submitted.size())));
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            for (Future<T> future : submitted) {
+                future.cancel(true);
+            }
+            throw ex;
+        }
+        finally {
+            cron.stop();
+            if (instrumentation != null) {
+                instrumentation.addCron(INSTRUMENTATION_GROUP, INSTR_FANOUT_TIMER, cron);
+                instrumentation.incr(INSTRUMENTATION_GROUP, INSTR_ACTIONS_COUNTER, completed.size());
+            }
+        }
+        return completed;
+    }
+}
@@ -32,6 +32,8 @@ import org.apache.hadoop.security.token.Token;
 import org.apache.oozie.ErrorCode;
 import org.apache.oozie.action.hadoop.JavaActionExecutor;
 import org.apache.oozie.util.IOUtils;
+import org.apache.oozie.util.Instrumentable;
+import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.ParamChecker;
 import org.apache.oozie.util.XConfiguration;
 import org.apache.oozie.util.XLog;
@@ -56,15 +58,22 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
 
 /**
  * The HadoopAccessorService returns HadoopAccessor instances configured to work on behalf of a user-group. <p> The
  * default accessor used is the base accessor which just injects the UGI into the configuration instance used to
  * create/obtain JobClient and FileSystem instances.
  */
-public class HadoopAccessorService implements Service {
+public class HadoopAccessorService implements Service, Instrumentable {
 
     private static XLog LOG = XLog.getLog(HadoopAccessorService.class);
 
@@ -79,6 +88,23 @@ public class HadoopAccessorService implements Service {
     public static final String KERBEROS_PRINCIPAL = CONF_PREFIX + "kerberos.principal";
     public static final Text MR_TOKEN_ALIAS = new Text("oozie mr token");
 
+    /**
+     * Maximum number of pooled JobClients, <code>0</code> disables the pool.
+     */
+    public static final String JOB_CLIENT_POOL_SIZE = CONF_PREFIX + "jobclient.pool.size";
+
+    /**
+     * Time, in seconds, after which a pooled JobClient that was not used is closed.
+     */
+    public static final String JOB_CLIENT_POOL_EXPIRY = CONF_PREFIX + "jobclient.pool.expiry";
+
+    protected static final String INSTRUMENTATION_GROUP = "hadoopaccessor";
+    public static final String INSTR_POOL_HITS_COUNTER = "jobclient.pool.hits";
+    public static final String INSTR_POOL_MISSES_COUNTER = "jobclient.pool.misses";
+    public static final String INSTR_POOL_EVICTIONS_COUNTER = "jobclient.pool.evictions";
+    public static final String INSTR_JOB_CLIENT_CREATE_TIMER = "jobclient.create";
+    public static final String INSTR_FILE_SYSTEM_CREATE_TIMER = "filesystem.create";
+
     protected static final String OOZIE_HADOOP_ACCESSOR_SERVICE_CREATED = "oozie.HadoopAccessorService.created";
     /** The Kerberos principal for the job tracker.*/
     protected static final String JT_PRINCIPAL = "mapreduce.jobtracker.kerberos.principal";
@@ -108,6 +134,45 @@ public class HadoopAccessorService implements Service {
     private Set<String> supportedSchemes;
     private boolean allSchemesSupported;
 
+    private Cache<String, PooledJobClient> jobClientPool;
+    private Instrumentation instrumentation;
+
+    /**
+     * JobClient shared through the JobClient pool. Closing it only releases it, it is closed once it is evicted from
+     * the pool and released by all the callers using it.
+     */
+    private static class PooledJobClient extends JobClient {
+        private int users;
+        private boolean evicted;
+
+        private PooledJobClient(JobConf conf) throws IOException {
+            super(conf);
+        }
+
+        private synchronized boolean acquire() {
+            if (evicted) {
+                return false;
+            }
+            users++;
+            return true;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            users--;
+            if (evicted && users == 0) {
+                super.close();
+            }
+        }
+
+        private synchronized void evict() throws IOException {
+            evicted = true;
+            if (users == 0) {
+                super.close();
+            }
+        }
+    }
+
     public void init(Services services) throws ServiceException {
         this.ugiService = services.get(UserGroupInformationService.class);
         init(services.getConf());
@@ -172,6 +237,25 @@ public class HadoopAccessorService implements Service {
         }
 
         setConfigForHadoopSecurityUtil(conf);
+
+        int poolSize = ConfigurationService.getInt(conf, JOB_CLIENT_POOL_SIZE);
+        if (poolSize > 0) {
+            jobClientPool = CacheBuilder.newBuilder().maximumSize(poolSize)
+                    .expireAfterAccess(ConfigurationService.getLong(conf, JOB_CLIENT_POOL_EXPIRY), TimeUnit.SECONDS)
+                    .removalListener(new RemovalListener<String, PooledJobClient>() {
+                        @Override
+                        public void onRemoval(RemovalNotification<String, PooledJobClient> notification) {
+                            incrCounter(INSTR_POOL_EVICTIONS_COUNTER);
+                            try {
+                                notification.getValue().evict();
+                            }
+                            catch (IOException ex) {
+                                LOG.warn("Could not close pooled JobClient [{0}], {1}", notification.getKey(),
+                                        ex.getMessage(), ex);
+                            }
+                        }
+                    }).build();
+        }
     }
 
     private void setConfigForHadoopSecurityUtil(Configuration conf) {
@@ -325,12 +409,42 @@ public class HadoopAccessorService implements Service {
     }
 
     public void destroy() {
+        if (jobClientPool != null) {
+            jobClientPool.invalidateAll();
+        }
     }
 
     public Class<? extends Service> getInterface() {
         return HadoopAccessorService.class;
     }
 
+    /**
+     * Instruments the Hadoop accessor service.
+     *
+     * @param instr instance to instrument the Hadoop accessor service to.
+     */
+    @Override
+    public void instrument(Instrumentation instr) {
+        instrumentation = instr;
+        instr.addVariable(INSTRUMENTATION_GROUP, "jobclient.pool.size", new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return (jobClientPool == null) ? 0L : jobClientPool.size();
+            }
+        });
+    }
+
+    private void incrCounter(String name) {
+        if (instrumentation != null) {
+            instrumentation.incr(INSTRUMENTATION_GROUP, name, 1);
+        }
+    }
+
+    private void addCron(String name, Instrumentation.Cron cron) {
+        if (instrumentation != null) {
+            instrumentation.addCron(INSTRUMENTATION_GROUP, name, cron);
+        }
+    }
+
     private UserGroupInformation getUGI(String user) throws IOException {
         return ugiService.getProxyUser(user);
     }
@@ -509,11 +623,15 @@ public class HadoopAccessorService implements Service {
         validateJobTracker(jobTracker);
         try {
             UserGroupInformation ugi = getUGI(user);
+            Instrumentation.Cron cron = new Instrumentation.Cron();
+            cron.start();
             JobClient jobClient = ugi.doAs(new PrivilegedExceptionAction<JobClient>() {
                 public JobClient run() throws Exception {
                     return new JobClient(conf);
                 }
             });
+            cron.stop();
+            addCron(INSTR_JOB_CLIENT_CREATE_TIMER, cron);
             Token<DelegationTokenIdentifier> mrdt = jobClient.getDelegationToken(getMRDelegationTokenRenewer(conf));
             conf.getCredentials().addToken(MR_TOKEN_ALIAS, mrdt);
             return jobClient;
@@ -526,6 +644,67 @@ public class HadoopAccessorService implements Service {
         }
     }
 
+    /**
+     * Return a JobClient for the provided user from the JobClient pool, creating it if it is not pooled yet.
+     * <p>
+     * Pooled JobClients are shared by all the callers using the same user, job tracker and name node. They are meant
+     * for job status lookups and kills; they do not add a delegation token to the given configuration, so
+     * {@link #createJobClient(String, JobConf)} must be used to submit jobs. The JobClient must be closed once it is not
+     * used anymore, which releases it to the pool. If the pool is disabled, a new JobClient is created.
+     *
+     * @param user user the JobClient acts on behalf of.
+     * @param conf JobConf with all necessary information to create the JobClient.
+     * @return JobClient for the provided user.
+     * @throws HadoopAccessorException if the client could not be created.
+     */
+    public JobClient getJobClient(final String user, final JobConf conf) throws HadoopAccessorException {
+        if (jobClientPool == null) {
+            return createJobClient(user, conf);
+        }
+        ParamChecker.notEmpty(user, "user");
+        if (!conf.getBoolean(OOZIE_HADOOP_ACCESSOR_SERVICE_CREATED, false)) {
+            throw new HadoopAccessorException(ErrorCode.E0903);
+        }
+        String jobTracker = conf.get(JavaActionExecutor.HADOOP_JOB_TRACKER);
+        validateJobTracker(jobTracker);
+        String key = user + "," + jobTracker + "," + conf.get(JavaActionExecutor.HADOOP_NAME_NODE);
+        while (true) {
+            PooledJobClient jobClient = jobClientPool.getIfPresent(key);
+            if (jobClient == null) {
+                incrCounter(INSTR_POOL_MISSES_COUNTER);
+                try {
+                    jobClient = jobClientPool.get(key, new Callable<PooledJobClient>() {
+                        @Override
+                        public PooledJobClient call() throws Exception {
+                            UserGroupInformation ugi = getUGI(user);
+                            Instrumentation.Cron cron = new Instrumentation.Cron();
+                            cron.start();
+                            PooledJobClient jobClient = ugi.doAs(new PrivilegedExceptionAction<PooledJobClient>() {
+                                public PooledJobClient run() throws Exception {
+                                    return new PooledJobClient(new JobConf(conf));
+                                }
+                            });
+                            cron.stop();
+                            addCron(INSTR_JOB_CLIENT_CREATE_TIMER, cron);
+                            return jobClient;
+                        }
+                    });
+                }
+                catch (ExecutionException ex) {
+                    throw new HadoopAccessorException(ErrorCode.E0902, ex.getCause().getMessage(), ex.getCause());
+                }
+            }
+            else {
+                incrCounter(INSTR_POOL_HITS_COUNTER);
+            }
+            if (jobClient.acquire()) {
+                return jobClient;
+            }
+            // evicted concurrently, it may still be in the pool until the removal completes
+            jobClientPool.asMap().remove(key, jobClient);
+        }
+    }
+
     /**
      * Return a FileSystem created with the provided user for the specified URI.
      *
@@ -560,11 +739,16 @@ public class HadoopAccessorService implements Service {
 
         try {
             UserGroupInformation ugi = getUGI(user);
-            return ugi.doAs(new PrivilegedExceptionAction<FileSystem>() {
+            Instrumentation.Cron cron = new Instrumentation.Cron();
+            cron.start();
+            FileSystem fs = ugi.doAs(new PrivilegedExceptionAction<FileSystem>() {
                 public FileSystem run() throws Exception {
                     return FileSystem.get(uri, conf);
                 }
             });
+            cron.stop();
+            addCron(INSTR_FILE_SYSTEM_CREATE_TIMER, cron);
+            return fs;
         }
         catch (InterruptedException ex) {
             throw new HadoopAccessorException(ErrorCode.E0902, ex.getMessage(), ex);
@@ -26,6 +26,7 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.oozie.util.ConfigUtils;
 import org.apache.oozie.util.Instrumentable;
 import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.util.JobIdRing;
 import org.apache.oozie.util.ZKUtils;
 
 /**
@@ -116,6 +117,17 @@ public class JobsConcurrencyService implements Service, Instrumentable {
         return ids;
     }
 
+    /**
+     * Return the buckets of job ids that should be processed by this server, see {@link JobIdRing#getBuckets(String)}.  The
+     * ids of the jobs of this server, and of their actions, are the ids for which <code>SUBSTRING(id, 5, 3)</code> is one of
+     * the buckets.  This implementation always returns null, all the jobs belong to this server.
+     *
+     * @return null
+     */
+    public List<String> getJobIdBucketsForThisServer() {
+        return null;
+    }
+
     /**
      * Return a map of instance id to Oozie server URL.  This implementation always returns a map with a single entry where the key
      * is the OOZIE_INSTANCE_ID env var and the value is the URL (of this Oozie server).
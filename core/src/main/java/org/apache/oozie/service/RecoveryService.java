@@ -64,6 +64,8 @@ import org.apache.oozie.executor.jpa.JPAExecutorException;
 import org.apache.oozie.executor.jpa.WorkflowActionQueryExecutor;
 import org.apache.oozie.executor.jpa.WorkflowActionQueryExecutor.WorkflowActionQuery;
 import org.apache.oozie.util.ELUtils;
+import org.apache.oozie.util.Instrumentable;
+import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.JobUtils;
 import org.apache.oozie.util.XCallable;
 import org.apache.oozie.util.XConfiguration;
@@ -76,7 +78,7 @@ import org.jdom.Element;
  * The Recovery Service checks for pending actions and premater coordinator jobs older than a configured age and then
  * queues them for execution.
  */
-public class RecoveryService implements Service {
+public class RecoveryService implements Service, Instrumentable {
 
     public static final String RECOVERY_SERVICE_CONF_PREFIX = Service.CONF_PREFIX + "RecoveryService.";
     public static final String CONF_PREFIX_WF_ACTIONS = RECOVERY_SERVICE_CONF_PREFIX + "wf.actions.";
@@ -113,18 +115,36 @@ public class RecoveryService implements Service {
      */
     public static final String CONF_BUNDLE_OLDER_THAN = CONF_PREFIX_BUNDLE + "older.than";
 
+    /**
+     * Maximum number of actions read from the database at once.
+     */
+    public static final String CONF_PAGE_SIZE = RECOVERY_SERVICE_CONF_PREFIX + "page.size";
+
+    /**
+     * Callable queue size at which a run stops queueing recovery commands, a non positive value disables it.
+     */
+    public static final String CONF_BACKPRESSURE_QUEUE_SIZE = RECOVERY_SERVICE_CONF_PREFIX + "backpressure.queue.size";
+
     private static final String INSTRUMENTATION_GROUP = "recovery";
     private static final String INSTR_RECOVERED_ACTIONS_COUNTER = "actions";
     private static final String INSTR_RECOVERED_COORD_ACTIONS_COUNTER = "coord_actions";
     private static final String INSTR_RECOVERED_BUNDLE_ACTIONS_COUNTER = "bundle_actions";
+    private static final String INSTR_RUNS_COUNTER = "runs";
+    private static final String INSTR_THROTTLED_COUNTER = "throttled";
 
     public static final long ONE_DAY_MILLISCONDS = 25 * 60 * 60 * 1000;
 
+    private RecoveryRunnable recoveryRunnable;
 
 
     /**
      * RecoveryRunnable is the Runnable which is scheduled to run with the configured interval, and takes care of the
      * queuing of commands.
+     * <p>
+     * Pending actions are read one page at a time, ordered by id. The queries only read the actions of this server's jobs,
+     * the ones in the buckets of {@link JobsConcurrencyService#getJobIdBucketsForThisServer()}. If the callable queue grows beyond
+     * {@link RecoveryService#CONF_BACKPRESSURE_QUEUE_SIZE} the run stops, and the next run resumes from the last id
+     * seen instead of starting over.
      */
     static class RecoveryRunnable implements Runnable {
         private final long olderThan;
@@ -135,6 +155,24 @@ public class RecoveryService implements Service {
         private List<XCallable<?>> delayedCallables;
         private StringBuilder msg = null;
         private JPAService jpaService = null;
+        private final RecoveryScan<WorkflowActionBean> wfActionScan = new WorkflowActionScan();
+        private final RecoveryScan<CoordinatorActionBean> coordActionScan = new CoordActionScan();
+        private final RecoveryScan<CoordinatorActionBean> coordWaitingActionScan = new CoordWaitingActionScan();
+        private final RecoveryScan<BundleActionBean> bundleActionScan = new BundleActionScan();
+        private Set<String> readyJobs;
+        private List<String> buckets;
+        private long pushMissingDepInterval;
+        private long pushMissingDepDelay;
+        private int pageSize;
+        private int backpressureQueueSize;
+        private int scanned;
+        private int recovered;
+        private int pages;
+        private volatile long lastRunScanned;
+        private volatile long lastRunRecovered;
+        private volatile long lastRunPages;
+        private volatile long lastRunDuration;
+        private volatile boolean lastRunThrottled;
 
         public RecoveryRunnable(long olderThan, long coordOlderThan,long bundleOlderThan) {
             this.olderThan = olderThan;
@@ -145,12 +183,44 @@ public class RecoveryService implements Service {
         public void run() {
             XLog.Info.get().clear();
             XLog log = XLog.getLog(getClass());
+            long start = System.currentTimeMillis();
             msg = new StringBuilder();
             jpaService = Services.get().get(JPAService.class);
-            runWFRecovery();
-            runCoordActionRecovery();
-            runBundleRecovery();
+            pageSize = ConfigurationService.getInt(CONF_PAGE_SIZE);
+            backpressureQueueSize = ConfigurationService.getInt(CONF_BACKPRESSURE_QUEUE_SIZE);
+            scanned = 0;
+            recovered = 0;
+            pages = 0;
+            readyJobs = new HashSet<String>();
+            buckets = Services.get().get(JobsConcurrencyService.class).getJobIdBucketsForThisServer();
+            pushMissingDepInterval = ConfigurationService.getLong(CONF_PUSH_DEPENDENCY_INTERVAL);
+            pushMissingDepDelay = pushMissingDepInterval;
+
+            boolean completed = wfActionScan.run() && coordActionScan.run() && coordWaitingActionScan.run();
+            runCoordActionRecoveryForReady(readyJobs);
+            completed = completed && bundleActionScan.run();
             log.debug("QUEUED [{0}] for potential recovery", msg.toString());
+            flushCallables();
+
+            lastRunScanned = scanned;
+            lastRunRecovered = recovered;
+            lastRunPages = pages;
+            lastRunDuration = System.currentTimeMillis() - start;
+            lastRunThrottled = !completed;
+            Instrumentation instr = Services.get().get(InstrumentationService.class).get();
+            instr.incr(INSTRUMENTATION_GROUP, INSTR_RUNS_COUNTER, 1);
+            if (!completed) {
+                instr.incr(INSTRUMENTATION_GROUP, INSTR_THROTTLED_COUNTER, 1);
+                log.info("Recovery stopped after [{0}] pages, callable queue size reached [{1}], resuming on next run",
+                        pages, backpressureQueueSize);
+            }
+        }
+
+        /**
+         * Queue the callables batched so far, regardless of the batch size.
+         */
+        private void flushCallables() {
+            XLog log = XLog.getLog(getClass());
             boolean ret = false;
             if (null != callables) {
                 ret = Services.get().get(CallableQueueService.class).queueSerial(callables);
@@ -173,175 +243,353 @@ public class RecoveryService implements Service {
             }
         }
 
-        private void runBundleRecovery(){
-            XLog.Info.get().clear();
-            XLog log = XLog.getLog(getClass());
-            List<BundleActionBean> bactions = null;
-            try {
-                bactions = BundleActionQueryExecutor.getInstance().getList(
-                        BundleActionQuery.GET_BUNDLE_WAITING_ACTIONS_OLDER_THAN, bundleOlderThan);
-            }
-            catch (JPAExecutorException ex) {
-                log.warn("Error reading bundle actions from database", ex);
-                return;
+        /**
+         * Return true if the callable queue is too full to queue more recovery commands.
+         */
+        private boolean isQueueBackedUp() {
+            return backpressureQueueSize > 0
+                    && Services.get().get(CallableQueueService.class).queueSize() >= backpressureQueueSize;
+        }
+
+        long getLastRunScanned() {
+            return lastRunScanned;
+        }
+
+        long getLastRunRecovered() {
+            return lastRunRecovered;
+        }
+
+        long getLastRunPages() {
+            return lastRunPages;
+        }
+
+        long getLastRunDuration() {
+            return lastRunDuration;
+        }
+
+        boolean isLastRunThrottled() {
+            return lastRunThrottled;
+        }
+
+        /**
+         * A keyset paginated scan over the beans eligible for recovery. The position of the scan is kept across runs
+         * so that a run stopped by backpressure is resumed by the next one.
+         *
+         * @param <T> bean type.
+         */
+        abstract class RecoveryScan<T> {
+            private final String name;
+            private String lastId = "";
+            private int count;
+
+            RecoveryScan(String name) {
+                this.name = name;
             }
-            msg.append(", BUNDLE_ACTIONS : ").append(bactions.size());
-            for (BundleActionBean baction : bactions) {
+
+            /**
+             * Return the next page of beans of this server's jobs, ordered by id.
+             *
+             * @param lastId id of the last bean of the previous page, empty for the first page.
+             * @param limit maximum number of beans to return.
+             * @param buckets buckets of the ids of this server's jobs, null for all the jobs.
+             * @return the page of beans.
+             * @throws JPAExecutorException thrown if the beans could not be read.
+             */
+            abstract List<T> getPage(String lastId, int limit, List<String> buckets) throws JPAExecutorException;
+
+            abstract String getId(T bean);
+
+            abstract void recover(T bean) throws Exception;
+
+            /**
+             * Scan pages until there are no more beans, or until the callable queue is backed up.
+             *
+             * @return false if the scan was stopped because of backpressure.
+             */
+            boolean run() {
+                XLog log = XLog.getLog(getClass());
+                count = 0;
                 try {
-                    Services.get().get(InstrumentationService.class).get()
-                            .incr(INSTRUMENTATION_GROUP, INSTR_RECOVERED_BUNDLE_ACTIONS_COUNTER, 1);
-                    if (baction.getCoordId() == null && baction.getStatus() != Job.Status.PREP) {
-                        log.error("CoordId is null for Bundle action " + baction.getBundleActionId());
-                        continue;
+                    if (buckets != null && buckets.isEmpty()) {
+                        // this server does not own any job
+                        return true;
                     }
-                    if (Services.get().get(JobsConcurrencyService.class).isJobIdForThisServer(baction.getBundleId())) {
-                        if (baction.getStatus() == Job.Status.PREP && baction.getCoordId() == null) {
-
-                            CoordinatorJobBean coordJobs = CoordJobQueryExecutor.getInstance().getIfExist(
-                                    CoordJobQuery.GET_COORD_JOBS_FOR_BUNDLE_BY_APPNAME_ID, baction.getCoordName(),
-                                    baction.getBundleId());
-
-                            if (coordJobs == null) {
-                                log.debug("Coord [{0}] for bundle [{1}] is not yet submitted , submitting new one",
-                                        baction.getCoordName(), baction.getBundleId());
-
-                                BundleJobBean bundleJob = null;
-                                if (jpaService != null) {
-                                    bundleJob = BundleJobQueryExecutor.getInstance().get(
-                                            BundleJobQuery.GET_BUNDLE_JOB_ID_JOBXML_CONF, baction.getBundleId());
-                                }
-                                Element bAppXml = XmlUtils.parseXml(bundleJob.getJobXml());
-                                @SuppressWarnings("unchecked")
-                                List<Element> coordElems = bAppXml.getChildren("coordinator", bAppXml.getNamespace());
-                                for (Element coordElem : coordElems) {
-                                    Attribute name = coordElem.getAttribute("name");
-                                    String coordName = name.getValue();
-                                    Configuration coordConf = mergeConfig(coordElem, bundleJob);
-                                    try {
-                                        coordName = ELUtils.resolveAppName(coordName, coordConf);
-                                    }
-                                    catch (Exception e) {
-                                        log.error("Error evaluating coord name " + e.getMessage(), e);
-                                        continue;
-                                    }
-                                    if (coordName.equals(baction.getCoordName())) {
-                                        coordConf.set(OozieClient.BUNDLE_ID, baction.getBundleId());
-                                        queueCallable(new BundleCoordSubmitXCommand(coordConf, bundleJob.getId(),
-                                                coordName));
-                                    }
-                                }
-                            }
-                            else {
-                                log.debug(
-                                        "Coord [{0}] for bundle [{1}] is submitted , but bundle action is not updated.",
-                                        baction.getCoordName(), baction.getBundleId());
-                                coordJobs = CoordJobQueryExecutor.getInstance().getIfExist(
-                                        CoordJobQuery.GET_COORD_JOB_SUSPEND_KILL, baction.getCoordName(),
-                                        coordJobs.getId());
-                                queueCallable(new BundleStatusUpdateXCommand(coordJobs, baction.getStatus()));
-                            }
+                    while (true) {
+                        if (isQueueBackedUp()) {
+                            flushCallables();
+                            return false;
                         }
-                        else if (baction.getStatus() == Job.Status.KILLED) {
-                            queueCallable(new CoordKillXCommand(baction.getCoordId()));
-                        }
-                        else if (baction.getStatus() == Job.Status.SUSPENDED
-                                || baction.getStatus() == Job.Status.SUSPENDEDWITHERROR) {
-                            queueCallable(new CoordSuspendXCommand(baction.getCoordId()));
-                        }
-                        else if (baction.getStatus() == Job.Status.RUNNING
-                                || baction.getStatus() == Job.Status.RUNNINGWITHERROR) {
-                            queueCallable(new CoordResumeXCommand(baction.getCoordId()));
+                        List<T> page = getPage(lastId, pageSize, buckets);
+                        pages++;
+                        scanned += page.size();
+                        count += page.size();
+                        recoverPage(page);
+                        if (page.size() < pageSize) {
+                            lastId = "";
+                            return true;
                         }
+                        lastId = getId(page.get(page.size() - 1));
                     }
                 }
-                catch (Exception ex) {
-                    log.error("Exception, {0}", ex.getMessage(), ex);
+                catch (JPAExecutorException ex) {
+                    log.warn("Error reading " + name + " from database", ex);
+                    return true;
+                }
+                finally {
+                    msg.append(", ").append(name).append(" : ").append(count);
                 }
             }
 
+            private void recoverPage(List<T> page) {
+                XLog log = XLog.getLog(getClass());
+                for (T bean : page) {
+                    try {
+                        recovered++;
+                        recover(bean);
+                    }
+                    catch (Exception ex) {
+                        log.error("Exception, {0}", ex.getMessage(), ex);
+                    }
+                }
+            }
         }
 
-        /**
-         * Recover coordinator actions that are staying in WAITING or SUBMITTED too long
-         */
-        private void runCoordActionRecovery() {
-            Set<String> readyJobs = new HashSet<String>();
-            XLog.Info.get().clear();
-            XLog log = XLog.getLog(getClass());
-            long pushMissingDepInterval = ConfigurationService.getLong(CONF_PUSH_DEPENDENCY_INTERVAL);
-            long pushMissingDepDelay = pushMissingDepInterval;
-            Timestamp ts = new Timestamp(System.currentTimeMillis() - this.coordOlderThan * 1000);
+        private class WorkflowActionScan extends RecoveryScan<WorkflowActionBean> {
 
-            List<CoordinatorActionBean> cactions = new ArrayList<CoordinatorActionBean>();
-            try {
-                cactions.addAll(CoordActionQueryExecutor.getInstance().getList(
-                        CoordActionQuery.GET_COORD_ACTIONS_FOR_RECOVERY_OLDER_THAN, ts));
-                cactions.addAll(CoordActionQueryExecutor.getInstance().getList(
-                        CoordActionQuery.GET_COORD_ACTIONS_WAITING_READY_SUBMITTED_OLDER_THAN, ts));
+            WorkflowActionScan() {
+                super("WF_ACTIONS");
+            }
 
+            @Override
+            List<WorkflowActionBean> getPage(String lastId, int limit, List<String> buckets)
+                    throws JPAExecutorException {
+                long createdTimeInterval = new Date().getTime()
+                        - ConfigurationService.getLong(CONF_WF_ACTIONS_CREATED_TIME_INTERVAL) * ONE_DAY_MILLISCONDS;
+                if (buckets == null) {
+                    return WorkflowActionQueryExecutor.getInstance().getList(
+                            WorkflowActionQuery.GET_PENDING_ACTIONS_PAGE, olderThan, createdTimeInterval, lastId, limit);
+                }
+                return WorkflowActionQueryExecutor.getInstance().getList(
+                        WorkflowActionQuery.GET_PENDING_ACTIONS_PAGE_IN_BUCKETS, olderThan, createdTimeInterval, lastId,
+                        limit, buckets);
             }
-            catch (JPAExecutorException ex) {
-                log.warn("Error reading coord actions from database", ex);
+
+            @Override
+            String getId(WorkflowActionBean action) {
+                return action.getId();
+            }
+
+            @Override
+            void recover(WorkflowActionBean action) {
+                recoverWFAction(action);
+            }
+        }
+
+        private class CoordActionScan extends RecoveryScan<CoordinatorActionBean> {
+
+            CoordActionScan() {
+                this("COORD_ACTIONS");
+            }
+
+            CoordActionScan(String name) {
+                super(name);
+            }
+
+            @Override
+            List<CoordinatorActionBean> getPage(String lastId, int limit, List<String> buckets)
+                    throws JPAExecutorException {
+                Timestamp lastModifiedTime = new Timestamp(System.currentTimeMillis() - coordOlderThan * 1000);
+                if (buckets == null) {
+                    return CoordActionQueryExecutor.getInstance().getList(
+                            CoordActionQuery.GET_COORD_ACTIONS_FOR_RECOVERY_OLDER_THAN_PAGE, lastModifiedTime, lastId,
+                            limit);
+                }
+                return CoordActionQueryExecutor.getInstance().getList(
+                        CoordActionQuery.GET_COORD_ACTIONS_FOR_RECOVERY_OLDER_THAN_PAGE_IN_BUCKETS, lastModifiedTime,
+                        lastId, limit, buckets);
+            }
+
+            @Override
+            String getId(CoordinatorActionBean caction) {
+                return caction.getId();
+            }
+
+            @Override
+            void recover(CoordinatorActionBean caction) throws Exception {
+                recoverCoordAction(caction);
+            }
+        }
+
+        private class CoordWaitingActionScan extends CoordActionScan {
+
+            CoordWaitingActionScan() {
+                super("COORD_WAITING_ACTIONS");
+            }
+
+            @Override
+            List<CoordinatorActionBean> getPage(String lastId, int limit, List<String> buckets)
+                    throws JPAExecutorException {
+                Timestamp lastModifiedTime = new Timestamp(System.currentTimeMillis() - coordOlderThan * 1000);
+                if (buckets == null) {
+                    return CoordActionQueryExecutor.getInstance().getList(
+                            CoordActionQuery.GET_COORD_ACTIONS_WAITING_READY_SUBMITTED_OLDER_THAN_PAGE, lastModifiedTime,
+                            lastId, limit);
+                }
+                return CoordActionQueryExecutor.getInstance().getList(
+                        CoordActionQuery.GET_COORD_ACTIONS_WAITING_READY_SUBMITTED_OLDER_THAN_PAGE_IN_BUCKETS,
+                        lastModifiedTime, lastId, limit, buckets);
+            }
+        }
+
+        private class BundleActionScan extends RecoveryScan<BundleActionBean> {
+
+            BundleActionScan() {
+                super("BUNDLE_ACTIONS");
+            }
+
+            @Override
+            List<BundleActionBean> getPage(String lastId, int limit, List<String> buckets)
+                    throws JPAExecutorException {
+                if (buckets == null) {
+                    return BundleActionQueryExecutor.getInstance().getList(
+                            BundleActionQuery.GET_BUNDLE_WAITING_ACTIONS_OLDER_THAN_PAGE, bundleOlderThan, lastId, limit);
+                }
+                return BundleActionQueryExecutor.getInstance().getList(
+                        BundleActionQuery.GET_BUNDLE_WAITING_ACTIONS_OLDER_THAN_PAGE_IN_BUCKETS, bundleOlderThan, lastId,
+                        limit, buckets);
+            }
+
+            @Override
+            String getId(BundleActionBean baction) {
+                return baction.getBundleActionId();
+            }
+
+            @Override
+            void recover(BundleActionBean baction) throws Exception {
+                recoverBundleAction(baction);
+            }
+        }
+
+        private void recoverBundleAction(BundleActionBean baction) throws Exception {
+            XLog log = XLog.getLog(getClass());
+            Services.get().get(InstrumentationService.class).get()
+                    .incr(INSTRUMENTATION_GROUP, INSTR_RECOVERED_BUNDLE_ACTIONS_COUNTER, 1);
+            if (baction.getCoordId() == null && baction.getStatus() != Job.Status.PREP) {
+                log.error("CoordId is null for Bundle action " + baction.getBundleActionId());
                 return;
             }
-            msg.append(", COORD_ACTIONS : " + cactions.size());
-            for (CoordinatorActionBean caction : cactions) {
-                try {
-                    if (Services.get().get(JobsConcurrencyService.class).isJobIdForThisServer(caction.getId())) {
-                        Services.get().get(InstrumentationService.class).get()
-                                .incr(INSTRUMENTATION_GROUP, INSTR_RECOVERED_COORD_ACTIONS_COUNTER, 1);
-                        if (caction.getStatus() == CoordinatorActionBean.Status.WAITING) {
-                            queueCallable(new CoordActionInputCheckXCommand(caction.getId(), caction.getJobId()));
-                            log.debug("Recover a coord action from [WAITING] and resubmit CoordActionInputCheckXCommand :[{0}]"
-                                    , caction.getId());
-                            if (caction.getPushMissingDependencies() != null
-                                    && caction.getPushMissingDependencies().length() != 0) {
-                                queueCallable(new CoordPushDependencyCheckXCommand(caction.getId(), true, true),
-                                        pushMissingDepDelay);
-                                pushMissingDepDelay = pushMissingDepDelay + pushMissingDepInterval;
-                                log.debug("Recover a coord action from [WAITING] and resubmit CoordPushDependencyCheckX :[{0}]"
-                                        , caction.getId());
-                            }
-                        }
-                        else if (caction.getStatus() == CoordinatorActionBean.Status.SUBMITTED) {
-                            CoordinatorJobBean coordJob = CoordJobQueryExecutor.getInstance().get(
-                                    CoordJobQuery.GET_COORD_JOB_USER_APPNAME, caction.getJobId());
-                            queueCallable(new CoordActionStartXCommand(caction.getId(), coordJob.getUser(),
-                                    coordJob.getAppName(), caction.getJobId()));
-                            log.debug("Recover a coord action from [SUBMITTED] and resubmit CoordActionStartCommand :[{0}]",
-                                    caction.getId());
-                        }
-                        else if (caction.getStatus() == CoordinatorActionBean.Status.SUSPENDED) {
-                            if (caction.getExternalId() != null && caction.getPending() > 1) {
-                                queueCallable(new SuspendXCommand(caction.getExternalId()));
-                                log.debug("Recover a coord action from [SUSPENDED] and resubmit SuspendXCommand :[{0}]"
-                                        , caction.getId());
-                            }
-                        }
-                        else if (caction.getStatus() == CoordinatorActionBean.Status.KILLED) {
-                            if (caction.getExternalId() != null) {
-                                queueCallable(new KillXCommand(caction.getExternalId()));
-                                log.debug("Recover a coord action from [KILLED] and resubmit KillXCommand :[{0}]"
-                                        , caction.getId());
-                            }
+            if (baction.getStatus() == Job.Status.PREP && baction.getCoordId() == null) {
+
+                CoordinatorJobBean coordJobs = CoordJobQueryExecutor.getInstance().getIfExist(
+                        CoordJobQuery.GET_COORD_JOBS_FOR_BUNDLE_BY_APPNAME_ID, baction.getCoordName(),
+                        baction.getBundleId());
+
+                if (coordJobs == null) {
+                    log.debug("Coord [{0}] for bundle [{1}] is not yet submitted , submitting new one",
+                            baction.getCoordName(), baction.getBundleId());
+
+                    BundleJobBean bundleJob = null;
+                    if (jpaService != null) {
+                        bundleJob = BundleJobQueryExecutor.getInstance().get(
+                                BundleJobQuery.GET_BUNDLE_JOB_ID_JOBXML_CONF, baction.getBundleId());
+                    }
+                    Element bAppXml = XmlUtils.parseXml(bundleJob.getJobXml());
+                    @SuppressWarnings("unchecked")
+                    List<Element> coordElems = bAppXml.getChildren("coordinator", bAppXml.getNamespace());
+                    for (Element coordElem : coordElems) {
+                        Attribute name = coordElem.getAttribute("name");
+                        String coordName = name.getValue();
+                        Configuration coordConf = mergeConfig(coordElem, bundleJob);
+                        try {
+                            coordName = ELUtils.resolveAppName(coordName, coordConf);
                         }
-                        else if (caction.getStatus() == CoordinatorActionBean.Status.RUNNING) {
-                            if (caction.getExternalId() != null) {
-                                queueCallable(new ResumeXCommand(caction.getExternalId()));
-                                log.debug("Recover a coord action from [RUNNING] and resubmit ResumeXCommand :[{0}]"
-                                        , caction.getId());
-                            }
+                        catch (Exception e) {
+                            log.error("Error evaluating coord name " + e.getMessage(), e);
+                            continue;
                         }
-                        else if (caction.getStatus() == CoordinatorActionBean.Status.READY) {
-                            readyJobs.add(caction.getJobId());
+                        if (coordName.equals(baction.getCoordName())) {
+                            coordConf.set(OozieClient.BUNDLE_ID, baction.getBundleId());
+                            queueCallable(new BundleCoordSubmitXCommand(coordConf, bundleJob.getId(),
+                                    coordName));
                         }
                     }
                 }
-                catch (Exception ex) {
-                    log.error("Exception, {0}", ex.getMessage(), ex);
+                else {
+                    log.debug(
+                            "Coord [{0}] for bundle [{1}] is submitted , but bundle action is not updated.",
+                            baction.getCoordName(), baction.getBundleId());
+                    coordJobs = CoordJobQueryExecutor.getInstance().getIfExist(
+                            CoordJobQuery.GET_COORD_JOB_SUSPEND_KILL, baction.getCoordName(),
+                            coordJobs.getId());
+                    queueCallable(new BundleStatusUpdateXCommand(coordJobs, baction.getStatus()));
                 }
             }
-            runCoordActionRecoveryForReady(readyJobs);
+            else if (baction.getStatus() == Job.Status.KILLED) {
+                queueCallable(new CoordKillXCommand(baction.getCoordId()));
+            }
+            else if (baction.getStatus() == Job.Status.SUSPENDED
+                    || baction.getStatus() == Job.Status.SUSPENDEDWITHERROR) {
+                queueCallable(new CoordSuspendXCommand(baction.getCoordId()));
+            }
+            else if (baction.getStatus() == Job.Status.RUNNING
+                    || baction.getStatus() == Job.Status.RUNNINGWITHERROR) {
+                queueCallable(new CoordResumeXCommand(baction.getCoordId()));
+            }
+        }
+
+        /**
+         * Recover a coordinator action that is staying in WAITING, SUBMITTED or READY too long, or that has a pending
+         * suspend, kill or resume.
+         */
+        private void recoverCoordAction(CoordinatorActionBean caction) throws Exception {
+            XLog log = XLog.getLog(getClass());
+            Services.get().get(InstrumentationService.class).get()
+                    .incr(INSTRUMENTATION_GROUP, INSTR_RECOVERED_COORD_ACTIONS_COUNTER, 1);
+            if (caction.getStatus() == CoordinatorActionBean.Status.WAITING) {
+                queueCallable(new CoordActionInputCheckXCommand(caction.getId(), caction.getJobId()));
+                log.debug("Recover a coord action from [WAITING] and resubmit CoordActionInputCheckXCommand :[{0}]"
+                        , caction.getId());
+                if (caction.getPushMissingDependencies() != null
+                        && caction.getPushMissingDependencies().length() != 0) {
+                    queueCallable(new CoordPushDependencyCheckXCommand(caction.getId(), true, true),
+                            pushMissingDepDelay);
+                    pushMissingDepDelay = pushMissingDepDelay + pushMissingDepInterval;
+                    log.debug("Recover a coord action from [WAITING] and resubmit CoordPushDependencyCheckX :[{0}]"
+                            , caction.getId());
+                }
+            }
+            else if (caction.getStatus() == CoordinatorActionBean.Status.SUBMITTED) {
+                CoordinatorJobBean coordJob = CoordJobQueryExecutor.getInstance().get(
+                        CoordJobQuery.GET_COORD_JOB_USER_APPNAME, caction.getJobId());
+                queueCallable(new CoordActionStartXCommand(caction.getId(), coordJob.getUser(),
+                        coordJob.getAppName(), caction.getJobId()));
+                log.debug("Recover a coord action from [SUBMITTED] and resubmit CoordActionStartCommand :[{0}]",
+                        caction.getId());
+            }
+            else if (caction.getStatus() == CoordinatorActionBean.Status.SUSPENDED) {
+                if (caction.getExternalId() != null && caction.getPending() > 1) {
+                    queueCallable(new SuspendXCommand(caction.getExternalId()));
+                    log.debug("Recover a coord action from [SUSPENDED] and resubmit SuspendXCommand :[{0}]"
+                            , caction.getId());
+                }
+            }
+            else if (caction.getStatus() == CoordinatorActionBean.Status.KILLED) {
+                if (caction.getExternalId() != null) {
+                    queueCallable(new KillXCommand(caction.getExternalId()));
+                    log.debug("Recover a coord action from [KILLED] and resubmit KillXCommand :[{0}]"
+                            , caction.getId());
+                }
+            }
+            else if (caction.getStatus() == CoordinatorActionBean.Status.RUNNING) {
+                if (caction.getExternalId() != null) {
+                    queueCallable(new ResumeXCommand(caction.getExternalId()));
+                    log.debug("Recover a coord action from [RUNNING] and resubmit ResumeXCommand :[{0}]"
+                            , caction.getId());
+                }
+            }
+            else if (caction.getStatus() == CoordinatorActionBean.Status.READY) {
+                readyJobs.add(caction.getJobId());
+            }
         }
 
         /**
@@ -365,78 +613,49 @@ public class RecoveryService implements Service {
         }
 
         /**
-         * Recover wf actions
+         * Recover a wf action
          */
-        private void runWFRecovery() {
-            XLog.Info.get().clear();
+        private void recoverWFAction(WorkflowActionBean action) {
             XLog log = XLog.getLog(getClass());
-            // queue command for action recovery
-
-            long createdTimeInterval = new Date().getTime() - ConfigurationService.getLong(CONF_WF_ACTIONS_CREATED_TIME_INTERVAL)
-                    * ONE_DAY_MILLISCONDS;
-
-            List<WorkflowActionBean> actions = null;
-            try {
-                actions = WorkflowActionQueryExecutor.getInstance().getList(WorkflowActionQuery.GET_PENDING_ACTIONS,
-                        olderThan, createdTimeInterval);
+            Services.get().get(InstrumentationService.class).get()
+                    .incr(INSTRUMENTATION_GROUP, INSTR_RECOVERED_ACTIONS_COUNTER, 1);
+            if (action.getStatus() == WorkflowActionBean.Status.PREP
+                    || action.getStatus() == WorkflowActionBean.Status.START_MANUAL) {
+                queueCallable(new ActionStartXCommand(action.getId(), action.getType()));
+                log.debug("Recover a workflow action from [{0}] status and resubmit ActionStartXCommand :[{1}]",
+                        action.getStatus(), action.getId());
             }
-            catch (JPAExecutorException ex) {
-                log.warn("Exception while reading pending actions from storage", ex);
-                return;
+            else if (action.getStatus() == WorkflowActionBean.Status.START_RETRY) {
+                Date nextRunTime = action.getPendingAge();
+                queueCallable(new ActionStartXCommand(action.getId(), action.getType()), nextRunTime.getTime()
+                        - System.currentTimeMillis());
+                log.debug("Recover a workflow action from [START_RETRY] status and resubmit ActionStartXCommand :[{0}]"
+                        , action.getId());
             }
-            // log.debug("QUEUING[{0}] pending wf actions for potential recovery",
-            // actions.size());
-            msg.append(" WF_ACTIONS " + actions.size());
-
-            for (WorkflowActionBean action : actions) {
-                try {
-                    if (Services.get().get(JobsConcurrencyService.class).isJobIdForThisServer(action.getId())) {
-                        Services.get().get(InstrumentationService.class).get()
-                                .incr(INSTRUMENTATION_GROUP, INSTR_RECOVERED_ACTIONS_COUNTER, 1);
-                        if (action.getStatus() == WorkflowActionBean.Status.PREP
-                                || action.getStatus() == WorkflowActionBean.Status.START_MANUAL) {
-                            queueCallable(new ActionStartXCommand(action.getId(), action.getType()));
-                            log.debug("Recover a workflow action from [{0}] status and resubmit ActionStartXCommand :[{1}]",
-                                    action.getStatus(), action.getId());
-                        }
-                        else if (action.getStatus() == WorkflowActionBean.Status.START_RETRY) {
-                            Date nextRunTime = action.getPendingAge();
-                            queueCallable(new ActionStartXCommand(action.getId(), action.getType()), nextRunTime.getTime()
-                                    - System.currentTimeMillis());
-                            log.debug("Recover a workflow action from [START_RETRY] status and resubmit ActionStartXCommand :[{0}]"
-                                    , action.getId());
-                        }
-                        else if (action.getStatus() == WorkflowActionBean.Status.DONE
-                                || action.getStatus() == WorkflowActionBean.Status.END_MANUAL) {
-                            queueCallable(new ActionEndXCommand(action.getId(), action.getType()));
-                            log.debug("Recover a workflow action from [{0}] status and resubmit ActionEndXCommand :[{1}]",
-                                    action.getStatus(), action.getId());
-                        }
-                        else if (action.getStatus() == WorkflowActionBean.Status.END_RETRY) {
-                            Date nextRunTime = action.getPendingAge();
-                            queueCallable(new ActionEndXCommand(action.getId(), action.getType()), nextRunTime.getTime()
-                                    - System.currentTimeMillis());
-                            log.debug("Recover a workflow action from [END_RETRY] status and resubmit ActionEndXCommand :[{0}]",
-                                    action.getId());
-                        }
-                        else if (action.getStatus() == WorkflowActionBean.Status.OK
-                                || action.getStatus() == WorkflowActionBean.Status.ERROR) {
-                            queueCallable(new SignalXCommand(action.getJobId(), action.getId()));
-                            log.debug("Recover a workflow action from [{0}] status and resubmit SignalXCommand :[{1}]",
-                                    action.getStatus(), action.getId());
-                        }
-                        else if (action.getStatus() == WorkflowActionBean.Status.USER_RETRY) {
-                            queueCallable(new ActionStartXCommand(action.getId(), action.getType()));
-                            log.debug("Recover a workflow action from [USER_RETRY] status and resubmit ActionStartXCommand :[{0}]"
-                                    , action.getId());
-                        }
-                    }
-                }
-                catch (Exception ex) {
-                    log.error("Exception, {0}", ex.getMessage(), ex);
-                }
+            else if (action.getStatus() == WorkflowActionBean.Status.DONE
+                    || action.getStatus() == WorkflowActionBean.Status.END_MANUAL) {
+                queueCallable(new ActionEndXCommand(action.getId(), action.getType()));
+                log.debug("Recover a workflow action from [{0}] status and resubmit ActionEndXCommand :[{1}]",
+                        action.getStatus(), action.getId());
+            }
+            else if (action.getStatus() == WorkflowActionBean.Status.END_RETRY) {
+                Date nextRunTime = action.getPendingAge();
+                queueCallable(new ActionEndXCommand(action.getId(), action.getType()), nextRunTime.getTime()
+                        - System.currentTimeMillis());
+                log.debug("Recover a workflow action from [END_RETRY] status and resubmit ActionEndXCommand :[{0}]",
+                        action.getId());
+            }
+            else if (action.getStatus() == WorkflowActionBean.Status.OK
+                    || action.getStatus() == WorkflowActionBean.Status.ERROR) {
+                queueCallable(new SignalXCommand(action.getJobId(), action.getId()));
+                log.debug("Recover a workflow action from [{0}] status and resubmit SignalXCommand :[{1}]",
+                        action.getStatus(), action.getId());
+            }
+            else if (action.getStatus() == WorkflowActionBean.Status.USER_RETRY) {
+                queueCallable(new ActionStartXCommand(action.getId(), action.getType()));
+                log.debug("Recover a workflow action from [USER_RETRY] status and resubmit ActionStartXCommand :[{0}]"
+                        , action.getId());
             }
-
         }
 
         /**
@@ -497,7 +716,7 @@ public class RecoveryService implements Service {
     @Override
     public void init(Services services) {
         Configuration conf = services.getConf();
-        Runnable recoveryRunnable = new RecoveryRunnable(
+        recoveryRunnable = new RecoveryRunnable(
                 ConfigurationService.getInt(conf, CONF_WF_ACTIONS_OLDER_THAN),
                 ConfigurationService.getInt(conf, CONF_COORD_OLDER_THAN),
                 ConfigurationService.getInt(conf, CONF_BUNDLE_OLDER_THAN));
@@ -509,6 +728,40 @@ public class RecoveryService implements Service {
         return ConfigurationService.getInt(conf, CONF_SERVICE_INTERVAL);
     }
 
+    /**
+     * Instruments the recovery service, exposing the progress of the last run.
+     *
+     * @param instr instance to instrument the recovery service to.
+     */
+    @Override
+    public void instrument(Instrumentation instr) {
+        instr.addVariable(INSTRUMENTATION_GROUP, "last.run.scanned", new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return recoveryRunnable.getLastRunScanned();
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "last.run.recovered", new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return recoveryRunnable.getLastRunRecovered();
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "last.run.pages", new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return recoveryRunnable.getLastRunPages();
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "last.run.duration", new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return recoveryRunnable.getLastRunDuration();
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "last.run.throttled", new Instrumentation.Variable<Boolean>() {
+            public Boolean getValue() {
+                return recoveryRunnable.isLastRunThrottled();
+            }
+        });
+    }
+
     /**
      * Destroy the Recovery Service.
      */
@@ -32,13 +32,16 @@ import javax.xml.validation.SchemaFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.oozie.ErrorCode;
 import org.apache.oozie.util.IOUtils;
+import org.apache.oozie.util.Instrumentable;
+import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.util.XmlDocumentCache;
 import org.xml.sax.SAXException;
 
 /**
  * Service that loads Oozie workflow definition schema and registered extension
  * schemas.
  */
-public class SchemaService implements Service {
+public class SchemaService implements Service, Instrumentable {
 
     public static final String CONF_PREFIX = Service.CONF_PREFIX + "SchemaService.";
 
@@ -58,6 +61,13 @@ public class SchemaService implements Service {
 
     public static final String SLA_CONF_EXT_SCHEMAS = CONF_PREFIX + "sla.ext.schemas";
 
+    /**
+     * Maximum number of parsed XML documents kept in the {@link XmlDocumentCache}.
+     */
+    public static final String XML_DOCUMENT_CACHE_SIZE = CONF_PREFIX + "xml.document.cache.size";
+
+    private static final String INSTRUMENTATION_GROUP = "xml";
+
     @Deprecated
     public static final String SLA_NAME_SPACE_URI = "uri:oozie:sla:0.1";
 
@@ -114,6 +124,7 @@ public class SchemaService implements Service {
             coordSchema = loadSchema(COORD_CONF_SCHEMAS, COORD_CONF_EXT_SCHEMAS);
             bundleSchema = loadSchema(BUNDLE_CONF_SCHEMAS, BUNDLE_CONF_EXT_SCHEMAS);
             slaSchema = loadSchema(SLA_CONF_SCHEMAS, SLA_CONF_EXT_SCHEMAS);
+            XmlDocumentCache.reset(ConfigurationService.getInt(services.getConf(), XML_DOCUMENT_CACHE_SIZE));
         }
         catch (SAXException ex) {
             throw new ServiceException(ErrorCode.E0130, ex.getMessage(), ex);
@@ -123,6 +134,33 @@ public class SchemaService implements Service {
         }
     }
 
+    /**
+     * Instruments the schema service.
+     *
+     * @param instr instance to instrument the schema service to.
+     */
+    @Override
+    public void instrument(Instrumentation instr) {
+        instr.addVariable(INSTRUMENTATION_GROUP, "document.cache.hits", new Instrumentation.Variable<Long>() {
+            @Override
+            public Long getValue() {
+                return XmlDocumentCache.get().getHits();
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "document.cache.misses", new Instrumentation.Variable<Long>() {
+            @Override
+            public Long getValue() {
+                return XmlDocumentCache.get().getMisses();
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "document.cache.size", new Instrumentation.Variable<Long>() {
+            @Override
+            public Long getValue() {
+                return XmlDocumentCache.get().size();
+            }
+        });
+    }
+
     /**
      * Return the public interface of the service.
      *
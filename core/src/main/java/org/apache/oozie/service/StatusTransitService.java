@@ -18,18 +18,27 @@
 
 package org.apache.oozie.service;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.oozie.BundleJobBean;
 import org.apache.oozie.CoordinatorJobBean;
 import org.apache.oozie.ErrorCode;
 import org.apache.oozie.command.CommandException;
+import org.apache.oozie.command.StatusTransitXCommand;
 import org.apache.oozie.command.bundle.BundleStatusTransitXCommand;
 import org.apache.oozie.command.coord.CoordStatusTransitXCommand;
+import org.apache.oozie.coord.CoordActionStatusCounters;
 import org.apache.oozie.executor.jpa.BundleJobQueryExecutor;
 import org.apache.oozie.executor.jpa.BundleJobQueryExecutor.BundleJobQuery;
 import org.apache.oozie.executor.jpa.BundleJobsGetRunningOrPendingJPAExecutor;
@@ -39,6 +48,7 @@ import org.apache.oozie.executor.jpa.CoordJobsGetPendingJPAExecutor;
 import org.apache.oozie.executor.jpa.JPAExecutorException;
 import org.apache.oozie.util.DateUtils;
 import org.apache.oozie.lock.LockToken;
+import org.apache.oozie.service.CallableQueueService.CallableWrapper;
 import org.apache.oozie.util.XLog;
 
 /**
@@ -47,6 +57,11 @@ import org.apache.oozie.util.XLog;
  * It is to update job's status according to its child actions' status. If all child actions' pending flag equals 0 (job
  * done), we reset the job's pending flag to 0. If all child actions are succeeded, we set the job's status to
  * SUCCEEDED.
+ * <p>
+ * The status of the jobs is aggregated in parallel through the {@link CallableQueueService}. When the coordinator
+ * action status counters are enabled, the status of coordinator jobs is aggregated from {@link
+ * CoordActionStatusCounters} kept in memory instead of querying the status of all their actions, and the counters are
+ * reconciled with the database periodically.
  */
 public class StatusTransitService implements Service {
     private static final String CONF_PREFIX = Service.CONF_PREFIX + "StatusTransitService.";
@@ -55,10 +70,34 @@ public class StatusTransitService implements Service {
             + "backward.support.for.coord.status";
     public static final String CONF_BACKWARD_SUPPORT_FOR_STATES_WITHOUT_ERROR = CONF_PREFIX
             + "backward.support.for.states.without.error";
+
+    /**
+     * Number of jobs whose status is aggregated concurrently through the callable queue.
+     */
+    public static final String CONF_BATCH_SIZE = CONF_PREFIX + "statusTransit.batch.size";
+
+    /**
+     * Enables the in memory status counters of coordinator actions.
+     */
+    public static final String CONF_COORD_STATUS_COUNTERS_ENABLED = CONF_PREFIX + "coord.status.counters.enabled";
+
+    /**
+     * Maximum number of coordinator jobs whose action status counters are kept in memory.
+     */
+    public static final String CONF_COORD_STATUS_COUNTERS_MAX_JOBS = CONF_PREFIX + "coord.status.counters.max.jobs";
+
+    /**
+     * Interval, in seconds, after which the action status counters of a coordinator job are reconciled with the
+     * database.
+     */
+    public static final String CONF_COORD_STATUS_COUNTERS_RECONCILE_INTERVAL = CONF_PREFIX
+            + "coord.status.counters.reconcile.interval";
     public static int limit = -1;
     public static Date lastInstanceStartTime = null;
     public final static XLog LOG = XLog.getLog(StatusTransitRunnable.class);
 
+    private CoordActionStatusCounters coordActionStatusCounters;
+
     /**
      * StateTransitRunnable is the runnable which is scheduled to run at the configured interval.
      * <p>
@@ -72,12 +111,14 @@ public class StatusTransitService implements Service {
 
         private Set<String> coordFailedIds = new HashSet<String>();
         private Set<String> bundleFailedIds = new HashSet<String>();
+        private final int batchSize;
 
         public StatusTransitRunnable() {
             jpaService = Services.get().get(JPAService.class);
             if (jpaService == null) {
                 LOG.error("Missing JPAService");
             }
+            batchSize = ConfigurationService.getInt(CONF_BATCH_SIZE);
         }
 
         @Override
@@ -139,22 +180,11 @@ public class StatusTransitService implements Service {
             }
             bundleIds.addAll(bundleFailedIds);
             bundleFailedIds.clear();
+            List<StatusTransitXCommand> commands = new ArrayList<StatusTransitXCommand>();
             for (final String jobId : bundleIds) {
-                try {
-                    new BundleStatusTransitXCommand(jobId).call();
-                }
-                catch (CommandException e) {
-                    // Unable to acquire lock. Will try next time
-                    if (e.getErrorCode() == ErrorCode.E0606) {
-                        bundleFailedIds.add(jobId);
-                        LOG.info("Unable to acquire lock for " + jobId + ". Will try next time");
-                    }
-                    else {
-                        LOG.error("Error running BundleStatusTransitXCommand for job " + jobId, e);
-                    }
-
-                }
+                commands.add(new BundleStatusTransitXCommand(jobId));
             }
+            execute(commands, bundleFailedIds);
         }
 
         /**
@@ -165,7 +195,6 @@ public class StatusTransitService implements Service {
          */
         private void coordTransit() throws JPAExecutorException, CommandException {
             List<CoordinatorJobBean> pendingJobCheckList = null;
-            final Set<String> coordIds = new HashSet<String>();
             if (lastInstanceStartTime == null) {
                 LOG.info("Running coordinator status service first instance");
                 // this is the first instance, we need to check for all pending jobs;
@@ -182,29 +211,109 @@ public class StatusTransitService implements Service {
                 pendingJobCheckList.addAll(CoordJobQueryExecutor.getInstance().getList(
                         CoordJobQuery.GET_COORD_JOBS_CHANGED, lastInstanceStartTime));
             }
+            CoordActionStatusCounters counters = CoordActionStatusCounters.get();
+            Set<String> dirtyIds = (counters == null) ? new HashSet<String>() : counters.drainDirtyJobIds();
+            // job id -> if the action status counters of the job must be reloaded from the database. Jobs whose
+            // actions were not changed by this server are reloaded, as the counters did not see their changes.
+            final Map<String, Boolean> coordIds = new LinkedHashMap<String, Boolean>();
             for (final CoordinatorJobBean job : pendingJobCheckList) {
-                coordIds.add(job.getId());
+                coordIds.put(job.getId(), !dirtyIds.contains(job.getId()));
+            }
+            for (String coordId : dirtyIds) {
+                if (!coordIds.containsKey(coordId)) {
+                    coordIds.put(coordId, false);
+                }
+            }
+            for (String coordId : coordFailedIds) {
+                if (!coordIds.containsKey(coordId)) {
+                    coordIds.put(coordId, false);
+                }
             }
-            coordIds.addAll(coordFailedIds);
             coordFailedIds.clear();
-            for (final String coordId : coordIds) {
-                try {
-                    new CoordStatusTransitXCommand(coordId).call();
+            if (counters != null) {
+                for (String coordId : counters.getJobIdsToReconcile()) {
+                    coordIds.put(coordId, true);
                 }
-                catch (CommandException e) {
-                    // Unable to acquire lock. Will try next time
-                    if (e.getErrorCode() == ErrorCode.E0606) {
-                        coordFailedIds.add(coordId);
-                        LOG.info("Unable to acquire lock for " + coordId + ". Will try next time");
+            }
+            List<StatusTransitXCommand> commands = new ArrayList<StatusTransitXCommand>();
+            for (Map.Entry<String, Boolean> entry : coordIds.entrySet()) {
+                commands.add(new CoordStatusTransitXCommand(entry.getKey(), entry.getValue()));
+            }
+            execute(commands, coordFailedIds);
+        }
 
+        /**
+         * Run status transit commands, in parallel batches through the callable queue if configured.
+         *
+         * @param commands commands to run
+         * @param failedIds ids of the jobs whose lock could not be acquired, to retry next time
+         */
+        private void execute(List<StatusTransitXCommand> commands, Set<String> failedIds) {
+            CallableQueueService callableQueue = Services.get().get(CallableQueueService.class);
+            if (batchSize <= 1 || callableQueue == null) {
+                for (StatusTransitXCommand command : commands) {
+                    call(command, failedIds);
+                }
+                return;
+            }
+            for (int i = 0; i < commands.size(); i += batchSize) {
+                List<StatusTransitXCommand> batch = commands.subList(i, Math.min(commands.size(), i + batchSize));
+                List<CallableWrapper<Void>> tasks = new ArrayList<CallableWrapper<Void>>();
+                for (StatusTransitXCommand command : batch) {
+                    tasks.add(callableQueue.new CallableWrapper<Void>(command, 0));
+                }
+                List<Future<Void>> futures;
+                try {
+                    futures = callableQueue.invokeAll(tasks);
+                }
+                catch (RejectedExecutionException ex) {
+                    LOG.info("Callable queue is full, running [{0}] status transit commands serially", batch.size());
+                    for (StatusTransitXCommand command : batch) {
+                        call(command, failedIds);
                     }
-                    else {
-                        LOG.error("Error running CoordStatusTransitXCommand for job " + coordId, e);
+                    continue;
+                }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    LOG.warn("Interrupted while running status transit commands");
+                    return;
+                }
+                for (int j = 0; j < futures.size(); j++) {
+                    try {
+                        futures.get(j).get();
+                    }
+                    catch (ExecutionException ex) {
+                        handleError(batch.get(j), ex.getCause(), failedIds);
+                    }
+                    catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        LOG.warn("Interrupted while running status transit commands");
+                        return;
                     }
-
                 }
             }
         }
+
+        private void call(StatusTransitXCommand command, Set<String> failedIds) {
+            try {
+                command.call();
+            }
+            catch (CommandException e) {
+                handleError(command, e, failedIds);
+            }
+        }
+
+        private void handleError(StatusTransitXCommand command, Throwable e, Set<String> failedIds) {
+            String jobId = command.getEntityKey();
+            // Unable to acquire lock. Will try next time
+            if (e instanceof CommandException && ((CommandException) e).getErrorCode() == ErrorCode.E0606) {
+                failedIds.add(jobId);
+                LOG.info("Unable to acquire lock for " + jobId + ". Will try next time");
+            }
+            else {
+                LOG.error("Error running " + command.getName() + " for job " + jobId, e);
+            }
+        }
     }
 
     /**
@@ -215,6 +324,12 @@ public class StatusTransitService implements Service {
     @Override
     public void init(Services services) {
         final Configuration conf = services.getConf();
+        if (ConfigurationService.getBoolean(conf, CONF_COORD_STATUS_COUNTERS_ENABLED)) {
+            coordActionStatusCounters = new CoordActionStatusCounters(
+                    ConfigurationService.getInt(conf, CONF_COORD_STATUS_COUNTERS_MAX_JOBS),
+                    TimeUnit.SECONDS.toMillis(ConfigurationService.getLong(conf,
+                            CONF_COORD_STATUS_COUNTERS_RECONCILE_INTERVAL)));
+        }
         Runnable stateTransitRunnable = new StatusTransitRunnable();
         services.get(SchedulerService.class).schedule(stateTransitRunnable, 10,
                 ConfigurationService.getInt(conf, CONF_STATUSTRANSIT_INTERVAL), SchedulerService.Unit.SEC);
@@ -227,6 +342,15 @@ public class StatusTransitService implements Service {
     public void destroy() {
     }
 
+    /**
+     * Return the in memory coordinator action status counters.
+     *
+     * @return the counters, or <code>null</code> if they are not enabled.
+     */
+    public CoordActionStatusCounters getCoordActionStatusCounters() {
+        return coordActionStatusCounters;
+    }
+
     /**
      * Return the public interface for the purge jobs service.
      *
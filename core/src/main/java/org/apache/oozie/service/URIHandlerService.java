@@ -20,23 +20,58 @@ package org.apache.oozie.service;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.util.ReflectionUtils;
 import org.apache.oozie.ErrorCode;
+import org.apache.oozie.coord.DatasetAvailabilityIndex;
 import org.apache.oozie.action.hadoop.LauncherURIHandler;
 import org.apache.oozie.action.hadoop.LauncherURIHandlerFactory;
 import org.apache.oozie.dependency.FSURIHandler;
 import org.apache.oozie.dependency.URIHandler;
+import org.apache.oozie.dependency.URIHandler.DependencyType;
 import org.apache.oozie.dependency.URIHandlerException;
+import org.apache.oozie.util.Instrumentable;
+import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.util.NamedThreadFactory;
 import org.apache.oozie.util.XLog;
 
-public class URIHandlerService implements Service {
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Service that returns the {@link URIHandler} of URIs.
+ * <p>
+ * It also checks the existence of pull dependencies for all coordinator actions, see
+ * {@link #exists(URI, Configuration, String)}. Concurrent checks of the same URI are coalesced into a single call to
+ * its handler, and the number of concurrent checks per filesystem is bounded. Checks of several URIs list the
+ * filesystem directories containing several of them once. When the existence cache is enabled, URIs found to exist
+ * are cached until evicted and URIs found missing are cached for a short time, so that actions of sibling
+ * coordinators polling the same URIs share the results.
+ */
+public class URIHandlerService implements Service, Instrumentable {
 
     private static final String CONF_PREFIX = Service.CONF_PREFIX + "URIHandlerService.";
     public static final String URI_HANDLERS = CONF_PREFIX + "uri.handlers";
@@ -44,12 +79,79 @@ public class URIHandlerService implements Service {
     public static final String URI_HANDLER_SUPPORTED_SCHEMES_PREFIX = CONF_PREFIX + "uri.handler.";
     public static final String URI_HANDLER_SUPPORTED_SCHEMES_SUFFIX = ".supported.schemes";
 
+    /**
+     * Enables the cache of existence checks of pull dependencies.
+     */
+    public static final String EXISTS_CACHE_ENABLED = CONF_PREFIX + "exists.cache.enabled";
+
+    /**
+     * Maximum number of URIs kept in the existence cache.
+     */
+    public static final String EXISTS_CACHE_SIZE = CONF_PREFIX + "exists.cache.size";
+
+    /**
+     * Time, in seconds, a URI found missing is cached for.
+     */
+    public static final String EXISTS_CACHE_NEGATIVE_TTL = CONF_PREFIX + "exists.cache.negative.ttl";
+
+    /**
+     * Number of threads checking the existence of several URIs in parallel.
+     */
+    public static final String EXISTS_THREADS = CONF_PREFIX + "exists.threads";
+
+    /**
+     * Maximum number of concurrent existence checks against a same filesystem.
+     */
+    public static final String EXISTS_MAX_CONCURRENCY = CONF_PREFIX + "exists.max.concurrency.per.fs";
+
+    /**
+     * Minimum number of URIs in a same directory for the directory to be listed instead of checking each URI.
+     */
+    public static final String EXISTS_LISTING_MIN_URIS = CONF_PREFIX + "exists.listing.min.uris";
+
+    /**
+     * Maximum number of coordinator datasets in the {@link DatasetAvailabilityIndex}, 0 disables the index.
+     */
+    public static final String DATASET_INDEX_SIZE = CONF_PREFIX + "dataset.index.size";
+
+    /**
+     * Time, in seconds, the instances of a dataset found to exist are kept in the {@link DatasetAvailabilityIndex}.
+     */
+    public static final String DATASET_INDEX_TTL = CONF_PREFIX + "dataset.index.ttl";
+
+    public static final String INSTRUMENTATION_GROUP = "urihandler.exists";
+    public static final String DATASET_INDEX_INSTRUMENTATION_GROUP = "coord.dataset.index";
+    public static final String INSTR_CACHE_HITS_COUNTER = "cache.hits";
+    public static final String INSTR_COALESCED_COUNTER = "coalesced";
+    public static final String INSTR_CHECKS_COUNTER_PREFIX = "checks.";
+    public static final String INSTR_LISTINGS_COUNTER = "listings";
+
     private static XLog LOG = XLog.getLog(URIHandlerService.class);
     private Configuration launcherConf;
     private Set<Class<?>> launcherClassesToShip;
     private Map<String, URIHandler> cache;
     private URIHandler defaultHandler;
 
+    private Cache<String, ExistsEntry> existsCache;
+    private long existsNegativeTTL;
+    private final ConcurrentMap<String, FutureTask<Boolean>> existsInFlight =
+            new ConcurrentHashMap<String, FutureTask<Boolean>>();
+    private final ConcurrentMap<String, Semaphore> existsPermits = new ConcurrentHashMap<String, Semaphore>();
+    private int existsMaxConcurrency;
+    private int existsListingMinURIs;
+    private ExecutorService existsExecutor;
+    private Instrumentation instrumentation;
+
+    private static class ExistsEntry {
+        private final boolean exists;
+        private final long time;
+
+        private ExistsEntry(boolean exists, long time) {
+            this.exists = exists;
+            this.time = time;
+        }
+    }
+
     @Override
     public void init(Services services) throws ServiceException {
         try {
@@ -83,11 +185,34 @@ public class URIHandlerService implements Service {
 
         initLauncherClassesToShip();
         initLauncherURIHandlerConf();
+        initExistsChecks(conf);
 
         LOG.info("Loaded urihandlers {0}", Arrays.toString(classes));
         LOG.info("Loaded default urihandler {0}", defaultHandler.getClass().getName());
     }
 
+    /**
+     * Initialize the cache and the thread pool of the existence checks
+     */
+    private void initExistsChecks(Configuration conf) {
+        if (ConfigurationService.getBoolean(conf, EXISTS_CACHE_ENABLED)) {
+            existsCache = CacheBuilder.newBuilder().maximumSize(ConfigurationService.getInt(conf, EXISTS_CACHE_SIZE))
+                    .build();
+            existsNegativeTTL = TimeUnit.SECONDS.toMillis(ConfigurationService.getLong(conf, EXISTS_CACHE_NEGATIVE_TTL));
+        }
+        DatasetAvailabilityIndex.reset(ConfigurationService.getInt(conf, DATASET_INDEX_SIZE),
+                TimeUnit.SECONDS.toMillis(ConfigurationService.getLong(conf, DATASET_INDEX_TTL)));
+        existsMaxConcurrency = ConfigurationService.getInt(conf, EXISTS_MAX_CONCURRENCY);
+        existsListingMinURIs = ConfigurationService.getInt(conf, EXISTS_LISTING_MIN_URIS);
+        int threads = ConfigurationService.getInt(conf, EXISTS_THREADS);
+        if (threads > 0) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory("URIExists"));
+            executor.allowCoreThreadTimeOut(true);
+            existsExecutor = executor;
+        }
+    }
+
     /**
      * Initialize classes that need to be shipped for using LauncherURIHandler in the launcher job
      */
@@ -132,6 +257,56 @@ public class URIHandlerService implements Service {
             handler.destroy();
         }
         cache.clear();
+        if (existsExecutor != null) {
+            existsExecutor.shutdownNow();
+            existsExecutor = null;
+        }
+        if (existsCache != null) {
+            existsCache.invalidateAll();
+        }
+    }
+
+    /**
+     * Instruments the URI handler service.
+     *
+     * @param instr instance to instrument the URI handler service to.
+     */
+    @Override
+    public void instrument(Instrumentation instr) {
+        instrumentation = instr;
+        instr.addVariable(INSTRUMENTATION_GROUP, "cached", new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return (existsCache == null) ? 0L : existsCache.size();
+            }
+        });
+        instr.addVariable(DATASET_INDEX_INSTRUMENTATION_GROUP, "resolutions", new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return DatasetAvailabilityIndex.get().getResolutions();
+            }
+        });
+        instr.addVariable(DATASET_INDEX_INSTRUMENTATION_GROUP, "uris.probed", new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return DatasetAvailabilityIndex.get().getProbedURIs();
+            }
+        });
+        instr.addVariable(DATASET_INDEX_INSTRUMENTATION_GROUP, "known.instances", new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return DatasetAvailabilityIndex.get().getKnownInstances();
+            }
+        });
+        instr.addVariable(DATASET_INDEX_INSTRUMENTATION_GROUP, "uris.probed.per.resolution",
+                new Instrumentation.Variable<Double>() {
+                    public Double getValue() {
+                        DatasetAvailabilityIndex index = DatasetAvailabilityIndex.get();
+                        long resolutions = index.getResolutions();
+                        return (resolutions == 0) ? 0d : (double) index.getProbedURIs() / resolutions;
+                    }
+                });
+        instr.addVariable(DATASET_INDEX_INSTRUMENTATION_GROUP, "datasets", new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return DatasetAvailabilityIndex.get().size();
+            }
+        });
     }
 
     @Override
@@ -189,6 +364,336 @@ public class URIHandlerService implements Service {
         }
     }
 
+    /**
+     * Check if a URI exists.
+     * <p>
+     * For pull dependencies, a check running for the same user and URI is joined instead of starting another one, and
+     * the result is taken from the existence cache when it is enabled. Checks are never shared between users, as they
+     * may not have the same permissions on the URI.
+     *
+     * @param uri URI to check.
+     * @param conf configuration to access the URI.
+     * @param user name of the user the URI should be accessed as.
+     * @return <code>true</code> if the URI exists.
+     * @throws URIHandlerException thrown if the URI could not be checked.
+     */
+    public boolean exists(URI uri, Configuration conf, String user) throws URIHandlerException {
+        URIHandler handler = getURIHandler(uri);
+        if (handler.getDependencyType(uri) != DependencyType.PULL) {
+            return handler.exists(uri, conf, user);
+        }
+        Boolean cached = getCachedExists(uri, user);
+        if (cached != null) {
+            return cached;
+        }
+        String key = getExistsKey(uri, user);
+        FutureTask<Boolean> task = new FutureTask<Boolean>(new ExistsCallable(handler, uri, conf, user));
+        FutureTask<Boolean> inFlight = existsInFlight.putIfAbsent(key, task);
+        if (inFlight == null) {
+            try {
+                task.run();
+            }
+            finally {
+                existsInFlight.remove(key, task);
+            }
+            inFlight = task;
+        }
+        else {
+            incrCounter(INSTR_COALESCED_COUNTER);
+        }
+        return getExistsResult(inFlight);
+    }
+
+    /**
+     * Check if URIs exist, checking them in parallel.
+     *
+     * @param uris URIs to check.
+     * @param conf configuration to access the URIs.
+     * @param user name of the user the URIs should be accessed as.
+     * @return for each URI, <code>true</code> if it exists.
+     * @throws URIHandlerException thrown if an URI could not be checked.
+     * @see #exists(List, Configuration, String, boolean)
+     */
+    public boolean[] exists(List<URI> uris, Configuration conf, String user) throws URIHandlerException {
+        return exists(uris, conf, user, false);
+    }
+
+    /**
+     * Check if URIs exist.
+     * <p>
+     * Filesystem URIs are grouped by parent directory, and a directory containing at least
+     * {@link #EXISTS_LISTING_MIN_URIS} of the URIs is listed once instead of checking each of them, see
+     * {@link FSURIHandler#exists(List, Configuration, String)}. Other URIs are checked as with
+     * {@link #exists(URI, Configuration, String)}.
+     *
+     * @param uris URIs to check.
+     * @param conf configuration to access the URIs.
+     * @param user name of the user the URIs should be accessed as.
+     * @param stopOnFirstMissing if <code>true</code>, the URIs are checked in order and the URIs after the first missing
+     *        one are reported missing without being checked. Otherwise all the URIs are checked in parallel.
+     * @return for each URI, <code>true</code> if it exists.
+     * @throws URIHandlerException thrown if an URI could not be checked.
+     */
+    public boolean[] exists(List<URI> uris, Configuration conf, String user, boolean stopOnFirstMissing)
+            throws URIHandlerException {
+        Map<String, Boolean> results = new HashMap<String, Boolean>();
+        Map<String, Callable<Map<String, Boolean>>> checks = new LinkedHashMap<String, Callable<Map<String, Boolean>>>();
+        Map<String, List<URI>> directories = new LinkedHashMap<String, List<URI>>();
+        for (URI uri : uris) {
+            String key = uri.toString();
+            if (results.containsKey(key) || checks.containsKey(key)) {
+                continue;
+            }
+            URIHandler handler = getURIHandler(uri);
+            if (handler.getDependencyType(uri) == DependencyType.PULL) {
+                Boolean cached = getCachedExists(uri, user);
+                if (cached != null) {
+                    results.put(key, cached);
+                    continue;
+                }
+            }
+            Path directory = (existsListingMinURIs > 0 && handler instanceof FSURIHandler)
+                    ? ((FSURIHandler) handler).getDirectory(uri) : null;
+            if (directory != null) {
+                List<URI> group = directories.get(directory.toString());
+                if (group == null) {
+                    group = new ArrayList<URI>();
+                    directories.put(directory.toString(), group);
+                }
+                group.add(uri);
+            }
+            checks.put(key, new SingleExistsCheck(uri, conf, user));
+        }
+        for (List<URI> group : directories.values()) {
+            if (group.size() >= Math.max(existsListingMinURIs, 2)) {
+                Callable<Map<String, Boolean>> check = new ListingExistsCheck(
+                        (FSURIHandler) getURIHandler(group.get(0)), group, conf, user);
+                for (URI uri : group) {
+                    checks.put(uri.toString(), check);
+                }
+            }
+        }
+
+        boolean[] exists = new boolean[uris.size()];
+        if (stopOnFirstMissing) {
+            for (int i = 0; i < uris.size(); i++) {
+                String key = uris.get(i).toString();
+                if (!results.containsKey(key)) {
+                    results.putAll(callExistsCheck(checks.get(key)));
+                }
+                exists[i] = results.get(key);
+                if (!exists[i]) {
+                    break;
+                }
+            }
+            return exists;
+        }
+
+        Set<Callable<Map<String, Boolean>>> distinctChecks = new LinkedHashSet<Callable<Map<String, Boolean>>>(
+                checks.values());
+        if (existsExecutor == null || distinctChecks.size() < 2) {
+            for (Callable<Map<String, Boolean>> check : distinctChecks) {
+                results.putAll(callExistsCheck(check));
+            }
+        }
+        else {
+            List<Future<Map<String, Boolean>>> futures = new ArrayList<Future<Map<String, Boolean>>>();
+            for (Callable<Map<String, Boolean>> check : distinctChecks) {
+                futures.add(existsExecutor.submit(check));
+            }
+            try {
+                for (Future<Map<String, Boolean>> future : futures) {
+                    results.putAll(getExistsResult(future));
+                }
+            }
+            finally {
+                for (Future<Map<String, Boolean>> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+        for (int i = 0; i < uris.size(); i++) {
+            exists[i] = results.get(uris.get(i).toString());
+        }
+        return exists;
+    }
+
+    private static String getExistsKey(URI uri, String user) {
+        return user + "\n" + uri.toString();
+    }
+
+    private Boolean getCachedExists(URI uri, String user) {
+        if (existsCache != null) {
+            ExistsEntry entry = existsCache.getIfPresent(getExistsKey(uri, user));
+            if (entry != null && (entry.exists || System.currentTimeMillis() - entry.time < existsNegativeTTL)) {
+                incrCounter(INSTR_CACHE_HITS_COUNTER);
+                return entry.exists;
+            }
+        }
+        return null;
+    }
+
+    private void putCachedExists(URI uri, String user, boolean exists) {
+        if (existsCache != null) {
+            existsCache.put(getExistsKey(uri, user), new ExistsEntry(exists, System.currentTimeMillis()));
+        }
+    }
+
+    private <T> T callExistsCheck(Callable<T> check) throws URIHandlerException {
+        try {
+            return check.call();
+        }
+        catch (URIHandlerException e) {
+            throw e;
+        }
+        catch (RuntimeException e) {
+            throw e;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new URIHandlerException(ErrorCode.E0902, e);
+        }
+        catch (Exception e) {
+            throw new URIHandlerException(ErrorCode.E0902, e);
+        }
+    }
+
+    private <T> T getExistsResult(Future<T> future) throws URIHandlerException {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new URIHandlerException(ErrorCode.E0902, e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof URIHandlerException) {
+                throw (URIHandlerException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new URIHandlerException(ErrorCode.E0902, cause);
+        }
+    }
+
+    private Semaphore acquireExistsPermit(URI uri) throws InterruptedException {
+        if (existsMaxConcurrency <= 0) {
+            return null;
+        }
+        Semaphore permits = getExistsPermits(uri);
+        permits.acquire();
+        return permits;
+    }
+
+    private void incrChecksCounter(URI uri) {
+        incrCounter(INSTR_CHECKS_COUNTER_PREFIX + ((uri.getScheme() == null) ? "default" : uri.getScheme()));
+    }
+
+    private Semaphore getExistsPermits(URI uri) {
+        String fs = uri.getScheme() + "://" + uri.getAuthority();
+        Semaphore permits = existsPermits.get(fs);
+        if (permits == null) {
+            Semaphore newPermits = new Semaphore(existsMaxConcurrency, true);
+            permits = existsPermits.putIfAbsent(fs, newPermits);
+            if (permits == null) {
+                permits = newPermits;
+            }
+        }
+        return permits;
+    }
+
+    private void incrCounter(String name) {
+        if (instrumentation != null) {
+            instrumentation.incr(INSTRUMENTATION_GROUP, name, 1);
+        }
+    }
+
+    private class ExistsCallable implements Callable<Boolean> {
+        private final URIHandler handler;
+        private final URI uri;
+        private final Configuration conf;
+        private final String user;
+
+        private ExistsCallable(URIHandler handler, URI uri, Configuration conf, String user) {
+            this.handler = handler;
+            this.uri = uri;
+            this.conf = conf;
+            this.user = user;
+        }
+
+        @Override
+        public Boolean call() throws Exception {
+            Semaphore permits = acquireExistsPermit(uri);
+            boolean exists;
+            try {
+                incrChecksCounter(uri);
+                exists = handler.exists(uri, conf, user);
+            }
+            finally {
+                if (permits != null) {
+                    permits.release();
+                }
+            }
+            putCachedExists(uri, user, exists);
+            return exists;
+        }
+    }
+
+    private class SingleExistsCheck implements Callable<Map<String, Boolean>> {
+        private final URI uri;
+        private final Configuration conf;
+        private final String user;
+
+        private SingleExistsCheck(URI uri, Configuration conf, String user) {
+            this.uri = uri;
+            this.conf = conf;
+            this.user = user;
+        }
+
+        @Override
+        public Map<String, Boolean> call() throws Exception {
+            return Collections.singletonMap(uri.toString(), exists(uri, conf, user));
+        }
+    }
+
+    private class ListingExistsCheck implements Callable<Map<String, Boolean>> {
+        private final FSURIHandler handler;
+        private final List<URI> uris;
+        private final Configuration conf;
+        private final String user;
+
+        private ListingExistsCheck(FSURIHandler handler, List<URI> uris, Configuration conf, String user) {
+            this.handler = handler;
+            this.uris = uris;
+            this.conf = conf;
+            this.user = user;
+        }
+
+        @Override
+        public Map<String, Boolean> call() throws Exception {
+            Semaphore permits = acquireExistsPermit(uris.get(0));
+            boolean[] exists;
+            try {
+                incrChecksCounter(uris.get(0));
+                incrCounter(INSTR_LISTINGS_COUNTER);
+                exists = handler.exists(uris, conf, user);
+            }
+            finally {
+                if (permits != null) {
+                    permits.release();
+                }
+            }
+            Map<String, Boolean> results = new HashMap<String, Boolean>();
+            for (int i = 0; i < uris.size(); i++) {
+                results.put(uris.get(i).toString(), exists[i]);
+                putCachedExists(uris.get(i), user, exists[i]);
+            }
+            return results;
+        }
+    }
+
     /**
      * Get the URI with scheme://host:port removing the path
      * @param uri uri template
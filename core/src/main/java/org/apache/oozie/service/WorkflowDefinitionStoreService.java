@@ -0,0 +1,288 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.service;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.oozie.ErrorCode;
+import org.apache.oozie.WorkflowDefinitionBean;
+import org.apache.oozie.executor.jpa.JPAExecutorException;
+import org.apache.oozie.executor.jpa.WorkflowDefinitionGetJPAExecutor;
+import org.apache.oozie.executor.jpa.WorkflowDefinitionInsertJPAExecutor;
+import org.apache.oozie.executor.jpa.WorkflowDefinitionsDeleteUnusedJPAExecutor;
+import org.apache.oozie.util.Instrumentable;
+import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.util.WritableUtils;
+import org.apache.oozie.util.XLog;
+import org.apache.oozie.workflow.lite.LiteWorkflowApp;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Content addressed store for workflow definitions and immutable workflow job configurations.
+ * <p>
+ * When this service is enabled, {@link org.apache.oozie.workflow.lite.LiteWorkflowInstance} only keeps the hashes of
+ * its definition and configuration in the workflow instance blob, instead of rewriting both of them on every state
+ * change. Entries are persisted once in the <code>WF_DEFINITIONS</code> table and kept in a bounded in-memory cache.
+ * <p>
+ * The service is optional, it must be added to <code>oozie.services.ext</code>. Once enabled it must not be removed,
+ * as workflow instances written while it was enabled cannot be read without it. The <code>WF_DEFINITIONS</code> table
+ * of existing databases is created by <code>ooziedb.sh upgrade</code>.
+ */
+public class WorkflowDefinitionStoreService implements Service, Instrumentable {
+
+    public static final String CONF_PREFIX = Service.CONF_PREFIX + "WorkflowDefinitionStoreService.";
+
+    /**
+     * Maximum number of entries kept in memory.
+     */
+    public static final String CONF_CACHE_SIZE = CONF_PREFIX + "cache.size";
+
+    /**
+     * Minimum interval, in seconds, between two refreshes of the last used time of an entry in the database.
+     */
+    public static final String CONF_TOUCH_INTERVAL = CONF_PREFIX + "touch.interval";
+
+    protected static final String INSTRUMENTATION_GROUP = "workflow.definition.store";
+    public static final String INSTR_HITS_COUNTER = "hits";
+    public static final String INSTR_MISSES_COUNTER = "misses";
+    public static final String INSTR_INSERTS_COUNTER = "inserts";
+    public static final String INSTR_PURGED_COUNTER = "purged";
+
+    private static final XLog LOG = XLog.getLog(WorkflowDefinitionStoreService.class);
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static class Entry {
+        private final byte[] data;
+        private volatile LiteWorkflowApp app;
+        private volatile long lastTouched;
+
+        private Entry(byte[] data, long lastTouched) {
+            this.data = data;
+            this.lastTouched = lastTouched;
+        }
+    }
+
+    private Cache<String, Entry> cache;
+    private long touchInterval;
+    private JPAService jpaService;
+    private Instrumentation instrumentation;
+
+    /**
+     * Initialize the workflow definition store service.
+     *
+     * @param services services instance.
+     * @throws ServiceException thrown if the JPAService is not available or if the <code>WF_DEFINITIONS</code> table
+     * does not exist.
+     */
+    @Override
+    public void init(Services services) throws ServiceException {
+        jpaService = services.get(JPAService.class);
+        if (jpaService == null) {
+            throw new ServiceException(ErrorCode.E0610);
+        }
+        try {
+            jpaService.execute(new WorkflowDefinitionGetJPAExecutor(""));
+        }
+        catch (JPAExecutorException ex) {
+            throw new ServiceException(ErrorCode.E0100, getClass().getName(),
+                    "the WF_DEFINITIONS table could not be read, run 'ooziedb.sh upgrade' to create it: "
+                            + ex.getMessage());
+        }
+        cache = CacheBuilder.newBuilder().maximumSize(ConfigurationService.getInt(CONF_CACHE_SIZE)).build();
+        touchInterval = TimeUnit.SECONDS.toMillis(ConfigurationService.getLong(CONF_TOUCH_INTERVAL));
+    }
+
+    /**
+     * Destroy the workflow definition store service.
+     */
+    @Override
+    public void destroy() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Return the public interface for the workflow definition store service.
+     *
+     * @return {@link WorkflowDefinitionStoreService}.
+     */
+    @Override
+    public Class<? extends Service> getInterface() {
+        return WorkflowDefinitionStoreService.class;
+    }
+
+    /**
+     * Instruments the workflow definition store service.
+     *
+     * @param instr instance to instrument the workflow definition store service to.
+     */
+    @Override
+    public void instrument(Instrumentation instr) {
+        instrumentation = instr;
+        instr.addVariable(INSTRUMENTATION_GROUP, "cached", new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return cache.size();
+            }
+        });
+    }
+
+    /**
+     * Store data and return its content hash. The data is persisted only if no other workflow stored it before.
+     *
+     * @param data serialized workflow definition or configuration.
+     * @return the content hash identifying the data in the store.
+     * @throws IOException thrown if the data could not be persisted.
+     */
+    public String register(byte[] data) throws IOException {
+        String hash = hash(data);
+        long now = System.currentTimeMillis();
+        Entry entry = cache.getIfPresent(hash);
+        if (entry != null && now - entry.lastTouched < touchInterval) {
+            incrCounter(INSTR_HITS_COUNTER);
+            return hash;
+        }
+        try {
+            if (jpaService.execute(new WorkflowDefinitionInsertJPAExecutor(new WorkflowDefinitionBean(hash, data)))) {
+                incrCounter(INSTR_INSERTS_COUNTER);
+            }
+        }
+        catch (JPAExecutorException ex) {
+            // another server may have inserted the same entry concurrently
+            try {
+                if (jpaService.execute(new WorkflowDefinitionGetJPAExecutor(hash)) == null) {
+                    throw new IOException(ex);
+                }
+            }
+            catch (JPAExecutorException getEx) {
+                throw new IOException(ex);
+            }
+        }
+        if (entry == null) {
+            cache.put(hash, new Entry(data, now));
+        }
+        else {
+            entry.lastTouched = now;
+        }
+        return hash;
+    }
+
+    /**
+     * Return the data stored for a content hash.
+     *
+     * @param hash content hash.
+     * @return the stored data.
+     * @throws IOException thrown if there is no data for the hash or if it could not be loaded.
+     */
+    public byte[] getData(String hash) throws IOException {
+        return getEntry(hash).data;
+    }
+
+    /**
+     * Return the workflow definition stored for a content hash. The returned instance is shared by all the workflow
+     * instances using the same definition and must not be modified.
+     *
+     * @param hash content hash.
+     * @return the workflow definition.
+     * @throws IOException thrown if there is no data for the hash or if it could not be loaded.
+     */
+    public LiteWorkflowApp getApp(String hash) throws IOException {
+        Entry entry = getEntry(hash);
+        LiteWorkflowApp app = entry.app;
+        if (app == null) {
+            app = WritableUtils.fromByteArray(entry.data, LiteWorkflowApp.class);
+            entry.app = app;
+        }
+        return app;
+    }
+
+    /**
+     * Delete the entries that cannot be referenced anymore by the workflow jobs left in the database.
+     *
+     * @return the number of entries deleted.
+     * @throws JPAExecutorException thrown if the entries could not be deleted.
+     */
+    public int purgeUnused() throws JPAExecutorException {
+        int purged = jpaService.execute(new WorkflowDefinitionsDeleteUnusedJPAExecutor(2 * touchInterval));
+        if (instrumentation != null) {
+            instrumentation.incr(INSTRUMENTATION_GROUP, INSTR_PURGED_COUNTER, purged);
+        }
+        LOG.debug("Purged [{0}] unused workflow definition store entries", purged);
+        return purged;
+    }
+
+    private Entry getEntry(String hash) throws IOException {
+        Entry entry = cache.getIfPresent(hash);
+        if (entry != null) {
+            incrCounter(INSTR_HITS_COUNTER);
+            return entry;
+        }
+        incrCounter(INSTR_MISSES_COUNTER);
+        WorkflowDefinitionBean bean;
+        try {
+            bean = jpaService.execute(new WorkflowDefinitionGetJPAExecutor(hash));
+        }
+        catch (JPAExecutorException ex) {
+            throw new IOException(ex);
+        }
+        if (bean == null) {
+            throw new IOException("Workflow definition store entry [" + hash + "] does not exist");
+        }
+        // loaded entries were not touched by this server, the next register() call for them refreshes them
+        entry = new Entry(bean.getData(), 0);
+        cache.put(hash, entry);
+        return entry;
+    }
+
+    private void incrCounter(String name) {
+        if (instrumentation != null) {
+            instrumentation.incr(INSTRUMENTATION_GROUP, name, 1);
+        }
+    }
+
+    /**
+     * Compute the SHA-256 content hash of data, as a lowercase hex string.
+     *
+     * @param data data to hash.
+     * @return the content hash.
+     */
+    @VisibleForTesting
+    static String hash(byte[] data) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        byte[] bytes = digest.digest(data);
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0x0F];
+            chars[2 * i + 1] = HEX[bytes[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+}
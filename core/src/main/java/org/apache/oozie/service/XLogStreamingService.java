@@ -21,12 +21,20 @@ package org.apache.oozie.service;
 import org.apache.oozie.util.XLogFilter;
 import org.apache.oozie.util.Instrumentable;
 import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.util.NamedThreadFactory;
+import org.apache.oozie.util.XLog;
+import org.apache.oozie.util.XLogIndex;
 import org.apache.oozie.util.XLogStreamer;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.Map;
 import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service that performs streaming of log files over Web Services if enabled in XLogService
@@ -35,7 +43,21 @@ public class XLogStreamingService implements Service, Instrumentable {
     private static final String CONF_PREFIX = Service.CONF_PREFIX + "XLogStreamingService.";
     public static final String STREAM_BUFFER_LEN = CONF_PREFIX + "buffer.len";
 
+    /**
+     * Number of threads reading rotated log files through their index, 0 disables the log index.
+     */
+    public static final String CONF_INDEX_THREADS = CONF_PREFIX + "index.threads";
+
+    /**
+     * Interval, in seconds, between two runs indexing the rotated log files, 0 to index them only when they are read.
+     */
+    public static final String CONF_INDEX_INTERVAL = CONF_PREFIX + "index.interval";
+
+    private static final XLog LOG = XLog.getLog(XLogStreamingService.class);
+
     protected int bufferLen;
+    protected int indexThreads;
+    private ExecutorService indexExecutor;
 
     /**
      * Initialize the log streaming service.
@@ -45,12 +67,82 @@ public class XLogStreamingService implements Service, Instrumentable {
      */
     public void init(Services services) throws ServiceException {
         bufferLen = ConfigurationService.getInt(services.getConf(), STREAM_BUFFER_LEN);
+        indexThreads = ConfigurationService.getInt(services.getConf(), CONF_INDEX_THREADS);
+        if (indexThreads > 0) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(indexThreads, indexThreads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory("XLogIndex"));
+            executor.allowCoreThreadTimeOut(true);
+            indexExecutor = executor;
+            int interval = ConfigurationService.getInt(services.getConf(), CONF_INDEX_INTERVAL);
+            SchedulerService scheduler = services.get(SchedulerService.class);
+            if (interval > 0 && scheduler != null) {
+                scheduler.schedule(new IndexRunnable(), interval, interval, SchedulerService.Unit.SEC);
+            }
+        }
     }
 
     /**
      * Destroy the log streaming service.
      */
     public void destroy() {
+        if (indexExecutor != null) {
+            indexExecutor.shutdownNow();
+            indexExecutor = null;
+        }
+    }
+
+    /**
+     * Indexes the log files rotated since its last run, so that reading them does not have to build their index.
+     */
+    static class IndexRunnable implements Runnable {
+        @Override
+        public void run() {
+            XLogService xLogService = Services.get().get(XLogService.class);
+            if (xLogService.getLogOverWS()) {
+                index(xLogService.getOozieLogPath(), xLogService.getOozieLogName());
+            }
+            if (xLogService.isErrorLogEnabled()) {
+                index(xLogService.getOozieErrorLogPath(), xLogService.getOozieErrorLogName());
+            }
+            if (xLogService.isAuditLogEnabled()) {
+                index(xLogService.getOozieAuditLogPath(), xLogService.getOozieAuditLogName());
+            }
+        }
+
+        static void index(String logPath, String logName) {
+            if (logPath == null || logName == null) {
+                return;
+            }
+            File[] files = new File(logPath).listFiles();
+            if (files == null) {
+                return;
+            }
+            for (File file : files) {
+                String name = file.getName();
+                if (name.startsWith(logName) && !name.equals(logName) && file.isFile()
+                        && !XLogIndex.isIndexed(file)) {
+                    try {
+                        XLogIndex.getIndex(file);
+                    }
+                    catch (IOException ex) {
+                        LOG.warn("Could not index log file [{0}], {1}", file, ex.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Create a log streamer, reading the rotated log files through their index if the index is enabled.
+     *
+     * @param filter log streamer filter.
+     * @param logPath log directory.
+     * @param logName name of the active log file.
+     * @param rotation log rotation period, in seconds.
+     * @return the log streamer.
+     */
+    protected XLogStreamer createStreamer(XLogFilter filter, String logPath, String logName, long rotation) {
+        return new XLogStreamer(filter, logPath, logName, rotation, indexExecutor, indexThreads);
     }
 
     /**
@@ -85,7 +177,7 @@ public class XLogStreamingService implements Service, Instrumentable {
             throws IOException {
         XLogService xLogService = Services.get().get(XLogService.class);
         if (xLogService.getLogOverWS()) {
-            new XLogStreamer(filter, xLogService.getOozieLogPath(), xLogService.getOozieLogName(),
+            createStreamer(filter, xLogService.getOozieLogPath(), xLogService.getOozieLogName(),
                     xLogService.getOozieLogRotation()).streamLog(writer, startTime, endTime, bufferLen);
         }
         else {
@@ -107,7 +199,7 @@ public class XLogStreamingService implements Service, Instrumentable {
             throws IOException {
         XLogService xLogService = Services.get().get(XLogService.class);
         if (xLogService.isErrorLogEnabled()) {
-            new XLogStreamer(filter, xLogService.getOozieErrorLogPath(), xLogService.getOozieErrorLogName(),
+            createStreamer(filter, xLogService.getOozieErrorLogPath(), xLogService.getOozieErrorLogName(),
                     xLogService.getOozieErrorLogRotation()).streamLog(writer, startTime, endTime, bufferLen);
         }
         else {
@@ -129,7 +221,7 @@ public class XLogStreamingService implements Service, Instrumentable {
             throws IOException {
         XLogService xLogService = Services.get().get(XLogService.class);
         if (xLogService.isAuditLogEnabled()) {
-            new XLogStreamer(filter, xLogService.getOozieAuditLogPath(), xLogService.getOozieAuditLogName(),
+            createStreamer(filter, xLogService.getOozieAuditLogPath(), xLogService.getOozieAuditLogName(),
                     xLogService.getOozieAuditLogRotation()).streamLog(writer, startTime, endTime, bufferLen);
         }
         else {
@@ -19,10 +19,10 @@ package org.apache.oozie.service;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 import org.apache.curator.framework.recipes.leader.LeaderLatch;
 import org.apache.curator.framework.state.ConnectionState;
@@ -33,6 +33,8 @@ import org.apache.oozie.event.listener.ZKConnectionListener;
 import org.apache.oozie.util.IOUtils;
 import org.apache.oozie.util.Instrumentable;
 import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.util.JobIdRing;
+import org.apache.oozie.util.XLog;
 import org.apache.oozie.util.ZKUtils;
 
 /**
@@ -43,7 +45,9 @@ import org.apache.oozie.util.ZKUtils;
  * Servers try to process the same job at the same time.  However, this will make Oozie slower (more waiting on locks) and will
  * place additional stress on ZooKeeper and the Database.  By "assigning" different Oozie servers to process different jobs, we can
  * improve this situation.  This is particularly necessary for Services like the {@link RecoveryService}, which could duplicate jobs
- * otherwise.  We can assign jobs to servers by doing a mod of the jobs' id and the number of servers.
+ * otherwise.  Jobs are assigned to servers with a consistent hashing ring of the hashed job sequence numbers (see {@link JobIdRing}),
+ * so that only about 1/N of the jobs change servers when a server joins or leaves.  The ring is rebuilt only when the set of
+ * servers seen in ZooKeeper changes.
  * <p>
  * The leader server is elected by all of the Oozie servers, so there can only be one at a time.  This is useful for tasks that
  * require (or are better off) being done by only one server (e.g. database purging).  Note that the leader server isn't a
@@ -52,10 +56,18 @@ import org.apache.oozie.util.ZKUtils;
  */
 public class ZKJobsConcurrencyService extends JobsConcurrencyService implements Service, Instrumentable {
 
-    private ZKUtils zk;
+    public static final String CONF_PREFIX = Service.CONF_PREFIX + "ZKJobsConcurrencyService.";
+
+    /**
+     * Number of virtual nodes of each server in the job ownership ring.
+     */
+    public static final String CONF_VIRTUAL_NODES = CONF_PREFIX + "virtual.nodes";
+
+    private static final XLog LOG = XLog.getLog(ZKJobsConcurrencyService.class);
 
-    // This pattern gives us the id number without the extra stuff
-    private static final Pattern ID_PATTERN = Pattern.compile("(\\d{7})-.*");
+    private ZKUtils zk;
+    private int virtualNodes;
+    private volatile JobIdRing ring;
 
     private static final String ZK_LEADER_PATH = "concurrencyleader";
     private static LeaderLatch leaderLatch = null;
@@ -68,6 +80,8 @@ public class ZKJobsConcurrencyService extends JobsConcurrencyService implements
     @Override
     public void init(Services services) throws ServiceException {
         super.init(services);
+        virtualNodes = Math.max(1, ConfigurationService.getInt(services.getConf(), CONF_VIRTUAL_NODES));
+        ring = null;
         try {
             zk = ZKUtils.register(this);
             leaderLatch = new LeaderLatch(zk.getClient(), ZKUtils.ZK_BASE_SERVICES_PATH + "/" + ZK_LEADER_PATH, zk.getZKId());
@@ -115,23 +129,20 @@ public class ZKJobsConcurrencyService extends JobsConcurrencyService implements
     }
 
     /**
-     * Check to see if jobId should be processed by this server.  This implementation only returns true if the index of this server
-     * in ZooKeeper's list of servers is equal to the id of the job mod the number of servers.
+     * Check to see if jobId should be processed by this server.  This implementation only returns true if this server owns the
+     * sequence number of the job in the consistent hashing ring of the servers in ZooKeeper.
      *
      * @param jobId The jobId to check
      * @return true if this server should process this jobId; false if not
      */
     @Override
     public boolean isJobIdForThisServer(String jobId) {
-        List<ServiceInstance<Map>> oozies = zk.getAllMetaData();
-        int numOozies = oozies.size();
-        int myIndex = zk.getZKIdIndex(oozies);
-        return checkJobIdForServer(jobId, numOozies, myIndex);
+        return checkJobIdForServer(jobId, getRing());
     }
 
     /**
-     * Filter out any job ids that should not be processed by this server.  This implementation only preserves jobs such that the
-     * index of this server in ZooKeeper's list of servers is equal to the id of the job mod the number of servers.
+     * Filter out any job ids that should not be processed by this server.  This implementation only preserves jobs such that
+     * this server owns their sequence number in the consistent hashing ring of the servers in ZooKeeper.
      *
      * @param ids The list of job ids to check
      * @return a filtered list of job ids that this server should process
@@ -139,11 +150,9 @@ public class ZKJobsConcurrencyService extends JobsConcurrencyService implements
     @Override
     public List<String> getJobIdsForThisServer(List<String> ids) {
         List<String> filteredIds = new ArrayList<String>();
-        List<ServiceInstance<Map>> oozies = zk.getAllMetaData();
-        int numOozies = oozies.size();
-        int myIndex = zk.getZKIdIndex(oozies);
+        JobIdRing jobIdRing = getRing();
         for(String id : ids) {
-            if (checkJobIdForServer(id, numOozies, myIndex)) {
+            if (checkJobIdForServer(id, jobIdRing)) {
                 filteredIds.add(id);
             }
         }
@@ -151,22 +160,52 @@ public class ZKJobsConcurrencyService extends JobsConcurrencyService implements
     }
 
     /**
-     * Check if the jobId should be processed by the server with index myIndex when there are numOozies servers.
+     * Return the buckets of job ids that should be processed by this server.  This implementation returns the buckets this
+     * server owns in the consistent hashing ring of the servers in ZooKeeper.
+     *
+     * @return the buckets of job ids of this server
+     */
+    @Override
+    public List<String> getJobIdBucketsForThisServer() {
+        return getRing().getBuckets(zk.getZKId());
+    }
+
+    /**
+     * Check if the jobId should be processed by this server.  Ids which are not job ids belong to all the servers.
      *
      * @param jobId The jobId to check
-     * @param numOozies The number of Oozie servers
-     * @param myIndex The index of the Oozie server
+     * @param jobIdRing The ring of the Oozie servers
      * @return true if the jobId should be processed by the server, false if not
      */
-    private boolean checkJobIdForServer(String jobId, int numOozies, int myIndex) {
-        boolean belongs = true;
-        Matcher m = ID_PATTERN.matcher(jobId);
-        if (m.matches() && m.groupCount() == 1) {
-            String idNumStr = m.group(1);
-            int idNum = Integer.parseInt(idNumStr);
-            belongs = (idNum % numOozies == myIndex);
+    private boolean checkJobIdForServer(String jobId, JobIdRing jobIdRing) {
+        long idNum = JobIdRing.getIdNumber(jobId);
+        if (idNum < 0) {
+            return true;
+        }
+        return zk.getZKId().equals(jobIdRing.getOwner(idNum));
+    }
+
+    /**
+     * Return the ring of the Oozie servers currently seen in ZooKeeper, the ring is rebuilt only if they changed.
+     *
+     * @return the ring of the Oozie servers
+     */
+    private JobIdRing getRing() {
+        Set<String> ids = new HashSet<String>();
+        List<ServiceInstance<Map>> oozies = zk.getAllMetaData();
+        if (oozies != null) {
+            for (ServiceInstance<Map> oozie : oozies) {
+                Map<String, String> metadata = oozie.getPayload();
+                ids.add(metadata.get(ZKUtils.ZKMetadataKeys.OOZIE_ID));
+            }
+        }
+        JobIdRing current = ring;
+        if (current == null || !current.getServers().equals(ids)) {
+            current = new JobIdRing(ids, virtualNodes);
+            ring = current;
+            LOG.info("Oozie servers changed, rebuilt job ownership ring for servers {0}", current.getServers());
         }
-        return belongs;
+        return current;
     }
 
     /**
@@ -17,16 +17,30 @@
  */
 package org.apache.oozie.service;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.recipes.locks.InterProcessMutex;
 import org.apache.curator.framework.recipes.locks.InterProcessReadWriteLock;
+import org.apache.curator.framework.recipes.locks.RevocationListener;
+import org.apache.curator.framework.recipes.locks.Revoker;
+import org.apache.curator.framework.state.ConnectionStateListener;
 import org.apache.oozie.ErrorCode;
 import org.apache.oozie.util.Instrumentable;
 import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.event.listener.ZKConnectionListener;
 import org.apache.oozie.lock.LockToken;
+import org.apache.oozie.util.JobIdRing;
+import org.apache.oozie.util.NamedThreadFactory;
 import org.apache.oozie.util.XLog;
 import org.apache.oozie.util.ZKUtils;
 
@@ -37,6 +51,7 @@ import org.apache.curator.framework.recipes.locks.ChildReaper;
 import org.apache.curator.framework.recipes.locks.Reaper;
 import org.apache.curator.framework.state.ConnectionState;
 import org.apache.curator.utils.ThreadUtils;
+import org.apache.curator.utils.ZKPaths;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.MapMaker;
@@ -45,6 +60,16 @@ import com.google.common.collect.MapMaker;
  * Service that provides distributed locks via ZooKeeper.  Requires that a ZooKeeper ensemble is available.  The locks will be
  * located under a ZNode named "locks" under the namespace (see {@link ZKUtils}).  For example, with default settings, if the
  * resource we're locking is called "foo", then the ZNode backing the lock will be at /oozie/locks/foo.
+ * <p>
+ * When {@link #CONF_LEASE_ENABLED} is set, locks of jobs are served in memory by the server owning the job (see
+ * {@link JobsConcurrencyService#getJobIdBucketsForThisServer()}). Job ids are grouped in shards, the buckets of the job
+ * ownership ring, see {@link JobIdRing#getBucket(long)}, and the owner of a shard holds a long lived
+ * ZooKeeper lease on it, a revocable lock under /oozie/lockleases. The locks of the shard are then {@link MemoryLocksService}
+ * locks, without any ZooKeeper round trip. Any other server, or the owner while it does not hold the lease, briefly takes the lease lock before
+ * taking the ZooKeeper lock of the job, asking the holder of the lease to give it up. The holder stops serving the shard in
+ * memory, waits for the locks it handed out to be released, and releases the lease. It takes the lease again once it was
+ * unused for {@link #CONF_LEASE_BACKOFF} seconds, after all the ZooKeeper locks of the shard were released. The lease mode
+ * must be enabled on all the servers, or on none.
  */
 public class ZKLocksService extends MemoryLocksService implements Service, Instrumentable {
 
@@ -60,6 +85,28 @@ public class ZKLocksService extends MemoryLocksService implements Service, Instr
     public static final String REAPING_THREADS = CONF_PREFIX + "ZKLocksService.locks.reaper.threads";
     private ChildReaper reaper = null;
 
+    public static final String LEASES_NODE = "/lockleases";
+    public static final String CONF_LEASE_ENABLED = CONF_PREFIX + "ZKLocksService.lease.enabled";
+    public static final String CONF_LEASE_BACKOFF = CONF_PREFIX + "ZKLocksService.lease.backoff";
+    public static final String CONF_LEASE_IDLE_TIMEOUT = CONF_PREFIX + "ZKLocksService.lease.idle.timeout";
+    public static final String CONF_LEASE_ACQUIRE_TIMEOUT = CONF_PREFIX + "ZKLocksService.lease.acquire.timeout";
+
+    public static final String INSTR_LEASE_MODE = "lease";
+    public static final String INSTR_ZK_MODE = "zk";
+
+    private static final long REVOKE_DELAY = 100;
+    private static final long DRAIN_POLL_INTERVAL = 100;
+
+    private boolean leaseEnabled;
+    private long leaseBackoff;
+    private long leaseIdleTimeout;
+    private long leaseAcquireTimeout;
+    private final ConcurrentMap<Long, Lease> leases = new ConcurrentHashMap<Long, Lease>();
+    private final ConcurrentMap<Long, Long> leaseRetryTimes = new ConcurrentHashMap<Long, Long>();
+    private ScheduledExecutorService leaseExecutor;
+    private ConnectionStateListener leaseConnectionListener;
+    private Instrumentation instrumentation;
+
     /**
      * Initialize the zookeeper locks service
      *
@@ -77,6 +124,34 @@ public class ZKLocksService extends MemoryLocksService implements Service, Instr
         catch (Exception ex) {
             throw new ServiceException(ErrorCode.E1700, ex.getMessage(), ex);
         }
+        leaseEnabled = ConfigurationService.getBoolean(services.getConf(), CONF_LEASE_ENABLED);
+        if (leaseEnabled) {
+            leaseBackoff = TimeUnit.SECONDS.toMillis(ConfigurationService.getLong(services.getConf(), CONF_LEASE_BACKOFF));
+            leaseIdleTimeout = TimeUnit.SECONDS.toMillis(
+                    ConfigurationService.getLong(services.getConf(), CONF_LEASE_IDLE_TIMEOUT));
+            leaseAcquireTimeout = TimeUnit.SECONDS.toMillis(
+                    ConfigurationService.getLong(services.getConf(), CONF_LEASE_ACQUIRE_TIMEOUT));
+            // all the lease transitions run on this thread, as ZooKeeper mutexes must be released by the thread holding them
+            leaseExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("ZKLocksLease"));
+            leaseConnectionListener = new ConnectionStateListener() {
+                @Override
+                public void stateChanged(CuratorFramework client, ConnectionState newState) {
+                    if (newState == ConnectionState.SUSPENDED || newState == ConnectionState.LOST) {
+                        LOG.warn("ZooKeeper connection [{0}], giving up all the lock leases", newState);
+                        for (Lease lease : leases.values()) {
+                            releaseLease(lease, false);
+                        }
+                    }
+                }
+            };
+            zk.getClient().getConnectionStateListenable().addListener(leaseConnectionListener);
+            services.get(SchedulerService.class).schedule(new Runnable() {
+                @Override
+                public void run() {
+                    checkLeases();
+                }
+            }, leaseIdleTimeout / 1000, Math.max(1, leaseIdleTimeout / 2000), SchedulerService.Unit.SEC);
+        }
     }
 
     /**
@@ -92,7 +167,24 @@ public class ZKLocksService extends MemoryLocksService implements Service, Instr
                 LOG.error("Error closing childReaper", e);
             }
         }
+        if (leaseExecutor != null) {
+            for (Lease lease : leases.values()) {
+                releaseLease(lease, false);
+            }
+            leaseExecutor.shutdown();
+            try {
+                leaseExecutor.awaitTermination(leaseAcquireTimeout, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e) {
+                LOG.warn("Interrupted while releasing the lock leases");
+            }
+            leaseExecutor = null;
+        }
         if (zk != null) {
+            if (leaseConnectionListener != null) {
+                zk.getClient().getConnectionStateListenable().removeListener(leaseConnectionListener);
+                leaseConnectionListener = null;
+            }
             zk.unregister(this);
         }
         zk = null;
@@ -106,6 +198,7 @@ public class ZKLocksService extends MemoryLocksService implements Service, Instr
      */
     @Override
     public void instrument(Instrumentation instr) {
+        instrumentation = instr;
         // Similar to MemoryLocksService's instrumentation, though this is only the number of locks this Oozie server currently has
         instr.addVariable(INSTRUMENTATION_GROUP, "locks", new Instrumentation.Variable<Integer>() {
             @Override
@@ -113,6 +206,18 @@ public class ZKLocksService extends MemoryLocksService implements Service, Instr
                 return zkLocks.size();
             }
         });
+        instr.addVariable(INSTRUMENTATION_GROUP, "leases", new Instrumentation.Variable<Integer>() {
+            @Override
+            public Integer getValue() {
+                int active = 0;
+                for (Lease lease : leases.values()) {
+                    if (lease.active) {
+                        active++;
+                    }
+                }
+                return active;
+            }
+        });
     }
 
     /**
@@ -125,7 +230,7 @@ public class ZKLocksService extends MemoryLocksService implements Service, Instr
      */
     @Override
     public LockToken getReadLock(String resource, long wait) throws InterruptedException {
-        return acquireLock(resource, Type.READ, wait);
+        return getLock(resource, Type.READ, wait);
     }
 
     /**
@@ -138,7 +243,149 @@ public class ZKLocksService extends MemoryLocksService implements Service, Instr
      */
     @Override
     public LockToken getWriteLock(String resource, long wait) throws InterruptedException {
-        return acquireLock(resource, Type.WRITE, wait);
+        return getLock(resource, Type.WRITE, wait);
+    }
+
+    private LockToken getLock(String resource, Type type, long wait) throws InterruptedException {
+        long idNum = leaseEnabled ? JobIdRing.getIdNumber(resource) : -1;
+        if (idNum < 0) {
+            return acquireInstrumented(resource, type, wait, null);
+        }
+        long start = System.currentTimeMillis();
+        long shard = getShard(idNum);
+        Lease lease = getLease(shard);
+        if (lease != null) {
+            if (!lease.settled.await(wait == -1 ? Long.MAX_VALUE : wait, TimeUnit.MILLISECONDS)) {
+                // the lease executor is busy with other shards, do not fail the lock because of them
+                return acquireInstrumented(resource, type, remaining(wait, start), shard);
+            }
+            if (lease.active || lease.drain.getReadHoldCount() > 0) {
+                LockToken token = acquireLeased(lease, resource, type, remaining(wait, start));
+                if (token != LEASE_LOST) {
+                    return token;
+                }
+            }
+        }
+        return acquireInstrumented(resource, type, remaining(wait, start), shard);
+    }
+
+    private static long remaining(long wait, long start) {
+        return wait <= 0 ? wait : Math.max(0, wait - (System.currentTimeMillis() - start));
+    }
+
+    private static final LockToken LEASE_LOST = new LockToken() {
+        @Override
+        public void release() {
+        }
+    };
+
+    /**
+     * Obtain a lock in memory, under a lease.
+     *
+     * @return the lock token, <code>null</code> if the lock could not be obtained, or {@link #LEASE_LOST} if the lease is
+     * being given up.
+     */
+    private LockToken acquireLeased(final Lease lease, String resource, Type type, long wait) throws InterruptedException {
+        Instrumentation.Cron cron = new Instrumentation.Cron();
+        cron.start();
+        // the lease can't be released while this thread holds locks of the shard, nested locks are still served in memory
+        boolean nested = lease.drain.getReadHoldCount() > 0;
+        // fair lock, does not barge ahead of a pending release of the lease
+        if (!lease.drain.readLock().tryLock(0, TimeUnit.MILLISECONDS)) {
+            return LEASE_LOST;
+        }
+        if (!lease.active && !nested) {
+            lease.drain.readLock().unlock();
+            return LEASE_LOST;
+        }
+        lease.lastUsed = System.currentTimeMillis();
+        final LockToken token;
+        try {
+            token = (type.equals(Type.READ)) ? super.getReadLock(resource, wait) : super.getWriteLock(resource, wait);
+        }
+        finally {
+            cron.stop();
+        }
+        if (token == null) {
+            lease.drain.readLock().unlock();
+            return null;
+        }
+        incrLockCounters(INSTR_LEASE_MODE, cron);
+        return new LockToken() {
+            @Override
+            public void release() {
+                try {
+                    token.release();
+                }
+                finally {
+                    lease.drain.readLock().unlock();
+                }
+            }
+        };
+    }
+
+    private LockToken acquireInstrumented(String resource, Type type, long wait, Long shard) throws InterruptedException {
+        Instrumentation.Cron cron = new Instrumentation.Cron();
+        cron.start();
+        LockToken token;
+        try {
+            token = (shard == null) ? acquireLock(resource, type, wait) : acquireLockOutsideLease(resource, type, wait, shard);
+        }
+        finally {
+            cron.stop();
+        }
+        if (token != null) {
+            incrLockCounters(INSTR_ZK_MODE, cron);
+        }
+        return token;
+    }
+
+    private void incrLockCounters(String mode, Instrumentation.Cron cron) {
+        if (instrumentation != null) {
+            instrumentation.incr(INSTRUMENTATION_GROUP, "acquired." + mode, 1);
+            instrumentation.addCron(INSTRUMENTATION_GROUP, "acquire." + mode, cron);
+        }
+    }
+
+    /**
+     * Obtain the ZooKeeper lock of a job of a shard this server does not hold the lease of. The lease lock is held while
+     * obtaining the lock, so that the shard can't be leased meanwhile, and the holder of the lease is asked to release it.
+     */
+    private LockToken acquireLockOutsideLease(String resource, Type type, long wait, long shard) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        InterProcessMutex leaseLock = new InterProcessMutex(zk.getClient(), getLeasePath(shard));
+        try {
+            if (!leaseLock.acquire(wait == -1 ? REVOKE_DELAY : Math.min(wait, REVOKE_DELAY), TimeUnit.MILLISECONDS)) {
+                Collection<String> holders = leaseLock.getParticipantNodes();
+                if (!holders.isEmpty()) {
+                    Revoker.attemptRevoke(zk.getClient(), holders.iterator().next());
+                }
+                if (wait == -1) {
+                    leaseLock.acquire();
+                }
+                else if (!leaseLock.acquire(remaining(wait, start), TimeUnit.MILLISECONDS)) {
+                    return null;
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            throw ex;
+        }
+        catch (Exception ex) {
+            LOG.error("Error while acquiring lease lock", ex);
+            return null;
+        }
+        try {
+            return acquireLock(resource, type, remaining(wait, start));
+        }
+        finally {
+            try {
+                leaseLock.release();
+            }
+            catch (Exception ex) {
+                LOG.warn("Could not release lease lock: " + ex.getMessage(), ex);
+            }
+        }
     }
 
     private LockToken acquireLock(final String resource, Type type, long wait) throws InterruptedException {
@@ -201,11 +448,244 @@ public class ZKLocksService extends MemoryLocksService implements Service, Instr
         }
     }
 
+    /**
+     * Lease of a shard of job ids. Locks of the shard are served in memory while the lease is active.
+     */
+    private static class Lease {
+        private final long shard;
+        private final ReentrantReadWriteLock drain = new ReentrantReadWriteLock(true);
+        private final CountDownLatch settled = new CountDownLatch(1);
+        // only used by the lease executor thread
+        private InterProcessMutex mutex;
+        private volatile boolean active;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private Lease(long shard) {
+            this.shard = shard;
+        }
+    }
+
+    /**
+     * Return the lease of a shard, starting to acquire it if this server owns the shard and does not hold it.
+     *
+     * @return the lease, null if this server does not hold and is not acquiring it.
+     */
+    private Lease getLease(long shard) {
+        Lease lease = leases.get(shard);
+        if (lease != null) {
+            return lease;
+        }
+        Long retryTime = leaseRetryTimes.get(shard);
+        if (retryTime != null && retryTime > System.currentTimeMillis()) {
+            return null;
+        }
+        if (!isConnected() || !isShardForThisServer(shard)) {
+            return null;
+        }
+        Lease newLease = new Lease(shard);
+        lease = leases.putIfAbsent(shard, newLease);
+        if (lease == null) {
+            lease = newLease;
+            final Lease toAcquire = newLease;
+            try {
+                leaseExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        acquireLease(toAcquire);
+                    }
+                });
+            }
+            catch (Exception ex) {
+                leases.remove(shard, newLease);
+                newLease.settled.countDown();
+                return null;
+            }
+        }
+        return lease;
+    }
+
+    boolean isShardForThisServer(long shard) {
+        JobsConcurrencyService concurrencyService = Services.get().get(JobsConcurrencyService.class);
+        List<String> buckets = (concurrencyService == null) ? null
+                : concurrencyService.getJobIdBucketsForThisServer();
+        return buckets != null && Collections.binarySearch(buckets, JobIdRing.formatBucket(shard)) >= 0;
+    }
+
+    private long getShard(long idNum) {
+        return JobIdRing.getBucket(idNum);
+    }
+
+    private static boolean isConnected() {
+        ConnectionState state = ZKConnectionListener.getZKConnectionState();
+        return state == null || state == ConnectionState.CONNECTED || state == ConnectionState.RECONNECTED;
+    }
+
+    private String getLeasePath(long shard) {
+        return LEASES_NODE + "/" + shard;
+    }
+
+    /**
+     * Acquire a lease, on the lease executor thread. The lease is activated once all the ZooKeeper locks of the shard, taken
+     * before, are released.
+     */
+    private void acquireLease(final Lease lease) {
+        boolean acquired = false;
+        try {
+            lease.mutex = new InterProcessMutex(zk.getClient(), getLeasePath(lease.shard));
+            lease.mutex.makeRevocable(new RevocationListener<InterProcessMutex>() {
+                @Override
+                public void revocationRequested(InterProcessMutex forLock) {
+                    LOG.debug("Release of the lock lease of shard [{0}] requested", lease.shard);
+                    releaseLease(lease, true);
+                }
+            });
+            if (lease.mutex.acquire(leaseAcquireTimeout, TimeUnit.MILLISECONDS)) {
+                acquired = true;
+                long timeout = System.currentTimeMillis() + leaseAcquireTimeout;
+                while (hasShardLocks(lease.shard)) {
+                    if (System.currentTimeMillis() > timeout) {
+                        LOG.info("ZooKeeper locks of shard [{0}] still held, not leasing it", lease.shard);
+                        return;
+                    }
+                    Thread.sleep(DRAIN_POLL_INTERVAL);
+                }
+                lease.active = true;
+                LOG.debug("Acquired the lock lease of shard [{0}]", lease.shard);
+            }
+        }
+        catch (Exception ex) {
+            LOG.warn("Could not acquire the lock lease of shard [{0}]: {1}", lease.shard, ex.getMessage(), ex);
+        }
+        finally {
+            if (!lease.active) {
+                if (acquired) {
+                    releaseMutex(lease);
+                }
+                leases.remove(lease.shard, lease);
+                leaseRetryTimes.put(lease.shard, System.currentTimeMillis() + leaseBackoff);
+            }
+            lease.settled.countDown();
+        }
+    }
+
+    /**
+     * Check if there are ZooKeeper locks held, or being acquired, on jobs of a shard.
+     */
+    private boolean hasShardLocks(long shard) throws Exception {
+        CuratorFramework client = zk.getClient();
+        if (client.checkExists().forPath(LOCKS_NODE) == null) {
+            return false;
+        }
+        for (String node : client.getChildren().forPath(LOCKS_NODE)) {
+            long idNum = JobIdRing.getIdNumber(node);
+            if (idNum >= 0 && getShard(idNum) == shard) {
+                String path = ZKPaths.makePath(LOCKS_NODE, node);
+                if (client.checkExists().forPath(path) != null && !client.getChildren().forPath(path).isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Release a lease on the lease executor thread, once the locks handed out under it are released. Locks of the shard are
+     * served with ZooKeeper locks from now on.
+     *
+     * @param lease the lease.
+     * @param revoked true if another server asked for the lease, the lease is not acquired again before the backoff.
+     */
+    private void releaseLease(final Lease lease, final boolean revoked) {
+        lease.active = false;
+        if (revoked) {
+            leaseRetryTimes.put(lease.shard, System.currentTimeMillis() + leaseBackoff);
+        }
+        try {
+            leaseExecutor.execute(new LeaseRelease(lease, leaseExecutor));
+        }
+        catch (Exception ex) {
+            LOG.warn("Could not release the lock lease of shard [{0}]: {1}", lease.shard, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Release of a lease. While locks handed out under the lease are still held, the release is retried later instead of
+     * waiting for them, so that the lease executor thread keeps serving the leases of the other shards.
+     */
+    private class LeaseRelease implements Runnable {
+        private final Lease lease;
+        private final ScheduledExecutorService executor;
+
+        private LeaseRelease(Lease lease, ScheduledExecutorService executor) {
+            this.lease = lease;
+            this.executor = executor;
+        }
+
+        @Override
+        public void run() {
+            if (lease.mutex == null || leases.get(lease.shard) != lease) {
+                return;
+            }
+            if (!lease.drain.writeLock().tryLock()) {
+                try {
+                    executor.schedule(this, DRAIN_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                catch (RejectedExecutionException ex) {
+                    // the service is being destroyed, wait for the locks of the shard on this thread
+                    lease.drain.writeLock().lock();
+                }
+            }
+            try {
+                leases.remove(lease.shard, lease);
+                releaseMutex(lease);
+            }
+            finally {
+                lease.drain.writeLock().unlock();
+            }
+            LOG.debug("Released the lock lease of shard [{0}]", lease.shard);
+        }
+    }
+
+    private void releaseMutex(Lease lease) {
+        try {
+            lease.mutex.release();
+        }
+        catch (Exception ex) {
+            LOG.warn("Could not release the lock lease of shard [{0}]: {1}", lease.shard, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Release the leases that were not used recently, or of shards this server does not own anymore.
+     */
+    private void checkLeases() {
+        long idleTime = System.currentTimeMillis() - leaseIdleTimeout;
+        for (Lease lease : leases.values()) {
+            if (lease.active && (lease.lastUsed < idleTime || !isShardForThisServer(lease.shard))) {
+                releaseLease(lease, false);
+            }
+        }
+        for (Long shard : leaseRetryTimes.keySet()) {
+            Long retryTime = leaseRetryTimes.get(shard);
+            if (retryTime != null && retryTime < System.currentTimeMillis()) {
+                leaseRetryTimes.remove(shard, retryTime);
+            }
+        }
+    }
+
     @VisibleForTesting
     public ConcurrentMap<String, InterProcessReadWriteLock> getLocks(){
         return zkLocks;
     }
 
+    @VisibleForTesting
+    boolean isLeaseActive(String resource) {
+        long idNum = JobIdRing.getIdNumber(resource);
+        Lease lease = (idNum < 0 || !leaseEnabled) ? null : leases.get(getShard(idNum));
+        return lease != null && lease.active;
+    }
+
     private static ScheduledExecutorService getExecutorService() {
         return ThreadUtils.newFixedThreadScheduledPool(ConfigurationService.getInt(REAPING_THREADS),
                 "ZKLocksChildReaper");
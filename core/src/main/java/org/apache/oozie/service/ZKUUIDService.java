@@ -21,6 +21,7 @@ package org.apache.oozie.service;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.curator.RetryPolicy;
 import org.apache.curator.framework.recipes.atomic.AtomicValue;
@@ -38,6 +39,11 @@ import com.google.common.annotations.VisibleForTesting;
  * Service that provides distributed job id sequence via ZooKeeper. Requires that a ZooKeeper ensemble is available. The
  * sequence path will be located under a ZNode named "job_id_sequence" under the namespace (see {@link ZKUtils}). The
  * sequence will be reset to 0, once max is reached.
+ * <p>
+ * Each server leases blocks of {@link #CONF_SEQUENCE_BLOCK_SIZE} consecutive sequence numbers with a single ZooKeeper
+ * update and hands them out locally, so job ids of different servers are not interleaved. A block never crosses the
+ * max sequence, and blocks leased after the sequence was reset get a new start time, so that ids of a new cycle never
+ * collide with ids handed out by the same server in the previous one.
  */
 
 public class ZKUUIDService extends UUIDService {
@@ -45,6 +51,7 @@ public class ZKUUIDService extends UUIDService {
     public static final String CONF_PREFIX = Service.CONF_PREFIX + "ZKUUIDService.";
 
     public static final String CONF_SEQUENCE_MAX = CONF_PREFIX + "jobid.sequence.max";
+    public static final String CONF_SEQUENCE_BLOCK_SIZE = CONF_PREFIX + "jobid.sequence.block.size";
     public static final String LOCKS_NODE = "/SEQUENCE_LOCK";
 
     public static final String ZK_SEQUENCE_PATH = "/job_id_sequence";
@@ -59,6 +66,26 @@ public class ZKUUIDService extends UUIDService {
 
     DistributedAtomicLong atomicIdGenerator;
 
+    private long blockSize;
+    private volatile SequenceBlock block;
+
+    /**
+     * Block of sequence numbers leased from ZooKeeper, with the start time of the ids built from them.
+     */
+    private static class SequenceBlock {
+        private final long start;
+        private final long end;
+        private final AtomicLong next;
+        private final String startTime;
+
+        private SequenceBlock(long start, long end, String startTime) {
+            this.start = start;
+            this.end = end;
+            this.next = new AtomicLong(start);
+            this.startTime = startTime;
+        }
+    }
+
     public static final ThreadLocal<SimpleDateFormat> dt = new ThreadLocal<SimpleDateFormat>() {
         @Override
         protected SimpleDateFormat initialValue() {
@@ -71,6 +98,8 @@ public class ZKUUIDService extends UUIDService {
     public void init(Services services) throws ServiceException {
 
         super.init(services);
+        blockSize = Math.max(1, ConfigurationService.getLong(services.getConf(), CONF_SEQUENCE_BLOCK_SIZE));
+        block = null;
         try {
             zk = ZKUtils.register(this);
             PromotedToLock.Builder lockBuilder = PromotedToLock.builder().lockPath(getPromotedLock())
@@ -92,37 +121,66 @@ public class ZKUUIDService extends UUIDService {
      */
     @Override
     protected String createSequence() {
-        String localStartTime = super.startTime;
-        long id = 0L;
         try {
-            id = getZKSequence();
+            return getZKSequence();
         }
         catch (Exception e) {
             LOG.error("Error getting jobId, switching to old UUIDService", e);
-            id = super.getCounter();
-            localStartTime = dt.get().format(new Date());
+            return appendTimeToSequence(super.getCounter(), dt.get().format(new Date()));
         }
-        return appendTimeToSequence(id, localStartTime);
     }
 
-    protected synchronized long getZKSequence() throws Exception {
-        long id = getDistributedSequence();
+    /**
+     * Return the next sequence, with the start time of the block it was taken from. Only leasing a new block, once
+     * the current one is exhausted, goes to ZooKeeper.
+     *
+     * @return the sequence, "${padded_counter}-${startTime}".
+     * @throws Exception thrown if a new block could not be leased.
+     */
+    protected String getZKSequence() throws Exception {
+        SequenceBlock current = block;
+        while (true) {
+            if (current != null) {
+                long id = current.next.getAndIncrement();
+                if (id < current.end) {
+                    return appendTimeToSequence(id, current.startTime);
+                }
+            }
+            current = leaseBlock(current);
+        }
+    }
 
-        if (id >= maxSequence) {
+    private synchronized SequenceBlock leaseBlock(SequenceBlock exhausted) throws Exception {
+        if (block != exhausted) {
+            // leased by another thread meanwhile
+            return block;
+        }
+        long start = getDistributedSequence(blockSize);
+        if (start >= maxSequence) {
             resetSequence();
-            id = getDistributedSequence();
+            start = getDistributedSequence(blockSize);
+        }
+        if (exhausted != null && (start <= exhausted.start || !startTime.equals(exhausted.startTime))) {
+            // the sequence was reset since the previous block, possibly by another server, ids of the new cycle
+            // must not reuse the start time of the previous one
+            while (startTime.equals(exhausted.startTime)) {
+                Thread.sleep(1);
+                resetStartTime();
+            }
         }
-        return id;
+        SequenceBlock leased = new SequenceBlock(start, Math.min(start + blockSize, maxSequence), startTime);
+        block = leased;
+        return leased;
     }
 
     @SuppressWarnings("finally")
-    private long getDistributedSequence() throws Exception {
+    private long getDistributedSequence(long delta) throws Exception {
         if (atomicIdGenerator == null) {
             throw new Exception("Sequence generator can't be null. Path : " + ZK_SEQUENCE_PATH);
         }
         AtomicValue<Long> value = null;
         try {
-            value = atomicIdGenerator.increment();
+            value = atomicIdGenerator.add(delta);
         }
         catch (Exception e) {
             throw new Exception("Exception incrementing UID for session ", e);
@@ -194,6 +252,7 @@ public class ZKUUIDService extends UUIDService {
 
     @Override
     public void destroy() {
+        block = null;
         if (zk != null) {
             zk.unregister(this);
         }
@@ -38,7 +38,6 @@ import org.apache.oozie.util.SimpleTimestampedMessageParser;
 import org.apache.oozie.util.TimestampedMessageParser;
 import org.apache.oozie.util.XLog;
 import org.apache.oozie.util.XLogFilter;
-import org.apache.oozie.util.XLogStreamer;
 import org.apache.oozie.util.ZKUtils;
 
 /**
@@ -107,7 +106,7 @@ public class ZKXLogStreamingService extends XLogStreamingService implements Serv
         if (xLogService.getLogOverWS()) {
             // If ALL_SERVERS_PARAM is set to false, then only stream our log
             if (!Services.get().get(JobsConcurrencyService.class).isAllServerRequest(params)) {
-                new XLogStreamer(filter, xLogService.getOozieLogPath(), xLogService.getOozieLogName(),
+                createStreamer(filter, xLogService.getOozieLogPath(), xLogService.getOozieLogName(),
                         xLogService.getOozieLogRotation()).streamLog(writer, startTime, endTime, bufferLen);
             }
             // Otherwise, we have to go collate relevant logs from the other Oozie servers
@@ -137,7 +136,7 @@ public class ZKXLogStreamingService extends XLogStreamingService implements Serv
         if (xLogService.isErrorLogEnabled()) {
             // If ALL_SERVERS_PARAM is set to false, then only stream our log
             if (!Services.get().get(JobsConcurrencyService.class).isAllServerRequest(params)) {
-                new XLogStreamer(filter, xLogService.getOozieErrorLogPath(), xLogService.getOozieErrorLogName(),
+                createStreamer(filter, xLogService.getOozieErrorLogPath(), xLogService.getOozieErrorLogName(),
                         xLogService.getOozieErrorLogRotation()).streamLog(writer, startTime, endTime, bufferLen);
             }
             // Otherwise, we have to go collate relevant logs from the other Oozie servers
@@ -169,7 +168,7 @@ public class ZKXLogStreamingService extends XLogStreamingService implements Serv
         if (xLogService.isAuditLogEnabled()) {
             // If ALL_SERVERS_PARAM is set to false, then only stream our log
             if (!Services.get().get(JobsConcurrencyService.class).isAllServerRequest(params)) {
-                new XLogStreamer(filter, xLogService.getOozieAuditLogPath(), xLogService.getOozieAuditLogName(),
+                createStreamer(filter, xLogService.getOozieAuditLogPath(), xLogService.getOozieAuditLogName(),
                         xLogService.getOozieAuditLogRotation()).streamLog(writer, startTime, endTime, bufferLen);
             }
             // Otherwise, we have to go collate relevant logs from the other Oozie servers
@@ -222,7 +221,7 @@ public class ZKXLogStreamingService extends XLogStreamingService implements Serv
                 String otherId = oozieMeta.get(ZKUtils.ZKMetadataKeys.OOZIE_ID);
                 // If it's this server, we can just get them directly
                 if (otherId.equals(zk.getZKId())) {
-                    BufferedReader reader = new XLogStreamer(filter, logPath, logName, rotation).makeReader(startTime,
+                    BufferedReader reader = createStreamer(filter, logPath, logName, rotation).makeReader(startTime,
                             endTime);
                     parsers.add(new TimestampedMessageParser(reader, filter));
                 }
@@ -44,6 +44,8 @@ public class SLACalcStatus extends SLAEvent {
     private long actualDuration = -1;
     private Date lastModifiedTime;
     private byte eventProcessed;
+    // position of this status in the deadline index of SLACalculatorMemory, updated through SLADeadlineIndex
+    volatile SLADeadlineIndex.Entry deadlineEntry;
 
     private XLog LOG;
 
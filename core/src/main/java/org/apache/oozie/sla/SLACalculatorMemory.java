@@ -24,10 +24,12 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.oozie.AppType;
@@ -66,26 +68,35 @@ import com.google.common.annotations.VisibleForTesting;
 
 /**
  * Implementation class for SLACalculator that calculates SLA related to
- * start/end/duration of jobs using a memory-based map
+ * start/end/duration of jobs using a memory-based map.
+ * <p>
+ * Jobs are kept in a deadline index ordered by the next time one of their expected start, end or duration
+ * thresholds is crossed, the periodic check only processes the jobs whose deadline has passed and the jobs whose
+ * SLA summary was modified in the database since the previous check, by this server or another one.
  */
 public class SLACalculatorMemory implements SLACalculator {
 
     private static XLog LOG = XLog.getLog(SLACalculatorMemory.class);
-    // TODO optimization priority based insertion/processing/bumping up-down
     protected Map<String, SLACalcStatus> slaMap;
     protected Set<String> historySet;
+    private final SLADeadlineIndex deadlineIndex = new SLADeadlineIndex();
     private static int capacity;
     private static JPAService jpaService;
     protected EventHandlerService eventHandler;
     private static int modifiedAfter;
     private static long jobEventLatency;
+    private long recheckInterval;
+    private volatile long lastCheckTime;
 
     @Override
     public void init(Configuration conf) throws ServiceException {
         capacity = ConfigurationService.getInt(conf, SLAService.CONF_CAPACITY);
         jobEventLatency = ConfigurationService.getInt(conf, SLAService.CONF_JOB_EVENT_LATENCY);
+        recheckInterval = ConfigurationService.getLong(conf, SLAService.CONF_SLA_RECHECK_INTERVAL) * 1000;
         slaMap = new ConcurrentHashMap<String, SLACalcStatus>();
         historySet = Collections.synchronizedSet(new HashSet<String>());
+        deadlineIndex.clear();
+        lastCheckTime = System.currentTimeMillis();
         jpaService = Services.get().get(JPAService.class);
         eventHandler = Services.get().get(EventHandlerService.class);
         // load events modified after
@@ -162,7 +173,7 @@ public class SLACalculatorMemory implements SLACalculator {
                             slaCalcStatus);
                 }
                 else if (slaCalcStatus.getEventProcessed() < 7) {
-                    slaMap.put(jobId, slaCalcStatus);
+                    putSlaCalc(jobId, slaCalcStatus);
                     slaPendingCount++;
                     LOG.debug("Adding job [{0}] to slamap. EventProcessed is [{1}]", slaCalcStatus,
                             slaCalcStatus);
@@ -223,6 +234,64 @@ public class SLACalculatorMemory implements SLACalculator {
     public void clear() {
         slaMap.clear();
         historySet.clear();
+        deadlineIndex.clear();
+    }
+
+    private void putSlaCalc(String jobId, SLACalcStatus slaCalc) {
+        SLACalcStatus previous = slaMap.put(jobId, slaCalc);
+        if (previous != null && previous != slaCalc) {
+            deadlineIndex.remove(previous);
+        }
+        scheduleCheck(slaCalc);
+    }
+
+    private void removeSlaCalc(String jobId) {
+        SLACalcStatus slaCalc = slaMap.remove(jobId);
+        if (slaCalc != null) {
+            deadlineIndex.remove(slaCalc);
+        }
+    }
+
+    private void scheduleCheck(SLACalcStatus slaCalc) {
+        deadlineIndex.schedule(slaCalc, getNextCheckTime(slaCalc));
+    }
+
+    /**
+     * Return the time after which {@link #isChanged(SLACalcStatus)} returns true for a job. Without a job event or a
+     * change of its SLA summary in the database, the job is not checked before that time, or before the recheck
+     * interval elapses, whichever comes first.
+     *
+     * @param slaCalc SLA calculator status of the job.
+     * @return the time of the next check, in milliseconds.
+     */
+    private long getNextCheckTime(SLACalcStatus slaCalc) {
+        SLARegistrationBean reg = slaCalc.getSLARegistrationBean();
+        byte eventProc = slaCalc.getEventProcessed();
+        long next = Long.MAX_VALUE;
+        if (recheckInterval > 0) {
+            // spread the rechecks to avoid checking all the jobs loaded together at once
+            next = System.currentTimeMillis() + recheckInterval / 2
+                    + ThreadLocalRandom.current().nextLong(recheckInterval / 2 + 1);
+        }
+        if ((eventProc & 1) == 0) {
+            if (reg.getExpectedStart() == null) {
+                return Long.MIN_VALUE;
+            }
+            next = Math.min(next, reg.getExpectedStart().getTime() + jobEventLatency);
+        }
+        if (eventProc != 8 && ((eventProc >> 1) & 1) == 0) {
+            if (reg.getExpectedDuration() == -1) {
+                return Long.MIN_VALUE;
+            }
+            if (slaCalc.getActualStart() != null) {
+                next = Math.min(next, slaCalc.getActualStart().getTime() + reg.getExpectedDuration()
+                        + jobEventLatency);
+            }
+        }
+        if (eventProc < 4 && reg.getExpectedEnd() != null) {
+            next = Math.min(next, reg.getExpectedEnd().getTime() + jobEventLatency);
+        }
+        return next;
     }
 
     /**
@@ -235,6 +304,17 @@ public class SLACalculatorMemory implements SLACalculator {
             // job might be processed and removed from map by addJobStatus
             return;
         }
+        try {
+            updateJobSla(jobId, slaCalc);
+        }
+        finally {
+            if (slaMap.get(jobId) == slaCalc) {
+                scheduleCheck(slaCalc);
+            }
+        }
+    }
+
+    private void updateJobSla(String jobId, SLACalcStatus slaCalc) throws Exception {
         synchronized (slaCalc) {
             // get eventProcessed on DB for validation in HA
             SLASummaryBean summaryBean = null;
@@ -245,7 +325,7 @@ public class SLACalculatorMemory implements SLACalculator {
             catch (JPAExecutorException e) {
                 if (e.getErrorCode().equals(ErrorCode.E0604) || e.getErrorCode().equals(ErrorCode.E0605)) {
                     LOG.debug("job [{0}] is is not in DB, removing from Memory", jobId);
-                    slaMap.remove(jobId);
+                    removeSlaCalc(jobId);
                     return;
                 }
                 throw e;
@@ -256,7 +336,7 @@ public class SLACalculatorMemory implements SLACalculator {
                 if (eventProc == 7) {
                     historySet.add(jobId);
                 }
-                slaMap.remove(jobId);
+                removeSlaCalc(jobId);
                 LOG.trace("Removed Job [{0}] from map as SLA processed", jobId);
             }
             else {
@@ -276,7 +356,7 @@ public class SLACalculatorMemory implements SLACalculator {
                     catch (XException e) {
                         if (e.getErrorCode().equals(ErrorCode.E0604) || e.getErrorCode().equals(ErrorCode.E0605)) {
                             LOG.debug("job [{0}] is is not in DB, removing from Memory", slaCalc.getId());
-                            slaMap.remove(jobId);
+                            removeSlaCalc(jobId);
                         }
                     }
                 }
@@ -342,15 +422,36 @@ public class SLACalculatorMemory implements SLACalculator {
     }
 
     /**
-     * Periodically run by the SLAService worker threads to update SLA status by
-     * iterating through all the jobs in the map
+     * Periodically run by the SLAService worker threads to update SLA status of the jobs whose deadline has passed or
+     * whose SLA summary was modified since the previous run
      */
     @Override
     public void updateAllSlaStatus() {
         LOG.info("Running periodic SLA check");
-        Iterator<String> iterator = slaMap.keySet().iterator();
-        while (iterator.hasNext()) {
-            String jobId = iterator.next();
+        long now = System.currentTimeMillis();
+        Set<String> jobIds = new LinkedHashSet<String>();
+        try {
+            // jobs updated by job events on any server, the summary may be written a bit after its last modified time
+            Date modifiedAfter = new Date(lastCheckTime - jobEventLatency);
+            for (SLASummaryBean summary : SLASummaryQueryExecutor.getInstance().getList(
+                    SLASummaryQuery.GET_SLA_SUMMARY_MODIFIED_AFTER, modifiedAfter)) {
+                if (slaMap.containsKey(summary.getId())) {
+                    jobIds.add(summary.getId());
+                }
+            }
+            lastCheckTime = now;
+        }
+        catch (JPAExecutorException e) {
+            LOG.warn("Could not get the SLA summaries modified since the previous SLA check", e);
+        }
+        for (SLADeadlineIndex.Entry entry : deadlineIndex.pollDue(now)) {
+            SLACalcStatus slaCalc = slaMap.get(entry.getJobId());
+            if (slaCalc != null && SLADeadlineIndex.isCurrent(slaCalc, entry)) {
+                jobIds.add(entry.getJobId());
+            }
+        }
+        LOG.debug("Checking SLA of [{0}] jobs out of [{1}]", jobIds.size(), slaMap.size());
+        for (String jobId : jobIds) {
             try {
                 LOG.trace("Processing SLA for jobid={0}", jobId);
                 updateJobSla(jobId);
@@ -373,7 +474,7 @@ public class SLACalculatorMemory implements SLACalculator {
                 SLACalcStatus slaCalc = new SLACalcStatus(reg);
                 slaCalc.setSLAStatus(SLAStatus.NOT_STARTED);
                 slaCalc.setJobStatus(getJobStatus(reg.getAppType()));
-                slaMap.put(jobId, slaCalc);
+                putSlaCalc(jobId, slaCalc);
                 List<JsonBean> insertList = new ArrayList<JsonBean>();
                 final SLASummaryBean summaryBean = new SLASummaryBean(slaCalc);
                 final Timestamp currentTime = DateUtils.convertDateToTimestamp(new Date());
@@ -427,7 +528,7 @@ public class SLACalculatorMemory implements SLACalculator {
                 SLACalcStatus slaCalc = new SLACalcStatus(reg);
                 slaCalc.setSLAStatus(SLAStatus.NOT_STARTED);
                 slaCalc.setJobStatus(getJobStatus(reg.getAppType()));
-                slaMap.put(jobId, slaCalc);
+                putSlaCalc(jobId, slaCalc);
 
                 @SuppressWarnings("rawtypes")
                 List<UpdateEntry> updateList = new ArrayList<UpdateEntry>();
@@ -457,9 +558,13 @@ public class SLACalculatorMemory implements SLACalculator {
      */
     @Override
     public void removeRegistration(String jobId) {
-        if (slaMap.remove(jobId) == null) {
+        SLACalcStatus slaCalc = slaMap.remove(jobId);
+        if (slaCalc == null) {
             historySet.remove(jobId);
         }
+        else {
+            deadlineIndex.remove(slaCalc);
+        }
     }
 
     /**
@@ -482,7 +587,7 @@ public class SLACalculatorMemory implements SLACalculator {
                 SLASummaryBean slaSummaryBean = SLASummaryQueryExecutor.getInstance().get(
                         SLASummaryQuery.GET_SLA_SUMMARY, jobId);
                 slaCalc = new SLACalcStatus(slaSummaryBean, slaRegBean);
-                slaMap.put(jobId, slaCalc);
+                putSlaCalc(jobId, slaCalc);
             }
         }
         else {
@@ -508,6 +613,12 @@ public class SLACalculatorMemory implements SLACalculator {
                 LOG.error(e);
                 throw new ServiceException(e);
             }
+            finally {
+                // the actual start and the processed events may have changed
+                if (slaMap.get(jobId) == slaCalc) {
+                    scheduleCheck(slaCalc);
+                }
+            }
             return true;
         }
         else {
@@ -518,12 +629,12 @@ public class SLACalculatorMemory implements SLACalculator {
     private void checkEventProc(SLACalcStatus slaCalc){
         byte eventProc = slaCalc.getEventProcessed();
         if (slaCalc.getEventProcessed() >= 8) {
-            slaMap.remove(slaCalc.getId());
+            removeSlaCalc(slaCalc.getId());
             LOG.debug("Removed Job [{0}] from map after Event-processed=8", slaCalc.getId());
         }
         if (eventProc == 7) {
             historySet.add(slaCalc.getId());
-            slaMap.remove(slaCalc.getId());
+            removeSlaCalc(slaCalc.getId());
             LOG.debug("Removed Job [{0}] from map after Event-processed=7", slaCalc.getId());
         }
     }
@@ -621,6 +732,9 @@ public class SLACalculatorMemory implements SLACalculator {
             if (slaCalc != null) {
                 updateParams(slaCalc, jobIdSLAPair.getSecond());
                 updateDBSlaExpectedValues(slaCalc, updateList);
+                if (slaMap.get(slaCalc.getId()) == slaCalc) {
+                    scheduleCheck(slaCalc);
+                }
                 isJobFound = true;
             }
         }
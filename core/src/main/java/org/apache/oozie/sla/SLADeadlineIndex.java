@@ -0,0 +1,137 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.sla;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Index of the SLA calculator statuses ordered by the time they have to be checked next.
+ * <p>
+ * Each status has at most one entry in the index, moving a status costs O(log n). A status polled out of the index
+ * keeps a reference to its last entry until it is scheduled again, this is how entries left over by concurrent
+ * updates are recognized and dropped.
+ */
+class SLADeadlineIndex {
+
+    private static final AtomicReferenceFieldUpdater<SLACalcStatus, Entry> ENTRY_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(SLACalcStatus.class, Entry.class, "deadlineEntry");
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<Entry>();
+
+    static final class Entry implements Comparable<Entry> {
+        private final long deadline;
+        private final String jobId;
+        private final long seq;
+
+        private Entry(long deadline, String jobId, long seq) {
+            this.deadline = deadline;
+            this.jobId = jobId;
+            this.seq = seq;
+        }
+
+        long getDeadline() {
+            return deadline;
+        }
+
+        String getJobId() {
+            return jobId;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            if (deadline != other.deadline) {
+                return deadline < other.deadline ? -1 : 1;
+            }
+            int cmp = jobId.compareTo(other.jobId);
+            if (cmp != 0) {
+                return cmp;
+            }
+            return seq < other.seq ? -1 : (seq == other.seq ? 0 : 1);
+        }
+    }
+
+    /**
+     * Schedule the next check of a status, replacing its previous position.
+     *
+     * @param slaCalc SLA calculator status.
+     * @param deadline time the status has to be checked at, in milliseconds.
+     */
+    void schedule(SLACalcStatus slaCalc, long deadline) {
+        Entry entry = new Entry(deadline, slaCalc.getId(), sequence.incrementAndGet());
+        Entry previous = ENTRY_UPDATER.getAndSet(slaCalc, entry);
+        if (previous != null) {
+            entries.remove(previous);
+        }
+        entries.add(entry);
+    }
+
+    /**
+     * Remove a status from the index.
+     *
+     * @param slaCalc SLA calculator status.
+     */
+    void remove(SLACalcStatus slaCalc) {
+        Entry previous = ENTRY_UPDATER.getAndSet(slaCalc, null);
+        if (previous != null) {
+            entries.remove(previous);
+        }
+    }
+
+    /**
+     * Remove and return the entries whose deadline is before a time, in deadline order.
+     *
+     * @param time time in milliseconds.
+     * @return the due entries.
+     */
+    List<Entry> pollDue(long time) {
+        List<Entry> due = new ArrayList<Entry>();
+        for (Entry entry : entries) {
+            if (entry.deadline >= time) {
+                break;
+            }
+            if (entries.remove(entry)) {
+                due.add(entry);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Check if an entry polled out of the index is still the current position of a status.
+     *
+     * @param slaCalc SLA calculator status.
+     * @param entry polled entry.
+     * @return <code>true</code> if the entry is the last one scheduled for the status.
+     */
+    static boolean isCurrent(SLACalcStatus slaCalc, Entry entry) {
+        return slaCalc.deadlineEntry == entry;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    void clear() {
+        entries.clear();
+    }
+}
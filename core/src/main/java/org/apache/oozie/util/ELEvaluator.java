@@ -18,8 +18,11 @@
 
 package org.apache.oozie.util;
 
+import org.apache.commons.el.Coercions;
+import org.apache.commons.el.Expression;
 import org.apache.commons.el.ExpressionEvaluatorImpl;
 import org.apache.commons.el.ExpressionString;
+import org.apache.commons.el.Logger;
 
 import javax.servlet.jsp.el.ELException;
 import javax.servlet.jsp.el.ExpressionEvaluator;
@@ -140,6 +143,8 @@ public class ELEvaluator {
 
     private Context context;
 
+    private static final Logger EL_LOGGER = new Logger(System.out);
+
     private ExpressionEvaluatorImpl evaluator = new ExpressionEvaluatorImpl();
 
     /**
@@ -188,7 +193,8 @@ public class ELEvaluator {
     }
 
     /**
-     * Evaluate an EL expression. <p>
+     * Evaluate an EL expression. <p> The parsed expression is taken from the {@link ELExpressionCache}, the expression is
+     * parsed only if it is not there.
      *
      * @param expr EL expression to evaluate.
      * @param clazz return type of the EL expression.
@@ -201,7 +207,21 @@ public class ELEvaluator {
         ELEvaluator existing = current.get();
         try {
             current.set(this);
-            return (T) evaluator.evaluate(expr, clazz, context, context);
+            if (expr == null) {
+                return (T) evaluator.evaluate(expr, clazz, context, context);
+            }
+            Object parsed = ELExpressionCache.get().parse(expr);
+            Object value;
+            if (parsed instanceof Expression) {
+                value = ((Expression) parsed).evaluate(context, context, EL_LOGGER);
+            }
+            else if (parsed instanceof ExpressionString) {
+                value = ((ExpressionString) parsed).evaluate(context, context, EL_LOGGER);
+            }
+            else {
+                value = parsed;
+            }
+            return (T) Coercions.coerce(value, clazz, EL_LOGGER);
         }
         catch (ELException ex) {
             if (ex.getRootCause() instanceof Exception) {
@@ -230,7 +250,7 @@ public class ELEvaluator {
     public boolean checkForExistence(String expr, String sequence)
             throws Exception {
         try {
-            Object exprString = evaluator.parseExpressionString(expr);
+            Object exprString = ELExpressionCache.get().parse(expr);
             if (exprString instanceof ExpressionString) {
                 for (Object element : ((ExpressionString)exprString).getElements()) {
                     if (element instanceof String &&
@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.util;
+
+import java.io.StringReader;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.jsp.el.ELException;
+
+import org.apache.commons.el.ExpressionEvaluatorImpl;
+import org.apache.commons.el.parser.ELParser;
+import org.apache.commons.el.parser.ParseException;
+import org.apache.commons.el.parser.TokenMgrError;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+
+/**
+ * Process wide, bounded cache of parsed EL expressions, shared by all the {@link ELEvaluator} instances.
+ * <p>
+ * Parsed expressions do not depend on the functions and variables of an evaluator, functions are resolved when the
+ * expression is evaluated, so expressions are cached by their string only. Expressions are parsed without going through
+ * the commons-el cache, which is unbounded and synchronized.
+ */
+public class ELExpressionCache {
+
+    /**
+     * Default maximum number of cached expressions.
+     */
+    public static final int DEFAULT_SIZE = 10000;
+
+    private static volatile ELExpressionCache instance = new ELExpressionCache(DEFAULT_SIZE);
+
+    // only used to report parse errors with the same messages as commons-el
+    private static final ExpressionEvaluatorImpl ERROR_EVALUATOR = new ExpressionEvaluatorImpl(true);
+
+    private final Cache<String, Object> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private ELExpressionCache(int size) {
+        cache = CacheBuilder.newBuilder().maximumSize(size).removalListener(new RemovalListener<String, Object>() {
+            @Override
+            public void onRemoval(RemovalNotification<String, Object> notification) {
+                if (notification.wasEvicted()) {
+                    evictions.incrementAndGet();
+                }
+            }
+        }).build();
+    }
+
+    /**
+     * Return the process wide expression cache.
+     *
+     * @return the expression cache.
+     */
+    public static ELExpressionCache get() {
+        return instance;
+    }
+
+    /**
+     * Replace the process wide expression cache with a new, empty, cache.
+     *
+     * @param size maximum number of cached expressions, 0 disables the cache.
+     */
+    public static void reset(int size) {
+        instance = new ELExpressionCache(Math.max(0, size));
+    }
+
+    /**
+     * Return the parsed form of an expression, parsing it only if it is not cached.
+     *
+     * @param expr the expression.
+     * @return a <code>String</code> for an expression without EL, an {@link org.apache.commons.el.Expression} or an
+     * {@link org.apache.commons.el.ExpressionString}.
+     * @throws ELException thrown if the expression could not be parsed.
+     */
+    public Object parse(String expr) throws ELException {
+        Object parsed = cache.getIfPresent(expr);
+        if (parsed != null) {
+            hits.incrementAndGet();
+            return parsed;
+        }
+        misses.incrementAndGet();
+        if (expr.length() == 0) {
+            return "";
+        }
+        try {
+            parsed = new ELParser(new StringReader(expr)).ExpressionString();
+        }
+        catch (ParseException ex) {
+            // throws the exception commons-el would have thrown
+            return ERROR_EVALUATOR.parseExpressionString(expr);
+        }
+        catch (TokenMgrError ex) {
+            throw new ELException(ex.getMessage());
+        }
+        cache.put(expr, parsed);
+        return parsed;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Consistent hashing ring assigning job ids to Oozie servers.
+ * <p>
+ * Jobs are grouped in {@link #BUCKETS} buckets by the last 3 digits of the 7 digit sequence number of their id. Each
+ * bucket is placed on the ring at a position derived from a hash of its number, each server is placed on the ring at a
+ * number of virtual nodes derived from its id, and owns the buckets from each of its virtual nodes up to the next virtual
+ * node of the ring. Adding or removing a server only moves the buckets next to its own virtual nodes, about 1/N of the
+ * jobs. As job ids are allocated sequentially, consecutive jobs are in different buckets, and the jobs active at any time
+ * are spread over all the servers.
+ * <p>
+ * The bucket of a job is a substring of its id, and of the ids of its actions, so the jobs of a server can be selected in
+ * database queries with <code>SUBSTRING(id, 5, 3) IN (:buckets)</code>, see {@link #getBuckets(String)}.
+ * <p>
+ * Instances are immutable, the buckets of the servers are computed once.
+ */
+public class JobIdRing {
+
+    /**
+     * Size of the ring, the number of positions.
+     */
+    public static final long SIZE = 10000000L;
+
+    /**
+     * Number of buckets of job ids, the number of 3 digit suffixes of the sequence numbers.
+     */
+    public static final int BUCKETS = 1000;
+
+    // This pattern gives us the id number without the extra stuff
+    private static final Pattern ID_PATTERN = Pattern.compile("(\\d{7})-.*");
+
+    private final Set<String> servers;
+    private final TreeMap<Long, String> ring = new TreeMap<Long, String>();
+    private final ConcurrentMap<String, List<String>> buckets = new ConcurrentHashMap<String, List<String>>();
+
+    /**
+     * Create a ring for a set of servers.
+     *
+     * @param servers ids of the servers.
+     * @param virtualNodes number of virtual nodes of each server.
+     */
+    public JobIdRing(Collection<String> servers, int virtualNodes) {
+        this.servers = Collections.unmodifiableSet(new TreeSet<String>(servers));
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        // servers are added in order, so that all the servers build the same ring when two virtual nodes collide
+        for (String server : this.servers) {
+            for (int i = 0; i < virtualNodes; i++) {
+                byte[] bytes = digest.digest((server + "#" + i).getBytes(StandardCharsets.UTF_8));
+                long hash = 0;
+                for (int j = 0; j < 8; j++) {
+                    hash = (hash << 8) | (bytes[j] & 0xFF);
+                }
+                Long position = (hash & Long.MAX_VALUE) % SIZE;
+                if (!ring.containsKey(position)) {
+                    ring.put(position, server);
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the ids of the servers of the ring.
+     *
+     * @return the server ids.
+     */
+    public Set<String> getServers() {
+        return servers;
+    }
+
+    /**
+     * Return the server owning a job id, or an id starting with a job id.
+     *
+     * @param id the id.
+     * @return the server owning the id, null if the ring is empty or if the id does not start with a job sequence
+     * number.
+     */
+    public String getOwner(String id) {
+        long idNum = getIdNumber(id);
+        return idNum < 0 ? null : getOwner(idNum);
+    }
+
+    /**
+     * Return the server owning a job sequence number.
+     *
+     * @param idNum the job sequence number.
+     * @return the server owning the sequence number, null if the ring is empty.
+     */
+    public String getOwner(long idNum) {
+        return getPositionOwner(getPosition(idNum));
+    }
+
+    /**
+     * Return the server owning a ring position.
+     *
+     * @param position the ring position.
+     * @return the server owning the position, null if the ring is empty.
+     */
+    public String getPositionOwner(long position) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = ring.floorEntry(position);
+        // the numbers before the first virtual node wrap around to the last one
+        return entry != null ? entry.getValue() : ring.lastEntry().getValue();
+    }
+
+    /**
+     * Return the buckets owned by a server, in order, as the 3 digit strings found at the characters 5 to 7 of the ids.
+     *
+     * @param server the server id.
+     * @return the buckets owned by the server, empty if the server is not part of the ring.
+     */
+    public List<String> getBuckets(String server) {
+        List<String> serverBuckets = buckets.get(server);
+        if (serverBuckets == null) {
+            List<String> computed = new ArrayList<String>();
+            for (long bucket = 0; bucket < BUCKETS; bucket++) {
+                if (server.equals(getOwner(bucket))) {
+                    computed.add(formatBucket(bucket));
+                }
+            }
+            serverBuckets = Collections.unmodifiableList(computed);
+            buckets.putIfAbsent(server, serverBuckets);
+        }
+        return serverBuckets;
+    }
+
+    /**
+     * Return the ring position of a job sequence number, the position of its bucket. Consecutive sequence numbers are
+     * spread over the whole ring.
+     *
+     * @param idNum the job sequence number.
+     * @return the ring position, between 0 included and {@link #SIZE} excluded.
+     */
+    public static long getPosition(long idNum) {
+        // MurmurHash3 64 bit finalizer, all the servers must compute the same positions
+        long hash = getBucket(idNum);
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (hash & Long.MAX_VALUE) % SIZE;
+    }
+
+    /**
+     * Return the bucket of a job sequence number, its last 3 digits.
+     *
+     * @param idNum the job sequence number.
+     * @return the bucket, between 0 included and {@link #BUCKETS} excluded.
+     */
+    public static long getBucket(long idNum) {
+        return idNum % BUCKETS;
+    }
+
+    /**
+     * Return a bucket as it appears in the ids, a 3 digit string.
+     *
+     * @param bucket the bucket.
+     * @return the bucket as a 3 digit string.
+     */
+    public static String formatBucket(long bucket) {
+        return String.format("%03d", bucket);
+    }
+
+    /**
+     * Return the sequence number of a job id, or of an id starting with a job id.
+     *
+     * @param id the id.
+     * @return the job sequence number, -1 if the id does not start with a job sequence number.
+     */
+    public static long getIdNumber(String id) {
+        Matcher m = ID_PATTERN.matcher(id);
+        if (m.matches()) {
+            return Long.parseLong(m.group(1));
+        }
+        return -1;
+    }
+}
@@ -42,6 +42,7 @@ public class PollablePriorityDelayQueue<E> extends PriorityDelayQueue<E> {
     public QueueElement<E> poll() {
         lock.lock();
         try {
+            expireDelayed();
             antiStarvation();
             QueueElement<E> e = null;
             int i = priorities;
@@ -51,6 +51,11 @@ import java.util.concurrent.locks.ReentrantLock;
  * <p>
  * This class does not use a separate thread for anti-starvation check, instead, the check is performed on polling and
  * seeking operations. This check is performed, the most every 1/2 second.
+ * <p>
+ * Elements with a delay are kept in a {@link TimingWheel} with a {@link #TIMING_WHEEL_TICK} resolution, inserting and
+ * removing them is <code>O(1)</code>. On polling and seeking operations, the elements reaching their tick are moved to
+ * the priority sub-queues, which only hold elements expiring within the current tick. The timing wheel has its own
+ * lock, offering an element never takes the lock used by the consumers.
  */
 public class PriorityDelayQueue<E> extends AbstractQueue<PriorityDelayQueue.QueueElement<E>>
         implements BlockingQueue<PriorityDelayQueue.QueueElement<E>> {
@@ -65,6 +70,10 @@ public class PriorityDelayQueue<E> extends AbstractQueue<PriorityDelayQueue.Queu
         private int priority;
         private long baseTime;
         boolean inQueue;
+        TimingWheel<E> wheel;
+        int wheelSlot;
+        QueueElement<E> wheelPrev;
+        QueueElement<E> wheelNext;
 
         /**
          * Create an Element wrapper.
@@ -129,6 +138,10 @@ public class PriorityDelayQueue<E> extends AbstractQueue<PriorityDelayQueue.Queu
             return unit.convert(baseTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
         }
 
+        long getBaseTime() {
+            return baseTime;
+        }
+
         /**
          * Compare the age of this wrapper element with another. The priority is not used for the comparision.
          *
@@ -168,9 +181,18 @@ public class PriorityDelayQueue<E> extends AbstractQueue<PriorityDelayQueue.Queu
      */
     public static final long ANTI_STARVATION_INTERVAL = 500;
 
+    /**
+     * Resolution, in milliseconds, of the timing wheel holding the delayed elements.
+     */
+    public static final long TIMING_WHEEL_TICK = 10;
+
     protected int priorities;
     protected DelayQueue<QueueElement<E>>[] queues;
+    private final TimingWheel<E> wheel;
+    private final List<QueueElement<E>> expired = new ArrayList<QueueElement<E>>();
     protected transient final ReentrantLock lock = new ReentrantLock();
+    // guards the timing wheel, always taken after lock when both are needed
+    private transient final ReentrantLock wheelLock = new ReentrantLock();
     private transient long lastAntiStarvationCheck = 0;
     private long maxWait;
     private int maxSize;
@@ -200,6 +222,7 @@ public class PriorityDelayQueue<E> extends AbstractQueue<PriorityDelayQueue.Queu
         for (int i = 0; i < priorities; i++) {
             queues[i] = new DelayQueue<QueueElement<E>>();
         }
+        wheel = new TimingWheel<E>(TIMING_WHEEL_TICK, priorities, System.currentTimeMillis());
         this.maxWait = unit.toMillis(maxWait);
         this.maxSize = maxSize;
         if (maxSize != -1) {
@@ -262,6 +285,13 @@ public class PriorityDelayQueue<E> extends AbstractQueue<PriorityDelayQueue.Queu
         for (QueueElement[] elements : queueElements) {
             list.addAll(Arrays.asList((QueueElement<E>[]) elements));
         }
+        wheelLock.lock();
+        try {
+            wheel.addAllTo(list);
+        }
+        finally {
+            wheelLock.unlock();
+        }
         return list.iterator();
     }
 
@@ -272,7 +302,7 @@ public class PriorityDelayQueue<E> extends AbstractQueue<PriorityDelayQueue.Queu
      */
     @Override
     public int size() {
-        int size = 0;
+        int size = wheel.size();
         for (DelayQueue<QueueElement<E>> queue : queues) {
             size += queue.size();
         }
@@ -286,8 +316,16 @@ public class PriorityDelayQueue<E> extends AbstractQueue<PriorityDelayQueue.Queu
      */
     public int[] sizes() {
         int[] sizes = new int[queues.length];
-        for (int i = 0; i < queues.length; i++) {
-            sizes[i] = queues[i].size();
+        lock.lock();
+        wheelLock.lock();
+        try {
+            for (int i = 0; i < queues.length; i++) {
+                sizes[i] = queues[i].size() + wheel.size(i);
+            }
+        }
+        finally {
+            wheelLock.unlock();
+            lock.unlock();
         }
         return sizes;
     }
@@ -338,7 +376,19 @@ public class PriorityDelayQueue<E> extends AbstractQueue<PriorityDelayQueue.Queu
         if (!ignoreSize && currentSize != null && currentSize.get() >= maxSize) {
             return false;
         }
-        boolean accepted = queues[queueElement.getPriority()].offer(queueElement);
+        boolean accepted;
+        if (queueElement.getDelay(TimeUnit.MILLISECONDS) > 0) {
+            wheelLock.lock();
+            try {
+                accepted = wheel.add(queueElement) || queues[queueElement.getPriority()].offer(queueElement);
+            }
+            finally {
+                wheelLock.unlock();
+            }
+        }
+        else {
+            accepted = queues[queueElement.getPriority()].offer(queueElement);
+        }
         debug("offer([{0}]), to P[{1}] delay[{2}ms] accepted[{3}]", queueElement.getElement().toString(),
               queueElement.getPriority(), queueElement.getDelay(TimeUnit.MILLISECONDS), accepted);
         if (accepted) {
@@ -381,6 +431,7 @@ public class PriorityDelayQueue<E> extends AbstractQueue<PriorityDelayQueue.Queu
     public QueueElement<E> poll() {
         lock.lock();
         try {
+            expireDelayed();
             antiStarvation();
             QueueElement<E> e = null;
             int i = priorities;
@@ -412,6 +463,7 @@ public class PriorityDelayQueue<E> extends AbstractQueue<PriorityDelayQueue.Queu
     public QueueElement<E> peek() {
         lock.lock();
         try {
+            expireDelayed();
             antiStarvation();
             QueueElement<E> e = null;
 
@@ -453,6 +505,16 @@ public class PriorityDelayQueue<E> extends AbstractQueue<PriorityDelayQueue.Queu
                     }
                 }
             }
+            else {
+                // elements in the sub-queues always expire before the elements still in the timing wheel
+                wheelLock.lock();
+                try {
+                    e = wheel.peek();
+                }
+                finally {
+                    wheelLock.unlock();
+                }
+            }
             if (e != null) {
                 debug("peek(): [{0}], from P[{1}]", e.getElement().toString(), e.getPriority());
             }
@@ -466,6 +528,64 @@ public class PriorityDelayQueue<E> extends AbstractQueue<PriorityDelayQueue.Queu
         }
     }
 
+    /**
+     * Move the elements of the timing wheel reaching their tick to their priority sub-queue.
+     * <p>
+     * The caller must hold the queue lock, the timing wheel lock is taken only while moving the elements.
+     */
+    protected void expireDelayed() {
+        wheelLock.lock();
+        try {
+            wheel.advance(System.currentTimeMillis(), expired);
+            if (!expired.isEmpty()) {
+                for (QueueElement<E> e : expired) {
+                    if (!queues[e.getPriority()].offer(e)) {
+                        throw new IllegalStateException("Could not move element to sub-queue, element rejected");
+                    }
+                }
+                debug("moved {0} expired element(s) from the timing wheel", expired.size());
+                expired.clear();
+            }
+        }
+        finally {
+            wheelLock.unlock();
+        }
+    }
+
+    /**
+     * Removes a single instance of the specified {@link QueueElement} element from this queue, if it is present.
+     * Removing a delayed element is <code>O(1)</code>.
+     *
+     * @param o element to be removed from this queue, if present
+     * @return <tt>true</tt> if an element was removed as a result of this call
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object o) {
+        if (!(o instanceof QueueElement)) {
+            return false;
+        }
+        QueueElement<E> e = (QueueElement<E>) o;
+        boolean removed;
+        lock.lock();
+        wheelLock.lock();
+        try {
+            removed = wheel.remove(e)
+                    || (e.getPriority() < priorities && queues[e.getPriority()].remove(e));
+            if (removed) {
+                if (currentSize != null) {
+                    currentSize.decrementAndGet();
+                }
+                e.inQueue = false;
+            }
+        }
+        finally {
+            wheelLock.unlock();
+            lock.unlock();
+        }
+        return removed;
+    }
+
     /**
      * Run the anti-starvation check every {@link #ANTI_STARVATION_INTERVAL} milliseconds.
      * <p>
@@ -669,6 +789,13 @@ public class PriorityDelayQueue<E> extends AbstractQueue<PriorityDelayQueue.Queu
      */
     @Override
     public int drainTo(Collection<? super QueueElement<E>> c) {
+        lock.lock();
+        try {
+            expireDelayed();
+        }
+        finally {
+            lock.unlock();
+        }
         int count = 0;
         for (DelayQueue<QueueElement<E>> q : queues) {
             count += q.drainTo(c);
@@ -703,6 +830,13 @@ public class PriorityDelayQueue<E> extends AbstractQueue<PriorityDelayQueue.Queu
      */
     @Override
     public int drainTo(Collection<? super QueueElement<E>> c, int maxElements) {
+        lock.lock();
+        try {
+            expireDelayed();
+        }
+        finally {
+            lock.unlock();
+        }
         int left = maxElements;
         int count = 0;
         for (DelayQueue<QueueElement<E>> q : queues) {
@@ -718,6 +852,13 @@ public class PriorityDelayQueue<E> extends AbstractQueue<PriorityDelayQueue.Queu
      */
     @Override
     public void clear() {
+        wheelLock.lock();
+        try {
+            wheel.clear();
+        }
+        finally {
+            wheelLock.unlock();
+        }
         for (DelayQueue<QueueElement<E>> q : queues) {
             q.clear();
         }
@@ -0,0 +1,330 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.util;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.oozie.util.PriorityDelayQueue.QueueElement;
+
+/**
+ * A Queue implementation that splits queued elements across several {@link PriorityDelayQueue} shards.
+ * <p>
+ * Each shard has its own lock, producers and consumers working on different shards do not contend with each other.
+ * <p>
+ * Elements are assigned to a shard by hashing the entity key of their callable (or its key when it does not have an
+ * entity key), thus all the elements of an entity are consumed from the same shard, in priority and age order.
+ * <p>
+ * Consumer threads are given a home shard (round-robin on their first poll), they poll their home shard first and
+ * steal from the other shards when their home shard has no elements with an expired delay.
+ * <p>
+ * The priority ordering and the anti-starvation promotion are per shard, a shard may hand out a lower priority
+ * element while another shard holds a higher priority one.
+ * <p>
+ * This queue does not enforce a maximum size on its own, the maximum size of each shard applies.
+ */
+public class ShardedPriorityDelayQueue<E> extends AbstractQueue<QueueElement<E>>
+        implements BlockingQueue<QueueElement<E>> {
+
+    private final List<PriorityDelayQueue<E>> shards;
+    private final AtomicInteger nextHomeShard = new AtomicInteger();
+    private final AtomicLong steals = new AtomicLong();
+    private final ThreadLocal<Integer> homeShard = new ThreadLocal<Integer>() {
+        @Override
+        protected Integer initialValue() {
+            return (nextHomeShard.getAndIncrement() & Integer.MAX_VALUE) % shards.size();
+        }
+    };
+
+    /**
+     * Create a <code>ShardedPriorityDelayQueue</code>.
+     *
+     * @param shards the shards of the queue, they must be empty and not used directly.
+     */
+    public ShardedPriorityDelayQueue(List<? extends PriorityDelayQueue<E>> shards) {
+        ParamChecker.notNull(shards, "shards");
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("shards cannot be empty");
+        }
+        this.shards = new ArrayList<PriorityDelayQueue<E>>(shards);
+    }
+
+    /**
+     * Return the number of shards of the queue.
+     *
+     * @return the number of shards of the queue.
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Return the number of elements consumed by a thread from a shard other than its home shard.
+     *
+     * @return the number of elements stolen from other shards.
+     */
+    public long getSteals() {
+        return steals.get();
+    }
+
+    /**
+     * Return the shard index for an element.
+     * <p>
+     * The index is the hash of the entity key of the callable, or of its key if it has no entity key.
+     *
+     * @param queueElement the element.
+     * @return the shard index for the element.
+     */
+    protected int getShard(QueueElement<E> queueElement) {
+        String key = queueElement.getElement().getEntityKey();
+        if (key == null) {
+            key = queueElement.getElement().getKey();
+        }
+        return (key == null) ? 0 : (key.hashCode() & Integer.MAX_VALUE) % shards.size();
+    }
+
+    /**
+     * Return an iterator over all the {@link QueueElement} elements (both expired and unexpired) in all the shards.
+     * The iterator does not return the elements in any particular order and it will never throw
+     * {@link ConcurrentModificationException}.
+     *
+     * @return an iterator over the {@link QueueElement} elements in this queue.
+     */
+    @Override
+    public Iterator<QueueElement<E>> iterator() {
+        List<QueueElement<E>> list = new ArrayList<QueueElement<E>>();
+        for (PriorityDelayQueue<E> shard : shards) {
+            Iterator<QueueElement<E>> it = shard.iterator();
+            while (it.hasNext()) {
+                list.add(it.next());
+            }
+        }
+        return list.iterator();
+    }
+
+    /**
+     * Return the number of elements in all the shards.
+     *
+     * @return the number of elements in the queue.
+     */
+    @Override
+    public int size() {
+        int size = 0;
+        for (PriorityDelayQueue<E> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * Return the number of elements on each shard.
+     *
+     * @return the number of elements on each shard.
+     */
+    public int[] sizes() {
+        int[] sizes = new int[shards.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = shards.get(i).size();
+        }
+        return sizes;
+    }
+
+    /**
+     * Insert the specified {@link QueueElement} element into its shard.
+     *
+     * @param queueElement the {@link QueueElement} element to add.
+     * @return <tt>true</tt> if the element has been inserted, <tt>false</tt> if the element was not inserted (the shard
+     *         has reached its maximum size).
+     * @throws NullPointerException if the specified element is null
+     */
+    @Override
+    public boolean offer(QueueElement<E> queueElement) {
+        ParamChecker.notNull(queueElement, "queueElement");
+        return shards.get(getShard(queueElement)).offer(queueElement);
+    }
+
+    /**
+     * Retrieve and remove the head of the home shard of the calling thread. If the home shard has no elements with an
+     * expired delay, the other shards are polled in turn.
+     *
+     * @return the polled element, or <tt>null</tt> if no shard has elements with an expired delay.
+     */
+    @Override
+    public QueueElement<E> poll() {
+        int home = homeShard.get();
+        QueueElement<E> e = shards.get(home).poll();
+        for (int i = 1; e == null && i < shards.size(); i++) {
+            e = shards.get((home + i) % shards.size()).poll();
+            if (e != null) {
+                steals.incrementAndGet();
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Retrieve, but does not remove, the head of the home shard of the calling thread, or of the other shards if the
+     * home shard is empty.
+     *
+     * @return the head of the first non empty shard, or <tt>null</tt> if all the shards are empty.
+     */
+    @Override
+    public QueueElement<E> peek() {
+        int home = homeShard.get();
+        QueueElement<E> e = null;
+        for (int i = 0; e == null && i < shards.size(); i++) {
+            e = shards.get((home + i) % shards.size()).peek();
+        }
+        return e;
+    }
+
+    /**
+     * Insert the specified element into its shard, waiting if necessary for space to become available.
+     *
+     * @param e the element to add
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public void put(QueueElement<E> e) throws InterruptedException {
+        shards.get(getShard(e)).put(e);
+    }
+
+    /**
+     * Insert the specified element into its shard.
+     * <p>
+     * IMPORTANT: As {@link PriorityDelayQueue#offer(QueueElement, long, TimeUnit)}, this implementation forces the
+     * addition of the element to the shard regardless of the shard current size.
+     *
+     * @param e the element to add
+     * @param timeout ignored.
+     * @param unit ignored.
+     * @return <tt>true</tt> if successful.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public boolean offer(QueueElement<E> e, long timeout, TimeUnit unit) throws InterruptedException {
+        return shards.get(getShard(e)).offer(e, timeout, unit);
+    }
+
+    /**
+     * Retrieve and removes an element from the shards, waiting if necessary until an element becomes available.
+     * <p>
+     * IMPORTANT: This implementation has a delay of up to 10ms (when the queue is empty) to detect a new element
+     * is available. It is doing a 10ms sleep.
+     *
+     * @return the polled element.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public QueueElement<E> take() throws InterruptedException {
+        QueueElement<E> e = poll();
+        while (e == null) {
+            Thread.sleep(10);
+            e = poll();
+        }
+        return e;
+    }
+
+    /**
+     * Retrieve and removes an element from the shards, waiting up to the specified wait time if necessary for an
+     * element to become available.
+     *
+     * @param timeout how long to wait before giving up, in units of <tt>unit</tt>
+     * @param unit a <tt>TimeUnit</tt> determining how to interpret the <tt>timeout</tt> parameter
+     * @return the polled element, or <tt>null</tt> if the specified waiting time elapses before an element is
+     *         available
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public QueueElement<E> poll(long timeout, TimeUnit unit) throws InterruptedException {
+        QueueElement<E> e = poll();
+        long time = System.currentTimeMillis() + unit.toMillis(timeout);
+        while (e == null && time > System.currentTimeMillis()) {
+            Thread.sleep(10);
+            e = poll();
+        }
+        return e;
+    }
+
+    /**
+     * Return the remaining capacity of all the shards, <tt>-1</tt> if any of the shards is unbounded.
+     *
+     * @return the remaining capacity.
+     */
+    @Override
+    public int remainingCapacity() {
+        int capacity = 0;
+        for (PriorityDelayQueue<E> shard : shards) {
+            int shardCapacity = shard.remainingCapacity();
+            if (shardCapacity == -1) {
+                return -1;
+            }
+            capacity += shardCapacity;
+        }
+        return capacity;
+    }
+
+    /**
+     * Remove all available elements from the shards and adds them to the given collection.
+     *
+     * @param c the collection to transfer elements into
+     * @return the number of elements transferred
+     */
+    @Override
+    public int drainTo(Collection<? super QueueElement<E>> c) {
+        int count = 0;
+        for (PriorityDelayQueue<E> shard : shards) {
+            count += shard.drainTo(c);
+        }
+        return count;
+    }
+
+    /**
+     * Remove at most the given number of available elements from the shards and adds them to the given collection.
+     *
+     * @param c the collection to transfer elements into
+     * @param maxElements the maximum number of elements to transfer
+     * @return the number of elements transferred
+     */
+    @Override
+    public int drainTo(Collection<? super QueueElement<E>> c, int maxElements) {
+        int count = 0;
+        for (PriorityDelayQueue<E> shard : shards) {
+            count += shard.drainTo(c, maxElements - count);
+        }
+        return count;
+    }
+
+    /**
+     * Removes all of the elements from all the shards.
+     */
+    @Override
+    public void clear() {
+        for (PriorityDelayQueue<E> shard : shards) {
+            shard.clear();
+        }
+    }
+}
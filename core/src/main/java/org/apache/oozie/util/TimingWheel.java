@@ -0,0 +1,283 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.util;
+
+import java.util.List;
+
+import org.apache.oozie.util.PriorityDelayQueue.QueueElement;
+
+/**
+ * Hierarchical timing wheel holding the delayed elements of a {@link PriorityDelayQueue}.
+ * <p>
+ * Time is divided in ticks. The wheel has {@link #LEVELS} levels of {@link #SLOTS} slots, a slot of level <i>k</i>
+ * spans <code>SLOTS^k</code> ticks. An element is linked in the slot of the lowest level that shares its upper tick
+ * bits with the current tick, insertion and removal are <code>O(1)</code>.
+ * <p>
+ * When the wheel advances to a tick, the slots of the upper levels starting at that tick are cascaded to the lower
+ * levels, and the elements of the level 0 slot of the tick are expired. Elements are expired at the beginning of their
+ * tick, the caller is responsible of honoring the exact delay of the expired elements.
+ * <p>
+ * Elements are linked through fields of {@link QueueElement}, an element can be in a single wheel at a time.
+ * <p>
+ * This class is not thread safe, the owner queue must guard all the calls with its timing wheel lock.
+ */
+class TimingWheel<E> {
+    static final int SLOT_BITS = 6;
+    static final int SLOTS = 1 << SLOT_BITS;
+    static final int LEVELS = 6;
+
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int OVERFLOW_SLOT = LEVELS * SLOTS;
+
+    private final long tickMillis;
+    private final QueueElement<E>[] slots;
+    private final int[] levelSizes = new int[LEVELS + 1];
+    private final int[] prioritySizes;
+    private long currentTick;
+    private volatile int size;
+
+    /**
+     * Create a timing wheel.
+     *
+     * @param tickMillis duration of a tick, in milliseconds.
+     * @param priorities number of priorities of the elements.
+     * @param now current time, in milliseconds.
+     */
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, int priorities, long now) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("tickMillis must be 1 or more");
+        }
+        this.tickMillis = tickMillis;
+        slots = new QueueElement[OVERFLOW_SLOT + 1];
+        prioritySizes = new int[priorities];
+        currentTick = now / tickMillis;
+    }
+
+    /**
+     * Return the number of elements in the wheel.
+     *
+     * @return the number of elements in the wheel.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Return the number of elements of a priority in the wheel.
+     *
+     * @param priority the priority.
+     * @return the number of elements of the priority in the wheel.
+     */
+    int size(int priority) {
+        return prioritySizes[priority];
+    }
+
+    /**
+     * Add an element to the wheel, unless it expires within the current tick.
+     *
+     * @param e the element.
+     * @return <tt>true</tt> if the element was added, <tt>false</tt> if it expires within the current tick.
+     */
+    boolean add(QueueElement<E> e) {
+        long tick = e.getBaseTime() / tickMillis;
+        if (tick <= currentTick) {
+            return false;
+        }
+        link(e, tick);
+        size++;
+        prioritySizes[e.getPriority()]++;
+        return true;
+    }
+
+    /**
+     * Remove an element from the wheel.
+     *
+     * @param e the element.
+     * @return <tt>true</tt> if the element was in the wheel.
+     */
+    boolean remove(QueueElement<E> e) {
+        if (e.wheel != this) {
+            return false;
+        }
+        unlink(e);
+        size--;
+        prioritySizes[e.getPriority()]--;
+        return true;
+    }
+
+    /**
+     * Advance the wheel to the current time, collecting the expired elements.
+     *
+     * @param now current time, in milliseconds.
+     * @param expired list where the expired elements are added, they are removed from the wheel.
+     */
+    void advance(long now, List<QueueElement<E>> expired) {
+        long targetTick = now / tickMillis;
+        while (currentTick < targetTick) {
+            int level = 0;
+            while (level <= LEVELS && levelSizes[level] == 0) {
+                level++;
+            }
+            if (level > LEVELS) {
+                currentTick = targetTick;
+                break;
+            }
+            if (level > 0) {
+                // nothing expires or cascades before the next tick boundary of the first non empty level
+                long nextBoundary = ((currentTick >>> (SLOT_BITS * level)) + 1) << (SLOT_BITS * level);
+                if (nextBoundary > targetTick) {
+                    currentTick = targetTick;
+                    break;
+                }
+                currentTick = nextBoundary;
+            }
+            else {
+                currentTick++;
+            }
+            if ((currentTick & ((1L << (SLOT_BITS * LEVELS)) - 1)) == 0) {
+                cascade(OVERFLOW_SLOT, expired);
+            }
+            for (int i = LEVELS - 1; i > 0; i--) {
+                if ((currentTick & ((1L << (SLOT_BITS * i)) - 1)) == 0) {
+                    cascade(i * SLOTS + (int) ((currentTick >>> (SLOT_BITS * i)) & SLOT_MASK), expired);
+                }
+            }
+            QueueElement<E> e = slots[(int) (currentTick & SLOT_MASK)];
+            while (e != null) {
+                QueueElement<E> next = e.wheelNext;
+                remove(e);
+                expired.add(e);
+                e = next;
+            }
+        }
+    }
+
+    /**
+     * Return the element of the wheel that expires first.
+     * <p>
+     * Within a level, the slots are visited in expiration order, the first non empty slot of each level holds the
+     * first element of that level.
+     *
+     * @return the element that expires first, <tt>null</tt> if the wheel is empty.
+     */
+    QueueElement<E> peek() {
+        QueueElement<E> first = null;
+        for (int level = 0; level < LEVELS; level++) {
+            if (levelSizes[level] > 0) {
+                long levelTick = currentTick >>> (SLOT_BITS * level);
+                for (int i = 1; i <= SLOTS; i++) {
+                    QueueElement<E> e = slots[level * SLOTS + (int) ((levelTick + i) & SLOT_MASK)];
+                    if (e != null) {
+                        first = earliest(first, e);
+                        break;
+                    }
+                }
+            }
+        }
+        return earliest(first, slots[OVERFLOW_SLOT]);
+    }
+
+    /**
+     * Add all the elements of the wheel to a list.
+     *
+     * @param list the list to add the elements to.
+     */
+    void addAllTo(List<QueueElement<E>> list) {
+        for (QueueElement<E> e : slots) {
+            for (; e != null; e = e.wheelNext) {
+                list.add(e);
+            }
+        }
+    }
+
+    /**
+     * Remove all the elements from the wheel.
+     */
+    void clear() {
+        for (int i = 0; i < slots.length; i++) {
+            QueueElement<E> e = slots[i];
+            while (e != null) {
+                QueueElement<E> next = e.wheelNext;
+                remove(e);
+                e = next;
+            }
+        }
+    }
+
+    private QueueElement<E> earliest(QueueElement<E> first, QueueElement<E> slotHead) {
+        for (QueueElement<E> e = slotHead; e != null; e = e.wheelNext) {
+            if (first == null || e.getBaseTime() < first.getBaseTime()) {
+                first = e;
+            }
+        }
+        return first;
+    }
+
+    private void cascade(int slot, List<QueueElement<E>> expired) {
+        QueueElement<E> e = slots[slot];
+        while (e != null) {
+            QueueElement<E> next = e.wheelNext;
+            unlink(e);
+            long tick = e.getBaseTime() / tickMillis;
+            if (tick <= currentTick) {
+                size--;
+                prioritySizes[e.getPriority()]--;
+                expired.add(e);
+            }
+            else {
+                link(e, tick);
+            }
+            e = next;
+        }
+    }
+
+    private void link(QueueElement<E> e, long tick) {
+        int level = 0;
+        while (level < LEVELS && (tick >>> (SLOT_BITS * (level + 1))) != (currentTick >>> (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (level == LEVELS) ? OVERFLOW_SLOT
+                                     : level * SLOTS + (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        e.wheel = this;
+        e.wheelSlot = slot;
+        e.wheelPrev = null;
+        e.wheelNext = slots[slot];
+        if (e.wheelNext != null) {
+            e.wheelNext.wheelPrev = e;
+        }
+        slots[slot] = e;
+        levelSizes[slot / SLOTS]++;
+    }
+
+    private void unlink(QueueElement<E> e) {
+        if (e.wheelPrev != null) {
+            e.wheelPrev.wheelNext = e.wheelNext;
+        }
+        else {
+            slots[e.wheelSlot] = e.wheelNext;
+        }
+        if (e.wheelNext != null) {
+            e.wheelNext.wheelPrev = e.wheelPrev;
+        }
+        levelSizes[e.wheelSlot / SLOTS]--;
+        e.wheel = null;
+        e.wheelPrev = null;
+        e.wheelNext = null;
+    }
+}
@@ -0,0 +1,504 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Sidecar index of a rotated log file.
+ * <p>
+ * The index maps every job ID found in the <code>JOB[...]</code> token of the log messages to the regions of the file
+ * holding its messages, along with the timestamps of the first and last message of each region. Offsets are in the
+ * uncompressed stream for <code>.gz</code> files. Regions always start at the first line of a message and end after
+ * its last line, close regions of the same job are merged, so a region may hold messages of other jobs too.
+ * <p>
+ * The index of <code>&lt;dir&gt;/&lt;file&gt;</code> is stored in <code>&lt;dir&gt;/.&lt;file&gt;.idx</code>, with the
+ * length and modification time of the log file it was built from, it is rebuilt if the log file changes.
+ */
+public class XLogIndex {
+    private static final XLog LOG = XLog.getLog(XLogIndex.class);
+
+    public static final String INDEX_PREFIX = ".";
+    public static final String INDEX_SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x4f4c4958;
+    private static final int VERSION = 1;
+
+    /**
+     * Messages of a job closer than this to the end of its previous region extend that region.
+     */
+    static final long MERGE_GAP = 64 * 1024;
+
+    private static final byte[] JOB_TOKEN = " JOB[".getBytes();
+    private static final int TIMESTAMP_LEN = 19;
+
+    /**
+     * Region of a log file holding messages of a job.
+     */
+    static class Region {
+        long start;
+        long end;
+        String firstTime;
+        String lastTime;
+
+        Region(long start, long end, String firstTime, String lastTime) {
+            this.start = start;
+            this.end = end;
+            this.firstTime = firstTime;
+            this.lastTime = lastTime;
+        }
+    }
+
+    private final long logLength;
+    private final long logModified;
+    private final Map<String, List<Region>> regions;
+
+    private XLogIndex(long logLength, long logModified, Map<String, List<Region>> regions) {
+        this.logLength = logLength;
+        this.logModified = logModified;
+        this.regions = regions;
+    }
+
+    /**
+     * Return the sidecar index file of a log file.
+     *
+     * @param logFile log file.
+     * @return the index file.
+     */
+    public static File getIndexFile(File logFile) {
+        return new File(logFile.getParentFile(), INDEX_PREFIX + logFile.getName() + INDEX_SUFFIX);
+    }
+
+    /**
+     * Return the index of a log file, building and storing it if it does not exist or is stale.
+     *
+     * @param logFile log file.
+     * @return the index of the log file.
+     * @throws IOException thrown if the log file could not be read.
+     */
+    public static XLogIndex getIndex(File logFile) throws IOException {
+        XLogIndex index = load(logFile);
+        if (index == null) {
+            index = build(logFile);
+            index.store(getIndexFile(logFile));
+        }
+        return index;
+    }
+
+    /**
+     * Check if a log file has an up to date index, only the header of the index is read.
+     *
+     * @param logFile log file.
+     * @return <code>true</code> if the index of the log file exists and is up to date.
+     */
+    public static boolean isIndexed(File logFile) {
+        File indexFile = getIndexFile(logFile);
+        if (!indexFile.isFile()) {
+            return false;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new FileInputStream(indexFile));
+            return readHeader(in, logFile);
+        }
+        catch (IOException ex) {
+            return false;
+        }
+        finally {
+            IOUtils.closeSafely(in);
+        }
+    }
+
+    /**
+     * Load the index of a log file.
+     *
+     * @param logFile log file.
+     * @return the index, <code>null</code> if it does not exist, is stale or could not be read.
+     */
+    static XLogIndex load(File logFile) {
+        File indexFile = getIndexFile(logFile);
+        if (!indexFile.isFile()) {
+            return null;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+            if (!readHeader(in, logFile)) {
+                return null;
+            }
+            int jobs = in.readInt();
+            Map<String, List<Region>> regions = new HashMap<String, List<Region>>(jobs * 2);
+            for (int i = 0; i < jobs; i++) {
+                String job = in.readUTF();
+                int count = in.readInt();
+                List<Region> list = new ArrayList<Region>(count);
+                for (int j = 0; j < count; j++) {
+                    list.add(new Region(in.readLong(), in.readLong(), in.readUTF(), in.readUTF()));
+                }
+                regions.put(job, list);
+            }
+            return new XLogIndex(logFile.length(), logFile.lastModified(), regions);
+        }
+        catch (IOException ex) {
+            LOG.warn("Could not read log index [{0}], {1}", indexFile, ex.getMessage());
+            return null;
+        }
+        finally {
+            IOUtils.closeSafely(in);
+        }
+    }
+
+    private static boolean readHeader(DataInputStream in, File logFile) throws IOException {
+        return in.readInt() == MAGIC && in.readInt() == VERSION && in.readLong() == logFile.length()
+                && in.readLong() == logFile.lastModified();
+    }
+
+    /**
+     * Build the index of a log file by scanning it once.
+     *
+     * @param logFile log file.
+     * @return the index of the log file.
+     * @throws IOException thrown if the log file could not be read.
+     */
+    static XLogIndex build(File logFile) throws IOException {
+        long length = logFile.length();
+        long modified = logFile.lastModified();
+        Map<String, List<Region>> regions = new HashMap<String, List<Region>>();
+        InputStream in = openStream(logFile);
+        try {
+            byte[] buffer = new byte[64 * 1024];
+            int bufferLen = 0;
+            int bufferPos = 0;
+            boolean eof = false;
+            byte[] line = new byte[1024];
+            long offset = 0;
+            Region current = null;
+            while (true) {
+                int len = 0;
+                boolean eol = false;
+                while (!eol) {
+                    if (bufferPos == bufferLen) {
+                        bufferLen = eof ? -1 : in.read(buffer);
+                        bufferPos = 0;
+                        if (bufferLen == -1) {
+                            eof = true;
+                            bufferLen = 0;
+                            break;
+                        }
+                    }
+                    int end = bufferPos;
+                    while (end < bufferLen && buffer[end] != '\n') {
+                        end++;
+                    }
+                    if (end < bufferLen) {
+                        end++;
+                        eol = true;
+                    }
+                    int count = end - bufferPos;
+                    if (len + count > line.length) {
+                        byte[] grown = new byte[Math.max(line.length * 2, len + count)];
+                        System.arraycopy(line, 0, grown, 0, len);
+                        line = grown;
+                    }
+                    System.arraycopy(buffer, bufferPos, line, len, count);
+                    len += count;
+                    bufferPos = end;
+                }
+                if (len == 0) {
+                    break;
+                }
+                long lineStart = offset;
+                offset += len;
+                if (isMessageStart(line, len)) {
+                    String time = new String(line, 0, TIMESTAMP_LEN, "ISO-8859-1");
+                    String job = getJob(line, len);
+                    current = null;
+                    if (job != null) {
+                        List<Region> list = regions.get(job);
+                        if (list == null) {
+                            list = new ArrayList<Region>();
+                            regions.put(job, list);
+                        }
+                        Region last = list.isEmpty() ? null : list.get(list.size() - 1);
+                        if (last != null && lineStart - last.end <= MERGE_GAP) {
+                            current = last;
+                            current.lastTime = time;
+                        }
+                        else {
+                            current = new Region(lineStart, offset, time, time);
+                            list.add(current);
+                        }
+                    }
+                }
+                if (current != null) {
+                    current.end = offset;
+                }
+            }
+        }
+        finally {
+            IOUtils.closeSafely(in);
+        }
+        return new XLogIndex(length, modified, regions);
+    }
+
+    // a message starts with a "yyyy-MM-dd HH:mm:ss,SSS" timestamp, other lines continue the previous message
+    private static boolean isMessageStart(byte[] line, int len) {
+        if (len < TIMESTAMP_LEN + 4) {
+            return false;
+        }
+        for (int i = 0; i < TIMESTAMP_LEN + 4; i++) {
+            byte b = line[i];
+            switch (i) {
+                case 4:
+                case 7:
+                    if (b != '-') {
+                        return false;
+                    }
+                    break;
+                case 10:
+                    if (b != ' ') {
+                        return false;
+                    }
+                    break;
+                case 13:
+                case 16:
+                    if (b != ':') {
+                        return false;
+                    }
+                    break;
+                case 19:
+                    if (b != ',') {
+                        return false;
+                    }
+                    break;
+                default:
+                    if (b < '0' || b > '9') {
+                        return false;
+                    }
+            }
+        }
+        return true;
+    }
+
+    private static String getJob(byte[] line, int len) throws IOException {
+        int limit = len - JOB_TOKEN.length;
+        for (int i = TIMESTAMP_LEN; i <= limit; i++) {
+            int j = 0;
+            while (j < JOB_TOKEN.length && line[i + j] == JOB_TOKEN[j]) {
+                j++;
+            }
+            if (j == JOB_TOKEN.length) {
+                int start = i + j;
+                int end = start;
+                while (end < len && line[end] != ']') {
+                    end++;
+                }
+                if (end == len || end == start || (end == start + 1 && line[start] == '-')) {
+                    return null;
+                }
+                return new String(line, start, end - start, "ISO-8859-1");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Store the index, a failure is logged and ignored as the index can be rebuilt.
+     *
+     * @param indexFile index file.
+     */
+    void store(File indexFile) {
+        File tmp = null;
+        DataOutputStream out = null;
+        try {
+            tmp = File.createTempFile(indexFile.getName(), ".tmp", indexFile.getParentFile());
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(logLength);
+            out.writeLong(logModified);
+            out.writeInt(regions.size());
+            for (Map.Entry<String, List<Region>> entry : regions.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (Region region : entry.getValue()) {
+                    out.writeLong(region.start);
+                    out.writeLong(region.end);
+                    out.writeUTF(region.firstTime);
+                    out.writeUTF(region.lastTime);
+                }
+            }
+            out.close();
+            out = null;
+            if (!tmp.renameTo(indexFile)) {
+                indexFile.delete();
+                if (!tmp.renameTo(indexFile)) {
+                    throw new IOException("Could not rename [" + tmp + "] to [" + indexFile + "]");
+                }
+            }
+            tmp = null;
+        }
+        catch (IOException ex) {
+            LOG.warn("Could not store log index [{0}], {1}", indexFile, ex.getMessage());
+        }
+        finally {
+            IOUtils.closeSafely(out);
+            if (tmp != null) {
+                tmp.delete();
+            }
+        }
+    }
+
+    /**
+     * Return the regions holding messages of a job logged between two timestamps.
+     *
+     * @param job job ID.
+     * @param startTime "yyyy-MM-dd HH:mm:ss" start timestamp, <code>null</code> for no lower bound.
+     * @param endTime "yyyy-MM-dd HH:mm:ss" end timestamp, <code>null</code> for no upper bound.
+     * @return the regions, in file order.
+     */
+    List<Region> getRegions(String job, String startTime, String endTime) {
+        List<Region> list = regions.get(job);
+        if (list == null) {
+            return Collections.emptyList();
+        }
+        List<Region> selected = new ArrayList<Region>(list.size());
+        for (Region region : list) {
+            if (startTime != null && region.lastTime.compareTo(startTime) < 0) {
+                continue;
+            }
+            if (endTime != null && region.firstTime.compareTo(endTime) > 0) {
+                continue;
+            }
+            selected.add(region);
+        }
+        return selected;
+    }
+
+    /**
+     * Return the number of jobs with messages in the log file.
+     *
+     * @return the number of jobs in the index.
+     */
+    int getJobCount() {
+        return regions.size();
+    }
+
+    /**
+     * Read regions of a log file. Regions of plain files are memory mapped, regions of <code>.gz</code> files are read
+     * in a single pass over the uncompressed stream.
+     *
+     * @param logFile log file.
+     * @param regions regions to read, in file order.
+     * @return the content of the regions.
+     * @throws IOException thrown if the log file could not be read.
+     */
+    static byte[] read(File logFile, List<Region> regions) throws IOException {
+        long total = 0;
+        for (Region region : regions) {
+            total += region.end - region.start;
+        }
+        if (total > Integer.MAX_VALUE) {
+            throw new IOException("Log regions of [" + logFile + "] are too large, [" + total + "] bytes");
+        }
+        byte[] data = new byte[(int) total];
+        int pos = 0;
+        if (logFile.getName().endsWith(".gz")) {
+            InputStream in = openStream(logFile);
+            try {
+                long offset = 0;
+                for (Region region : regions) {
+                    skipFully(in, region.start - offset);
+                    int len = (int) (region.end - region.start);
+                    readFully(in, data, pos, len);
+                    pos += len;
+                    offset = region.end;
+                }
+            }
+            finally {
+                IOUtils.closeSafely(in);
+            }
+        }
+        else {
+            RandomAccessFile file = new RandomAccessFile(logFile, "r");
+            try {
+                FileChannel channel = file.getChannel();
+                for (Region region : regions) {
+                    int len = (int) (region.end - region.start);
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, region.start, len);
+                    buffer.get(data, pos, len);
+                    pos += len;
+                }
+            }
+            finally {
+                file.close();
+            }
+        }
+        return data;
+    }
+
+    private static InputStream openStream(File logFile) throws IOException {
+        InputStream in = new FileInputStream(logFile);
+        if (logFile.getName().endsWith(".gz")) {
+            in = new GZIPInputStream(in, 64 * 1024);
+        }
+        return new BufferedInputStream(in, 64 * 1024);
+    }
+
+    private static void skipFully(InputStream in, long len) throws IOException {
+        while (len > 0) {
+            long skipped = in.skip(len);
+            if (skipped <= 0) {
+                if (in.read() == -1) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            len -= skipped;
+        }
+    }
+
+    private static void readFully(InputStream in, byte[] data, int off, int len) throws IOException {
+        while (len > 0) {
+            int read = in.read(data, off, len);
+            if (read == -1) {
+                throw new EOFException();
+            }
+            off += read;
+            len -= read;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * {@link Reader} reading the messages of a job from multiple log files sequentially, like {@link MultiFileReader}.
+ * <p>
+ * Rotated files are read through their {@link XLogIndex}: files without messages of the job are skipped and only the
+ * regions holding messages of the job are read. Up to <code>parallelism</code> rotated files are read ahead on the
+ * given executor, so <code>.gz</code> files are decompressed in parallel while the previous ones are consumed.
+ * Files without an index, like the active log file, are read entirely when their turn comes.
+ */
+public class XLogIndexedReader extends Reader {
+    private static final XLog LOG = XLog.getLog(XLogIndexedReader.class);
+
+    private final List<File> files;
+    private final String activeFile;
+    private final String job;
+    private final String startTime;
+    private final String endTime;
+    private final Executor executor;
+    private final int parallelism;
+    private final LinkedList<FutureTask<Reader>> pending = new LinkedList<FutureTask<Reader>>();
+    private int index;
+    private Reader reader;
+    private boolean closed;
+
+    /**
+     * Constructs the reader with the given files. The files will be read in the order given in the list.
+     *
+     * @param files the files to read.
+     * @param activeFile name of the active log file, which is never indexed.
+     * @param job job ID the messages are read for.
+     * @param startTime "yyyy-MM-dd HH:mm:ss" start timestamp, <code>null</code> for no lower bound.
+     * @param endTime "yyyy-MM-dd HH:mm:ss" end timestamp, <code>null</code> for no upper bound.
+     * @param executor executor reading the rotated files.
+     * @param parallelism maximum number of rotated files read ahead.
+     */
+    public XLogIndexedReader(List<File> files, String activeFile, String job, String startTime, String endTime,
+            Executor executor, int parallelism) {
+        this.files = files;
+        this.activeFile = activeFile;
+        this.job = ParamChecker.notEmpty(job, "job");
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.executor = ParamChecker.notNull(executor, "executor");
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        int numRead = -1;
+        while (!closed && numRead == -1) {
+            if (reader == null) {
+                reader = nextReader();
+                if (reader == null) {
+                    closed = true;
+                    break;
+                }
+            }
+            numRead = reader.read(cbuf, off, len);
+            if (numRead == -1) {
+                reader.close();
+                reader = null;
+            }
+        }
+        return numRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+        for (FutureTask<Reader> task : pending) {
+            task.cancel(false);
+        }
+        pending.clear();
+    }
+
+    private Reader nextReader() throws IOException {
+        while (true) {
+            fill();
+            FutureTask<Reader> task = pending.poll();
+            if (task == null) {
+                return null;
+            }
+            // files without index are not submitted, they are opened here
+            task.run();
+            try {
+                Reader next = task.get();
+                if (next != null) {
+                    return next;
+                }
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException(ex);
+            }
+            catch (ExecutionException ex) {
+                if (ex.getCause() instanceof IOException) {
+                    throw (IOException) ex.getCause();
+                }
+                throw new IOException(ex.getCause());
+            }
+        }
+    }
+
+    private void fill() {
+        int submitted = 0;
+        for (FutureTask<Reader> task : pending) {
+            if (task instanceof IndexedTask) {
+                submitted++;
+            }
+        }
+        while (index < files.size() && (pending.isEmpty() || submitted < parallelism)) {
+            final File file = files.get(index++);
+            if (isIndexable(file)) {
+                FutureTask<Reader> task = new IndexedTask(file);
+                pending.add(task);
+                executor.execute(task);
+                submitted++;
+            }
+            else {
+                pending.add(new FutureTask<Reader>(new Callable<Reader>() {
+                    @Override
+                    public Reader call() throws IOException {
+                        return openReader(file);
+                    }
+                }));
+                // keep the log order, nothing is read ahead past a file without index
+                break;
+            }
+        }
+    }
+
+    private boolean isIndexable(File file) {
+        return !file.getName().equals(activeFile);
+    }
+
+    private class IndexedTask extends FutureTask<Reader> {
+        IndexedTask(final File file) {
+            super(new Callable<Reader>() {
+                @Override
+                public Reader call() throws IOException {
+                    return readIndexed(file);
+                }
+            });
+        }
+    }
+
+    private Reader readIndexed(File file) throws IOException {
+        if (closed) {
+            return null;
+        }
+        List<XLogIndex.Region> regions;
+        try {
+            regions = XLogIndex.getIndex(file).getRegions(job, startTime, endTime);
+        }
+        catch (IOException ex) {
+            LOG.warn("Could not index log file [{0}], reading it entirely, {1}", file, ex.getMessage());
+            return openReader(file);
+        }
+        if (regions.isEmpty()) {
+            LOG.trace("Skipping log file [{0}], no messages for [{1}]", file, job);
+            return null;
+        }
+        return new InputStreamReader(new ByteArrayInputStream(XLogIndex.read(file, regions)));
+    }
+
+    private static Reader openReader(File file) throws IOException {
+        if (file.getName().endsWith(".gz")) {
+            return new InputStreamReader(new GZIPInputStream(new FileInputStream(file)));
+        }
+        return new FileReader(file);
+    }
+}
@@ -25,12 +25,19 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
+import java.util.concurrent.Executor;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.io.BufferedReader;
+import java.io.Reader;
+
+import org.apache.oozie.service.DagXLogInfoService;
 
 /**
  * XLogStreamer streams the given log file to writer after applying the given filter.
+ * <p>
+ * If an executor is given and the filter selects a single job, rotated log files are read through their
+ * {@link XLogIndex} with a {@link XLogIndexedReader}.
  */
 public class XLogStreamer {
     private static XLog LOG = XLog.getLog(XLogStreamer.class);
@@ -38,9 +45,34 @@ public class XLogStreamer {
     private String logPath;
     private XLogFilter logFilter;
     private long logRotation;
+    private Executor indexExecutor;
+    private int indexParallelism;
+
+    /**
+     * Job IDs are used as plain strings to look up the log index, filters using a regular expression are not indexed.
+     */
+    private static final Pattern INDEXABLE_JOB_PATTERN = Pattern.compile("[\\w\\-@]+");
 
     public XLogStreamer(XLogFilter logFilter, String logPath, String logFile, long logRotationSecs) {
+        this(logFilter, logPath, logFile, logRotationSecs, null, 0);
+    }
+
+    /**
+     * Create a log streamer reading rotated log files through their index.
+     *
+     * @param logFilter log filter.
+     * @param logPath log directory.
+     * @param logFile name of the active log file.
+     * @param logRotationSecs log rotation period, in seconds.
+     * @param indexExecutor executor reading the rotated log files, <code>null</code> to read all the log files
+     * entirely.
+     * @param indexParallelism maximum number of rotated log files read in parallel.
+     */
+    public XLogStreamer(XLogFilter logFilter, String logPath, String logFile, long logRotationSecs,
+            Executor indexExecutor, int indexParallelism) {
         this.logFilter = logFilter;
+        this.indexExecutor = indexExecutor;
+        this.indexParallelism = indexParallelism;
         if (logFile == null) {
             logFile = "oozie-app.log";
         }
@@ -82,9 +114,31 @@ public class XLogStreamer {
      * @throws IOException
      */
 
-    private MultiFileReader getReader(Date startTime, Date endTime) throws IOException {
+    private Reader getReader(Date startTime, Date endTime) throws IOException {
         logFilter.calculateAndValidateDateRange(startTime, endTime);
-        return new MultiFileReader(getFileList(logFilter.getStartDate(), logFilter.getEndDate()));
+        ArrayList<File> files = getFileList(logFilter.getStartDate(), logFilter.getEndDate());
+        String job = getIndexedJob();
+        if (job != null) {
+            return new XLogIndexedReader(files, logFile, job, logFilter.getFormattedStartDate(),
+                    logFilter.getFormattedEndDate(), indexExecutor, indexParallelism);
+        }
+        return new MultiFileReader(files);
+    }
+
+    /**
+     * Return the job ID to look up in the log index.
+     *
+     * @return the job ID selected by the filter, <code>null</code> if the log files must be read entirely.
+     */
+    private String getIndexedJob() {
+        if (indexExecutor == null || indexParallelism <= 0) {
+            return null;
+        }
+        String job = logFilter.getFilterParams().get(DagXLogInfoService.JOB);
+        if (job == null || !INDEXABLE_JOB_PATTERN.matcher(job).matches()) {
+            return null;
+        }
+        return job;
     }
 
     public BufferedReader makeReader(Date startTime, Date endTime) throws IOException {
@@ -0,0 +1,125 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.util;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jdom.Element;
+import org.jdom.JDOMException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Process wide, bounded cache of parsed XML documents that do not change once written, such as workflow definitions
+ * and action configurations, keyed by the hash of their content.
+ * <p>
+ * The cached elements are shared by all the callers and must not be modified, see
+ * {@link XmlUtils#parseImmutableXml(String)}.
+ */
+public class XmlDocumentCache {
+
+    /**
+     * Default maximum number of cached documents.
+     */
+    public static final int DEFAULT_SIZE = 1000;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static volatile XmlDocumentCache instance = new XmlDocumentCache(DEFAULT_SIZE);
+
+    private final Cache<String, Element> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private XmlDocumentCache(int size) {
+        cache = CacheBuilder.newBuilder().maximumSize(size).build();
+    }
+
+    /**
+     * Return the process wide document cache.
+     *
+     * @return the document cache.
+     */
+    public static XmlDocumentCache get() {
+        return instance;
+    }
+
+    /**
+     * Replace the process wide document cache with a new, empty, cache.
+     *
+     * @param size maximum number of cached documents, 0 disables the cache.
+     */
+    public static void reset(int size) {
+        instance = new XmlDocumentCache(Math.max(0, size));
+    }
+
+    /**
+     * Return the root element of an XML document, parsing it only if it is not cached.
+     *
+     * @param xmlStr XML string to parse.
+     * @return the shared root element of the document.
+     * @throws JDOMException thrown if the document could not be parsed.
+     */
+    public Element parse(String xmlStr) throws JDOMException {
+        String key = hash(xmlStr);
+        Element element = cache.getIfPresent(key);
+        if (element != null) {
+            hits.incrementAndGet();
+            return element;
+        }
+        misses.incrementAndGet();
+        element = XmlUtils.parseXml(xmlStr);
+        cache.put(key, element);
+        return element;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    private static String hash(String xmlStr) {
+        byte[] bytes;
+        try {
+            bytes = MessageDigest.getInstance("SHA-256").digest(xmlStr.getBytes("UTF-8"));
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0x0F];
+            chars[2 * i + 1] = HEX[bytes[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+}
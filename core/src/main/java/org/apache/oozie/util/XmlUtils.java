@@ -25,14 +25,23 @@ import java.io.StringReader;
 import java.io.StringWriter;
 import java.text.CharacterIterator;
 import java.text.StringCharacterIterator;
+import java.util.Arrays;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
@@ -74,15 +83,39 @@ public class XmlUtils {
 
     }
 
-    private static SAXBuilder createSAXBuilder() {
-        SAXBuilder saxBuilder = new SAXBuilder();
+    // builders reuse their SAX parser between parses, they are not thread safe
+    private static final ThreadLocal<SAXBuilder> SAX_BUILDER = new ThreadLocal<SAXBuilder>() {
+        @Override
+        protected SAXBuilder initialValue() {
+            SAXBuilder saxBuilder = new SAXBuilder();
+            saxBuilder.setReuseParser(true);
 
-        //THIS IS NOT WORKING
-        //saxBuilder.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            //THIS IS NOT WORKING
+            //saxBuilder.setFeature("http://xml.org/sax/features/external-general-entities", false);
+
+            //INSTEAD WE ARE JUST SETTING AN EntityResolver that does not resolve entities
+            saxBuilder.setEntityResolver(new NoExternalEntityEntityResolver());
+            return saxBuilder;
+        }
+    };
+
+    // validators are not thread safe, they are kept per thread and per schema
+    private static final ThreadLocal<Map<Schema, Validator>> VALIDATORS = new ThreadLocal<Map<Schema, Validator>>() {
+        @Override
+        protected Map<Schema, Validator> initialValue() {
+            return new WeakHashMap<Schema, Validator>();
+        }
+    };
 
-        //INSTEAD WE ARE JUST SETTING AN EntityResolver that does not resolve entities
-        saxBuilder.setEntityResolver(new NoExternalEntityEntityResolver());
-        return saxBuilder;
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private static SAXBuilder createSAXBuilder() {
+        return SAX_BUILDER.get();
     }
 
     /**
@@ -144,6 +177,104 @@ public class XmlUtils {
         }
     }
 
+    /**
+     * Parse a string assuming it is a valid XML document that does not change once written, such as a workflow
+     * definition or an action configuration, and return an JDOM Element for it. Documents are cached by the hash of
+     * their content in the {@link XmlDocumentCache}.
+     * <p>
+     * The returned element is shared by all the callers parsing the same document and must not be modified.
+     *
+     * @param xmlStr XML string to parse.
+     * @return shared JDOM element for the parsed XML string.
+     * @throws JDOMException thrown if an error happend while XML parsing.
+     */
+    public static Element parseImmutableXml(String xmlStr) throws JDOMException {
+        ParamChecker.notNull(xmlStr, "xmlStr");
+        return XmlDocumentCache.get().parse(xmlStr);
+    }
+
+    /**
+     * Return the text of child elements of the root element of an XML document, without building the document.
+     * <p>
+     * The document is streamed with a StAX parser, for callers that only need a few elements. Only the children in
+     * the namespace of the root element are matched. Children that are not present are absent from the returned map,
+     * children without text are mapped to an empty string. When a child is repeated, the text of the first one is
+     * returned.
+     *
+     * @param xmlStr XML string to read.
+     * @param names local names of the child elements.
+     * @return the trimmed text of the child elements present in the document, by name.
+     * @throws JDOMException thrown if an error happend while XML parsing.
+     */
+    public static Map<String, String> getRootChildrenText(String xmlStr, String... names) throws JDOMException {
+        ParamChecker.notNull(xmlStr, "xmlStr");
+        Set<String> wanted = new HashSet<String>(Arrays.asList(names));
+        Map<String, String> texts = new HashMap<String, String>();
+        XMLStreamReader reader = null;
+        try {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(xmlStr));
+            String rootNamespace = null;
+            int depth = 0;
+            while (reader.hasNext() && texts.size() < wanted.size()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    if (depth == 1) {
+                        rootNamespace = reader.getNamespaceURI();
+                    }
+                    else if (depth == 2 && wanted.contains(reader.getLocalName())
+                            && !texts.containsKey(reader.getLocalName())
+                            && sameNamespace(rootNamespace, reader.getNamespaceURI())) {
+                        String name = reader.getLocalName();
+                        texts.put(name, getElementText(reader));
+                        // getElementText() leaves the reader on the end of the element
+                        depth--;
+                    }
+                }
+                else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+            return texts;
+        }
+        catch (XMLStreamException ex) {
+            throw new JDOMException(ex.getMessage(), ex);
+        }
+        finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                }
+                catch (XMLStreamException ex) {
+                    // nothing to release for a string reader
+                }
+            }
+        }
+    }
+
+    private static String getElementText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+            else if (depth == 1 && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE)) {
+                text.append(reader.getText());
+            }
+        }
+        return text.toString().trim();
+    }
+
+    private static boolean sameNamespace(String a, String b) {
+        return (a == null || a.isEmpty()) ? (b == null || b.isEmpty()) : a.equals(b);
+    }
+
     /**
      * Parse a inputstream assuming it is a valid XML document and return an JDOM Element for it.
      *
@@ -279,9 +410,18 @@ public class XmlUtils {
      * @param xml to be validated
      */
     public static void validateXml(Schema schema, String xml) throws SAXException, IOException {
-
-        Validator validator = schema.newValidator();
-        validator.validate(new StreamSource(new ByteArrayInputStream(xml.getBytes())));
+        Map<Schema, Validator> validators = VALIDATORS.get();
+        Validator validator = validators.get(schema);
+        if (validator == null) {
+            validator = schema.newValidator();
+            validators.put(schema, validator);
+        }
+        try {
+            validator.validate(new StreamSource(new ByteArrayInputStream(xml.getBytes())));
+        }
+        finally {
+            validator.reset();
+        }
     }
 
     /**
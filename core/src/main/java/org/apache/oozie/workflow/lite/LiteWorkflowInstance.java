@@ -24,8 +24,11 @@ import org.apache.hadoop.util.ReflectionUtils;
 import org.apache.oozie.ErrorCode;
 import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.service.DagXLogInfoService;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.service.WorkflowDefinitionStoreService;
 import org.apache.oozie.service.XLogService;
 import org.apache.oozie.util.ParamChecker;
+import org.apache.oozie.util.WritableUtils;
 import org.apache.oozie.util.XConfiguration;
 import org.apache.oozie.util.XLog;
 import org.apache.oozie.workflow.WorkflowApp;
@@ -56,6 +59,10 @@ public class LiteWorkflowInstance implements Writable, WorkflowInstance {
     // doesn't match with user data.
     private static final String DATA_VERSION = "V==1";
 
+    // Marks an instance whose definition and configuration are kept in the WorkflowDefinitionStoreService.
+    // Legacy instances start with the instance ID, which can never match it.
+    private static final String DEFINITION_REF_VERSION = "WFDEF==1";
+
     private static class NodeInstance {
         String nodeName;
         boolean started = false;
@@ -155,6 +162,8 @@ public class LiteWorkflowInstance implements Writable, WorkflowInstance {
     private Map<String, NodeInstance> executionPaths = new HashMap<String, NodeInstance>();
     private Map<String, String> persistentVars = new HashMap<String, String>();
     private Map<String, Object> transientVars = new HashMap<String, Object>();
+    private String defHash;
+    private String confHash;
 
     protected LiteWorkflowInstance() {
         log = XLog.getLog(getClass());
@@ -556,17 +565,27 @@ public class LiteWorkflowInstance implements Writable, WorkflowInstance {
 
     @Override
     public void write(DataOutput dOut) throws IOException {
-        dOut.writeUTF(instanceId);
-
-        //Hadoop Configuration has to get its act right
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        conf.writeXml(baos);
-        baos.close();
-        byte[] array = baos.toByteArray();
-        dOut.writeInt(array.length);
-        dOut.write(array);
-
-        def.write(dOut);
+        WorkflowDefinitionStoreService store = getDefinitionStore();
+        if (store != null) {
+            // definition and configuration never change, they are stored once and only referenced by hash
+            if (defHash == null) {
+                defHash = store.register(WritableUtils.toByteArray(def));
+            }
+            if (confHash == null) {
+                confHash = store.register(getConfBytes());
+            }
+            dOut.writeUTF(DEFINITION_REF_VERSION);
+            dOut.writeUTF(instanceId);
+            dOut.writeUTF(defHash);
+            dOut.writeUTF(confHash);
+        }
+        else {
+            dOut.writeUTF(instanceId);
+            byte[] array = getConfBytes();
+            dOut.writeInt(array.length);
+            dOut.write(array);
+            def.write(dOut);
+        }
         dOut.writeUTF(status.toString());
         dOut.writeInt(executionPaths.size());
         for (Map.Entry<String, NodeInstance> entry : executionPaths.entrySet()) {
@@ -583,17 +602,32 @@ public class LiteWorkflowInstance implements Writable, WorkflowInstance {
 
     @Override
     public void readFields(DataInput dIn) throws IOException {
-        instanceId = dIn.readUTF();
+        String first = dIn.readUTF();
+        if (DEFINITION_REF_VERSION.equals(first)) {
+            instanceId = dIn.readUTF();
+            defHash = dIn.readUTF();
+            confHash = dIn.readUTF();
+            WorkflowDefinitionStoreService store = getDefinitionStore();
+            if (store == null) {
+                throw new IOException("Workflow instance [" + instanceId
+                        + "] references the workflow definition store but WorkflowDefinitionStoreService is not enabled");
+            }
+            def = store.getApp(defHash);
+            conf = new XConfiguration(new ByteArrayInputStream(store.getData(confHash)));
+        }
+        else {
+            instanceId = first;
 
-        //Hadoop Configuration has to get its act right
-        int len = dIn.readInt();
-        byte[] array = new byte[len];
-        dIn.readFully(array);
-        ByteArrayInputStream bais = new ByteArrayInputStream(array);
-        conf = new XConfiguration(bais);
-
-        def = new LiteWorkflowApp();
-        def.readFields(dIn);
+            //Hadoop Configuration has to get its act right
+            int len = dIn.readInt();
+            byte[] array = new byte[len];
+            dIn.readFully(array);
+            ByteArrayInputStream bais = new ByteArrayInputStream(array);
+            conf = new XConfiguration(bais);
+
+            def = new LiteWorkflowApp();
+            def.readFields(dIn);
+        }
         status = Status.valueOf(dIn.readUTF());
         int numExPaths = dIn.readInt();
         for (int x = 0; x < numExPaths; x++) {
@@ -613,6 +647,19 @@ public class LiteWorkflowInstance implements Writable, WorkflowInstance {
         refreshLog();
     }
 
+    private byte[] getConfBytes() throws IOException {
+        //Hadoop Configuration has to get its act right
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        conf.writeXml(baos);
+        baos.close();
+        return baos.toByteArray();
+    }
+
+    private static WorkflowDefinitionStoreService getDefinitionStore() {
+        Services services = Services.get();
+        return (services != null) ? services.get(WorkflowDefinitionStoreService.class) : null;
+    }
+
     private void writeStringAsBytes(String value, DataOutput dOut) throws IOException {
         if (value == null) {
             dOut.writeUTF(null);
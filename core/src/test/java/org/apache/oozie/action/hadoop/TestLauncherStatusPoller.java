@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.oozie.action.hadoop;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.oozie.WorkflowActionBean;
+import org.apache.oozie.service.InstrumentationService;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.test.XFsTestCase;
+import org.apache.oozie.util.Instrumentation;
+
+public class TestLauncherStatusPoller extends XFsTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        new Services().init();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Services.get().destroy();
+        super.tearDown();
+    }
+
+    public void testListOncePerJobTracker() throws Exception {
+        List<WorkflowActionBean> actions = Arrays.asList(createAction("1", "job_1_0001"),
+                createAction("2", "job_1_0002"), createAction("3", "job_1_0003"));
+
+        LauncherStatusPoller poller = new LauncherStatusPoller(2, 3600 * 1000, null);
+        // the launcher jobs are not running, all the actions are fully checked
+        assertEquals(Arrays.asList("1", "2", "3"), poller.getActionsToCheck(actions));
+        assertEquals(1L, getCounter(LauncherStatusPoller.INSTR_POLLS_COUNTER));
+        assertEquals(0L, getCounter(LauncherStatusPoller.INSTR_POLL_ERRORS_COUNTER));
+        assertEquals(0L, getCounter(LauncherStatusPoller.INSTR_SKIPPED_CHECKS_COUNTER));
+    }
+
+    public void testSmallGroupNotListed() throws Exception {
+        List<WorkflowActionBean> actions = Arrays.asList(createAction("1", "job_1_0001"));
+
+        LauncherStatusPoller poller = new LauncherStatusPoller(2, 3600 * 1000, null);
+        assertEquals(Arrays.asList("1"), poller.getActionsToCheck(actions));
+        assertEquals(0L, getCounter(LauncherStatusPoller.INSTR_POLLS_COUNTER));
+    }
+
+    private WorkflowActionBean createAction(String id, String externalId) {
+        WorkflowActionBean action = new WorkflowActionBean();
+        action.setId(id);
+        action.setType("java");
+        action.setExternalId(externalId);
+        action.setTrackerUri(getJobTrackerUri());
+        action.setLastCheckTime(new Date());
+        return action;
+    }
+
+    private long getCounter(String name) {
+        Instrumentation instr = Services.get().get(InstrumentationService.class).get();
+        Map<String, Instrumentation.Element<Long>> counters = instr.getCounters()
+                .get(LauncherStatusPoller.INSTRUMENTATION_GROUP);
+        if (counters == null || counters.get(name) == null) {
+            return 0L;
+        }
+        return counters.get(name).getValue();
+    }
+}
@@ -34,6 +34,7 @@ import org.apache.oozie.service.Services;
 import org.apache.oozie.service.UUIDService;
 import org.apache.oozie.test.XDataTestCase;
 import org.apache.oozie.util.DateUtils;
+import org.apache.oozie.util.ELExpressionCache;
 import org.apache.oozie.util.XConfiguration;
 import org.apache.oozie.util.XmlUtils;
 import org.jdom.Element;
@@ -299,6 +300,35 @@ public class TestCoordCommandUtils extends XDataTestCase {
         assertEquals(expectedDate, retDate);
     }
 
+    @Test
+    public void testMaterializeOneInstanceWithExpressionCache() throws Exception {
+        CoordinatorJobBean job = addRecordToCoordJobTableForWaiting("coord-dataset-offset.xml",
+                CoordinatorJob.Status.RUNNING, false, true);
+        Path appPath = new Path(getFsTestCaseDir(), "coord");
+        String actionXml = getCoordActionXml(appPath, "coord-dataset-offset.xml");
+        actionXml = actionXml.replace("-unit-", "DAY");
+        actionXml = actionXml.replace("-frequency-", "1");
+        CoordinatorActionBean actionBean = createCoordinatorActionBean(job);
+        Configuration jobConf = new XConfiguration(new StringReader(job.getConf()));
+        jobConf.set("startInstance", "coord:offset(-4,DAY)");
+        jobConf.set("endInstance", "coord:offset(0,DAY)");
+        Date nominalTime = DateUtils.parseDateOozieTZ("2009-08-20T10:00Z");
+        int count = 200;
+        for (int cacheSize : new int[] { 0, ELExpressionCache.DEFAULT_SIZE }) {
+            ELExpressionCache.reset(cacheSize);
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                String output = CoordCommandUtils.materializeOneInstance("jobId", true, createActionElement(actionXml),
+                        nominalTime, nominalTime, 1, jobConf, actionBean);
+                assertTrue(output.contains("hdfs:///tmp/workflows/2009/08/16/01;region=us"));
+            }
+            long elapsed = System.nanoTime() - start;
+            log.info("Expression cache size [{0}]: materialized [{1}] instances in [{2}] ms, [{3}] cache hits", cacheSize,
+                    count, elapsed / 1000000, ELExpressionCache.get().getHits());
+        }
+        assertTrue(ELExpressionCache.get().getHits() > ELExpressionCache.get().getMisses());
+    }
+
     @Test
     public void testCoordOffset() throws Exception {
         CoordinatorJobBean job = addRecordToCoordJobTableForWaiting("coord-dataset-offset.xml",
@@ -48,6 +48,7 @@ import org.apache.oozie.executor.jpa.JPAExecutorException;
 import org.apache.oozie.executor.jpa.CoordJobGetActionsSubsetJPAExecutor;
 import org.apache.oozie.executor.jpa.SLAEventsGetForSeqIdJPAExecutor;
 import org.apache.oozie.local.LocalOozie;
+import org.apache.oozie.service.CoordMaterializeTriggerService;
 import org.apache.oozie.service.JPAService;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.test.XDataTestCase;
@@ -79,6 +80,36 @@ public class TestCoordMaterializeTransitionXCommand extends XDataTestCase {
         checkCoordAction(job.getId() + "@1");
     }
 
+    public void testActionMaterTemplate() throws Exception {
+        Date startTime = DateUtils.parseDateOozieTZ("2009-03-06T010:00Z");
+        Date endTime = DateUtils.parseDateOozieTZ("2009-03-11T10:00Z");
+        CoordinatorJobBean job = addRecordToCoordJobTable(CoordinatorJob.Status.RUNNING, startTime, endTime, false, false, 0);
+        new CoordMaterializeTransitionXCommand(job.getId(), 3600).call();
+        checkCoordAction(job.getId() + "@1");
+        new CoordMaterializeTransitionXCommand(job.getId(), 3600).call();
+        checkCoordAction(job.getId() + "@2");
+
+        CoordMaterializeTemplate template = CoordMaterializeTemplate.get(job);
+        assertSame(template, CoordMaterializeTemplate.get(job));
+        assertNotSame(template.newActionElement(), template.newActionElement());
+
+        job.setJobXml(job.getJobXml() + "\n");
+        CoordMaterializeTemplate updated = CoordMaterializeTemplate.get(job);
+        assertNotSame(template, updated);
+        assertSame(updated, CoordMaterializeTemplate.get(job));
+
+        CoordMaterializeTemplate.invalidate(job.getId());
+        assertNotSame(updated, CoordMaterializeTemplate.get(job));
+        assertEquals(1, CoordMaterializeTemplate.size());
+        new CoordKillXCommand(job.getId()).call();
+        assertEquals(0, CoordMaterializeTemplate.size());
+
+        // the templates do not outlive the service
+        CoordMaterializeTemplate.get(job);
+        Services.get().get(CoordMaterializeTriggerService.class).destroy();
+        assertEquals(0, CoordMaterializeTemplate.size());
+    }
+
     public void testActionMaterForHcatalog() throws Exception {
         Services.get().destroy();
         Services services = super.setupServicesForHCatalog();
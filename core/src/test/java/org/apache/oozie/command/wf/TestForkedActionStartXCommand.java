@@ -33,6 +33,8 @@ import org.apache.oozie.executor.jpa.WorkflowJobQueryExecutor.WorkflowJobQuery;
 import org.apache.oozie.service.ActionService;
 import org.apache.oozie.service.ConfigurationService;
 import org.apache.oozie.service.ExtendedCallableQueueService;
+import org.apache.oozie.service.ForkedActionStartService;
+import org.apache.oozie.service.InstrumentationService;
 import org.apache.oozie.service.LiteWorkflowStoreService;
 import org.apache.oozie.service.SchemaService;
 import org.apache.oozie.service.Services;
@@ -105,6 +107,50 @@ public class TestForkedActionStartXCommand extends XDataTestCase {
                 WorkflowJob.Status.SUCCEEDED);
     }
 
+    public void testWfSuccessWithCappedParallelism() throws Exception {
+        services.destroy();
+        setSystemProperty(Services.CONF_SERVICE_EXT_CLASSES, ExtendedCallableQueueService.class.getName() + ","
+                + ForkedActionStartService.class.getName());
+        setSystemProperty(ForkedActionStartService.CONF_MAX_PARALLELISM, "2");
+        services = new Services();
+        services.init();
+        services.get(ActionService.class).registerAndInitExecutor(ForTestingActionExecutor.class);
+        ConfigurationService.setBoolean(SignalXCommand.FORK_PARALLEL_JOBSUBMISSION, true);
+
+        Configuration conf = new XConfiguration();
+        String workflowUri = getTestCaseFileUri("workflow.xml");
+        StringBuilder appXml = new StringBuilder("<workflow-app xmlns=\"uri:oozie:workflow:0.4\" name=\"wf-fork\">"
+                + "<start to=\"fork1\"/><fork name=\"fork1\">");
+        for (int i = 0; i < 5; i++) {
+            appXml.append("<path start=\"action").append(i).append("\"/>");
+        }
+        appXml.append("</fork>");
+        for (int i = 0; i < 5; i++) {
+            appXml.append("<action name=\"action").append(i).append("\"><fs></fs><ok to=\"join1\"/>")
+                    .append("<error to=\"kill\"/></action>");
+        }
+        appXml.append("<join name=\"join1\" to=\"end\"/><kill name=\"kill\"><message>killed</message></kill>"
+                + "<end name=\"end\"/></workflow-app>");
+
+        writeToFile(appXml.toString(), workflowUri);
+        conf.set(OozieClient.APP_PATH, workflowUri);
+        conf.set(OozieClient.USER_NAME, getTestUser());
+
+        final String jobId = new SubmitXCommand(conf).call();
+        new StartXCommand(jobId).call();
+        waitFor(20 * 1000, new Predicate() {
+            @Override
+            public boolean evaluate() throws Exception {
+                return WorkflowJobQueryExecutor.getInstance().get(WorkflowJobQuery.GET_WORKFLOW, jobId).getStatus()
+                        == WorkflowJob.Status.SUCCEEDED;
+            }
+        });
+        assertEquals(WorkflowJob.Status.SUCCEEDED,
+                WorkflowJobQueryExecutor.getInstance().get(WorkflowJobQuery.GET_WORKFLOW, jobId).getStatus());
+        assertEquals(1, services.get(InstrumentationService.class).get().getTimers()
+                .get("forked.action.start").get(ForkedActionStartService.INSTR_FANOUT_TIMER).getValue().getTicks());
+    }
+
     public void testWfFailure() throws Exception {
         Configuration conf = new XConfiguration();
         String workflowUri = getTestCaseFileUri("workflow.xml");
@@ -0,0 +1,152 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.oozie.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.apache.oozie.util.XConfiguration;
+import org.apache.oozie.util.XmlUtils;
+import org.apache.oozie.test.XTestCase;
+
+public class TestBinaryConfigurationCodec extends XTestCase {
+
+    private XConfiguration createConf(int size) {
+        XConfiguration conf = new XConfiguration();
+        conf.set("oozie.wf.application.path", "hdfs://localhost:8020/user/test/app");
+        conf.set("user.name", "test");
+        conf.set("mapreduce.job.queuename", "default");
+        conf.set("oozie.libpath", "${nameNode}/user/${user.name}/lib");
+        conf.set("key.with..empty.segments.", "value with unicode é中");
+        conf.set("", "empty name");
+        conf.set("empty.value", "");
+        for (int i = 0; i < size; i++) {
+            conf.set("oozie.action.property." + i, "value-" + i);
+        }
+        return conf;
+    }
+
+    public void testRoundTrip() throws Exception {
+        XConfiguration conf = createConf(100);
+        BinaryConfigurationCodec codec = new BinaryConfigurationCodec();
+        XConfiguration decoded = codec.decode(codec.encode(conf));
+        assertEquals(conf.size(), decoded.size());
+        for (Map.Entry<String, String> entry : conf) {
+            assertEquals(entry.getValue(), decoded.getRaw(entry.getKey()));
+        }
+        assertEquals(0, codec.decode(codec.encode(new XConfiguration())).size());
+    }
+
+    public void testGet() throws Exception {
+        XConfiguration conf = createConf(100);
+        BinaryConfigurationCodec codec = new BinaryConfigurationCodec();
+        byte[] data = codec.encode(conf);
+        for (Map.Entry<String, String> entry : conf) {
+            assertEquals(entry.getValue(), codec.get(data, entry.getKey()));
+        }
+        // raw value, variables are not expanded
+        assertEquals("${nameNode}/user/${user.name}/lib", codec.get(data, "oozie.libpath"));
+        assertNull(codec.get(data, "oozie"));
+        assertNull(codec.get(data, "oozie.action.property"));
+        assertNull(codec.get(data, "oozie.action.property.100"));
+        assertNull(codec.get(data, "missing"));
+    }
+
+    public void testInvalidData() throws Exception {
+        BinaryConfigurationCodec codec = new BinaryConfigurationCodec();
+        byte[] data = codec.encode(createConf(10));
+        try {
+            codec.decode(Arrays.copyOf(data, data.length - 3));
+            fail();
+        }
+        catch (IOException ex) {
+            // expected
+        }
+        try {
+            codec.decode("<configuration/>".getBytes(CodecFactory.UTF_8_ENCODING));
+            fail();
+        }
+        catch (IOException ex) {
+            // expected
+        }
+    }
+
+    /**
+     * Compares the binary format with XML and gzip, the format used so far, on a typical workflow configuration.
+     */
+    public void testPerformanceComparedToXml() throws Exception {
+        XConfiguration conf = createConf(200);
+        BinaryConfigurationCodec codec = new BinaryConfigurationCodec();
+        GzipCompressionCodec gzip = new GzipCompressionCodec();
+        byte[] header = new byte[0];
+        int iterations = 2000;
+
+        byte[] data = null;
+        byte[] xml = null;
+        // warm up
+        for (int i = 0; i < iterations / 10; i++) {
+            data = codec.encode(conf);
+            codec.decode(data);
+            xml = gzip.compressString(header, XmlUtils.prettyPrint(conf).toString());
+            new XConfiguration(new StringReader(gzip.decompressToString(
+                    new DataInputStream(new ByteArrayInputStream(xml)))));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            data = codec.encode(conf);
+        }
+        long binaryEncode = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            codec.decode(data);
+        }
+        long binaryDecode = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            codec.get(data, "oozie.action.property.150");
+        }
+        long binaryGet = System.nanoTime() - start;
+        byte[] compressed = gzip.compressBytes(header, data);
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            xml = gzip.compressString(header, XmlUtils.prettyPrint(conf).toString());
+        }
+        long xmlEncode = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            new XConfiguration(new StringReader(gzip.decompressToString(
+                    new DataInputStream(new ByteArrayInputStream(xml)))));
+        }
+        long xmlDecode = System.nanoTime() - start;
+
+        System.out.println(MessageFormat.format("{0} properties, {1} iterations: binary {2} bytes ({3} gzipped) "
+                + "encode {4}ms decode {5}ms get {6}ms, xml+gzip {7} bytes encode {8}ms decode {9}ms",
+                String.valueOf(conf.size()), String.valueOf(iterations), String.valueOf(data.length),
+                String.valueOf(compressed.length), binaryEncode / 1000000, binaryDecode / 1000000,
+                binaryGet / 1000000, String.valueOf(xml.length), xmlEncode / 1000000, xmlDecode / 1000000));
+        assertTrue(data.length < XmlUtils.prettyPrint(conf).toString().length());
+    }
+}
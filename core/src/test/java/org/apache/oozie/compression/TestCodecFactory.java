@@ -22,14 +22,24 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
+import java.text.MessageFormat;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.oozie.BinaryBlob;
 import org.apache.oozie.StringBlob;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.test.XTestCase;
+import org.apache.oozie.util.IOUtils;
+import org.apache.oozie.util.XConfiguration;
+import org.apache.oozie.util.XmlUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -105,4 +115,209 @@ public class TestCodecFactory extends XTestCase {
             // expected
         }
     }
+
+    @Test
+    public void testConfigurationCodec() throws Exception {
+        Configuration conf = services.getConf();
+        conf.set(CodecFactory.CONFIGURATION_OUTPUT_CODEC, BinaryConfigurationCodec.CODEC_NAME);
+        CodecFactory.initialize(conf);
+        try {
+            assertTrue(CodecFactory.isConfigurationCodecEnabled());
+            XConfiguration jobConf = new XConfiguration();
+            jobConf.set("oozie.wf.application.path", "hdfs://localhost:8020/user/test/app");
+            jobConf.set("oozie.libpath", "${nameNode}/lib");
+            StringBlob blob = new StringBlob(XmlUtils.prettyPrint(jobConf).toString());
+            byte[] rawBlob = blob.getRawBlob();
+
+            DataInputStream dais = new DataInputStream(new ByteArrayInputStream(rawBlob));
+            Map<String, String> header = CodecFactory.readHeader(dais);
+            dais.close();
+            assertEquals(BinaryConfigurationCodec.CODEC_NAME, header.get(CodecFactory.CONFIGURATION_KEY_HEADER));
+            assertEquals(GzipCompressionCodec.CODEC_NAME, header.get(CodecFactory.COMPRESSION_KEY_HEADER));
+
+            StringBlob readBlob = new StringBlob(rawBlob);
+            assertEquals("${nameNode}/lib", readBlob.getConfigurationProperty("oozie.libpath"));
+            assertNull(readBlob.getConfigurationProperty("oozie.missing"));
+            XConfiguration readConf = readBlob.getConfiguration();
+            assertEquals(2, readConf.size());
+            assertEquals("hdfs://localhost:8020/user/test/app", readConf.get("oozie.wf.application.path"));
+            readConf = new XConfiguration(new StringReader(readBlob.getString()));
+            assertEquals("${nameNode}/lib", readConf.getRaw("oozie.libpath"));
+
+            // strings which are not configurations are stored as before
+            StringBlob xmlBlob = new StringBlob("<workflow-app name='test'/>");
+            StringBlob readXmlBlob = new StringBlob(xmlBlob.getRawBlob());
+            assertEquals("<workflow-app name='test'/>", readXmlBlob.getString());
+
+            // configurations stored with the codec can still be read after it is disabled
+            conf.set(CodecFactory.CONFIGURATION_OUTPUT_CODEC, "NONE");
+            CodecFactory.initialize(conf);
+            assertFalse(CodecFactory.isConfigurationCodecEnabled());
+            assertEquals("${nameNode}/lib", new StringBlob(rawBlob).getConfiguration().getRaw("oozie.libpath"));
+        }
+        finally {
+            conf.set(CodecFactory.CONFIGURATION_OUTPUT_CODEC, "NONE");
+            CodecFactory.initialize(conf);
+        }
+    }
+
+    @Test
+    public void testDeflateCodec() throws Exception {
+        File dictionary1 = new File(getTestCaseDir(), "dictionary1");
+        FileUtils.writeStringToFile(dictionary1, "<property><name>oozie.</name><value></value></property>");
+        File dictionary2 = new File(getTestCaseDir(), "dictionary2");
+        FileUtils.writeStringToFile(dictionary2, "<configuration><property><name>mapreduce.</name>");
+        Configuration conf = new Configuration(false);
+        conf.set(DeflateCompressionCodec.CONF_DICTIONARIES, dictionary1.getAbsolutePath());
+        DeflateCompressionCodec codec = new DeflateCompressionCodec();
+        codec.setConf(conf);
+        byte[] header = CodecFactory.getHeaderBytes();
+        String data = getConfigurationPayload();
+        byte[] compressed = codec.compressString(header, data);
+        assertEquals(data, decompress(codec, compressed));
+
+        // data compressed with a dictionary listed after the first one can still be read
+        conf.set(DeflateCompressionCodec.CONF_DICTIONARIES, dictionary2.getAbsolutePath() + ","
+                + dictionary1.getAbsolutePath());
+        codec.setConf(conf);
+        assertEquals(data, decompress(codec, compressed));
+        assertEquals(data, decompress(codec, codec.compressString(header, data)));
+
+        // but not once the dictionary is removed
+        conf.set(DeflateCompressionCodec.CONF_DICTIONARIES, "");
+        codec.setConf(conf);
+        try {
+            decompress(codec, compressed);
+            fail();
+        }
+        catch (IOException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testColumnCodecs() throws Exception {
+        Configuration conf = services.getConf();
+        StringBlob gzBlob = new StringBlob("gzipped");
+        byte[] gzRawBlob = gzBlob.getRawBlob("WorkflowJobBean.wfInstance");
+        try {
+            conf.set(CodecFactory.COMPRESSION_COLUMN_CODECS,
+                    "WorkflowJobBean.wfInstance=deflate, CoordinatorActionBean.actionXml=NONE");
+            CodecFactory.initialize(conf);
+            assertEquals(DeflateCompressionCodec.CODEC_NAME,
+                    CodecFactory.getCompressionCodecName("WorkflowJobBean.wfInstance"));
+            assertNull(CodecFactory.getCompressionCodecName("CoordinatorActionBean.actionXml"));
+            assertEquals(GzipCompressionCodec.CODEC_NAME, CodecFactory.getCompressionCodecName("WorkflowJobBean.conf"));
+            assertEquals(GzipCompressionCodec.CODEC_NAME, CodecFactory.getCompressionCodecName(null));
+
+            byte[] rawBlob = new BinaryBlob("instance".getBytes(CodecFactory.UTF_8_ENCODING), true)
+                    .getRawBlob("WorkflowJobBean.wfInstance");
+            DataInputStream dais = new DataInputStream(new ByteArrayInputStream(rawBlob));
+            assertEquals(DeflateCompressionCodec.class, CodecFactory.getDeCompressionCodec(dais).getClass());
+            dais.close();
+            assertEquals("instance", new String(new BinaryBlob(rawBlob, false).getBytes(),
+                    CodecFactory.UTF_8_ENCODING));
+
+            rawBlob = new StringBlob("<coordinator-app/>").getRawBlob("CoordinatorActionBean.actionXml");
+            assertEquals("<coordinator-app/>", new String(rawBlob, CodecFactory.UTF_8_ENCODING));
+
+            // data written with the previous codec of the column can still be read
+            assertEquals("gzipped", new StringBlob(gzRawBlob).getString());
+        }
+        finally {
+            conf.set(CodecFactory.COMPRESSION_COLUMN_CODECS, "");
+            CodecFactory.initialize(conf);
+        }
+    }
+
+    @Test
+    public void testUnknownColumnCodec() throws Exception {
+        Configuration conf = services.getConf();
+        conf.set(CodecFactory.COMPRESSION_COLUMN_CODECS, "WorkflowJobBean.wfInstance=abcd");
+        try {
+            CodecFactory.initialize(conf);
+            fail();
+        }
+        catch (RuntimeException ex) {
+            // expected
+        }
+        finally {
+            conf.set(CodecFactory.COMPRESSION_COLUMN_CODECS, "");
+            CodecFactory.initialize(conf);
+        }
+    }
+
+    /**
+     * Compares the throughput and the compression ratio of the codecs on workflow definitions and configurations.
+     * Codecs relying on a native library which is not available are skipped.
+     */
+    @Test
+    public void testCodecsPerformance() throws Exception {
+        String[] payloads = {IOUtils.getResourceAsString("wf-ext-schema-valid.xml", -1),
+                IOUtils.getResourceAsString("wf-long.xml", -1), getConfigurationPayload()};
+        int size = 0;
+        for (String payload : payloads) {
+            size += payload.length();
+        }
+        String[] names = {GzipCompressionCodec.CODEC_NAME, DeflateCompressionCodec.CODEC_NAME,
+                Lz4CompressionCodec.CODEC_NAME, SnappyCompressionCodec.CODEC_NAME, ZstdCompressionCodec.CODEC_NAME};
+        int iterations = 500;
+        byte[] header = CodecFactory.getHeaderBytes();
+        for (String name : names) {
+            CompressionCodec codec = CodecFactory.getDeCompressionCodec(
+                    Collections.singletonMap(CodecFactory.COMPRESSION_KEY_HEADER, name));
+            try {
+                codec.compressString(header, payloads[0]);
+            }
+            catch (IOException ex) {
+                System.out.println(MessageFormat.format("Codec {0} is not available: {1}", name, ex.getMessage()));
+                continue;
+            }
+            int compressedSize = 0;
+            long compressTime = 0;
+            long decompressTime = 0;
+            for (int i = 0; i < iterations; i++) {
+                for (String payload : payloads) {
+                    long start = System.nanoTime();
+                    byte[] compressed = codec.compressString(header, payload);
+                    compressTime += System.nanoTime() - start;
+                    start = System.nanoTime();
+                    String decompressed = decompress(codec, compressed);
+                    decompressTime += System.nanoTime() - start;
+                    // pooled compressors and decompressors are reused across iterations
+                    assertEquals(payload, decompressed);
+                    if (i == 0) {
+                        compressedSize += compressed.length - header.length;
+                    }
+                }
+            }
+            System.out.println(MessageFormat.format("Codec {0}: ratio {1}, compress {2} MB/s, decompress {3} MB/s",
+                    name, (double) size / compressedSize, mbPerSecond((long) size * iterations, compressTime),
+                    mbPerSecond((long) size * iterations, decompressTime)));
+        }
+    }
+
+    private static long mbPerSecond(long bytes, long nanos) {
+        return nanos == 0 ? 0 : bytes * 1000 / nanos;
+    }
+
+    private String decompress(CompressionCodec codec, byte[] compressed) throws IOException {
+        DataInputStream dais = new DataInputStream(new ByteArrayInputStream(compressed));
+        try {
+            assertNotNull(CodecFactory.readHeader(dais));
+            return codec.decompressToString(dais);
+        }
+        finally {
+            dais.close();
+        }
+    }
+
+    private String getConfigurationPayload() {
+        XConfiguration conf = new XConfiguration();
+        for (int i = 0; i < 100; i++) {
+            conf.set("oozie.action.property." + i, "hdfs://localhost:8020/user/test/app/" + i);
+            conf.set("mapreduce.job.property." + i, String.valueOf(i));
+        }
+        return XmlUtils.prettyPrint(conf).toString();
+    }
 }
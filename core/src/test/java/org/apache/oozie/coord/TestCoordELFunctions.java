@@ -892,6 +892,33 @@ public class TestCoordELFunctions extends XTestCase {
         // Add test cases with EOM and EOD option
     }
 
+    public void testLatestUsesDatasetAvailabilityIndex() throws Exception {
+        init("coord-action-start");
+        eval.setVariable(CoordELFunctions.CONFIGURATION, new Configuration());
+        ds.setUriTemplate(getTestCaseFileUri("${YEAR}/${MONTH}/${DAY}"));
+        createTestCaseSubDir("2009/09/10/_SUCCESS".split("/"));
+        createTestCaseSubDir("2009/09/09/_SUCCESS".split("/"));
+        String expr = "${coord:latest(-1)}";
+        DatasetAvailabilityIndex index = DatasetAvailabilityIndex.get();
+
+        long probed = index.getProbedURIs();
+        assertEquals("2009-09-09T23:59Z", CoordELFunctions.evalAndWrap(eval, expr));
+        assertEquals(2, index.getProbedURIs() - probed);
+
+        // instances found to exist are not probed again
+        probed = index.getProbedURIs();
+        long known = index.getKnownInstances();
+        assertEquals("2009-09-09T23:59Z", CoordELFunctions.evalAndWrap(eval, expr));
+        assertEquals(0, index.getProbedURIs() - probed);
+        assertEquals(2, index.getKnownInstances() - known);
+
+        // updating the coordinator drops its index
+        index.invalidate("00000-oozie-C");
+        probed = index.getProbedURIs();
+        assertEquals("2009-09-09T23:59Z", CoordELFunctions.evalAndWrap(eval, expr));
+        assertEquals(2, index.getProbedURIs() - probed);
+    }
+
     public void testPh1Future() throws Exception {
         init("coord-job-submit-instances");
         String expr = "${coord:future(1, 10)}";
@@ -0,0 +1,71 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.coord;
+
+import org.apache.oozie.test.XTestCase;
+
+public class TestDatasetAvailabilityIndex extends XTestCase {
+
+    @Override
+    protected void tearDown() throws Exception {
+        DatasetAvailabilityIndex.reset(DatasetAvailabilityIndex.DEFAULT_SIZE, DatasetAvailabilityIndex.DEFAULT_TTL);
+        super.tearDown();
+    }
+
+    public void testAvailability() throws Exception {
+        DatasetAvailabilityIndex.reset(10, 60 * 1000);
+        DatasetAvailabilityIndex index = DatasetAvailabilityIndex.get();
+        assertNull(index.getAvailability(null, "u", "hdfs:///${YEAR}", "_SUCCESS"));
+
+        DatasetAvailabilityIndex.Availability availability = index.getAvailability("job1-C", "u", "hdfs:///${YEAR}",
+                "_SUCCESS");
+        assertFalse(availability.exists(1000L));
+        availability.setExists(1000L);
+        assertTrue(index.getAvailability("job1-C", "u", "hdfs:///${YEAR}", "_SUCCESS").exists(1000L));
+        assertFalse(index.getAvailability("job1-C", "u", "hdfs:///${YEAR}", "").exists(1000L));
+        assertFalse(index.getAvailability("job2-C", "u", "hdfs:///${YEAR}", "_SUCCESS").exists(1000L));
+
+        index.getAvailability("job10-C", "u", "hdfs:///${YEAR}", "_SUCCESS").setExists(1000L);
+        index.invalidate("job1-C");
+        assertFalse(index.getAvailability("job1-C", "u", "hdfs:///${YEAR}", "_SUCCESS").exists(1000L));
+        assertTrue(index.getAvailability("job10-C", "u", "hdfs:///${YEAR}", "_SUCCESS").exists(1000L));
+    }
+
+    public void testExpiry() throws Exception {
+        DatasetAvailabilityIndex.reset(10, 100);
+        DatasetAvailabilityIndex index = DatasetAvailabilityIndex.get();
+        index.getAvailability("job1-C", "u", "hdfs:///${YEAR}", "_SUCCESS").setExists(1000L);
+        Thread.sleep(200);
+        assertFalse(index.getAvailability("job1-C", "u", "hdfs:///${YEAR}", "_SUCCESS").exists(1000L));
+    }
+
+    public void testDisabled() throws Exception {
+        DatasetAvailabilityIndex.reset(0, 60 * 1000);
+        assertNull(DatasetAvailabilityIndex.get().getAvailability("job1-C", "u", "hdfs:///${YEAR}", "_SUCCESS"));
+    }
+
+    public void testRecordResolution() throws Exception {
+        DatasetAvailabilityIndex.reset(10, 60 * 1000);
+        DatasetAvailabilityIndex index = DatasetAvailabilityIndex.get();
+        index.recordResolution(3, 1);
+        index.recordResolution(1, 4);
+        assertEquals(2, index.getResolutions());
+        assertEquals(4, index.getProbedURIs());
+        assertEquals(5, index.getKnownInstances());
+    }
+}
@@ -19,6 +19,8 @@
 package org.apache.oozie.dependency;
 
 import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapred.JobConf;
@@ -62,4 +64,82 @@ public class TestFSURIHandler extends XFsTestCase {
 
     }
 
+    @Test
+    public void testExistsCache() throws Exception {
+        services.destroy();
+        setSystemProperty(URIHandlerService.EXISTS_CACHE_ENABLED, "true");
+        setSystemProperty(URIHandlerService.EXISTS_CACHE_NEGATIVE_TTL, "3600");
+        services = new Services();
+        services.init();
+        uriService = services.get(URIHandlerService.class);
+
+        Path path1 = new Path(getFsTestCaseDir() + "/2012/12/02/");
+        Path path2 = new Path(getFsTestCaseDir() + "/2012/12/12/");
+        Path path3 = new Path(getFsTestCaseDir() + "/2012/12/22/");
+        getFileSystem().mkdirs(path1);
+        assertTrue(uriService.exists(path1.toUri(), conf, getTestUser()));
+        assertFalse(uriService.exists(path2.toUri(), conf, getTestUser()));
+
+        // results are served from the cache
+        getFileSystem().mkdirs(path2);
+        getFileSystem().delete(path1, true);
+        assertTrue(uriService.exists(path1.toUri(), conf, getTestUser()));
+        assertFalse(uriService.exists(path2.toUri(), conf, getTestUser()));
+
+        // results are not shared with other users, which may not have the same permissions
+        try {
+            assertFalse(uriService.exists(path1.toUri(), conf, getTestUser2()));
+        }
+        catch (URIHandlerException ex) {
+            // the other user is not allowed to access the test directory
+        }
+
+        getFileSystem().mkdirs(path3);
+        boolean[] exists = uriService.exists(Arrays.asList(path1.toUri(), path2.toUri(), path3.toUri(),
+                new Path(getFsTestCaseDir() + "/2012/12/32/").toUri()), conf, getTestUser());
+        assertTrue(exists[0]);
+        assertFalse(exists[1]);
+        assertTrue(exists[2]);
+        assertFalse(exists[3]);
+    }
+
+    @Test
+    public void testExistsWithoutCache() throws Exception {
+        Path path1 = new Path(getFsTestCaseDir() + "/2012/12/02/");
+        Path path2 = new Path(getFsTestCaseDir() + "/2012/12/12/");
+        assertFalse(uriService.exists(path1.toUri(), conf, getTestUser()));
+        getFileSystem().mkdirs(path1);
+        assertTrue(uriService.exists(path1.toUri(), conf, getTestUser()));
+        boolean[] exists = uriService.exists(Arrays.asList(path1.toUri(), path2.toUri()), conf, getTestUser());
+        assertTrue(exists[0]);
+        assertFalse(exists[1]);
+    }
+
+    @Test
+    public void testExistsListing() throws Exception {
+        Path dir = new Path(getFsTestCaseDir() + "/2012/12/");
+        Path path1 = new Path(dir, "02");
+        Path path2 = new Path(dir, "12");
+        Path path3 = new Path(dir, "22");
+        Path path4 = new Path(getFsTestCaseDir() + "/2013/01/02");
+        Path path5 = new Path(getFsTestCaseDir() + "/2014/01/02");
+        Path path6 = new Path(getFsTestCaseDir() + "/2014/01/12");
+        getFileSystem().mkdirs(path1);
+        getFileSystem().mkdirs(path3);
+        getFileSystem().mkdirs(path4);
+        List<URI> uris = Arrays.asList(path1.toUri(), path2.toUri(), path3.toUri(), path4.toUri(), path5.toUri(),
+                path6.toUri());
+
+        FSURIHandler handler = (FSURIHandler) uriService.getURIHandler(path1.toUri());
+        assertEquals(dir.toUri().getPath(), handler.getDirectory(path1.toUri()).toUri().getPath());
+        boolean[] exists = handler.exists(uris, conf, getTestUser());
+        assertTrue(Arrays.equals(new boolean[] { true, false, true, true, false, false }, exists));
+
+        exists = uriService.exists(uris, conf, getTestUser());
+        assertTrue(Arrays.equals(new boolean[] { true, false, true, true, false, false }, exists));
+
+        exists = uriService.exists(uris, conf, getTestUser(), true);
+        assertTrue(Arrays.equals(new boolean[] { true, false, false, false, false, false }, exists));
+    }
+
 }
@@ -142,6 +142,11 @@ public class TestBundleJobQueryExecutor extends XDataTestCase {
         retBean = BundleJobQueryExecutor.getInstance().get(BundleJobQuery.GET_BUNDLE_JOB_STATUS, bean.getId());
         assertEquals(bean.getStatus(), retBean.getStatus());
         assertEquals(bean.getId(), retBean.getId());
+        // GET_BUNDLE_JOB_USER_GROUP
+        retBean = BundleJobQueryExecutor.getInstance().get(BundleJobQuery.GET_BUNDLE_JOB_USER_GROUP, bean.getId());
+        assertEquals(bean.getId(), retBean.getId());
+        assertEquals(bean.getUser(), retBean.getUser());
+        assertEquals(bean.getGroup(), retBean.getGroup());
     }
 
     public void testBundleIDsForStatusTransit() throws Exception {
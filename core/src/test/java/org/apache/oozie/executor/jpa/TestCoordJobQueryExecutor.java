@@ -194,6 +194,11 @@ public class TestCoordJobQueryExecutor extends XDataTestCase {
         retBean = CoordJobQueryExecutor.getInstance().get(CoordJobQuery.GET_COORD_JOB_USER_APPNAME, bean.getId());
         assertEquals(bean.getUser(), retBean.getUser());
         assertEquals(bean.getAppName(), retBean.getAppName());
+        // GET_COORD_JOB_USER_GROUP
+        retBean = CoordJobQueryExecutor.getInstance().get(CoordJobQuery.GET_COORD_JOB_USER_GROUP, bean.getId());
+        assertEquals(bean.getId(), retBean.getId());
+        assertEquals(bean.getUser(), retBean.getUser());
+        assertEquals(bean.getGroup(), retBean.getGroup());
         // GET_COORD_JOB_STATUS_PARENTID
         retBean = CoordJobQueryExecutor.getInstance().get(CoordJobQuery.GET_COORD_JOB_STATUS_PARENTID, bean.getId());
         assertEquals(bean.getBundleId(), retBean.getBundleId());
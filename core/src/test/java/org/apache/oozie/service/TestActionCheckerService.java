@@ -22,10 +22,12 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.Reader;
 import java.io.Writer;
+import java.util.Collections;
 import java.util.List;
 import java.util.Date;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.action.hadoop.LauncherStatusPoller;
 import org.apache.oozie.client.CoordinatorAction;
 import org.apache.oozie.client.CoordinatorJob;
 import org.apache.oozie.client.WorkflowJob;
@@ -33,6 +35,7 @@ import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.executor.jpa.CoordActionGetJPAExecutor;
 import org.apache.oozie.executor.jpa.WorkflowActionQueryExecutor;
 import org.apache.oozie.executor.jpa.WorkflowActionsGetForJobJPAExecutor;
+import org.apache.oozie.executor.jpa.WorkflowActionsRunningGetJPAExecutor;
 import org.apache.oozie.executor.jpa.WorkflowActionQueryExecutor.WorkflowActionQuery;
 import org.apache.oozie.CoordinatorActionBean;
 import org.apache.oozie.CoordinatorEngine;
@@ -140,6 +143,58 @@ public class TestActionCheckerService extends XDataTestCase {
         assertEquals(WorkflowActionBean.Status.OK, action2.getStatus());
     }
 
+    /**
+     * Tests the Action Checker Service Runnable with the launcher status poller. The running action is not launcher
+     * based, so it is still fully checked and its job completes.
+     *
+     * @throws Exception
+     */
+    public void testActionCheckerServiceWithLauncherStatusPoller() throws Exception {
+        Reader reader = IOUtils.getResourceAsReader("wf-ext-schema-valid.xml", -1);
+        Writer writer = new FileWriter(new File(getTestCaseDir(), "workflow.xml"));
+        IOUtils.copyCharStream(reader, writer);
+
+        final DagEngine engine = new DagEngine(getTestUser());
+        Configuration conf = new XConfiguration();
+        conf.set(OozieClient.APP_PATH, getTestCaseFileUri("workflow.xml"));
+        conf.set(WorkflowAppService.HADOOP_USER, getTestUser());
+
+        conf.set(OozieClient.LOG_TOKEN, "t");
+
+        conf.set("external-status", "ok");
+        conf.set("signal-value", "based_on_action_status");
+        conf.set("running-mode", "async");
+
+        final String jobId = engine.submitJob(conf, true);
+
+        waitFor(5000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return (engine.getJob(jobId).getStatus() == WorkflowJob.Status.RUNNING);
+            }
+        });
+        sleep(2000);
+
+        JPAService jpaService = Services.get().get(JPAService.class);
+        List<WorkflowActionBean> runningActions = jpaService.execute(new WorkflowActionsRunningGetJPAExecutor(0));
+        assertEquals(1, runningActions.size());
+        WorkflowActionBean action = runningActions.get(0);
+        assertEquals("test", action.getType());
+
+        LauncherStatusPoller poller = new LauncherStatusPoller(1, 3600 * 1000, null);
+        assertEquals(Collections.singletonList(action.getId()), poller.getActionsToCheck(runningActions));
+
+        sleep(2000);
+        Runnable actionCheckRunnable = new ActionCheckRunnable(0, poller);
+        actionCheckRunnable.run();
+
+        waitFor(20000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return (engine.getJob(jobId).getStatus() == WorkflowJob.Status.SUCCEEDED);
+            }
+        });
+        assertEquals(WorkflowJob.Status.SUCCEEDED, engine.getJob(jobId).getStatus());
+    }
+
     /**
      * Tests the delayed check functionality of the Action Check Service
      * Runnable. </p> Starts an action which behaves like an Async Action
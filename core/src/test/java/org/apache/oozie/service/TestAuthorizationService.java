@@ -45,6 +45,7 @@ import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.client.WorkflowJob;
 import org.apache.oozie.test.XDataTestCase;
 import org.apache.oozie.util.IOUtils;
+import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.XConfiguration;
 import org.apache.oozie.util.XLog;
 import org.apache.oozie.workflow.WorkflowInstance;
@@ -211,6 +212,56 @@ public class TestAuthorizationService extends XDataTestCase {
         as.authorizeForJob(getTestUser(), job.getId(), true);
     }
 
+    public void testJobAndGroupsCache() throws Exception {
+        init(false, true);
+        CoordinatorJobBean job = addRecordToCoordJobTable(CoordinatorJob.Status.PREP, false, false);
+        AuthorizationService as = services.get(AuthorizationService.class);
+        Instrumentation instr = services.get(InstrumentationService.class).get();
+
+        as.authorizeForJob(getTestUser(), job.getId(), true);
+        as.authorizeForJob(getTestUser(), job.getId(), true);
+        as.authorizeForJob(getTestUser(), job.getId(), true);
+        assertEquals(1, getCounter(instr, AuthorizationService.INSTR_JOB_CACHE_MISSES_COUNTER));
+        assertEquals(2, getCounter(instr, AuthorizationService.INSTR_JOB_CACHE_HITS_COUNTER));
+
+        // the job is owned by the test user, other users are checked against its ACL without reloading it
+        try {
+            as.authorizeForJob(getTestUser3(), job.getId(), true);
+            fail();
+        }
+        catch (AuthorizationException ex) {
+            assertEquals(ErrorCode.E0509, ex.getErrorCode());
+        }
+        assertEquals(1, getCounter(instr, AuthorizationService.INSTR_JOB_CACHE_MISSES_COUNTER));
+
+        as.invalidateJob(job.getId());
+        as.authorizeForJob(getTestUser(), job.getId(), true);
+        assertEquals(2, getCounter(instr, AuthorizationService.INSTR_JOB_CACHE_MISSES_COUNTER));
+        assertEquals(3, getCounter(instr, AuthorizationService.INSTR_JOB_CACHE_HITS_COUNTER));
+        assertEquals(0.6, getVariable(instr, "job.cache.hit.ratio"), 0.001);
+
+        long groupsMisses = getCounter(instr, AuthorizationService.INSTR_GROUPS_CACHE_MISSES_COUNTER);
+        long groupsHits = getCounter(instr, AuthorizationService.INSTR_GROUPS_CACHE_HITS_COUNTER);
+        as.authorizeForGroup(getTestUser(), getTestGroup());
+        as.authorizeForGroup(getTestUser(), getTestGroup());
+        assertEquals(groupsMisses + 1, getCounter(instr, AuthorizationService.INSTR_GROUPS_CACHE_MISSES_COUNTER));
+        assertEquals(groupsHits + 1, getCounter(instr, AuthorizationService.INSTR_GROUPS_CACHE_HITS_COUNTER));
+        assertEquals((double) (groupsHits + 1) / (groupsHits + groupsMisses + 2),
+                getVariable(instr, "groups.cache.hit.ratio"), 0.001);
+    }
+
+    private long getCounter(Instrumentation instr, String name) {
+        Instrumentation.Element<Long> counter = instr.getCounters().get(AuthorizationService.INSTRUMENTATION_GROUP)
+                .get(name);
+        return (counter != null) ? counter.getValue() : 0;
+    }
+
+    private double getVariable(Instrumentation instr, String name) {
+        // variable elements return the value of their variable
+        Object value = instr.getVariables().get(AuthorizationService.INSTRUMENTATION_GROUP).get(name).getValue();
+        return (Double) value;
+    }
+
     public void testDefaultGroup() throws Exception {
         init(false, true);
         AuthorizationService as = services.get(AuthorizationService.class);
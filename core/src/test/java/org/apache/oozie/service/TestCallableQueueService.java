@@ -24,12 +24,16 @@ import org.apache.oozie.command.CommandException;
 import org.apache.oozie.command.PreconditionException;
 import org.apache.oozie.command.XCommand;
 import org.apache.oozie.test.XTestCase;
+import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.XCallable;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -916,4 +920,148 @@ public class TestCallableQueueService extends XTestCase {
         uniquesAfter.removeAll(uniquesBefore);
         assertTrue(uniquesAfter.toString(), uniquesAfter.isEmpty());
     }
+
+    public void testConcurrencyLimitWithShards() throws Exception {
+        Services.get().destroy();
+        setSystemProperty(CallableQueueService.CONF_QUEUE_SHARDS, "4");
+        new Services().init();
+
+        CLCallable.resetConcurrency();
+        final CallableQueueService queueservice = Services.get().get(CallableQueueService.class);
+
+        for (int i = 0; i < 10; i++) {
+            queueservice.queue(new CLCallable(), 10);
+        }
+
+        waitFor(2000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return queueservice.queueSize() == 0;
+            }
+        });
+
+        assertTrue(CLCallable.getConcurrency() <= 3);
+    }
+
+    public void testQueueUniquenessWithConcurrentProducers() throws Exception {
+        Services.get().destroy();
+        setSystemProperty(CallableQueueService.CONF_QUEUE_SHARDS, "4");
+        new Services().init();
+
+        final CallableQueueService queueservice = Services.get().get(CallableQueueService.class);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<Thread>();
+        for (int i = 0; i < 64; i++) {
+            producers.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        queueservice.queue(new MyCallable("ConcurrentProducers", "ConcurrentProducers", 0, 0), 5000);
+                    }
+                    catch (InterruptedException ex) {
+                        // test ends
+                    }
+                }
+            });
+        }
+        for (Thread producer : producers) {
+            producer.start();
+        }
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertEquals(1, queueservice.queueSize());
+        assertEquals(1, queueservice.getUniqueDump().size());
+    }
+
+    /**
+     * Measures the queuing and execution throughput of the sharded queue with 64 producer threads.
+     */
+    public void testShardedQueueThroughput() throws Exception {
+        Services.get().destroy();
+        setSystemProperty(CallableQueueService.CONF_QUEUE_SHARDS, "8");
+        setSystemProperty(CallableQueueService.CONF_QUEUE_SIZE, "100000");
+        setSystemProperty(CallableQueueService.CONF_CALLABLE_CONCURRENCY, "100");
+        new Services().init();
+
+        final CallableQueueService queueservice = Services.get().get(CallableQueueService.class);
+        final int producers = 64;
+        final int callablesPerProducer = 200;
+        final List<MyCallable> callables = Collections.synchronizedList(new ArrayList<MyCallable>());
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < producers; i++) {
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    }
+                    catch (InterruptedException ex) {
+                        return;
+                    }
+                    for (int j = 0; j < callablesPerProducer; j++) {
+                        MyCallable callable = new MyCallable(0, 0);
+                        callables.add(callable);
+                        queueservice.queue(callable);
+                    }
+                }
+            });
+        }
+        long startTime = System.currentTimeMillis();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long queuedTime = System.currentTimeMillis() - startTime;
+        waitFor(30000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                for (MyCallable callable : callables) {
+                    if (callable.executed == 0) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        });
+        long executedTime = System.currentTimeMillis() - startTime;
+        int executed = 0;
+        for (MyCallable callable : callables) {
+            if (callable.executed != 0) {
+                executed++;
+            }
+        }
+        System.out.println("Queued " + callables.size() + " callables from " + producers + " threads in " + queuedTime
+                + "ms, executed in " + executedTime + "ms");
+        assertEquals(producers * callablesPerProducer, executed);
+    }
+
+    public void testConcurrencyRejectionInstrumentation() throws Exception {
+        Services.get().destroy();
+        setSystemProperty(CallableQueueService.CONF_CALLABLE_CONCURRENCY, "1");
+        new Services().init();
+
+        CLCallable.resetConcurrency();
+        final CallableQueueService queueservice = Services.get().get(CallableQueueService.class);
+        for (int i = 0; i < 5; i++) {
+            queueservice.queue(new CLCallable());
+        }
+        waitFor(5000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return queueservice.queueSize() == 0 && CLCallable.counter.get() == 0;
+            }
+        });
+        assertEquals(1, CLCallable.getConcurrency());
+
+        Instrumentation inst = Services.get().get(InstrumentationService.class).get();
+        Map<String, Instrumentation.Element<Long>> counters = inst.getCounters().get("callablequeue");
+        long exceeded = counters.get("type#exceeded.concurrency").getValue();
+        long requeued = counters.get("type#requeued").getValue();
+        assertTrue(exceeded > 0);
+        assertEquals(exceeded, requeued);
+    }
 }
@@ -18,16 +18,32 @@
 
 package org.apache.oozie.service;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.oozie.ErrorCode;
+import org.apache.oozie.WorkflowActionBean;
+import org.apache.oozie.WorkflowJobBean;
+import org.apache.oozie.client.WorkflowAction;
+import org.apache.oozie.client.WorkflowJob;
+import org.apache.oozie.executor.jpa.JPAExecutorException;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.service.CallbackService;
-import org.apache.oozie.test.XTestCase;
+import org.apache.oozie.test.XDataTestCase;
+import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.workflow.WorkflowInstance;
 
-public class TestCallbackService extends XTestCase {
+public class TestCallbackService extends XDataTestCase {
 
     @Override
     protected void setUp() throws Exception {
         super.setUp();
-        new Services().init();
+        Services services = new Services();
+        services.getConf().setBoolean(CallbackService.CONF_BATCH_ENABLED, true);
+        // batches are drained by the test
+        services.getConf().setInt(CallbackService.CONF_BATCH_INTERVAL, 60 * 60 * 1000);
+        services.init();
     }
 
     @Override
@@ -53,4 +69,58 @@ public class TestCallbackService extends XTestCase {
         assertEquals("OK", cs.getExternalStatus(callback));
     }
 
+    public void testBatchedCallbacks() throws Exception {
+        CallbackService cs = Services.get().get(CallbackService.class);
+        assertTrue(cs.isBatchEnabled());
+        WorkflowJobBean job = addRecordToWfJobTable(WorkflowJob.Status.RUNNING, WorkflowInstance.Status.RUNNING);
+        WorkflowActionBean running = addRecordToWfActionTable(job.getId(), "1", WorkflowAction.Status.RUNNING);
+        WorkflowActionBean done = addRecordToWfActionTable(job.getId(), "2", WorkflowAction.Status.OK);
+
+        cs.addCompletion(running.getId(), "RUNNING");
+        cs.addCompletion(running.getId(), "SUCCEEDED");
+        cs.addCompletion(done.getId(), "SUCCEEDED");
+        cs.addCompletion(job.getId() + "@missing", "SUCCEEDED");
+
+        assertEquals(3, cs.drainCompletions());
+        assertEquals(0, cs.drainCompletions());
+
+        Map<String, Instrumentation.Element<Long>> counters = Services.get().get(InstrumentationService.class).get()
+                .getCounters().get("callback");
+        assertEquals(3L, counters.get("batched").getValue().longValue());
+        assertEquals(1L, counters.get("coalesced").getValue().longValue());
+        assertEquals(3L, counters.get("drained").getValue().longValue());
+        // only the RUNNING action with a completed external status is checked
+        assertEquals(1L, counters.get("completed").getValue().longValue());
+    }
+
+    public void testBatchedCallbacksRetriedOnFailure() throws Exception {
+        final AtomicBoolean failLoad = new AtomicBoolean(true);
+        CallbackService cs = new CallbackService() {
+            @Override
+            List<WorkflowActionBean> getCompletedActions(List<String> actionIds) throws JPAExecutorException {
+                if (failLoad.getAndSet(false)) {
+                    throw new JPAExecutorException(ErrorCode.E0603, "test");
+                }
+                return super.getCompletedActions(actionIds);
+            }
+        };
+        cs.init(Services.get());
+        WorkflowJobBean job = addRecordToWfJobTable(WorkflowJob.Status.RUNNING, WorkflowInstance.Status.RUNNING);
+        WorkflowActionBean running = addRecordToWfActionTable(job.getId(), "1", WorkflowAction.Status.RUNNING);
+        WorkflowActionBean done = addRecordToWfActionTable(job.getId(), "2", WorkflowAction.Status.OK);
+        cs.addCompletion(running.getId(), "SUCCEEDED");
+        cs.addCompletion(done.getId(), "SUCCEEDED");
+
+        try {
+            cs.drainCompletions();
+            fail();
+        }
+        catch (JPAExecutorException ex) {
+            assertEquals(ErrorCode.E0603, ex.getErrorCode());
+        }
+        // the callbacks of the failed batch are not lost
+        assertEquals(2, cs.drainCompletions());
+        assertEquals(0, cs.drainCompletions());
+    }
+
 }
@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.oozie.test.XTestCase;
+import org.apache.oozie.util.Instrumentation;
+
+public class TestForkedActionStartService extends XTestCase {
+
+    private Services services;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        setSystemProperty(Services.CONF_SERVICE_EXT_CLASSES, ForkedActionStartService.class.getName());
+        setSystemProperty(ForkedActionStartService.CONF_THREADS, "10");
+        setSystemProperty(ForkedActionStartService.CONF_MAX_PARALLELISM, "3");
+        services = new Services();
+        services.init();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        services.destroy();
+        super.tearDown();
+    }
+
+    public void testInvokeAllCapsParallelism() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 20; i++) {
+            final int index = i;
+            tasks.add(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    int current = running.incrementAndGet();
+                    synchronized (maxRunning) {
+                        maxRunning.set(Math.max(maxRunning.get(), current));
+                    }
+                    Thread.sleep(20);
+                    running.decrementAndGet();
+                    return index;
+                }
+            });
+        }
+        ForkedActionStartService service = services.get(ForkedActionStartService.class);
+        List<Future<Integer>> futures = service.invokeAll(tasks);
+
+        assertEquals(20, futures.size());
+        boolean[] completed = new boolean[20];
+        for (Future<Integer> future : futures) {
+            assertTrue(future.isDone());
+            completed[future.get()] = true;
+        }
+        for (boolean done : completed) {
+            assertTrue(done);
+        }
+        assertTrue("ran " + maxRunning.get() + " tasks at the same time", maxRunning.get() <= 3);
+
+        Instrumentation instr = services.get(InstrumentationService.class).get();
+        assertEquals(1, instr.getTimers().get(ForkedActionStartService.INSTRUMENTATION_GROUP)
+                .get(ForkedActionStartService.INSTR_FANOUT_TIMER).getValue().getTicks());
+        assertEquals(20, instr.getCounters().get(ForkedActionStartService.INSTRUMENTATION_GROUP)
+                .get(ForkedActionStartService.INSTR_ACTIONS_COUNTER).getValue().longValue());
+    }
+
+    public void testInvokeAllCompletionOrder() throws Exception {
+        List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+        tasks.add(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                Thread.sleep(500);
+                return "slow";
+            }
+        });
+        tasks.add(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                throw new IllegalStateException("failed");
+            }
+        });
+        tasks.add(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return "fast";
+            }
+        });
+        List<Future<String>> futures = services.get(ForkedActionStartService.class).invokeAll(tasks);
+
+        assertEquals(3, futures.size());
+        assertEquals("slow", futures.get(2).get());
+        int failed = 0;
+        for (Future<String> future : futures) {
+            try {
+                future.get();
+            }
+            catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof IllegalStateException);
+                failed++;
+            }
+        }
+        assertEquals(1, failed);
+    }
+}
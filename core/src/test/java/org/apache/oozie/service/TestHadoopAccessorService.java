@@ -186,6 +186,28 @@ public class TestHadoopAccessorService extends XTestCase {
         }
     }
 
+    public void testJobClientPool() throws Exception {
+        HadoopAccessorService has = Services.get().get(HadoopAccessorService.class);
+        JobConf conf = has.createJobConf(getJobTrackerUri());
+        conf.set("mapred.job.tracker", getJobTrackerUri());
+        conf.set("fs.default.name", getNameNodeUri());
+
+        JobClient jc1 = has.getJobClient(getTestUser(), conf);
+        JobClient jc2 = has.getJobClient(getTestUser(), conf);
+        assertSame(jc1, jc2);
+        jc1.close();
+        jc2.close();
+        // released clients stay pooled
+        JobClient jc3 = has.getJobClient(getTestUser(), conf);
+        assertSame(jc1, jc3);
+        assertNotNull(jc3.getClusterStatus());
+        jc3.close();
+
+        JobClient other = has.getJobClient(getTestUser2(), conf);
+        assertNotSame(jc1, other);
+        other.close();
+    }
+
     public void testGetMRDelegationTokenRenewer() throws Exception {
         HadoopAccessorService has = Services.get().get(HadoopAccessorService.class);
         JobConf jobConf = new JobConf(false);
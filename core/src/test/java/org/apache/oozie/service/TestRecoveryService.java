@@ -44,6 +44,7 @@ import org.apache.oozie.client.Job;
 import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.client.WorkflowAction;
 import org.apache.oozie.client.WorkflowJob;
+import org.apache.oozie.command.coord.CoordActionReadyXCommand;
 import org.apache.oozie.command.wf.ActionXCommand;
 import org.apache.oozie.command.wf.ActionXCommand.ActionExecutorContext;
 import org.apache.oozie.coord.CoordELFunctions;
@@ -86,6 +87,7 @@ import java.io.StringReader;
 import java.io.Writer;
 import java.net.URI;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -269,6 +271,87 @@ public class TestRecoveryService extends XDataTestCase {
         assertTrue(LauncherMapperHelper.hasIdSwap(actionData));
     }
 
+    /**
+     * Tests that pending workflow actions are read in pages and that all of them are recovered.
+     *
+     * @throws Exception
+     */
+    public void testWorkflowActionRecoveryPaging() throws Exception {
+        services.getConf().setInt(RecoveryService.CONF_PAGE_SIZE, 1);
+        WorkflowJobBean job1 = this.addRecordToWfJobTable(WorkflowJob.Status.RUNNING, WorkflowInstance.Status.RUNNING);
+        this.addRecordToWfActionTable(job1.getId(), "1", WorkflowAction.Status.USER_RETRY);
+        WorkflowJobBean job2 = this.addRecordToWfJobTable(WorkflowJob.Status.RUNNING, WorkflowInstance.Status.RUNNING);
+        this.addRecordToWfActionTable(job2.getId(), "1", WorkflowAction.Status.USER_RETRY);
+        WorkflowJobBean job3 = this.addRecordToWfJobTable(WorkflowJob.Status.RUNNING, WorkflowInstance.Status.RUNNING);
+        this.addRecordToWfActionTable(job3.getId(), "1", WorkflowAction.Status.USER_RETRY);
+
+        RecoveryRunnable recoveryRunnable = new RecoveryRunnable(0, 60, 60);
+        recoveryRunnable.run();
+
+        assertEquals(3, recoveryRunnable.getLastRunScanned());
+        assertEquals(3, recoveryRunnable.getLastRunRecovered());
+        // 4 pages for the workflow actions, 1 for each of the coordinator and bundle scans
+        assertEquals(7, recoveryRunnable.getLastRunPages());
+        assertFalse(recoveryRunnable.isLastRunThrottled());
+    }
+
+    /**
+     * Tests that only the pending workflow actions of the jobs in the buckets of this server are read.
+     *
+     * @throws Exception
+     */
+    public void testWorkflowActionRecoveryInBuckets() throws Exception {
+        WorkflowJobBean job1 = this.addRecordToWfJobTable(WorkflowJob.Status.RUNNING, WorkflowInstance.Status.RUNNING);
+        this.addRecordToWfActionTable(job1.getId(), "1", WorkflowAction.Status.USER_RETRY);
+        WorkflowJobBean job2 = this.addRecordToWfJobTable(WorkflowJob.Status.RUNNING, WorkflowInstance.Status.RUNNING);
+        this.addRecordToWfActionTable(job2.getId(), "1", WorkflowAction.Status.USER_RETRY);
+
+        BucketsJobsConcurrencyService.buckets = Collections.singletonList(job1.getId().substring(4, 7));
+        services.setService(BucketsJobsConcurrencyService.class);
+        RecoveryRunnable recoveryRunnable = new RecoveryRunnable(0, 60, 60);
+        recoveryRunnable.run();
+        assertEquals(1, recoveryRunnable.getLastRunScanned());
+        assertEquals(1, recoveryRunnable.getLastRunRecovered());
+
+        BucketsJobsConcurrencyService.buckets = Collections.emptyList();
+        recoveryRunnable.run();
+        assertEquals(0, recoveryRunnable.getLastRunScanned());
+    }
+
+    public static class BucketsJobsConcurrencyService extends JobsConcurrencyService {
+        static List<String> buckets;
+
+        @Override
+        public List<String> getJobIdBucketsForThisServer() {
+            return buckets;
+        }
+    }
+
+    /**
+     * Tests that recovery stops when the callable queue is backed up, and resumes once the queue is drained.
+     *
+     * @throws Exception
+     */
+    public void testRecoveryBackpressure() throws Exception {
+        services.getConf().setInt(RecoveryService.CONF_BACKPRESSURE_QUEUE_SIZE, 1);
+        WorkflowJobBean job = this.addRecordToWfJobTable(WorkflowJob.Status.RUNNING, WorkflowInstance.Status.RUNNING);
+        this.addRecordToWfActionTable(job.getId(), "1", WorkflowAction.Status.USER_RETRY);
+
+        CallableQueueService queueService = services.get(CallableQueueService.class);
+        queueService.queue(new CoordActionReadyXCommand("0000000-000000000000000-oozie-C"), 60 * 1000);
+        assertTrue(queueService.queueSize() >= 1);
+
+        RecoveryRunnable recoveryRunnable = new RecoveryRunnable(0, 60, 60);
+        recoveryRunnable.run();
+        assertTrue(recoveryRunnable.isLastRunThrottled());
+        assertEquals(0, recoveryRunnable.getLastRunScanned());
+
+        services.getConf().setInt(RecoveryService.CONF_BACKPRESSURE_QUEUE_SIZE, 0);
+        recoveryRunnable.run();
+        assertFalse(recoveryRunnable.isLastRunThrottled());
+        assertEquals(1, recoveryRunnable.getLastRunRecovered());
+    }
+
     /**
      * If the bundle action is in PREP state and coord is not yet created, recovery should submit new coord
      * @throws Exception
@@ -37,6 +37,7 @@ import org.apache.oozie.command.bundle.BundleKillXCommand;
 import org.apache.oozie.command.coord.CoordKillXCommand;
 import org.apache.oozie.command.coord.CoordResumeXCommand;
 import org.apache.oozie.command.coord.CoordSuspendXCommand;
+import org.apache.oozie.coord.CoordActionStatusCounters;
 import org.apache.oozie.executor.jpa.BundleActionGetJPAExecutor;
 import org.apache.oozie.executor.jpa.BundleActionQueryExecutor;
 import org.apache.oozie.executor.jpa.BundleActionQueryExecutor.BundleActionQuery;
@@ -1455,6 +1456,50 @@ public class TestStatusTransitService extends XDataTestCase {
         assertEquals(CoordinatorJob.Status.SUCCEEDED, coordJob.getStatus());
     }
 
+    /**
+     * Tests the StatusTransitService runnable with the coordinator action status counters enabled. The status of the
+     * job is aggregated from the counters loaded from the database, then from the counters updated in memory when an
+     * action is updated.
+     *
+     * @throws Exception
+     */
+    public void testCoordStatusTransitServiceWithStatusCounters() throws Exception {
+        Services.get().destroy();
+        setSystemProperty(StatusTransitService.CONF_COORD_STATUS_COUNTERS_ENABLED, "true");
+        services = new Services();
+        setClassesToBeExcluded(services.getConf(), new String[] { "org.apache.oozie.service.PauseTransitService",
+                "org.apache.oozie.service.CoordMaterializeTriggerService", "org.apache.oozie.service.RecoveryService" });
+        services.init();
+        CoordActionStatusCounters counters = services.get(StatusTransitService.class).getCoordActionStatusCounters();
+        assertNotNull(counters);
+
+        String currentDatePlusMonth = XDataTestCase.getCurrentDateafterIncrementingInMonths(1);
+        Date start = DateUtils.parseDateOozieTZ(currentDatePlusMonth);
+        Date end = DateUtils.parseDateOozieTZ(currentDatePlusMonth);
+        CoordinatorJobBean job = addRecordToCoordJobTable(CoordinatorJob.Status.RUNNING, start, end, true, true, 3);
+        CoordinatorActionBean action = addRecordToCoordActionTable(job.getId(), 1, CoordinatorAction.Status.RUNNING,
+                "coord-action-get.xml", 0);
+        addRecordToCoordActionTable(job.getId(), 2, CoordinatorAction.Status.SUCCEEDED, "coord-action-get.xml", 0);
+        addRecordToCoordActionTable(job.getId(), 3, CoordinatorAction.Status.SUCCEEDED, "coord-action-get.xml", 0);
+
+        new StatusTransitRunnable().run();
+        CoordinatorJobBean coordJob = CoordJobQueryExecutor.getInstance().get(CoordJobQuery.GET_COORD_JOB, job.getId());
+        assertEquals(CoordinatorJob.Status.RUNNING, coordJob.getStatus());
+        assertEquals(1, counters.size());
+        assertEquals(3, counters.getCounts(job.getId(), false).getActionCount());
+
+        action.setStatus(CoordinatorAction.Status.SUCCEEDED);
+        CoordActionQueryExecutor.getInstance().executeUpdate(
+                CoordActionQuery.UPDATE_COORD_ACTION_STATUS_PENDING_TIME, action);
+        CoordActionStatusCounters.Counts counts = counters.getCounts(job.getId(), false);
+        assertFalse(counts.isLoaded());
+        assertEquals(Integer.valueOf(3), counts.getStatusCounts().get(CoordinatorAction.Status.SUCCEEDED));
+
+        new StatusTransitRunnable().run();
+        coordJob = CoordJobQueryExecutor.getInstance().get(CoordJobQuery.GET_COORD_JOB, job.getId());
+        assertEquals(CoordinatorJob.Status.SUCCEEDED, coordJob.getStatus());
+    }
+
     // Test coord transition from killed to running when one action is rerun.
     public void testCoordStatusTransitRunningFromKilled() throws Exception {
         final JPAService jpaService = Services.get().get(JPAService.class);
@@ -0,0 +1,153 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.service;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.persistence.EntityManager;
+
+import org.apache.oozie.WorkflowDefinitionBean;
+import org.apache.oozie.test.XTestCase;
+import org.apache.oozie.util.WritableUtils;
+import org.apache.oozie.util.XConfiguration;
+import org.apache.oozie.workflow.WorkflowInstance;
+import org.apache.oozie.workflow.lite.ActionNodeDef;
+import org.apache.oozie.workflow.lite.EndNodeDef;
+import org.apache.oozie.workflow.lite.KillNodeDef;
+import org.apache.oozie.workflow.lite.LiteWorkflowApp;
+import org.apache.oozie.workflow.lite.LiteWorkflowInstance;
+import org.apache.oozie.workflow.lite.StartNodeDef;
+import org.apache.oozie.workflow.lite.TestLiteWorkflowLib;
+
+public class TestWorkflowDefinitionStoreService extends XTestCase {
+
+    private Services services;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        initServices();
+        cleanUpDBTables();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        services.destroy();
+        super.tearDown();
+    }
+
+    public void testRegisterAndGet() throws Exception {
+        WorkflowDefinitionStoreService store = services.get(WorkflowDefinitionStoreService.class);
+        byte[] data = "some data".getBytes("UTF-8");
+        String hash = store.register(data);
+        assertEquals(WorkflowDefinitionStoreService.hash(data), hash);
+        assertEquals(hash, store.register("some data".getBytes("UTF-8")));
+        assertEquals(1, getEntryCount());
+        assertTrue(Arrays.equals(data, store.getData(hash)));
+
+        // entries not in memory are loaded from the database
+        services.destroy();
+        initServices();
+        store = services.get(WorkflowDefinitionStoreService.class);
+        assertTrue(Arrays.equals(data, store.getData(hash)));
+        try {
+            store.getData(WorkflowDefinitionStoreService.hash("missing".getBytes("UTF-8")));
+            fail();
+        }
+        catch (IOException ex) {
+            // expected
+        }
+    }
+
+    public void testWorkflowInstanceSize() throws Exception {
+        LiteWorkflowApp def = createApp();
+        XConfiguration conf = new XConfiguration();
+        for (int i = 0; i < 100; i++) {
+            conf.set("property." + i, "value." + i);
+        }
+        LiteWorkflowInstance instance = new LiteWorkflowInstance(def, conf, "0000001-000000000000000-oozie-test-W");
+        instance.start();
+
+        byte[] compact = WritableUtils.toByteArray(instance);
+        assertEquals(2, getEntryCount());
+
+        // serialize the same instance without the store, as it was written before the store existed
+        services.destroy();
+        byte[] legacy = WritableUtils.toByteArray(instance);
+        initServices();
+
+        log.info("Workflow instance bytes written per signal, legacy [{0}], with definition store [{1}]",
+                legacy.length, compact.length);
+        assertTrue(compact.length * 10 < legacy.length);
+
+        for (byte[] blob : new byte[][]{compact, legacy}) {
+            LiteWorkflowInstance read = WritableUtils.fromByteArray(blob, LiteWorkflowInstance.class);
+            assertEquals(instance.getId(), read.getId());
+            assertEquals(WorkflowInstance.Status.RUNNING, read.getStatus());
+            assertEquals(def.getDefinition(), read.getApp().getDefinition());
+            assertEquals(def.getNodeDefs().size(), ((LiteWorkflowApp) read.getApp()).getNodeDefs().size());
+            assertEquals("value.99", read.getConf().get("property.99"));
+        }
+
+        // a second workflow with the same definition and configuration does not add entries
+        LiteWorkflowInstance other = new LiteWorkflowInstance(createApp(), conf, "0000002-000000000000000-oozie-test-W");
+        WritableUtils.toByteArray(other);
+        assertEquals(2, getEntryCount());
+    }
+
+    public void testPurgeUnused() throws Exception {
+        WorkflowDefinitionStoreService store = services.get(WorkflowDefinitionStoreService.class);
+        store.register("some data".getBytes("UTF-8"));
+        assertEquals(1, getEntryCount());
+        Thread.sleep(10);
+        assertEquals(1, store.purgeUnused());
+        assertEquals(0, getEntryCount());
+    }
+
+    private void initServices() throws ServiceException {
+        services = new Services();
+        services.getConf().set(Services.CONF_SERVICE_EXT_CLASSES, WorkflowDefinitionStoreService.class.getName());
+        services.getConf().setInt(WorkflowDefinitionStoreService.CONF_TOUCH_INTERVAL, 0);
+        services.init();
+    }
+
+    private LiteWorkflowApp createApp() throws Exception {
+        StringBuilder actionConf = new StringBuilder("<java>");
+        for (int i = 0; i < 100; i++) {
+            actionConf.append("<arg>argument-").append(i).append("</arg>");
+        }
+        actionConf.append("</java>");
+        return new LiteWorkflowApp("wf", "<workflow-app/>",
+                new StartNodeDef(TestLiteWorkflowLib.TestControlNodeHandler.class, "one"))
+                .addNode(new ActionNodeDef("one", actionConf.toString(), TestLiteWorkflowLib.TestActionNodeHandler.class,
+                        "end", "kill"))
+                .addNode(new KillNodeDef("kill", "killed", TestLiteWorkflowLib.TestControlNodeHandler.class))
+                .addNode(new EndNodeDef("end", TestLiteWorkflowLib.TestControlNodeHandler.class));
+    }
+
+    private int getEntryCount() throws Exception {
+        EntityManager em = services.get(JPAService.class).getEntityManager();
+        try {
+            return em.createQuery("select OBJECT(w) from WorkflowDefinitionBean w").getResultList().size();
+        }
+        finally {
+            em.close();
+        }
+    }
+}
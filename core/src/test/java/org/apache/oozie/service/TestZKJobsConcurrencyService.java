@@ -19,6 +19,7 @@
 package org.apache.oozie.service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +29,7 @@ import org.apache.oozie.client.rest.RestConstants;
 import org.apache.oozie.test.ZKXTestCase;
 import org.apache.oozie.util.ConfigUtils;
 import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.util.JobIdRing;
 import org.apache.oozie.util.ZKUtils;
 
 public class TestZKJobsConcurrencyService extends ZKXTestCase {
@@ -122,46 +124,26 @@ public class TestZKJobsConcurrencyService extends ZKXTestCase {
     public void testIsJobIdForThisServer() throws Exception {
         ZKJobsConcurrencyService zkjcs = new ZKJobsConcurrencyService();
         // We'll use some DummyZKXOozies here to pretend to be other Oozie servers that will influence isJobIdForThisServer()
-        // once they are running in that the indecies of the job ids will cause each job id to belong to different Oozie "servers"
+        // once they are running in that the job ids will belong to different Oozie "servers" of the ring
         DummyZKOozie dummyOozie = null;
         DummyZKOozie dummyOozie2 = null;
         try {
+            int virtualNodes = ConfigurationService.getInt(ZKJobsConcurrencyService.CONF_VIRTUAL_NODES);
+            List<String> ids = getJobIds(1000);
             dummyOozie = new DummyZKOozie("a", "http://blah");
             zkjcs.init(Services.get());
-            assertFalse(zkjcs.isJobIdForThisServer("0000000-130521183438837-oozie-rkan-W"));
-            assertTrue(zkjcs.isJobIdForThisServer("0000001-130521183438837-oozie-rkan-W"));
-            assertFalse(zkjcs.isJobIdForThisServer("0000002-130521183438837-oozie-rkan-W"));
-            assertTrue(zkjcs.isJobIdForThisServer("0000003-130521183438837-oozie-rkan-W"));
-            assertFalse(zkjcs.isJobIdForThisServer("0000004-130521183438837-oozie-rkan-W"));
-            assertTrue(zkjcs.isJobIdForThisServer("0000005-130521183438837-oozie-rkan-W"));
-            assertFalse(zkjcs.isJobIdForThisServer("0000006-130521183438837-oozie-rkan-W"));
+            checkIsJobIdForThisServer(zkjcs, ids, new JobIdRing(Arrays.asList(ZK_ID, "a"), virtualNodes));
             assertTrue(zkjcs.isJobIdForThisServer("blah"));
             dummyOozie2 = new DummyZKOozie("b", "http://blah");
-            assertFalse(zkjcs.isJobIdForThisServer("0000000-130521183438837-oozie-rkan-W"));
-            assertTrue(zkjcs.isJobIdForThisServer("0000001-130521183438837-oozie-rkan-W"));
-            assertFalse(zkjcs.isJobIdForThisServer("0000002-130521183438837-oozie-rkan-W"));
-            assertFalse(zkjcs.isJobIdForThisServer("0000003-130521183438837-oozie-rkan-W"));
-            assertTrue(zkjcs.isJobIdForThisServer("0000004-130521183438837-oozie-rkan-W"));
-            assertFalse(zkjcs.isJobIdForThisServer("0000005-130521183438837-oozie-rkan-W"));
-            assertFalse(zkjcs.isJobIdForThisServer("0000006-130521183438837-oozie-rkan-W"));
+            checkIsJobIdForThisServer(zkjcs, ids, new JobIdRing(Arrays.asList(ZK_ID, "a", "b"), virtualNodes));
             assertTrue(zkjcs.isJobIdForThisServer("blah"));
             dummyOozie.teardown();
-            assertTrue(zkjcs.isJobIdForThisServer("0000000-130521183438837-oozie-rkan-W"));
-            assertFalse(zkjcs.isJobIdForThisServer("0000001-130521183438837-oozie-rkan-W"));
-            assertTrue(zkjcs.isJobIdForThisServer("0000002-130521183438837-oozie-rkan-W"));
-            assertFalse(zkjcs.isJobIdForThisServer("0000003-130521183438837-oozie-rkan-W"));
-            assertTrue(zkjcs.isJobIdForThisServer("0000004-130521183438837-oozie-rkan-W"));
-            assertFalse(zkjcs.isJobIdForThisServer("0000005-130521183438837-oozie-rkan-W"));
-            assertTrue(zkjcs.isJobIdForThisServer("0000006-130521183438837-oozie-rkan-W"));
+            checkIsJobIdForThisServer(zkjcs, ids, new JobIdRing(Arrays.asList(ZK_ID, "b"), virtualNodes));
             assertTrue(zkjcs.isJobIdForThisServer("blah"));
             dummyOozie2.teardown();
-            assertTrue(zkjcs.isJobIdForThisServer("0000000-130521183438837-oozie-rkan-W"));
-            assertTrue(zkjcs.isJobIdForThisServer("0000001-130521183438837-oozie-rkan-W"));
-            assertTrue(zkjcs.isJobIdForThisServer("0000002-130521183438837-oozie-rkan-W"));
-            assertTrue(zkjcs.isJobIdForThisServer("0000003-130521183438837-oozie-rkan-W"));
-            assertTrue(zkjcs.isJobIdForThisServer("0000004-130521183438837-oozie-rkan-W"));
-            assertTrue(zkjcs.isJobIdForThisServer("0000005-130521183438837-oozie-rkan-W"));
-            assertTrue(zkjcs.isJobIdForThisServer("0000006-130521183438837-oozie-rkan-W"));
+            for (String id : ids) {
+                assertTrue(zkjcs.isJobIdForThisServer(id));
+            }
             assertTrue(zkjcs.isJobIdForThisServer("blah"));
         }
         finally {
@@ -178,51 +160,31 @@ public class TestZKJobsConcurrencyService extends ZKXTestCase {
     public void testGetJobIdsForThisServer() throws Exception {
         ZKJobsConcurrencyService zkjcs = new ZKJobsConcurrencyService();
         // We'll use some DummyZKXOozies here to pretend to be other Oozie servers that will influence getJobIdsForThisServer()
-        // once they are running in that the indecies of the job ids will cause each job id to belong to different Oozie "servers"
+        // once they are running in that the job ids will belong to different Oozie "servers" of the ring
         DummyZKOozie dummyOozie = null;
         DummyZKOozie dummyOozie2 = null;
         try {
-            List<String> ids = new ArrayList<String>();
-            ids.add("0000000-130521183438837-oozie-rkan-W");
-            ids.add("0000001-130521183438837-oozie-rkan-W");
-            ids.add("0000002-130521183438837-oozie-rkan-W");
-            ids.add("0000003-130521183438837-oozie-rkan-W");
-            ids.add("0000004-130521183438837-oozie-rkan-W");
-            ids.add("0000005-130521183438837-oozie-rkan-W");
-            ids.add("0000006-130521183438837-oozie-rkan-W");
+            int virtualNodes = ConfigurationService.getInt(ZKJobsConcurrencyService.CONF_VIRTUAL_NODES);
+            List<String> ids = getJobIds(1000);
             ids.add("blah");
             dummyOozie = new DummyZKOozie("a", "http://blah");
             zkjcs.init(Services.get());
             List<String> ids2 = zkjcs.getJobIdsForThisServer(ids);
-            List<String> ids3 = new ArrayList<String>();
-            ids3.add("0000001-130521183438837-oozie-rkan-W");
-            ids3.add("0000003-130521183438837-oozie-rkan-W");
-            ids3.add("0000005-130521183438837-oozie-rkan-W");
-            ids3.add("blah");
-            assertEquals(4, ids2.size());
-            assertTrue(ids2.containsAll(ids3));
+            assertEquals(getOwnedIds(ids, new JobIdRing(Arrays.asList(ZK_ID, "a"), virtualNodes)), ids2);
+            assertTrue(ids2.size() > 1 && ids2.size() < ids.size());
             dummyOozie2 = new DummyZKOozie("b", "http://blah");
-            ids2 = zkjcs.getJobIdsForThisServer(ids);
-            ids3 = new ArrayList<String>();
-            ids3.add("0000001-130521183438837-oozie-rkan-W");
-            ids3.add("0000004-130521183438837-oozie-rkan-W");
-            ids3.add("blah");
-            assertEquals(3, ids2.size());
+            List<String> ids3 = zkjcs.getJobIdsForThisServer(ids);
+            assertEquals(getOwnedIds(ids, new JobIdRing(Arrays.asList(ZK_ID, "a", "b"), virtualNodes)), ids3);
+            // adding a server only takes jobs away from the others
             assertTrue(ids2.containsAll(ids3));
+            assertTrue(ids3.size() < ids2.size());
             dummyOozie.teardown();
             ids2 = zkjcs.getJobIdsForThisServer(ids);
-            ids3 = new ArrayList<String>();
-            ids3.add("0000000-130521183438837-oozie-rkan-W");
-            ids3.add("0000002-130521183438837-oozie-rkan-W");
-            ids3.add("0000004-130521183438837-oozie-rkan-W");
-            ids3.add("0000006-130521183438837-oozie-rkan-W");
-            ids3.add("blah");
-            assertEquals(5, ids2.size());
+            assertEquals(getOwnedIds(ids, new JobIdRing(Arrays.asList(ZK_ID, "b"), virtualNodes)), ids2);
             assertTrue(ids2.containsAll(ids3));
             dummyOozie2.teardown();
             ids2 = zkjcs.getJobIdsForThisServer(ids);
-            assertEquals(8, ids2.size());
-            assertTrue(ids2.containsAll(ids));
+            assertEquals(ids, ids2);
         }
         finally {
             zkjcs.destroy();
@@ -235,6 +197,55 @@ public class TestZKJobsConcurrencyService extends ZKXTestCase {
         }
     }
 
+    public void testGetJobIdBucketsForThisServer() throws Exception {
+        ZKJobsConcurrencyService zkjcs = new ZKJobsConcurrencyService();
+        DummyZKOozie dummyOozie = null;
+        try {
+            dummyOozie = new DummyZKOozie("a", "http://blah");
+            zkjcs.init(Services.get());
+            List<String> buckets = zkjcs.getJobIdBucketsForThisServer();
+            assertFalse(buckets.isEmpty());
+            assertTrue(buckets.size() < JobIdRing.BUCKETS);
+            for (String id : getJobIds(1000)) {
+                assertEquals(zkjcs.isJobIdForThisServer(id), buckets.contains(id.substring(4, 7)));
+            }
+            dummyOozie.teardown();
+            buckets = zkjcs.getJobIdBucketsForThisServer();
+            assertEquals(JobIdRing.BUCKETS, buckets.size());
+        }
+        finally {
+            zkjcs.destroy();
+            if (dummyOozie != null) {
+                dummyOozie.teardown();
+            }
+        }
+    }
+
+    private List<String> getJobIds(int count) {
+        List<String> ids = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            ids.add(String.format("%07d-130521183438837-oozie-rkan-W", i * 9973L % JobIdRing.SIZE));
+        }
+        return ids;
+    }
+
+    private List<String> getOwnedIds(List<String> ids, JobIdRing ring) {
+        List<String> owned = new ArrayList<String>();
+        for (String id : ids) {
+            String owner = ring.getOwner(id);
+            if (owner == null || owner.equals(ZK_ID)) {
+                owned.add(id);
+            }
+        }
+        return owned;
+    }
+
+    private void checkIsJobIdForThisServer(ZKJobsConcurrencyService zkjcs, List<String> ids, JobIdRing ring) {
+        for (String id : ids) {
+            assertEquals(id, ZK_ID.equals(ring.getOwner(id)), zkjcs.isJobIdForThisServer(id));
+        }
+    }
+
     public void testGetServerUrls() throws Exception {
         ZKJobsConcurrencyService zkjcs = new ZKJobsConcurrencyService();
         // We'll use some DummyZKXOozies here to pretend to be other Oozie servers that will influence getServerUrls()
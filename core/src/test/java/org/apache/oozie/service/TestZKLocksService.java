@@ -19,11 +19,15 @@
 package org.apache.oozie.service;
 
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.oozie.lock.LockToken;
 import org.apache.oozie.lock.TestMemoryLocks;
 import org.apache.oozie.service.ZKLocksService.ZKLockToken;
 import org.apache.oozie.test.ZKXTestCase;
+import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.XLog;
 import org.apache.oozie.util.ZKUtils;
 import org.apache.zookeeper.data.Stat;
@@ -551,6 +555,135 @@ public class TestZKLocksService extends ZKXTestCase {
         }
     }
 
+    public void testLeasedLocks() throws Exception {
+        final String jobId = "0001234-130521183438837-oozie-rkan-W";
+        Services.get().setService(ZKJobsConcurrencyService.class);
+        ConfigurationService.setBoolean(ZKLocksService.CONF_LEASE_ENABLED, true);
+        ZKLocksService zkls1 = new ZKLocksService();
+        final ZKLocksService zkls2 = new NonOwnerZKLocksService();
+        Instrumentation instr = new Instrumentation();
+        try {
+            zkls1.init(Services.get());
+            zkls1.instrument(instr);
+            zkls2.init(Services.get());
+
+            // this server owns all the jobs, the lock is served in memory under the lease of the shard
+            LockToken lock = zkls1.getWriteLock(jobId, TestMemoryLocks.DEFAULT_LOCK_TIMEOUT);
+            assertNotNull(lock);
+            assertTrue(zkls1.isLeaseActive(jobId));
+            assertFalse(zkls1.getLocks().containsKey(jobId));
+            LockToken nested = zkls1.getWriteLock(jobId, 0);
+            assertNotNull(nested);
+            nested.release();
+            assertEquals(2L, instr.getCounters().get("locks").get("acquired.lease").getValue().longValue());
+
+            // locks of other resources are still ZooKeeper locks
+            LockToken other = zkls1.getWriteLock("blah", 0);
+            assertNotNull(other);
+            assertTrue(zkls1.getLocks().containsKey("blah"));
+            other.release();
+            assertEquals(1L, instr.getCounters().get("locks").get("acquired.zk").getValue().longValue());
+
+            // another server gets the lock once the lease was given up and the lock was released
+            // ZooKeeper locks are owned by the acquiring thread, the same thread has to release lock2
+            final AtomicReference<LockToken> lock2 = new AtomicReference<LockToken>();
+            final CountDownLatch acquired = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        lock2.set(zkls2.getWriteLock(jobId, 10000));
+                        acquired.countDown();
+                        release.await();
+                        if (lock2.get() != null) {
+                            lock2.get().release();
+                        }
+                    }
+                    catch (InterruptedException e) {
+                    }
+                }
+            };
+            thread.start();
+            sleep(1000);
+            assertNull(lock2.get());
+            lock.release();
+            assertTrue(acquired.await(10, TimeUnit.SECONDS));
+            assertNotNull(lock2.get());
+            assertFalse(zkls1.isLeaseActive(jobId));
+
+            // the server owning the job uses ZooKeeper locks until it can lease the shard again
+            assertNull(zkls1.getWriteLock(jobId, 0));
+            release.countDown();
+            thread.join();
+            lock = zkls1.getWriteLock(jobId, TestMemoryLocks.DEFAULT_LOCK_TIMEOUT);
+            assertNotNull(lock);
+            assertFalse(zkls1.isLeaseActive(jobId));
+            assertTrue(zkls1.getLocks().containsKey(jobId));
+            lock.release();
+        }
+        finally {
+            zkls1.destroy();
+            zkls2.destroy();
+        }
+    }
+
+    public void testLeaseDrainDoesNotBlockOtherShards() throws Exception {
+        final String jobId = "0001234-130521183438837-oozie-rkan-W";
+        // in another shard
+        final String otherJobId = "0005678-130521183438837-oozie-rkan-W";
+        Services.get().setService(ZKJobsConcurrencyService.class);
+        ConfigurationService.setBoolean(ZKLocksService.CONF_LEASE_ENABLED, true);
+        ZKLocksService zkls1 = new ZKLocksService();
+        final ZKLocksService zkls2 = new NonOwnerZKLocksService();
+        try {
+            zkls1.init(Services.get());
+            zkls2.init(Services.get());
+
+            LockToken lock = zkls1.getWriteLock(jobId, TestMemoryLocks.DEFAULT_LOCK_TIMEOUT);
+            assertNotNull(lock);
+            assertTrue(zkls1.isLeaseActive(jobId));
+
+            // another server asks for the lease, which is drained until the lock is released
+            final AtomicReference<LockToken> lock2 = new AtomicReference<LockToken>();
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        lock2.set(zkls2.getWriteLock(jobId, 10000));
+                    }
+                    catch (InterruptedException e) {
+                    }
+                }
+            };
+            thread.start();
+            sleep(1000);
+            assertFalse(zkls1.isLeaseActive(jobId));
+
+            // the shards of the other jobs are still leased meanwhile
+            LockToken other = zkls1.getWriteLock(otherJobId, TestMemoryLocks.DEFAULT_LOCK_TIMEOUT);
+            assertNotNull(other);
+            assertTrue(zkls1.isLeaseActive(otherJobId));
+            other.release();
+
+            lock.release();
+            thread.join();
+            assertNotNull(lock2.get());
+            lock2.get().release();
+        }
+        finally {
+            zkls1.destroy();
+            zkls2.destroy();
+        }
+    }
+
+    static class NonOwnerZKLocksService extends ZKLocksService {
+        @Override
+        boolean isShardForThisServer(long shard) {
+            return false;
+        }
+    }
+
     private void checkLockRelease(String path, ZKLocksService zkls) {
         if (zkls.getLocks().get(path) == null) {
             // good, lock is removed from memory after gc.
@@ -20,6 +20,8 @@ package org.apache.oozie.service;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.oozie.BulkResponseInfo;
@@ -85,6 +87,7 @@ public class TestZKUUIDService extends ZKXTestCase {
 
         try {
             setSystemProperty(UUIDService.CONF_GENERATOR, "counter");
+            ConfigurationService.set(ZKUUIDService.CONF_SEQUENCE_BLOCK_SIZE, "1");
             uuid1.init(Services.get());
             uuid2.init(Services.get());
             for (int i = 0; i < 1000; i += 2) {
@@ -220,6 +223,95 @@ public class TestZKUUIDService extends ZKXTestCase {
         }
     }
 
+    public void testBlockIDGeneration() throws Exception {
+        ZKUUIDService uuid1 = new ZKUUIDService();
+        ZKUUIDService uuid2 = new ZKUUIDService();
+        try {
+            setSystemProperty(UUIDService.CONF_GENERATOR, "counter");
+            ConfigurationService.set(ZKUUIDService.CONF_SEQUENCE_BLOCK_SIZE, "100");
+            uuid1.init(Services.get());
+            uuid2.init(Services.get());
+            // each service hands out the ids of its own block
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, Integer.parseInt(uuid1.generateId(ApplicationType.WORKFLOW).substring(0, 7)));
+                assertEquals(100 + i, Integer.parseInt(uuid2.generateId(ApplicationType.WORKFLOW).substring(0, 7)));
+            }
+            assertEquals(200, Integer.parseInt(uuid2.generateId(ApplicationType.WORKFLOW).substring(0, 7)));
+            assertEquals(300, Integer.parseInt(uuid1.generateId(ApplicationType.WORKFLOW).substring(0, 7)));
+        }
+        finally {
+            uuid1.destroy();
+            uuid2.destroy();
+        }
+    }
+
+    public void testBlockIDGeneration_withResetSequence() throws Exception {
+        Services service = Services.get();
+        service.setService(ZKLocksService.class);
+        final int count = 6000;
+        final ZKUUIDService uuid1 = new ZKUUIDService();
+        final ZKUUIDService uuid2 = new ZKUUIDService();
+        final Set<String> ids1 = new HashSet<String>();
+        final Set<String> ids2 = new HashSet<String>();
+        setSystemProperty(UUIDService.CONF_GENERATOR, "counter");
+        ConfigurationService.set(ZKUUIDService.CONF_SEQUENCE_BLOCK_SIZE, "300");
+        ZKUUIDService.setMaxSequence(1000);
+        uuid1.init(service);
+        uuid2.init(service);
+        try {
+            Thread t1 = new Thread() {
+                public void run() {
+                    for (int i = 0; i < count; i++) {
+                        ids1.add(uuid1.generateId(ApplicationType.WORKFLOW));
+                    }
+                }
+            };
+            Thread t2 = new Thread() {
+                public void run() {
+                    for (int i = 0; i < count; i++) {
+                        ids2.add(uuid2.generateId(ApplicationType.WORKFLOW));
+                    }
+                }
+            };
+            t1.start();
+            t2.start();
+            t1.join();
+            t2.join();
+            // blocks leased after a reset, by any of the services, must not reuse the ids of the previous cycle
+            assertEquals(count, ids1.size());
+            assertEquals(count, ids2.size());
+            for (String id : ids1) {
+                assertTrue(Integer.parseInt(id.substring(0, 7)) < 1000);
+            }
+        }
+        finally {
+            uuid1.destroy();
+            uuid2.destroy();
+        }
+    }
+
+    public void testIDGenerationThroughput() throws Exception {
+        setSystemProperty(UUIDService.CONF_GENERATOR, "counter");
+        int count = 2000;
+        for (String blockSize : new String[] { "1", "1000" }) {
+            ConfigurationService.set(ZKUUIDService.CONF_SEQUENCE_BLOCK_SIZE, blockSize);
+            ZKUUIDService uuid = new ZKUUIDService();
+            try {
+                uuid.init(Services.get());
+                long start = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    uuid.generateId(ApplicationType.WORKFLOW);
+                }
+                long elapsed = Math.max(1, System.nanoTime() - start);
+                log.info("Block size [{0}]: generated [{1}] ids at [{2}] ids/sec", blockSize, count,
+                        count * 1000000000L / elapsed);
+            }
+            finally {
+                uuid.destroy();
+            }
+        }
+    }
+
     public void testBulkJobForZKUUIDService() throws Exception {
         Services service = Services.get();
         ZKUUIDService uuid = new ZKUUIDService();
@@ -314,7 +406,7 @@ class ZKUUIDServiceWithException extends ZKUUIDService {
     }
 
     @Override
-    protected long getZKSequence() throws Exception {
+    protected String getZKSequence() throws Exception {
         if (throwEx) {
             throw new Exception("Can't generate UUID");
         }
@@ -971,4 +971,67 @@ public class TestSLACalculatorMemory extends XDataTestCase {
         assertEquals(slaSummaryBean.getJobStatus(), WorkflowInstance.Status.SUCCEEDED.toString());
     }
 
+    @Test
+    public void testIncrementalSlaCheck() throws Exception {
+        Configuration conf = Services.get().get(ConfigurationService.class).getConf();
+        conf.setInt(SLAService.CONF_JOB_EVENT_LATENCY, 0);
+        SLACalculatorMemory slaCalcMemory = new SLACalculatorMemory();
+        slaCalcMemory.init(conf);
+        SLARegistrationBean slaRegBean = _createSLARegistration("job-1-W", AppType.WORKFLOW_JOB);
+        slaRegBean.setExpectedStart(new Date(System.currentTimeMillis() + 1 * 3600 * 1000)); // 1 hour ahead
+        slaRegBean.setExpectedEnd(new Date(System.currentTimeMillis() + 2 * 3600 * 1000)); // 2 hours ahead
+        slaRegBean.setExpectedDuration(3600 * 1000);
+        String jobId = slaRegBean.getId();
+        slaCalcMemory.addRegistration(jobId, slaRegBean);
+        Thread.sleep(10);
+        slaCalcMemory.updateAllSlaStatus();
+        assertTrue(slaCalcMemory.isJobIdInSLAMap(jobId));
+        Thread.sleep(10);
+
+        // no threshold crossed and no change of the summary, the job is not checked against the database
+        SLASummaryBean summary = new SLASummaryBean();
+        summary.setId(jobId);
+        summary.setEventProcessed(8);
+        SLASummaryQueryExecutor.getInstance().executeUpdate(SLASummaryQuery.UPDATE_SLA_SUMMARY_EVENTPROCESSED, summary);
+        slaCalcMemory.updateAllSlaStatus();
+        assertTrue(slaCalcMemory.isJobIdInSLAMap(jobId));
+
+        // summary modified, by another server for instance
+        summary.setLastModifiedTime(new Date());
+        SLASummaryQueryExecutor.getInstance().executeUpdate(SLASummaryQuery.UPDATE_SLA_SUMMARY_LAST_MODIFIED_TIME,
+                summary);
+        slaCalcMemory.updateAllSlaStatus();
+        assertFalse(slaCalcMemory.isJobIdInSLAMap(jobId));
+    }
+
+    @Test
+    public void testDeadlineIndex() throws Exception {
+        SLADeadlineIndex index = new SLADeadlineIndex();
+        SLACalcStatus slaCalc1 = new SLACalcStatus(_createSLARegistration("job-1-W", AppType.WORKFLOW_JOB));
+        SLACalcStatus slaCalc2 = new SLACalcStatus(_createSLARegistration("job-2-W", AppType.WORKFLOW_JOB));
+        SLACalcStatus slaCalc3 = new SLACalcStatus(_createSLARegistration("job-3-W", AppType.WORKFLOW_JOB));
+        index.schedule(slaCalc1, 300);
+        index.schedule(slaCalc2, 100);
+        index.schedule(slaCalc3, Long.MAX_VALUE);
+        // moving a status replaces its previous position
+        index.schedule(slaCalc1, 200);
+        assertEquals(3, index.size());
+
+        assertTrue(index.pollDue(100).isEmpty());
+        List<SLADeadlineIndex.Entry> due = index.pollDue(250);
+        assertEquals(2, due.size());
+        assertEquals("job-2-W", due.get(0).getJobId());
+        assertEquals("job-1-W", due.get(1).getJobId());
+        assertTrue(SLADeadlineIndex.isCurrent(slaCalc2, due.get(0)));
+        assertEquals(1, index.size());
+
+        // rescheduled while being processed, the polled entry is not current anymore
+        index.schedule(slaCalc1, 400);
+        assertFalse(SLADeadlineIndex.isCurrent(slaCalc1, due.get(1)));
+        index.remove(slaCalc3);
+        assertEquals(1, index.size());
+        assertEquals("job-1-W", index.pollDue(Long.MAX_VALUE).get(0).getJobId());
+        assertEquals(0, index.size());
+    }
+
 }
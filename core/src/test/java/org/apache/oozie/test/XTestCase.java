@@ -64,6 +64,7 @@ import org.apache.oozie.CoordinatorActionBean;
 import org.apache.oozie.CoordinatorJobBean;
 import org.apache.oozie.SLAEventBean;
 import org.apache.oozie.WorkflowActionBean;
+import org.apache.oozie.WorkflowDefinitionBean;
 import org.apache.oozie.WorkflowJobBean;
 import org.apache.oozie.dependency.FSURIHandler;
 import org.apache.oozie.dependency.HCatURIHandler;
@@ -882,6 +883,13 @@ public abstract class XTestCase extends TestCase {
             entityManager.remove(w);
         }
 
+        q = entityManager.createQuery("select OBJECT(w) from WorkflowDefinitionBean w");
+        List<WorkflowDefinitionBean> wfdBeans = q.getResultList();
+        int wfdSize = wfdBeans.size();
+        for (WorkflowDefinitionBean w : wfdBeans) {
+            entityManager.remove(w);
+        }
+
         entityManager.getTransaction().commit();
         entityManager.close();
         log.info(wfjSize + " entries in WF_JOBS removed from DB!");
@@ -893,6 +901,7 @@ public abstract class XTestCase extends TestCase {
         log.info(slaSize + " entries in SLA_EVENTS removed from DB!");
         log.info(slaRegSize + " entries in SLA_REGISTRATION removed from DB!");
         log.info(ssSize + " entries in SLA_SUMMARY removed from DB!");
+        log.info(wfdSize + " entries in WF_DEFINITIONS removed from DB!");
 
     }
 
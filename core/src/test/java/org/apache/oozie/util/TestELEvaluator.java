@@ -199,4 +199,43 @@ public class TestELEvaluator extends XTestCase {
         assertNull(ELEvaluator.getCurrent());
     }
 
+    public void testExpressionCache() throws Exception {
+        ELExpressionCache.reset(2);
+        ELEvaluator.Context support = new ELEvaluator.Context();
+        support.setVariable("a", "A");
+        support.addFunction("a", "a", functionA);
+        ELEvaluator evaluator = new ELEvaluator(support);
+        ELEvaluator evaluator2 = new ELEvaluator(new ELEvaluator.Context());
+        evaluator2.setVariable("a", "AA");
+
+        assertEquals("A", evaluator.evaluate("${a}", String.class));
+        assertEquals(0, ELExpressionCache.get().getHits());
+        assertEquals(1, ELExpressionCache.get().getMisses());
+        // the parsed expression is shared by evaluators with other variables
+        assertEquals("AA", evaluator2.evaluate("${a}", String.class));
+        assertEquals(1, ELExpressionCache.get().getHits());
+        assertEquals("a", evaluator.evaluate("${a:a()}", String.class));
+        assertEquals(Integer.valueOf(1), evaluator.evaluate("1", Integer.class));
+        assertEquals(2, ELExpressionCache.get().size());
+        assertEquals(1, ELExpressionCache.get().getEvictions());
+        assertEquals(3, ELExpressionCache.get().getMisses());
+
+        // parse errors are not cached and have the same message as without the cache
+        String message = null;
+        try {
+            new ELEvaluator().evaluate("${a{", String.class);
+            fail();
+        }
+        catch (ELException ex) {
+            message = ex.getMessage();
+        }
+        try {
+            new org.apache.commons.el.ExpressionEvaluatorImpl(true).parseExpressionString("${a{");
+            fail();
+        }
+        catch (ELException ex) {
+            assertEquals(ex.getMessage(), message);
+        }
+        assertEquals(4, ELExpressionCache.get().getMisses());
+    }
 }
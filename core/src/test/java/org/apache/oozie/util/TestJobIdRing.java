@@ -0,0 +1,147 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+public class TestJobIdRing extends TestCase {
+    private static final int VIRTUAL_NODES = 128;
+    private static final int STEP = 101;
+    private static final int WINDOW = 20000;
+
+    public void testEmptyRing() {
+        JobIdRing ring = new JobIdRing(Collections.<String>emptyList(), VIRTUAL_NODES);
+        assertNull(ring.getOwner("0000001-130521183438837-oozie-rkan-W"));
+        assertTrue(ring.getBuckets("a").isEmpty());
+    }
+
+    public void testGetOwner() {
+        JobIdRing ring = new JobIdRing(Arrays.asList("a", "b", "c"), VIRTUAL_NODES);
+        assertEquals(ring.getOwner(1L), ring.getOwner("0000001-130521183438837-oozie-rkan-W"));
+        assertEquals(ring.getOwner(1L), ring.getOwner("0000001-130521183438837-oozie-rkan-W@action"));
+        assertNull(ring.getOwner("blah"));
+        assertEquals(-1, JobIdRing.getIdNumber("blah"));
+        assertEquals(1234567, JobIdRing.getIdNumber("1234567-130521183438837-oozie-rkan-C@1"));
+
+        // all the servers build the same ring, whatever the order of the servers
+        JobIdRing ring2 = new JobIdRing(Arrays.asList("c", "a", "b"), VIRTUAL_NODES);
+        for (long i = 0; i < JobIdRing.SIZE; i += STEP) {
+            assertEquals(ring.getOwner(i), ring2.getOwner(i));
+        }
+    }
+
+    public void testBalance() {
+        List<String> servers = Arrays.asList("a", "b", "c", "d");
+        Map<String, Integer> counts = getCounts(new JobIdRing(servers, VIRTUAL_NODES));
+        int total = 0;
+        for (int count : counts.values()) {
+            total += count;
+        }
+        for (String server : servers) {
+            double share = (double) counts.get(server) / total;
+            assertTrue(server + " owns " + share, share > 0.15 && share < 0.35);
+        }
+    }
+
+    public void testBalanceOfConsecutiveIds() {
+        List<String> servers = Arrays.asList("a", "b", "c");
+        JobIdRing ring = new JobIdRing(servers, VIRTUAL_NODES);
+        // job ids are allocated sequentially, the jobs active at any time are in a narrow window of ids
+        for (long start = 0; start < JobIdRing.SIZE; start += JobIdRing.SIZE / 5) {
+            Map<String, Integer> counts = new HashMap<String, Integer>();
+            for (long i = start; i < start + WINDOW; i++) {
+                String owner = ring.getOwner(i);
+                Integer count = counts.get(owner);
+                counts.put(owner, count == null ? 1 : count + 1);
+            }
+            for (String server : servers) {
+                double share = (double) counts.get(server) / WINDOW;
+                assertTrue(server + " owns " + share + " of the window at " + start, share > 0.2 && share < 0.47);
+            }
+        }
+    }
+
+    public void testRebalance() {
+        JobIdRing ring = new JobIdRing(Arrays.asList("a", "b", "c"), VIRTUAL_NODES);
+        JobIdRing ring2 = new JobIdRing(Arrays.asList("a", "b", "c", "d"), VIRTUAL_NODES);
+        int moved = 0;
+        int total = 0;
+        for (long i = 0; i < JobIdRing.SIZE; i += STEP) {
+            String owner = ring.getOwner(i);
+            String owner2 = ring2.getOwner(i);
+            if (!owner.equals(owner2)) {
+                // jobs only move to the new server
+                assertEquals("d", owner2);
+                moved++;
+            }
+            total++;
+        }
+        double share = (double) moved / total;
+        assertTrue("moved " + share, share > 0.15 && share < 0.35);
+    }
+
+    public void testBuckets() {
+        List<String> servers = Arrays.asList("a", "b", "c");
+        JobIdRing ring = new JobIdRing(servers, VIRTUAL_NODES);
+        Map<String, List<String>> buckets = new HashMap<String, List<String>>();
+        int covered = 0;
+        for (String server : servers) {
+            List<String> serverBuckets = ring.getBuckets(server);
+            buckets.put(server, serverBuckets);
+            String previous = "";
+            for (String bucket : serverBuckets) {
+                // buckets are ordered 3 digit strings
+                assertEquals(3, bucket.length());
+                assertTrue(bucket.compareTo(previous) > 0);
+                previous = bucket;
+            }
+            covered += serverBuckets.size();
+        }
+        assertEquals(JobIdRing.BUCKETS, covered);
+        assertTrue(ring.getBuckets("d").isEmpty());
+
+        for (long i = 0; i < JobIdRing.SIZE; i += 10 * STEP) {
+            // the bucket of a job, and of its actions, is found at the characters 5 to 7 of their ids
+            String id = String.format("%07d-130521183438837-oozie-rkan-W@action", i);
+            int owners = 0;
+            for (String server : servers) {
+                if (buckets.get(server).contains(id.substring(4, 7))) {
+                    assertEquals(server, ring.getOwner(id));
+                    owners++;
+                }
+            }
+            assertEquals(1, owners);
+        }
+    }
+
+    private Map<String, Integer> getCounts(JobIdRing ring) {
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        for (long i = 0; i < JobIdRing.SIZE; i += STEP) {
+            String owner = ring.getOwner(i);
+            Integer count = counts.get(owner);
+            counts.put(owner, count == null ? 1 : count + 1);
+        }
+        return counts;
+    }
+}
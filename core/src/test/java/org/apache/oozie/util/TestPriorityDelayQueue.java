@@ -23,6 +23,8 @@ import junit.framework.TestCase;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.DelayQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -342,6 +344,85 @@ public class TestPriorityDelayQueue extends TestCase {
         }
     }
 
+    public void testConcurrentProducers() throws Exception {
+        final int producers = 8;
+        final int count = 5000;
+        final int priorities = 3;
+        final PriorityDelayQueue<Integer> queue =
+                new PriorityDelayQueue<Integer>(priorities, 100, TimeUnit.MILLISECONDS, -1);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(producers);
+        final AtomicInteger failures = new AtomicInteger();
+
+        for (int i = 0; i < producers; i++) {
+            final int producer = i;
+            new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < count; j++) {
+                            int value = producer * count + j;
+                            if (!queue.offer(new TestQueueElement<Integer>(value, value % priorities, j % 2 == 0
+                                    ? 0 : (long) (Math.random() * 100), TimeUnit.MILLISECONDS))) {
+                                failures.incrementAndGet();
+                            }
+                        }
+                    }
+                    catch (Exception ex) {
+                        failures.incrementAndGet();
+                    }
+                    finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        boolean[] polled = new boolean[producers * count];
+        int total = 0;
+        start.countDown();
+        long timeout = System.currentTimeMillis() + 30000;
+        while (total < polled.length && System.currentTimeMillis() < timeout) {
+            QueueElement<Integer> e = queue.poll();
+            if (e == null) {
+                Thread.sleep(1);
+            }
+            else {
+                int value = e.getElement().call();
+                assertFalse("polled twice " + value, polled[value]);
+                polled[value] = true;
+                total++;
+            }
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(0, failures.get());
+        assertEquals(polled.length, total);
+        assertEquals(0, queue.size());
+        assertNull(queue.poll());
+    }
+
+    public void testOfferDoesNotTakeConsumerLock() throws Exception {
+        final PriorityDelayQueue<Integer> queue = new PriorityDelayQueue<Integer>(3, 100, TimeUnit.MILLISECONDS, -1);
+        final CountDownLatch offered = new CountDownLatch(2);
+        queue.lock.lock();
+        try {
+            new Thread(new Runnable() {
+                public void run() {
+                    queue.offer(new TestQueueElement<Integer>(1, 1, 60000, TimeUnit.MILLISECONDS));
+                    offered.countDown();
+                    queue.offer(new TestQueueElement<Integer>(2, 2, 0, TimeUnit.MILLISECONDS));
+                    offered.countDown();
+                }
+            }).start();
+            assertTrue(offered.await(5, TimeUnit.SECONDS));
+        }
+        finally {
+            queue.lock.unlock();
+        }
+        assertEquals(2, queue.size());
+        assertEquals(2, (int) queue.poll().getElement().call());
+    }
+
     public void testIterator() throws Exception {
         PriorityDelayQueue<Integer> q = new PriorityDelayQueue<Integer>(3, 500, TimeUnit.MILLISECONDS, -1);
 
@@ -373,6 +454,68 @@ public class TestPriorityDelayQueue extends TestCase {
         assertEquals(0, q.size());
     }
 
+    /**
+     * Compares offering and removing delayed elements with the timing wheel against a plain <code>DelayQueue</code>,
+     * which held the delayed elements before.
+     */
+    public void testDelayedElementsThroughput() throws Exception {
+        int count = 200000;
+        List<QueueElement<Integer>> elements = new ArrayList<QueueElement<Integer>>(count);
+        for (int i = 0; i < count; i++) {
+            elements.add(new TestQueueElement<Integer>(i, i % 3, 60000 + (long) (Math.random() * 3600000),
+                    TimeUnit.MILLISECONDS));
+        }
+
+        PriorityDelayQueue<Integer> q = new PriorityDelayQueue<Integer>(3, 500, TimeUnit.MILLISECONDS, -1);
+        long start = System.nanoTime();
+        for (QueueElement<Integer> e : elements) {
+            q.offer(e);
+        }
+        long wheelOffer = System.nanoTime() - start;
+        assertEquals(count, q.size());
+        assertNull(q.poll());
+        start = System.nanoTime();
+        for (QueueElement<Integer> e : elements) {
+            assertTrue(q.remove(e));
+        }
+        long wheelRemove = System.nanoTime() - start;
+        assertEquals(0, q.size());
+
+        DelayQueue<QueueElement<Integer>> dq = new DelayQueue<QueueElement<Integer>>();
+        start = System.nanoTime();
+        for (QueueElement<Integer> e : elements) {
+            dq.offer(e);
+        }
+        long heapOffer = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (QueueElement<Integer> e : elements.subList(0, count / 100)) {
+            dq.remove(e);
+        }
+        long heapRemove = (System.nanoTime() - start) * 100;
+
+        System.out.println(MessageFormat.format("{0} delayed elements, timing wheel offer {1}ms remove {2}ms, "
+                + "DelayQueue offer {3}ms remove {4}ms (extrapolated)", String.valueOf(count),
+                TimeUnit.NANOSECONDS.toMillis(wheelOffer), TimeUnit.NANOSECONDS.toMillis(wheelRemove),
+                TimeUnit.NANOSECONDS.toMillis(heapOffer), TimeUnit.NANOSECONDS.toMillis(heapRemove)));
+    }
+
+    public void testRemove() throws Exception {
+        PriorityDelayQueue<Integer> q = new PriorityDelayQueue<Integer>(3, 500, TimeUnit.MILLISECONDS, 10);
+        QueueElement<Integer> delayed = new TestQueueElement<Integer>(1, 1, 10000, TimeUnit.MILLISECONDS);
+        QueueElement<Integer> ready = new TestQueueElement<Integer>(2, 2, 0, TimeUnit.MILLISECONDS);
+        q.offer(delayed);
+        q.offer(ready);
+        assertEquals(2, q.size());
+        assertTrue(q.remove(delayed));
+        assertFalse(q.remove(delayed));
+        assertEquals(1, q.size());
+        assertTrue(q.remove(ready));
+        assertEquals(0, q.size());
+        assertEquals(10, q.remainingCapacity());
+        q.offer(delayed);
+        assertEquals(1, q.size());
+    }
+
     public static class TestQueueElement<E> extends QueueElement<E> {
 
         public TestQueueElement(final E element, int priority, long delay, TimeUnit unit) {
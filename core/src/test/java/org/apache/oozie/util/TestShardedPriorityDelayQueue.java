@@ -0,0 +1,242 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.util;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.oozie.util.PriorityDelayQueue.QueueElement;
+
+public class TestShardedPriorityDelayQueue extends TestCase {
+
+    public static class KeyedQueueElement extends QueueElement<String> {
+
+        public KeyedQueueElement(final String entityKey, int priority, long delay) {
+            super(new XCallable<String>() {
+
+                @Override
+                public String call() throws Exception {
+                    return entityKey;
+                }
+
+                @Override
+                public String getName() {
+                    return entityKey;
+                }
+
+                @Override
+                public int getPriority() {
+                    return 0;
+                }
+
+                @Override
+                public String getType() {
+                    return "type";
+                }
+
+                @Override
+                public long getCreatedTime() {
+                    return 0;
+                }
+
+                @Override
+                public String getKey() {
+                    return "key_" + entityKey;
+                }
+
+                @Override
+                public String getEntityKey() {
+                    return entityKey;
+                }
+
+                @Override
+                public void setInterruptMode(boolean mode) {
+                }
+
+                @Override
+                public boolean inInterruptMode() {
+                    return false;
+                }
+            }, priority, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private ShardedPriorityDelayQueue<String> createQueue(int shards, int maxSize) {
+        List<PriorityDelayQueue<String>> queues = new ArrayList<PriorityDelayQueue<String>>();
+        for (int i = 0; i < shards; i++) {
+            queues.add(new PriorityDelayQueue<String>(3, 1000, TimeUnit.MILLISECONDS, maxSize));
+        }
+        return new ShardedPriorityDelayQueue<String>(queues);
+    }
+
+    public void testCreation() {
+        try {
+            new ShardedPriorityDelayQueue<String>(new ArrayList<PriorityDelayQueue<String>>());
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+            // expected
+        }
+        assertEquals(4, createQueue(4, -1).getShardCount());
+    }
+
+    public void testSameEntityKeySameShard() {
+        ShardedPriorityDelayQueue<String> q = createQueue(4, -1);
+        for (int i = 0; i < 10; i++) {
+            q.offer(new KeyedQueueElement("job-1", 0, 0));
+        }
+        int nonEmpty = 0;
+        for (int size : q.sizes()) {
+            if (size > 0) {
+                assertEquals(10, size);
+                nonEmpty++;
+            }
+        }
+        assertEquals(1, nonEmpty);
+        assertEquals(10, q.size());
+    }
+
+    public void testPriorityWithinShard() {
+        ShardedPriorityDelayQueue<String> q = createQueue(4, -1);
+        q.offer(new KeyedQueueElement("job-1", 0, 0));
+        q.offer(new KeyedQueueElement("job-1", 2, 0));
+        q.offer(new KeyedQueueElement("job-1", 1, 0));
+        assertEquals(2, q.poll().getPriority());
+        assertEquals(1, q.poll().getPriority());
+        assertEquals(0, q.poll().getPriority());
+        assertNull(q.poll());
+    }
+
+    public void testDelay() throws Exception {
+        ShardedPriorityDelayQueue<String> q = createQueue(4, -1);
+        q.offer(new KeyedQueueElement("job-1", 0, 200));
+        assertNull(q.poll());
+        assertNotNull(q.peek());
+        assertNotNull(q.poll(2000, TimeUnit.MILLISECONDS));
+        assertEquals(0, q.size());
+    }
+
+    public void testWorkStealing() throws Exception {
+        ShardedPriorityDelayQueue<String> q = createQueue(8, -1);
+        Set<String> keys = new HashSet<String>();
+        for (int i = 0; i < 100; i++) {
+            keys.add("job-" + i);
+            q.offer(new KeyedQueueElement("job-" + i, 0, 0));
+        }
+        // a single consumer drains all the shards
+        Set<String> polled = new HashSet<String>();
+        QueueElement<String> e = q.poll();
+        while (e != null) {
+            polled.add(e.getElement().getEntityKey());
+            e = q.poll();
+        }
+        assertEquals(keys, polled);
+        assertTrue(q.getSteals() > 0);
+        assertEquals(0, q.size());
+    }
+
+    public void testMaxSizePerShard() {
+        ShardedPriorityDelayQueue<String> q = createQueue(2, 1);
+        assertTrue(q.offer(new KeyedQueueElement("job-1", 0, 0)));
+        assertFalse(q.offer(new KeyedQueueElement("job-1", 0, 0)));
+        assertEquals(1, q.size());
+    }
+
+    public void testIteratorDrainClear() {
+        ShardedPriorityDelayQueue<String> q = createQueue(4, -1);
+        for (int i = 0; i < 20; i++) {
+            q.offer(new KeyedQueueElement("job-" + i, 0, 0));
+        }
+        int count = 0;
+        for (QueueElement<String> e : q) {
+            assertNotNull(e);
+            count++;
+        }
+        assertEquals(20, count);
+        List<QueueElement<String>> drained = new ArrayList<QueueElement<String>>();
+        assertEquals(5, q.drainTo(drained, 5));
+        assertEquals(15, q.size());
+        q.clear();
+        assertEquals(0, q.size());
+    }
+
+    public void testConcurrentProducersConsumers() throws Exception {
+        final ShardedPriorityDelayQueue<String> q = createQueue(8, -1);
+        final int producers = 64;
+        final int perProducer = 500;
+        final AtomicInteger consumed = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < producers; i++) {
+            final int producer = i;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    }
+                    catch (InterruptedException ex) {
+                        return;
+                    }
+                    for (int j = 0; j < perProducer; j++) {
+                        q.offer(new KeyedQueueElement("job-" + producer + "-" + j, j % 3, 0));
+                    }
+                }
+            });
+        }
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        while (consumed.get() < producers * perProducer) {
+                            if (q.poll(10, TimeUnit.MILLISECONDS) != null) {
+                                consumed.incrementAndGet();
+                            }
+                        }
+                    }
+                    catch (InterruptedException ex) {
+                        // test ends
+                    }
+                }
+            });
+        }
+        long startTime = System.currentTimeMillis();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(60 * 1000);
+        }
+        long time = System.currentTimeMillis() - startTime;
+        System.out.println("Queued and consumed " + consumed.get() + " elements in " + time + "ms, shard sizes "
+                + Arrays.toString(q.sizes()));
+        assertEquals(producers * perProducer, consumed.get());
+        assertEquals(0, q.size());
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.util;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.oozie.util.PriorityDelayQueue.QueueElement;
+import org.apache.oozie.util.TestPriorityDelayQueue.TestQueueElement;
+
+public class TestTimingWheel extends TestCase {
+    private static final long TICK = 10;
+
+    public void testAddWithinCurrentTick() {
+        TimingWheel<Integer> wheel = new TimingWheel<Integer>(TICK, 1, System.currentTimeMillis() + 1000);
+        assertFalse(wheel.add(new TestQueueElement<Integer>(1, 0, 0, TimeUnit.MILLISECONDS)));
+        assertEquals(0, wheel.size());
+    }
+
+    public void testAddRemove() {
+        TimingWheel<Integer> wheel = new TimingWheel<Integer>(TICK, 2, System.currentTimeMillis());
+        QueueElement<Integer> e1 = new TestQueueElement<Integer>(1, 0, 1000, TimeUnit.MILLISECONDS);
+        QueueElement<Integer> e2 = new TestQueueElement<Integer>(2, 1, 1000, TimeUnit.MILLISECONDS);
+        assertTrue(wheel.add(e1));
+        assertTrue(wheel.add(e2));
+        assertEquals(2, wheel.size());
+        assertEquals(1, wheel.size(0));
+        assertEquals(1, wheel.size(1));
+        assertTrue(wheel.remove(e1));
+        assertFalse(wheel.remove(e1));
+        assertEquals(1, wheel.size());
+        assertEquals(0, wheel.size(0));
+
+        TimingWheel<Integer> other = new TimingWheel<Integer>(TICK, 2, System.currentTimeMillis());
+        assertFalse(other.remove(e2));
+        assertEquals(1, wheel.size());
+
+        wheel.clear();
+        assertEquals(0, wheel.size());
+        assertNull(wheel.peek());
+    }
+
+    public void testAdvanceAcrossLevels() {
+        long now = System.currentTimeMillis();
+        TimingWheel<Integer> wheel = new TimingWheel<Integer>(TICK, 1, now);
+        long[] delays = {20, 700, TimeUnit.SECONDS.toMillis(50), TimeUnit.HOURS.toMillis(2),
+                TimeUnit.DAYS.toMillis(3), TimeUnit.DAYS.toMillis(400), TimeUnit.DAYS.toMillis(365 * 30)};
+        List<QueueElement<Integer>> elements = new ArrayList<QueueElement<Integer>>();
+        for (int i = delays.length - 1; i >= 0; i--) {
+            QueueElement<Integer> e = new TestQueueElement<Integer>(i, 0, delays[i], TimeUnit.MILLISECONDS);
+            elements.add(e);
+            assertTrue(wheel.add(e));
+        }
+        Collections.sort(elements, new Comparator<QueueElement<Integer>>() {
+            @Override
+            public int compare(QueueElement<Integer> o1, QueueElement<Integer> o2) {
+                return Long.compare(o1.getBaseTime(), o2.getBaseTime());
+            }
+        });
+
+        List<QueueElement<Integer>> expired = new ArrayList<QueueElement<Integer>>();
+        for (int i = 0; i < elements.size(); i++) {
+            QueueElement<Integer> e = elements.get(i);
+            assertSame(e, wheel.peek());
+            wheel.advance(e.getBaseTime() - TICK, expired);
+            assertTrue(expired.isEmpty());
+            wheel.advance(e.getBaseTime(), expired);
+            assertEquals(1, expired.size());
+            assertSame(e, expired.get(0));
+            expired.clear();
+            assertEquals(elements.size() - i - 1, wheel.size());
+        }
+        assertNull(wheel.peek());
+    }
+
+    public void testRemoveAfterCascade() {
+        long now = System.currentTimeMillis();
+        TimingWheel<Integer> wheel = new TimingWheel<Integer>(TICK, 1, now);
+        QueueElement<Integer> e1 = new TestQueueElement<Integer>(1, 0, TimeUnit.MINUTES.toMillis(5),
+                TimeUnit.MILLISECONDS);
+        QueueElement<Integer> e2 = new TestQueueElement<Integer>(2, 0, TimeUnit.MINUTES.toMillis(5) + 50,
+                TimeUnit.MILLISECONDS);
+        wheel.add(e1);
+        wheel.add(e2);
+        List<QueueElement<Integer>> expired = new ArrayList<QueueElement<Integer>>();
+        wheel.advance(e1.getBaseTime() - TICK, expired);
+        assertTrue(expired.isEmpty());
+        assertTrue(wheel.remove(e1));
+        wheel.advance(e2.getBaseTime(), expired);
+        assertEquals(1, expired.size());
+        assertSame(e2, expired.get(0));
+        assertEquals(0, wheel.size());
+    }
+
+    public void testAddAfterIdleWheel() {
+        long now = System.currentTimeMillis();
+        // the wheel current tick lags behind when nobody advances it
+        TimingWheel<Integer> wheel = new TimingWheel<Integer>(TICK, 1, now - TimeUnit.HOURS.toMillis(1));
+        QueueElement<Integer> e = new TestQueueElement<Integer>(1, 0, 100, TimeUnit.MILLISECONDS);
+        assertTrue(wheel.add(e));
+        List<QueueElement<Integer>> expired = new ArrayList<QueueElement<Integer>>();
+        wheel.advance(now, expired);
+        assertTrue(expired.isEmpty());
+        wheel.advance(e.getBaseTime(), expired);
+        assertEquals(1, expired.size());
+    }
+}
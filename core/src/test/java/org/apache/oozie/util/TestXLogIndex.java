@@ -0,0 +1,181 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.oozie.util;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.oozie.service.Services;
+import org.apache.oozie.test.XTestCase;
+
+public class TestXLogIndex extends XTestCase {
+
+    private static final String JOB_A = "0000001-091014143331-oozie-tucu-W";
+    private static final String JOB_B = "0000002-091014143331-oozie-tucu-W";
+
+    private final static SimpleDateFormat filenameDateFormatter = new SimpleDateFormat("yyyy-MM-dd-HH");
+
+    private Services services;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        services = new Services();
+        services.init();
+        XLogFilter.reset();
+        XLogFilter.defineParameter("USER");
+        XLogFilter.defineParameter("GROUP");
+        XLogFilter.defineParameter("TOKEN");
+        XLogFilter.defineParameter("APP");
+        XLogFilter.defineParameter("JOB");
+        XLogFilter.defineParameter("ACTION");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        services.destroy();
+        super.tearDown();
+    }
+
+    private static String message(String time, String level, String job, String text) {
+        return "2009-06-24 " + time + ",000 " + level + " _X_:323 - USER[oozie] GROUP[-] TOKEN[-] APP[-] JOB[" + job
+                + "] ACTION[-] " + text + "\n";
+    }
+
+    private File writeFile(String name, String content) throws IOException {
+        File file = new File(getTestCaseDir(), name);
+        FileWriter writer = new FileWriter(file);
+        writer.write(content);
+        writer.close();
+        return file;
+    }
+
+    public void testIndex() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        sb.append(message("02:00:00", "INFO", JOB_A, "_A1_ first"));
+        sb.append(message("02:00:01", "INFO", JOB_B, "_B1_ multi\nline _B1C_ continuation"));
+        sb.append(message("02:00:02", "INFO", "-", "_N1_ no job"));
+        sb.append(message("02:00:03", "INFO", JOB_A, "_A2_ multi\nline _A2C_ continuation"));
+        StringBuilder filler = new StringBuilder();
+        while (filler.length() <= XLogIndex.MERGE_GAP) {
+            filler.append(message("02:30:00", "DEBUG", JOB_B, "_FILL_ filler"));
+        }
+        sb.append(filler);
+        sb.append(message("03:00:00", "INFO", JOB_A, "_A3_ last"));
+        File file = writeFile("oozie.log.1", sb.toString());
+
+        assertFalse(XLogIndex.isIndexed(file));
+        XLogIndex index = XLogIndex.getIndex(file);
+        assertTrue(XLogIndex.getIndexFile(file).getName().startsWith("."));
+        assertTrue(XLogIndex.isIndexed(file));
+        assertEquals(2, index.getJobCount());
+
+        // the first messages of A are merged in one region, the last one is past the filler
+        List<XLogIndex.Region> regions = index.getRegions(JOB_A, null, null);
+        assertEquals(2, regions.size());
+        String first = new String(XLogIndex.read(file, regions.subList(0, 1)));
+        assertTrue(first.startsWith(message("02:00:00", "INFO", JOB_A, "_A1_ first")));
+        assertTrue(first.endsWith("_A2C_ continuation\n"));
+        assertEquals("2009-06-24 02:00:00", regions.get(0).firstTime);
+        assertEquals("2009-06-24 02:00:03", regions.get(0).lastTime);
+        assertEquals(message("03:00:00", "INFO", JOB_A, "_A3_ last"),
+                new String(XLogIndex.read(file, regions.subList(1, 2))));
+
+        // time buckets
+        assertEquals(1, index.getRegions(JOB_A, "2009-06-24 02:10:00", null).size());
+        assertEquals(1, index.getRegions(JOB_A, null, "2009-06-24 02:10:00").size());
+        assertEquals(0, index.getRegions(JOB_A, "2009-06-24 03:10:00", null).size());
+        assertEquals(0, index.getRegions("0000003-091014143331-oozie-tucu-W", null, null).size());
+
+        // a loaded index is the same as the built one
+        XLogIndex loaded = XLogIndex.load(file);
+        assertNotNull(loaded);
+        assertEquals(2, loaded.getRegions(JOB_A, null, null).size());
+        assertEquals(regions.get(1).start, loaded.getRegions(JOB_A, null, null).get(1).start);
+
+        // the index is stale once the log file changes
+        FileWriter writer = new FileWriter(file, true);
+        writer.write(message("04:00:00", "INFO", JOB_A, "_A4_ appended"));
+        writer.close();
+        assertFalse(XLogIndex.isIndexed(file));
+        assertNull(XLogIndex.load(file));
+        assertEquals(3, XLogIndex.getIndex(file).getRegions(JOB_A, null, null).size());
+    }
+
+    public void testIndexedStreamLog() throws Exception {
+        long currTime = System.currentTimeMillis();
+        StringBuilder sb = new StringBuilder();
+        sb.append(message("02:00:00", "INFO", JOB_A, "_L1_ rotated"));
+        sb.append(message("02:00:01", "INFO", JOB_B, "_B1_ rotated"));
+        sb.append(message("02:00:02", "WARN", JOB_A, "_L2_ multi\nline _L2C_ continuation"));
+        String gzName = "oozie.log-" + filenameDateFormatter.format(new Date(currTime - 2 * 3600000)) + ".gz";
+        File gz = new File(getTestCaseDir(), gzName);
+        TestLogStreamer.writeToGZFile(gz, sb);
+
+        // rotated file without messages of A, skipped through its index
+        sb = new StringBuilder();
+        sb.append(message("02:10:00", "INFO", JOB_B, "_B2_ rotated"));
+        File skipped = new File(getTestCaseDir(), "oozie.log-"
+                + filenameDateFormatter.format(new Date(currTime - 3600000)) + ".gz");
+        TestLogStreamer.writeToGZFile(skipped, sb);
+
+        sb = new StringBuilder();
+        sb.append(message("02:20:00", "INFO", JOB_B, "_B3_ active"));
+        sb.append(message("02:20:01", "INFO", JOB_A, "_L3_ active"));
+        File active = writeFile("oozie.log", sb.toString());
+        active.setLastModified(currTime);
+
+        String plain = stream(null);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            String indexed = stream(executor);
+            assertEquals(plain, indexed);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        String[] out = plain.split("\n");
+        assertEquals(4, out.length);
+        assertTrue(out[0].contains("_L1_"));
+        assertTrue(out[1].contains("_L2_"));
+        assertTrue(out[2].contains("_L2C_"));
+        assertTrue(out[3].contains("_L3_"));
+
+        assertTrue(XLogIndex.isIndexed(gz));
+        assertTrue(XLogIndex.isIndexed(skipped));
+        assertTrue(XLogIndex.getIndex(skipped).getRegions(JOB_A, null, null).isEmpty());
+        // the active log file is never indexed
+        assertFalse(XLogIndex.getIndexFile(active).exists());
+    }
+
+    private String stream(ExecutorService executor) throws IOException {
+        XLogFilter filter = new XLogFilter();
+        filter.setLogLevel("WARN|INFO");
+        filter.setParameter("JOB", JOB_A);
+        StringWriter writer = new StringWriter();
+        new XLogStreamer(filter, getTestCaseDir(), "oozie.log", 3600, executor, 2).streamLog(writer, null, null, 4096);
+        return writer.toString();
+    }
+}
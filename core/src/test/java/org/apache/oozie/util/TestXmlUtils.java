@@ -18,8 +18,14 @@
 
 package org.apache.oozie.util;
 
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+
+import javax.xml.validation.Schema;
+
 import org.apache.oozie.test.XTestCase;
 import org.jdom.Element;
+import org.xml.sax.SAXException;
 
 public class TestXmlUtils extends XTestCase {
 
@@ -37,4 +43,91 @@ public class TestXmlUtils extends XTestCase {
         String result = XmlUtils.removeComments(xmlStr);
         System.out.println("Result After Comments removal :\n" + result);
     }
+
+    private static final String ACTION_XML = "<java xmlns=\"uri:oozie:workflow:0.5\">"
+            + "<job-tracker>localhost:8032</job-tracker><configuration><name-node>x</name-node></configuration>"
+            + "<name-node>hdfs://localhost:8020</name-node><main-class>org.Main</main-class><capture-output/></java>";
+
+    private static final String SCHEMA = "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">"
+            + "<xs:element name=\"foo\" type=\"xs:int\"/></xs:schema>";
+
+    public void testParseImmutableXml() throws Exception {
+        XmlDocumentCache.reset(10);
+        try {
+            Element e1 = XmlUtils.parseImmutableXml(ACTION_XML);
+            Element e2 = XmlUtils.parseImmutableXml(new String(ACTION_XML));
+            assertSame(e1, e2);
+            assertEquals("localhost:8032", e1.getChildTextTrim("job-tracker", e1.getNamespace()));
+            assertEquals(1, XmlDocumentCache.get().getHits());
+            assertEquals(1, XmlDocumentCache.get().getMisses());
+            assertNotSame(e1, XmlUtils.parseImmutableXml(ACTION_XML.replace("8032", "8033")));
+
+            XmlDocumentCache.reset(0);
+            assertNotSame(XmlUtils.parseImmutableXml(ACTION_XML), XmlUtils.parseImmutableXml(ACTION_XML));
+        }
+        finally {
+            XmlDocumentCache.reset(XmlDocumentCache.DEFAULT_SIZE);
+        }
+    }
+
+    public void testGetRootChildrenText() throws Exception {
+        Map<String, String> texts = XmlUtils.getRootChildrenText(ACTION_XML, "job-tracker", "name-node",
+                "capture-output", "prepare");
+        assertEquals(3, texts.size());
+        assertEquals("localhost:8032", texts.get("job-tracker"));
+        // the nested name-node element of the configuration is not a child of the root element
+        assertEquals("hdfs://localhost:8020", texts.get("name-node"));
+        assertEquals("", texts.get("capture-output"));
+        assertFalse(texts.containsKey("prepare"));
+
+        texts = XmlUtils.getRootChildrenText("<a><b xmlns=\"other\">1</b><c> 2 <d>3</d></c></a>", "b", "c");
+        assertEquals(1, texts.size());
+        assertEquals("2", texts.get("c"));
+
+        try {
+            XmlUtils.getRootChildrenText("<a><b></a>", "b", "c");
+            fail();
+        }
+        catch (org.jdom.JDOMException ex) {
+            // expected
+        }
+    }
+
+    public void testValidateXmlReusesValidator() throws Exception {
+        Schema schema = XmlUtils.createSchema(new ByteArrayInputStream(SCHEMA.getBytes()));
+        XmlUtils.validateXml(schema, "<foo>1</foo>");
+        try {
+            XmlUtils.validateXml(schema, "<foo>a</foo>");
+            fail();
+        }
+        catch (SAXException ex) {
+            // expected
+        }
+        // the validator of the thread is usable after a validation error
+        XmlUtils.validateXml(schema, "<foo>2</foo>");
+    }
+
+    public void testParsePerformance() throws Exception {
+        int count = 2000;
+        for (int i = 0; i < count; i++) {
+            XmlUtils.parseXml(ACTION_XML);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            XmlUtils.parseXml(ACTION_XML);
+        }
+        long parse = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            XmlUtils.parseImmutableXml(ACTION_XML);
+        }
+        long cached = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            XmlUtils.getRootChildrenText(ACTION_XML, "job-tracker", "name-node");
+        }
+        long stax = System.nanoTime() - start;
+        System.out.println("Per document, parseXml: " + parse / count + "ns, parseImmutableXml: " + cached / count
+                + "ns, getRootChildrenText: " + stax / count + "ns");
+    }
 }
@@ -40,10 +40,12 @@ function printUsage() {
   echo "                                                                  is no existing sharelib installed in HDFS)"
   echo "          db create|upgrade|postupgrade -run [-sqlfile <FILE>] (create, upgrade or postupgrade oozie db with an"
   echo "                                                                optional sql File)"
-  echo "          export <file>                                         exports the oozie database to the specified"
-  echo "                                                                file in zip format"
-  echo "          import <file>                                         imports the oozie database from the zip file"
-  echo "                                                                created by export"
+  echo "          export [-threads N] [-chunksize N] <file>             exports the oozie database to the specified"
+  echo "                                                                file in zip format, with N threads (default 1)"
+  echo "                                                                and at most N rows per zip entry (default 100000)"
+  echo "          import [-threads N] [-batchsize N] <file>             imports the oozie database from the zip file"
+  echo "                                                                created by export, with N threads (default 1),"
+  echo "                                                                committing every N rows (default 1000)"
   echo "          (without options prints this usage information)"
   echo
   echo " EXTJS can be downloaded from http://www.extjs.com/learn/Ext_Version_Archives"
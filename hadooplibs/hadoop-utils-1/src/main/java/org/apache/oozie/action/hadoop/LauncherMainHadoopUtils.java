@@ -19,6 +19,12 @@
 package org.apache.oozie.action.hadoop;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.JobStatus;
+
+import java.io.IOException;
+import java.util.HashSet;
 import java.util.Set;
 
 
@@ -37,4 +43,18 @@ public class LauncherMainHadoopUtils {
     public static Set<String> getChildJobs(Configuration actionConf) {
         return null;
     }
+
+    public static Set<String> getRunningJobs(Configuration conf) throws IOException {
+        JobClient jobClient = new JobClient(new JobConf(conf));
+        try {
+            Set<String> jobs = new HashSet<String>();
+            for (JobStatus status : jobClient.jobsToComplete()) {
+                jobs.add(status.getJobID().toString());
+            }
+            return jobs;
+        }
+        finally {
+            jobClient.close();
+        }
+    }
 }
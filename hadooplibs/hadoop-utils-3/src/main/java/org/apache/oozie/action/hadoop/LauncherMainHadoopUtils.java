@@ -20,6 +20,7 @@ package org.apache.oozie.action.hadoop;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -33,6 +34,7 @@ import org.apache.hadoop.yarn.api.protocolrecords.GetApplicationsRequest;
 import org.apache.hadoop.yarn.api.protocolrecords.GetApplicationsResponse;
 import org.apache.hadoop.yarn.api.records.ApplicationId;
 import org.apache.hadoop.yarn.api.records.ApplicationReport;
+import org.apache.hadoop.yarn.api.records.YarnApplicationState;
 import org.apache.hadoop.yarn.client.ClientRMProxy;
 import org.apache.hadoop.yarn.client.api.YarnClient;
 import org.apache.hadoop.yarn.exceptions.YarnException;
@@ -128,4 +130,32 @@ public class LauncherMainHadoopUtils {
         }
         return jobList;
     }
+
+    /**
+     * Return the ids of the MapReduce jobs of all users that are not complete yet on the ResourceManager of the given
+     * configuration. The applications are filtered by state by the ResourceManager.
+     *
+     * @param conf configuration of the ResourceManager.
+     * @return the ids of the jobs not complete yet.
+     * @throws IOException thrown if the applications could not be listed.
+     */
+    public static Set<String> getRunningJobs(Configuration conf) throws IOException {
+        YarnClient yarnClient = YarnClient.createYarnClient();
+        try {
+            yarnClient.init(conf);
+            yarnClient.start();
+            Set<String> jobs = new HashSet<String>();
+            for (ApplicationReport appReport : yarnClient.getApplications(Collections.singleton("MAPREDUCE"),
+                    EnumSet.of(YarnApplicationState.NEW, YarnApplicationState.NEW_SAVING,
+                            YarnApplicationState.SUBMITTED, YarnApplicationState.ACCEPTED,
+                            YarnApplicationState.RUNNING))) {
+                jobs.add(appReport.getApplicationId().toString().replace("application", "job"));
+            }
+            return jobs;
+        } catch (YarnException ye) {
+            throw new IOException("Exception occurred while listing running jobs", ye);
+        } finally {
+            yarnClient.stop();
+        }
+    }
 }
\ No newline at end of file
@@ -210,6 +210,16 @@ public class OozieDBCLI {
         String ver = getOozieDBVersion().trim();
         String startingVersion = ver;
         if (ver.equals(DB_VERSION_FOR_5_0)) {
+            // tables added without a db.version change are created by the mapping tool
+            if (!verifyWorkflowDefinitionsTable()) {
+                createUpgradeDB(sqlFile, run, false);
+                if (run) {
+                    System.out.println();
+                    System.out.println("Oozie DB has been upgraded to Oozie version '" + version + "'");
+                }
+                System.out.println();
+                return;
+            }
             System.out.println("Oozie DB already upgraded to Oozie version '" + version + "'");
             return;
         }
@@ -932,6 +942,30 @@ public class OozieDBCLI {
         return tableExists;
     }
 
+    private final static String WF_DEFINITIONS_EXISTS = "select count(*) from WF_DEFINITIONS";
+
+    private boolean verifyWorkflowDefinitionsTable() throws Exception {
+        System.out.println("Check WF_DEFINITIONS table exists");
+        boolean tableExists;
+        Connection conn = createConnection();
+        try {
+            Statement st = conn.createStatement();
+            ResultSet rs = st.executeQuery(WF_DEFINITIONS_EXISTS);
+            rs.next();
+            rs.close();
+            st.close();
+            tableExists = true;
+        }
+        catch (Exception ex) {
+            tableExists = false;
+        }
+        finally {
+            conn.close();
+        }
+        System.out.println("WF_DEFINITIONS table " + ((tableExists) ? "exists" : "does not exist"));
+        return tableExists;
+    }
+
     private final static String GET_OOZIE_DB_VERSION = "select data from OOZIE_SYS where name = 'db.version'";
 
     private String getOozieDBVersion() throws Exception {
@@ -1092,6 +1126,7 @@ public class OozieDBCLI {
         args.add("org.apache.oozie.BundleActionBean");
         args.add("org.apache.oozie.sla.SLASummaryBean");
         args.add("org.apache.oozie.util.db.ValidateConnectionBean");
+        args.add("org.apache.oozie.WorkflowDefinitionBean");
         return args.toArray(new String[args.size()]);
     }
 
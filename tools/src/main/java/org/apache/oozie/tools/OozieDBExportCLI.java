@@ -19,6 +19,8 @@
 package org.apache.oozie.tools;
 
 import com.google.gson.Gson;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.oozie.cli.CLIParser;
@@ -26,16 +28,28 @@ import org.apache.oozie.service.JPAService;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.store.StoreException;
 import org.apache.oozie.util.IOUtils;
+import org.apache.oozie.util.NamedThreadFactory;
 
 import javax.persistence.EntityManager;
 import javax.persistence.FlushModeType;
 import javax.persistence.Query;
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -47,6 +61,12 @@ import java.util.zip.ZipOutputStream;
  * <li>This class uses the current oozie configuration in oozie-site.xml</li>
  * </ul>
  * <p/>
+ * Tables are read with keyset pagination on their primary key and split into ranges of at most <code>-chunksize</code>
+ * rows, which are exported by <code>-threads</code> workers. The first range of a table is written to the zip entry
+ * named after the table file, the following ones to the entries suffixed with <code>.1</code>, <code>.2</code>, etc.
+ * <p/>
+ * The ranges are staged in a <code>&lt;file&gt;.parts</code> directory next to the target file, which is kept if the
+ * export fails. Running the export again to the same file only exports the ranges that were not completed.
  */
 
 public class OozieDBExportCLI {
@@ -59,19 +79,31 @@ public class OozieDBExportCLI {
     public static final String OOZIEDB_BNA_JSON = "ooziedb_bna.json";
     public static final String OOZIEDB_SLAREG_JSON = "ooziedb_slareg.json";
     public static final String OOZIEDB_SLASUM_JSON = "ooziedb_slasum.json";
+    public static final String OOZIEDB_WFDEF_JSON = "ooziedb_wfdef.json";
     public static final String OOZIEDB_SYS_INFO_JSON = "ooziedb_sysinfo.json";
 
+    public static final String THREADS_OPT = "threads";
+    public static final String CHUNK_SIZE_OPT = "chunksize";
+
     private static final String GET_DB_VERSION = "select name, data from OOZIE_SYS where name = 'db.version'";
-    private static final String GET_WORKFLOW_JOBS = "select OBJECT(w) from WorkflowJobBean w";
-    private static final String GET_WORKFLOW_ACTIONS = "select OBJECT(a) from WorkflowActionBean a";
-    private static final String GET_COORD_JOBS = "select OBJECT(w) from CoordinatorJobBean w";
-    private static final String GET_COORD_ACTIONS = "select OBJECT(w) from CoordinatorActionBean w";
-    private static final String GET_BUNDLE_JOBS = "select OBJECT(w) from BundleJobBean w";
-    private static final String GET_BUNDLE_ACIONS = "select OBJECT(w) from BundleActionBean w";
-    private static final String GET_SLA_REGISTRATIONS = "select OBJECT(w) from SLARegistrationBean w";
-    private static final String GET_SLA_SUMMARYS = "select OBJECT(w) from SLASummaryBean w";
+
+    private static final Table[] TABLES = {
+            new Table("WF_JOBS", "WorkflowJobBean", "id", OOZIEDB_WF_JSON),
+            new Table("WF_ACTIONS", "WorkflowActionBean", "id", OOZIEDB_AC_JSON),
+            new Table("COORD_JOBS", "CoordinatorJobBean", "id", OOZIEDB_CJ_JSON),
+            new Table("COORD_ACTIONS", "CoordinatorActionBean", "id", OOZIEDB_CA_JSON),
+            new Table("BUNDLE_JOBS", "BundleJobBean", "id", OOZIEDB_BNJ_JSON),
+            new Table("BUNDLE_ACTIONS", "BundleActionBean", "bundleActionId", OOZIEDB_BNA_JSON),
+            new Table("SLA_REGISTRATION", "SLARegistrationBean", "jobId", OOZIEDB_SLAREG_JSON),
+            new Table("SLA_SUMMARY", "SLASummaryBean", "jobId", OOZIEDB_SLASUM_JSON),
+            new Table("WF_DEFINITIONS", "WorkflowDefinitionBean", "id", OOZIEDB_WFDEF_JSON)
+    };
 
     private static final int LIMIT = 1000;
+    private static final int DEFAULT_CHUNK_SIZE = 100000;
+    private static final String PARTS_SUFFIX = ".parts";
+    private static final String RANGES_SUFFIX = ".ranges";
+    private static final String TMP_SUFFIX = ".tmp";
     private static final String[] HELP_INFO = {
             "",
             "OozieDBExportCLI dumps Oozie database into a zip file."
@@ -79,13 +111,30 @@ public class OozieDBExportCLI {
     private static final String HELP_CMD = "help";
     private static final String EXPORT_CMD = "export";
 
+    /**
+     * A table exported as one or more ranges of rows, split on its primary key.
+     */
+    private static class Table {
+        private final String name;
+        private final String entity;
+        private final String pk;
+        private final String fileName;
+
+        private Table(String name, String entity, String pk, String fileName) {
+            this.name = name;
+            this.entity = entity;
+            this.pk = pk;
+            this.fileName = fileName;
+        }
+    }
+
     public static void main(String[] args) {
 
         CLIParser parser = new CLIParser("oozie-setup.sh", HELP_INFO);
         parser.addCommand(HELP_CMD, "", "display usage for all commands or specified command", new Options(), false);
         parser.addCommand(EXPORT_CMD, "",
                 "exports the contents of the Oozie database to the specified file",
-                new Options(), true);
+                createExportOptions(), true);
 
         try {
             CLIParser.Command command = parser.parse(args);
@@ -94,7 +143,14 @@ public class OozieDBExportCLI {
                 services.getConf().set(Services.CONF_SERVICE_CLASSES, JPAService.class.getName());
                 services.getConf().set(Services.CONF_SERVICE_EXT_CLASSES, "");
                 services.init();
-                queryAllDBTables(command.getCommandLine().getArgs()[0]);
+                CommandLine commandLine = command.getCommandLine();
+                int threads = Integer.parseInt(commandLine.getOptionValue(THREADS_OPT, "1"));
+                int chunkSize = Integer.parseInt(commandLine.getOptionValue(CHUNK_SIZE_OPT,
+                        Integer.toString(DEFAULT_CHUNK_SIZE)));
+                if (threads < 1 || chunkSize < 1) {
+                    throw new ParseException("-" + THREADS_OPT + " and -" + CHUNK_SIZE_OPT + " must be positive");
+                }
+                queryAllDBTables(commandLine.getArgs()[0], threads, chunkSize);
             } else if (command.getName().equals(HELP_CMD)) {
                 parser.showHelp(command.getCommandLine());
             }
@@ -120,47 +176,85 @@ public class OozieDBExportCLI {
         }
     }
 
-    private static void queryAllDBTables(String filename) throws StoreException, IOException {
+    private static Options createExportOptions() {
+        Option threads = new Option(THREADS_OPT, true, "Number of threads exporting tables and ranges (default=1)");
+        Option chunkSize = new Option(CHUNK_SIZE_OPT, true, "Maximum number of rows per zip entry (default="
+                + DEFAULT_CHUNK_SIZE + ")");
+        Options options = new Options();
+        options.addOption(threads);
+        options.addOption(chunkSize);
+        return options;
+    }
+
+    /**
+     * Return the name of the zip entry holding a chunk of a table.
+     *
+     * @param fileName file name of the table.
+     * @param chunk chunk index, starting at 0.
+     * @return the zip entry name.
+     */
+    static String getChunkEntryName(String fileName, int chunk) {
+        return (chunk == 0) ? fileName : fileName + "." + chunk;
+    }
+
+    private static void queryAllDBTables(String filename, int threads, int chunkSize) throws StoreException, IOException {
 
         EntityManager manager = null;
-        ZipOutputStream zos = null;
+        ExecutorService executor = null;
         File file = null;
         try {
+            long start = System.currentTimeMillis();
             file = new File(filename);
-            zos = new ZipOutputStream(new FileOutputStream(file));
-            zos.setLevel(1);
+            File partsDir = new File(file.getAbsolutePath() + PARTS_SUFFIX);
+            if (!partsDir.isDirectory() && !partsDir.mkdirs()) {
+                throw new IOException("Could not create directory " + partsDir);
+            }
             manager = Services.get().get(JPAService.class).getEntityManager();
             manager.setFlushMode(FlushModeType.COMMIT);
 
-            int infoSize = exportTableToJSON(manager.createNativeQuery(GET_DB_VERSION), zos, OOZIEDB_SYS_INFO_JSON);
+            int infoSize = exportQueryToFile(manager.createNativeQuery(GET_DB_VERSION),
+                    new File(partsDir, OOZIEDB_SYS_INFO_JSON));
             System.out.println(infoSize + " rows exported from OOZIE_SYS");
 
-            int wfjSize = exportTableToJSON(manager.createQuery(GET_WORKFLOW_JOBS), zos, OOZIEDB_WF_JSON);
-            System.out.println(wfjSize + " rows exported from WF_JOBS");
-
-            int wfaSize = exportTableToJSON(manager.createQuery(GET_WORKFLOW_ACTIONS), zos, OOZIEDB_AC_JSON);
-            System.out.println(wfaSize + " rows exported from WF_ACTIONS");
-
-            int cojSize = exportTableToJSON(manager.createQuery(GET_COORD_JOBS), zos, OOZIEDB_CJ_JSON);
-            System.out.println(cojSize + " rows exported from COORD_JOBS");
-
-            int coaSize = exportTableToJSON(manager.createQuery(GET_COORD_ACTIONS), zos, OOZIEDB_CA_JSON);
-            System.out.println(coaSize + " rows exported from COORD_ACTIONS");
+            List<List<String>> boundaries = new ArrayList<List<String>>();
+            for (Table table : TABLES) {
+                boundaries.add(getRangeBoundaries(manager, table, chunkSize, partsDir));
+            }
 
-            int bnjSize = exportTableToJSON(manager.createQuery(GET_BUNDLE_JOBS), zos, OOZIEDB_BNJ_JSON);
-            System.out.println(bnjSize + " rows exported from BUNDLE_JOBS");
+            executor = Executors.newFixedThreadPool(threads, new NamedThreadFactory("OozieDBExport"));
+            List<List<Future<Integer>>> futures = new ArrayList<List<Future<Integer>>>();
+            for (int i = 0; i < TABLES.length; i++) {
+                List<Future<Integer>> tableFutures = new ArrayList<Future<Integer>>();
+                List<String> tableBoundaries = boundaries.get(i);
+                for (int chunk = 0; chunk <= tableBoundaries.size(); chunk++) {
+                    String lower = (chunk == 0) ? null : tableBoundaries.get(chunk - 1);
+                    String upper = (chunk == tableBoundaries.size()) ? null : tableBoundaries.get(chunk);
+                    File chunkFile = new File(partsDir, TABLES[i].fileName + "." + chunk);
+                    tableFutures.add(executor.submit(new RangeExporter(TABLES[i], lower, upper, chunkFile)));
+                }
+                futures.add(tableFutures);
+            }
 
-            int bnaSize = exportTableToJSON(manager.createQuery(GET_BUNDLE_ACIONS), zos, OOZIEDB_BNA_JSON);
-            System.out.println(bnaSize + " rows exported from BUNDLE_ACTIONS");
+            long total = infoSize;
+            for (int i = 0; i < TABLES.length; i++) {
+                int size = 0;
+                for (Future<Integer> future : futures.get(i)) {
+                    size += getResult(future);
+                }
+                total += size;
+                System.out.println(size + " rows exported from " + TABLES[i].name);
+            }
 
-            int slaRegSize = exportTableToJSON(manager.createQuery(GET_SLA_REGISTRATIONS), zos, OOZIEDB_SLAREG_JSON);
-            System.out.println(slaRegSize + " rows exported from SLA_REGISTRATION");
+            writeZip(file, partsDir, boundaries);
+            IOUtils.delete(partsDir);
 
-            int ssSize = exportTableToJSON(manager.createQuery(GET_SLA_SUMMARYS), zos, OOZIEDB_SLASUM_JSON);
-            System.out.println(ssSize + " rows exported from SLA_SUMMARY");
+            long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+            System.out.println(total + " rows exported in " + (elapsed / 1000.0) + " seconds ("
+                    + (total * 1000 / elapsed) + " rows/s)");
 
         } catch (Exception e){
             System.err.println("Error during dump creation: " + e.getMessage());
+            System.err.println("Completed ranges were kept, running the export again to the same file resumes it.");
             System.err.println();
             e.printStackTrace(System.err);
             System.err.println();
@@ -169,32 +263,224 @@ public class OozieDBExportCLI {
             }
             System.exit(1);
         } finally {
-            IOUtils.closeSafely(zos);
+            if (executor != null) {
+                executor.shutdownNow();
+            }
             if (manager != null) {
                 manager.close();
             }
         }
     }
 
-    private static int exportTableToJSON(Query query, ZipOutputStream zipOutputStream, String filename) throws IOException {
+    private static int getResult(Future<Integer> future) throws Exception {
+        try {
+            return future.get();
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Return the primary keys closing each range of a table but the last one, which is open ended. Only the primary
+     * key index is scanned, each boundary is found by skipping <code>chunkSize</code> keys after the previous one.
+     * <p/>
+     * The boundaries are saved in the parts directory, so that a resumed export splits the table the same way.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<String> getRangeBoundaries(EntityManager manager, Table table, int chunkSize, File partsDir)
+            throws IOException {
+        Gson gson = new Gson();
+        File rangesFile = new File(partsDir, table.fileName + RANGES_SUFFIX);
+        if (rangesFile.exists()) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(rangesFile), "UTF-8"));
+            try {
+                return gson.fromJson(reader, List.class);
+            }
+            finally {
+                reader.close();
+            }
+        }
+        List<String> boundaries = new ArrayList<String>();
+        String last = null;
+        while (true) {
+            Query query;
+            if (last == null) {
+                query = manager.createQuery("select w." + table.pk + " from " + table.entity + " w order by w."
+                        + table.pk);
+            }
+            else {
+                query = manager.createQuery("select w." + table.pk + " from " + table.entity + " w where w."
+                        + table.pk + " > :last order by w." + table.pk);
+                query.setParameter("last", last);
+            }
+            query.setFirstResult(chunkSize - 1);
+            query.setMaxResults(1);
+            List<?> result = query.getResultList();
+            if (result.isEmpty()) {
+                break;
+            }
+            last = (String) result.get(0);
+            boundaries.add(last);
+        }
+        File tmpFile = new File(partsDir, table.fileName + RANGES_SUFFIX + TMP_SUFFIX);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmpFile), "UTF-8"));
+        try {
+            gson.toJson(boundaries, writer);
+        }
+        finally {
+            writer.close();
+        }
+        rename(tmpFile, rangesFile);
+        return boundaries;
+    }
+
+    /**
+     * Exports the rows of a table with a primary key in <code>(lower, upper]</code>, a <code>null</code> bound meaning
+     * the range is open on that side. Rows are read in pages of {@link #LIMIT} rows, each page starting after the last
+     * primary key of the previous one. A range whose chunk file already exists is not exported again.
+     */
+    private static class RangeExporter implements Callable<Integer> {
+        private final Table table;
+        private final String lower;
+        private final String upper;
+        private final File chunkFile;
+
+        private RangeExporter(Table table, String lower, String upper, File chunkFile) {
+            this.table = table;
+            this.lower = lower;
+            this.upper = upper;
+            this.chunkFile = chunkFile;
+        }
+
+        @Override
+        public Integer call() throws Exception {
+            if (chunkFile.exists()) {
+                return countLines(chunkFile);
+            }
+            File tmpFile = new File(chunkFile.getPath() + TMP_SUFFIX);
+            EntityManager manager = Services.get().get(JPAService.class).getEntityManager();
+            BufferedWriter writer = null;
+            int exported = 0;
+            try {
+                manager.setFlushMode(FlushModeType.COMMIT);
+                writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmpFile), "UTF-8"));
+                Gson gson = new Gson();
+                String last = lower;
+                while (true) {
+                    Query query = manager.createQuery(getPageQuery(last != null));
+                    if (last != null) {
+                        query.setParameter("last", last);
+                    }
+                    if (upper != null) {
+                        query.setParameter("upper", upper);
+                    }
+                    query.setMaxResults(LIMIT);
+                    List<?> page = query.getResultList();
+                    for (Object row : page) {
+                        gson.toJson(((Object[]) row)[0], writer);
+                        writer.newLine();
+                    }
+                    exported += page.size();
+                    manager.clear();
+                    if (page.size() < LIMIT) {
+                        break;
+                    }
+                    last = (String) ((Object[]) page.get(page.size() - 1))[1];
+                }
+            }
+            finally {
+                IOUtils.closeSafely(writer);
+                manager.close();
+            }
+            rename(tmpFile, chunkFile);
+            return exported;
+        }
+
+        private String getPageQuery(boolean hasLower) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("select w, w.").append(table.pk).append(" from ").append(table.entity).append(" w");
+            if (hasLower) {
+                sb.append(" where w.").append(table.pk).append(" > :last");
+            }
+            if (upper != null) {
+                sb.append(hasLower ? " and" : " where").append(" w.").append(table.pk).append(" <= :upper");
+            }
+            sb.append(" order by w.").append(table.pk);
+            return sb.toString();
+        }
+    }
+
+    private static int exportQueryToFile(Query query, File file) throws IOException {
         Gson gson = new Gson();
-        ZipEntry zipEntry = new ZipEntry(filename);
-        zipOutputStream.putNextEntry(zipEntry);
-        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(zipOutputStream, "UTF-8"));
-        query.setMaxResults(LIMIT);
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
         int exported = 0;
-        List<?> list = query.getResultList();
-        while (!list.isEmpty()) {
-            query.setFirstResult(exported);
-            list = query.getResultList();
-            for (Object w : list) {
+        try {
+            for (Object w : query.getResultList()) {
                 exported++;
                 gson.toJson(w, writer);
                 writer.newLine();
             }
         }
-        writer.flush();
-        zipOutputStream.closeEntry();
+        finally {
+            writer.close();
+        }
         return exported;
     }
-}
\ No newline at end of file
+
+    private static void writeZip(File file, File partsDir, List<List<String>> boundaries) throws IOException {
+        ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            zos.setLevel(1);
+            copyToZip(new File(partsDir, OOZIEDB_SYS_INFO_JSON), OOZIEDB_SYS_INFO_JSON, zos);
+            for (int i = 0; i < TABLES.length; i++) {
+                for (int chunk = 0; chunk <= boundaries.get(i).size(); chunk++) {
+                    copyToZip(new File(partsDir, TABLES[i].fileName + "." + chunk),
+                            getChunkEntryName(TABLES[i].fileName, chunk), zos);
+                }
+            }
+        }
+        finally {
+            zos.close();
+        }
+    }
+
+    private static void copyToZip(File source, String entryName, ZipOutputStream zos) throws IOException {
+        zos.putNextEntry(new ZipEntry(entryName));
+        InputStream is = new FileInputStream(source);
+        try {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = is.read(buffer)) > -1) {
+                zos.write(buffer, 0, read);
+            }
+        }
+        finally {
+            is.close();
+        }
+        zos.closeEntry();
+    }
+
+    private static int countLines(File file) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            int lines = 0;
+            while (reader.readLine() != null) {
+                lines++;
+            }
+            return lines;
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    private static void rename(File from, File to) throws IOException {
+        if (!from.renameTo(to)) {
+            throw new IOException("Could not rename " + from + " to " + to);
+        }
+    }
+}
@@ -19,6 +19,8 @@
 package org.apache.oozie.tools;
 
 import com.google.gson.Gson;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 
 import org.apache.commons.cli.ParseException;
@@ -27,6 +29,7 @@ import org.apache.oozie.BundleJobBean;
 import org.apache.oozie.CoordinatorActionBean;
 import org.apache.oozie.CoordinatorJobBean;
 import org.apache.oozie.WorkflowActionBean;
+import org.apache.oozie.WorkflowDefinitionBean;
 import org.apache.oozie.WorkflowJobBean;
 import org.apache.oozie.cli.CLIParser;
 import org.apache.oozie.executor.jpa.JPAExecutorException;
@@ -35,16 +38,29 @@ import org.apache.oozie.service.Services;
 import org.apache.oozie.sla.SLARegistrationBean;
 import org.apache.oozie.sla.SLASummaryBean;
 import org.apache.oozie.store.StoreException;
+import org.apache.oozie.util.NamedThreadFactory;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
 import javax.persistence.FlushModeType;
 
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -58,6 +74,11 @@ import static org.apache.oozie.tools.OozieDBExportCLI.*;
  * <li>This class uses the current oozie configuration in oozie-site.xml</li>
  * </ul>
  * <p/>
+ * Rows are committed every <code>-batchsize</code> rows, the inserts of a transaction being sent to the database in
+ * JDBC batches. The zip entries of the tables are imported by <code>-threads</code> workers. The number of rows
+ * committed for each entry is recorded in a <code>&lt;file&gt;.checkpoint</code> file next to the zip file, created
+ * when the import starts, so that running the import again after a failure skips the rows already imported. The
+ * checkpoint file is deleted once the import completes.
  */
 
 
@@ -69,6 +90,11 @@ public class OozieDBImportCLI {
     private static final String IMPORT_CMD = "import";
     private static final String HELP_CMD = "help";
 
+    public static final String BATCH_SIZE_OPT = "batchsize";
+
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+
     public static void main(String[] args) throws ParseException {
 
 
@@ -76,7 +102,7 @@ public class OozieDBImportCLI {
         parser.addCommand(HELP_CMD, "", "display usage for all commands or specified command", new Options(), false);
         parser.addCommand(IMPORT_CMD, "",
                 "imports the contents of the Oozie database from the specified file",
-                new Options(), true);
+                createImportOptions(), true);
 
         try {
             CLIParser.Command command = parser.parse(args);
@@ -85,9 +111,16 @@ public class OozieDBImportCLI {
                 services.getConf().set(Services.CONF_SERVICE_CLASSES, JPAService.class.getName());
                 services.getConf().set(Services.CONF_SERVICE_EXT_CLASSES, "");
                 services.init();
+                CommandLine commandLine = command.getCommandLine();
+                int threads = Integer.parseInt(commandLine.getOptionValue(THREADS_OPT, "1"));
+                int batchSize = Integer.parseInt(commandLine.getOptionValue(BATCH_SIZE_OPT,
+                        Integer.toString(DEFAULT_BATCH_SIZE)));
+                if (threads < 1 || batchSize < 1) {
+                    throw new ParseException("-" + THREADS_OPT + " and -" + BATCH_SIZE_OPT + " must be positive");
+                }
                 System.out.println("==========================================================");
-                System.out.println(Arrays.toString(command.getCommandLine().getArgs()));
-                importAllDBTables(command.getCommandLine().getArgs()[0]);
+                System.out.println(Arrays.toString(commandLine.getArgs()));
+                importAllDBTables(commandLine.getArgs()[0], threads, batchSize);
             } else if (command.getName().equals(HELP_CMD)) {
                 parser.showHelp(command.getCommandLine());
             }
@@ -113,26 +146,65 @@ public class OozieDBImportCLI {
         }
     }
 
-    private static void importAllDBTables(String zipFileName) throws StoreException, IOException, JPAExecutorException {
+    private static Options createImportOptions() {
+        Option threads = new Option(THREADS_OPT, true, "Number of threads importing zip entries (default=1)");
+        Option batchSize = new Option(BATCH_SIZE_OPT, true, "Number of rows committed per transaction (default="
+                + DEFAULT_BATCH_SIZE + ")");
+        Options options = new Options();
+        options.addOption(threads);
+        options.addOption(batchSize);
+        return options;
+    }
+
+    private static void importAllDBTables(String zipFileName, int threads, int batchSize) throws StoreException,
+            IOException, JPAExecutorException {
 
         EntityManager entityManager = null;
         ZipFile zipFile = null;
+        ExecutorService executor = null;
         try {
-
+            long start = System.currentTimeMillis();
             entityManager = Services.get().get(JPAService.class).getEntityManager();
             entityManager.setFlushMode(FlushModeType.COMMIT);
             zipFile = new ZipFile(zipFileName);
             checkDBVersion(entityManager, zipFile);
-            importFrom(entityManager, zipFile, "WF_JOBS", WorkflowJobBean.class, OOZIEDB_WF_JSON);
-            importFrom(entityManager, zipFile, "WF_ACTIONS", WorkflowActionBean.class, OOZIEDB_AC_JSON);
-            importFrom(entityManager, zipFile, "COORD_JOBS", CoordinatorJobBean.class, OOZIEDB_CJ_JSON);
-            importFrom(entityManager, zipFile, "COORD_ACTIONS", CoordinatorActionBean.class, OOZIEDB_CA_JSON);
-            importFrom(entityManager, zipFile, "BUNDLE_JOBS", BundleJobBean.class, OOZIEDB_BNJ_JSON);
-            importFrom(entityManager, zipFile, "BUNDLE_ACTIONS", BundleActionBean.class, OOZIEDB_BNA_JSON);
-            importFrom(entityManager, zipFile, "SLA_REGISTRATION", SLARegistrationBean.class, OOZIEDB_SLAREG_JSON);
-            importFrom(entityManager, zipFile, "SLA_SUMMARY", SLASummaryBean.class, OOZIEDB_SLASUM_JSON);
+            Checkpoint checkpoint = new Checkpoint(new File(zipFileName + CHECKPOINT_SUFFIX));
+            executor = Executors.newFixedThreadPool(threads, new NamedThreadFactory("OozieDBImport"));
+
+            List<TableImport> imports = new ArrayList<TableImport>();
+            imports.add(importFrom(executor, zipFile, checkpoint, batchSize, "WF_JOBS", WorkflowJobBean.class,
+                    OOZIEDB_WF_JSON));
+            imports.add(importFrom(executor, zipFile, checkpoint, batchSize, "WF_ACTIONS", WorkflowActionBean.class,
+                    OOZIEDB_AC_JSON));
+            imports.add(importFrom(executor, zipFile, checkpoint, batchSize, "COORD_JOBS", CoordinatorJobBean.class,
+                    OOZIEDB_CJ_JSON));
+            imports.add(importFrom(executor, zipFile, checkpoint, batchSize, "COORD_ACTIONS",
+                    CoordinatorActionBean.class, OOZIEDB_CA_JSON));
+            imports.add(importFrom(executor, zipFile, checkpoint, batchSize, "BUNDLE_JOBS", BundleJobBean.class,
+                    OOZIEDB_BNJ_JSON));
+            imports.add(importFrom(executor, zipFile, checkpoint, batchSize, "BUNDLE_ACTIONS", BundleActionBean.class,
+                    OOZIEDB_BNA_JSON));
+            imports.add(importFrom(executor, zipFile, checkpoint, batchSize, "SLA_REGISTRATION",
+                    SLARegistrationBean.class, OOZIEDB_SLAREG_JSON));
+            imports.add(importFrom(executor, zipFile, checkpoint, batchSize, "SLA_SUMMARY", SLASummaryBean.class,
+                    OOZIEDB_SLASUM_JSON));
+            imports.add(importFrom(executor, zipFile, checkpoint, batchSize, "WF_DEFINITIONS",
+                    WorkflowDefinitionBean.class, OOZIEDB_WFDEF_JSON));
+
+            long total = 0;
+            for (TableImport tableImport : imports) {
+                total += tableImport.waitFor();
+            }
+            checkpoint.delete();
+
+            long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+            System.out.println(total + " rows imported in " + (elapsed / 1000.0) + " seconds ("
+                    + (total * 1000 / elapsed) + " rows/s)");
 
         } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
             if (entityManager != null) {
                 entityManager.close();
             }
@@ -178,37 +250,190 @@ public class OozieDBImportCLI {
         }
     }
 
-    private static void importFrom(EntityManager entityManager, ZipFile zipFile, String table,
-                                   Class<?> clazz, String fileName) throws JPAExecutorException, IOException {
-        EntityTransaction transaction = entityManager.getTransaction();
-        transaction.begin();
-        try {
-            int size = importFromJSONtoDB(entityManager, zipFile, fileName, clazz);
-            transaction.commit();
+
+    /**
+     * Submits the import of all the zip entries of a table, the first one named after the table file and the following
+     * ones suffixed with <code>.1</code>, <code>.2</code>, etc.
+     */
+    private static TableImport importFrom(ExecutorService executor, ZipFile zipFile, Checkpoint checkpoint,
+                                          int batchSize, String table, Class<?> clazz, String fileName) {
+        TableImport tableImport = new TableImport(table);
+        for (int chunk = 0; ; chunk++) {
+            ZipEntry entry = zipFile.getEntry(getChunkEntryName(fileName, chunk));
+            if (entry == null) {
+                break;
+            }
+            tableImport.futures.add(executor.submit(
+                    new EntryImporter(zipFile, entry, clazz, checkpoint, batchSize)));
+        }
+        return tableImport;
+    }
+
+    private static class TableImport {
+        private final String table;
+        private final List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+
+        private TableImport(String table) {
+            this.table = table;
+        }
+
+        private int waitFor() {
+            int size = 0;
+            try {
+                for (Future<Integer> future : futures) {
+                    size += future.get();
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Import interrupted to table " + table + ".", e);
+            }
+            catch (ExecutionException e) {
+                throw new RuntimeException("Import failed to table " + table + ".", e.getCause());
+            }
             System.out.println(size + " rows imported to " + table);
-        } catch (Exception e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
+            return size;
+        }
+    }
+
+    /**
+     * Imports the rows of a zip entry, committing every <code>batchSize</code> rows. Rows committed by a previous run
+     * according to the checkpoint are skipped. As a batch may have been committed without being recorded in the
+     * checkpoint, the first batch of each entry is merged instead of inserted when a previous run left a checkpoint,
+     * even if it recorded no rows for the entry.
+     */
+    private static class EntryImporter implements Callable<Integer> {
+        private final ZipFile zipFile;
+        private final ZipEntry entry;
+        private final Class<?> clazz;
+        private final Checkpoint checkpoint;
+        private final int batchSize;
+
+        private EntryImporter(ZipFile zipFile, ZipEntry entry, Class<?> clazz, Checkpoint checkpoint, int batchSize) {
+            this.zipFile = zipFile;
+            this.entry = entry;
+            this.clazz = clazz;
+            this.checkpoint = checkpoint;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public Integer call() throws Exception {
+            int committed = checkpoint.get(entry.getName());
+            boolean resumed = checkpoint.isResumed();
+            int imported = 0;
+            Gson gson = new Gson();
+            EntityManager entityManager = Services.get().get(JPAService.class).getEntityManager();
+            BufferedReader reader = null;
+            EntityTransaction transaction = null;
+            try {
+                entityManager.setFlushMode(FlushModeType.COMMIT);
+                reader = new BufferedReader(new InputStreamReader(zipFile.getInputStream(entry), "UTF-8"));
+                for (int i = 0; i < committed; i++) {
+                    if (reader.readLine() == null) {
+                        return 0;
+                    }
+                }
+                transaction = entityManager.getTransaction();
+                transaction.begin();
+                int pending = 0;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Object bean = gson.fromJson(line, clazz);
+                    if (resumed) {
+                        entityManager.merge(bean);
+                    }
+                    else {
+                        entityManager.persist(bean);
+                    }
+                    if (++pending == batchSize) {
+                        transaction.commit();
+                        committed += pending;
+                        imported += pending;
+                        checkpoint.set(entry.getName(), committed);
+                        entityManager.clear();
+                        resumed = false;
+                        pending = 0;
+                        transaction.begin();
+                    }
+                }
+                transaction.commit();
+                committed += pending;
+                imported += pending;
+                checkpoint.set(entry.getName(), committed);
+                return imported;
+            }
+            catch (Exception e) {
+                if (transaction != null && transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+            finally {
+                if (reader != null) {
+                    reader.close();
+                }
+                entityManager.close();
             }
-            throw new RuntimeException("Import failed to table " + table + ".", e);
         }
     }
 
-    private static <E> int importFromJSONtoDB(EntityManager entityManager, ZipFile zipFile, String filename, Class<E> clazz)
-            throws JPAExecutorException, IOException {
-        int wfjSize = 0;
-        Gson gson = new Gson();
-        ZipEntry entry = zipFile.getEntry(filename);
-        if (entry != null) {
-            BufferedReader reader = new BufferedReader(new InputStreamReader(zipFile.getInputStream(entry), "UTF-8"));
-            String line;
-            while ((line = reader.readLine()) != null) {
-                E workflow = gson.fromJson(line, clazz);
-                entityManager.persist(workflow);
-                wfjSize++;
+    /**
+     * Number of rows committed for each zip entry, saved to a properties file after every commit. The file is written
+     * before the first commit, so that a run failing before recording its first commit is still seen as resumed.
+     */
+    private static class Checkpoint {
+        private final File file;
+        private final Properties committed = new Properties();
+        private final boolean resumed;
+
+        private Checkpoint(File file) throws IOException {
+            this.file = file;
+            resumed = file.exists();
+            if (resumed) {
+                InputStream is = new FileInputStream(file);
+                try {
+                    committed.load(is);
+                }
+                finally {
+                    is.close();
+                }
+                System.out.println("Resuming import from checkpoint " + file);
             }
-            reader.close();
+            else {
+                store();
+            }
+        }
+
+        private boolean isResumed() {
+            return resumed;
+        }
+
+        private synchronized int get(String entryName) {
+            return Integer.parseInt(committed.getProperty(entryName, "0"));
+        }
+
+        private synchronized void set(String entryName, int rows) throws IOException {
+            committed.setProperty(entryName, Integer.toString(rows));
+            store();
+        }
+
+        private synchronized void store() throws IOException {
+            File tmpFile = new File(file.getPath() + ".tmp");
+            OutputStream os = new FileOutputStream(tmpFile);
+            try {
+                committed.store(os, null);
+            }
+            finally {
+                os.close();
+            }
+            if (!tmpFile.renameTo(file) && !(file.delete() && tmpFile.renameTo(file))) {
+                throw new IOException("Could not write checkpoint " + file);
+            }
+        }
+
+        private synchronized void delete() {
+            file.delete();
         }
-        return wfjSize;
     }
-}
\ No newline at end of file
+}
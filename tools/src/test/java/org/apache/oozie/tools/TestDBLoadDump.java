@@ -34,6 +34,7 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStreamReader;
+import java.util.Arrays;
 import java.util.List;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
@@ -86,13 +87,61 @@ public class TestDBLoadDump extends XTestCase {
         File newZipDump = new File(getTestCaseDir() + System.getProperty("file.separator") + "newDumpTest.zip");
         //export the contents of the database
         OozieDBExportCLI.main(new String[]{"export", newZipDump.getAbsolutePath()});
-        assertEquals(zipDump.length(), newZipDump.length());
+        assertFalse(new File(zipDump.getAbsolutePath() + ".checkpoint").exists());
+        assertFalse(new File(newZipDump.getAbsolutePath() + ".parts").exists());
         ZipFile zip = new ZipFile(newZipDump);
+        ZipFile originalZip = new ZipFile(zipDump);
         // check that dump is identical with the original input
+        for (String fileName : Arrays.asList(OozieDBExportCLI.OOZIEDB_WF_JSON, OozieDBExportCLI.OOZIEDB_AC_JSON,
+                OozieDBExportCLI.OOZIEDB_CJ_JSON, OozieDBExportCLI.OOZIEDB_CA_JSON)) {
+            assertEquals(fileName, countRows(originalZip, fileName), countRows(zip, fileName));
+        }
         BufferedReader reader = new BufferedReader(new InputStreamReader(
                 zip.getInputStream(zip.getEntry("ooziedb_wf.json"))));
         assertTrue(reader.readLine().contains("0000003-160720041037822-oozie-oozi-W"));
+        zip.close();
+
+        // export again in ranges of 2 rows with 2 threads
+        File chunkedZipDump = new File(getTestCaseDir() + System.getProperty("file.separator") + "chunkedDumpTest.zip");
+        OozieDBExportCLI.main(new String[]{"export", "-threads", "2", "-chunksize", "2",
+                chunkedZipDump.getAbsolutePath()});
+        zip = new ZipFile(chunkedZipDump);
+        assertEquals(2, countLines(zip, "ooziedb_ac.json"));
+        assertEquals(1, countLines(zip, "ooziedb_ac.json.1"));
+        assertNull(zip.getEntry("ooziedb_ac.json.2"));
+        assertEquals(1, countLines(zip, "ooziedb_wf.json"));
+        assertNull(zip.getEntry("ooziedb_wf.json.1"));
+        for (String fileName : Arrays.asList(OozieDBExportCLI.OOZIEDB_WF_JSON, OozieDBExportCLI.OOZIEDB_AC_JSON,
+                OozieDBExportCLI.OOZIEDB_CJ_JSON, OozieDBExportCLI.OOZIEDB_CA_JSON)) {
+            assertEquals(fileName, countRows(originalZip, fileName), countRows(zip, fileName));
+        }
+        zip.close();
+        originalZip.close();
+
+        // a run that committed rows before recording them leaves an empty checkpoint, the rows are merged on resume
+        File checkpoint = new File(zipDump.getAbsolutePath() + ".checkpoint");
+        new FileOutputStream(checkpoint).close();
+        OozieDBImportCLI.main(new String[]{"import", zipDump.getAbsolutePath()});
+        assertFalse(checkpoint.exists());
+        assertEquals(1, getEntityManager().createNamedQuery("GET_WORKFLOWS").getResultList().size());
+    }
 
+    private int countRows(ZipFile zip, String fileName) throws Exception {
+        int rows = 0;
+        for (int chunk = 0; zip.getEntry(OozieDBExportCLI.getChunkEntryName(fileName, chunk)) != null; chunk++) {
+            rows += countLines(zip, OozieDBExportCLI.getChunkEntryName(fileName, chunk));
+        }
+        return rows;
+    }
+
+    private int countLines(ZipFile zip, String entryName) throws Exception {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(zip.getInputStream(zip.getEntry(entryName))));
+        int lines = 0;
+        while (reader.readLine() != null) {
+            lines++;
+        }
+        reader.close();
+        return lines;
     }
 
     private void createOozieSysTable(EntityManager entityManager) throws Exception {
@@ -21,11 +21,13 @@ package org.apache.oozie.tools;
 
 import org.apache.hadoop.fs.FileUtil;
 import org.apache.oozie.test.XTestCase;
+import org.apache.oozie.util.IOUtils;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileReader;
 import java.io.PrintStream;
 import java.sql.Connection;
 import java.sql.DriverManager;
@@ -87,6 +89,7 @@ public class TestOozieDBCLI extends XTestCase {
         int result = execOozieDBCLICommands(argsCreate);
         assertEquals(0, result);
         assertTrue(createSql.exists());
+        assertTrue(IOUtils.getReaderAsString(new FileReader(createSql), -1).toUpperCase().contains("WF_DEFINITIONS"));
 
         ByteArrayOutputStream data = new ByteArrayOutputStream();
         PrintStream oldOut = System.out;
@@ -132,6 +135,14 @@ public class TestOozieDBCLI extends XTestCase {
         File postUpgrade = new File(getTestCaseConfDir() + File.separator + "postUpdate.sql");
         String[] argsPostUpgrade = { "postupgrade", "-sqlfile", postUpgrade.getAbsolutePath(), "-run" };
         assertEquals(0, execOozieDBCLICommands(argsPostUpgrade));
+
+        // the workflow definition store table is added to a DB already at the current db.version
+        execSQL("DROP table WF_DEFINITIONS");
+        File addTable = new File(getTestCaseConfDir() + File.separator + "addTable.sql");
+        String[] argsAddTable = { "upgrade", "-sqlfile", addTable.getAbsolutePath(), "-run" };
+        assertEquals(0, execOozieDBCLICommands(argsAddTable));
+        assertTrue(IOUtils.getReaderAsString(new FileReader(addTable), -1).toUpperCase().contains("WF_DEFINITIONS"));
+        execSQL("DELETE FROM WF_DEFINITIONS");
     }
 
     private int execOozieDBCLICommands(String[] args) {